@@ -0,0 +1,129 @@
+package org.example.gestiondesdocuments.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.ErrorResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.time.Duration;
+
+/**
+ * Contrôle d'admission des uploads (classiques et par morceaux), appliqué avant que le corps de la
+ * requête ne soit lu : une requête refusée (limite de concurrence atteinte après attente, ou disque
+ * presque plein) reçoit un 503 avec Retry-After et la connexion est fermée, sans que Tomcat ne
+ * mette le fichier en tampon.
+ */
+@Slf4j
+public class AdmissionUploadFilter extends OncePerRequestFilter {
+
+    private final LimiteurConcurrence limiteur;
+    private final FileStore disque;
+    private final long espaceMin;
+    private final long attenteMaxNanos;
+    private final Duration retryAfter;
+    private final Duration retryAfterDisque;
+    private final ObjectMapper objectMapper;
+    private final Counter admis;
+    private final Counter admisApresAttente;
+    private final Counter rejetes;
+    private final Counter rejetesDisque;
+    private final Timer attente;
+
+    public AdmissionUploadFilter(LimiteurConcurrence limiteur, FileStore disque, long espaceMin, Duration attenteMax,
+                                 Duration retryAfter, Duration retryAfterDisque, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry) {
+        this.limiteur = limiteur;
+        this.disque = disque;
+        this.espaceMin = espaceMin;
+        this.attenteMaxNanos = attenteMax.toNanos();
+        this.retryAfter = retryAfter;
+        this.retryAfterDisque = retryAfterDisque;
+        this.objectMapper = objectMapper;
+        this.admis = admission(meterRegistry, "admis");
+        this.admisApresAttente = admission(meterRegistry, "admis_apres_attente");
+        this.rejetes = admission(meterRegistry, "rejete");
+        this.rejetesDisque = admission(meterRegistry, "disque_plein");
+        this.attente = Timer.builder("documents.upload.admission.attente")
+                .description("Attente d'une place avant le traitement d'un upload")
+                .register(meterRegistry);
+        Gauge.builder("documents.upload.admission.en_cours", limiteur, LimiteurConcurrence::enCours)
+                .description("Uploads en cours de traitement")
+                .register(meterRegistry);
+        Gauge.builder("documents.upload.admission.en_attente", limiteur, LimiteurConcurrence::enAttente)
+                .description("Uploads en attente d'une place")
+                .register(meterRegistry);
+        Gauge.builder("documents.upload.admission.limite", limiteur, LimiteurConcurrence::limite)
+                .description("Nombre maximal d'uploads traités en parallèle")
+                .register(meterRegistry);
+    }
+
+    private static Counter admission(MeterRegistry meterRegistry, String resultat) {
+        return Counter.builder("documents.upload.admission")
+                .description("Décisions d'admission des uploads")
+                .tag("resultat", resultat)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Resumable uploads: chunks (PATCH) and the finalization (POST) write to disk, offset queries do not
+        return !"POST".equals(request.getMethod()) && !"PATCH".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (disque.getUsableSpace() < espaceMin + Math.max(0, request.getContentLengthLong())) {
+            rejetesDisque.increment();
+            log.warn("Upload refusé : espace disque insuffisant ({} octets libres)", disque.getUsableSpace());
+            refuser(response, retryAfterDisque, "Espace de stockage insuffisant, réessayez plus tard");
+            return;
+        }
+
+        long debut = System.nanoTime();
+        boolean place;
+        try {
+            place = limiteur.acquerir(attenteMaxNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            place = false;
+        }
+        long attendu = System.nanoTime() - debut;
+        attente.record(Duration.ofNanos(attendu));
+        if (!place) {
+            rejetes.increment();
+            refuser(response, retryAfter, "Trop d'uploads en cours, réessayez plus tard");
+            return;
+        }
+        // Anything beyond a lock handoff means the request waited in the queue
+        (attendu > 1_000_000 ? admisApresAttente : admis).increment();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiteur.liberer();
+        }
+    }
+
+    private void refuser(HttpServletResponse response, Duration retry, String message) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retry.toSeconds())));
+        // The body was not read: closing stops Tomcat from draining it to keep the connection alive
+        response.setHeader(HttpHeaders.CONNECTION, "close");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse("Erreur", message));
+    }
+}
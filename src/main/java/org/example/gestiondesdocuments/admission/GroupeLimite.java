@@ -0,0 +1,32 @@
+package org.example.gestiondesdocuments.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Groupes d'endpoints soumis à une limite de débit, chacun avec ses propres seaux.
+ */
+public enum GroupeLimite {
+    AUTH,
+    UPLOAD,
+    LISTING,
+    COMPTABLE;
+
+    /**
+     * Le groupe de la requête, ou null si elle n'est pas limitée (administration, actuator).
+     */
+    public static GroupeLimite de(HttpServletRequest request) {
+        String chemin = request.getRequestURI();
+        boolean lecture = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        if (chemin.startsWith("/api/auth/")) {
+            return AUTH;
+        }
+        if (chemin.startsWith("/api/documents/comptable/") || chemin.startsWith("/api/comptable/")) {
+            return lecture ? LISTING : COMPTABLE;
+        }
+        if (chemin.startsWith("/api/documents/") || chemin.startsWith("/api/societe/")) {
+            // Offset queries of a resumable upload are part of the upload
+            return lecture && !chemin.startsWith("/api/documents/uploads/") ? LISTING : UPLOAD;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.gestiondesdocuments.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.gestiondesdocuments.dto.ErrorResponse;
+import org.example.gestiondesdocuments.security.UtilisateurConnecte;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applique les limites de débit de {@link LimiteurDebit} et renvoie les en-têtes RateLimit-Limit,
+ * RateLimit-Remaining et RateLimit-Reset (draft IETF) ; au-delà, 429 avec Retry-After. Les requêtes
+ * authentifiées sont comptées par utilisateur et par société, la connexion par adresse IP.
+ */
+public class LimiteDebitFilter extends OncePerRequestFilter {
+
+    public static final String RATELIMIT_LIMIT = "RateLimit-Limit";
+    public static final String RATELIMIT_REMAINING = "RateLimit-Remaining";
+    public static final String RATELIMIT_RESET = "RateLimit-Reset";
+
+    private final LimiteurDebit limiteur;
+    private final ObjectMapper objectMapper;
+    private final Map<GroupeLimite, Counter> autorisees = new EnumMap<>(GroupeLimite.class);
+    private final Map<GroupeLimite, Counter> refusees = new EnumMap<>(GroupeLimite.class);
+
+    public LimiteDebitFilter(LimiteurDebit limiteur, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.limiteur = limiteur;
+        this.objectMapper = objectMapper;
+        for (GroupeLimite groupe : GroupeLimite.values()) {
+            autorisees.put(groupe, compteur(meterRegistry, groupe, "autorisee"));
+            refusees.put(groupe, compteur(meterRegistry, groupe, "refusee"));
+        }
+    }
+
+    private static Counter compteur(MeterRegistry meterRegistry, GroupeLimite groupe, String resultat) {
+        return Counter.builder("documents.limites")
+                .description("Décisions des limites de débit")
+                .tag("groupe", groupe.name().toLowerCase())
+                .tag("resultat", resultat)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        GroupeLimite groupe = GroupeLimite.de(request);
+        LimiteurDebit.Decision decision = groupe != null ? verifier(groupe, request) : null;
+        if (decision == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader(RATELIMIT_LIMIT, String.valueOf(decision.limite()));
+        response.setHeader(RATELIMIT_REMAINING, String.valueOf(decision.restant()));
+        response.setHeader(RATELIMIT_RESET, String.valueOf(secondes(decision.resetNanos())));
+        if (decision.autorisee()) {
+            autorisees.get(groupe).increment();
+            chain.doFilter(request, response);
+            return;
+        }
+
+        refusees.get(groupe).increment();
+        long attente = secondes(decision.attenteNanos());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(attente));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse("Erreur", "Trop de requêtes, réessayez dans " + attente + " s"));
+    }
+
+    private LimiteurDebit.Decision verifier(GroupeLimite groupe, HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UtilisateurConnecte utilisateur) {
+            return limiteur.verifier(groupe, utilisateur.getUsername(), utilisateur.getSocieteId());
+        }
+        // Login requests, before any authentication
+        return limiteur.verifier(groupe, request.getRemoteAddr(), null);
+    }
+
+    private static long secondes(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.gestiondesdocuments.admission;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limite le nombre d'uploads traités en même temps, avec une petite file d'attente bornée.
+ *
+ * En mode adaptatif, la limite suit la latence d'écriture disque observée (AIMD) : +1 par fenêtre
+ * de requêtes tant que les écritures restent sous la latence cible et que la limite est réellement
+ * atteinte, réduction de 10 % dès qu'une écriture la dépasse (au plus une fois par fenêtre, pour ne
+ * pas s'effondrer sur une rafale d'échantillons lents). En mode fixe, la limite ne bouge pas.
+ */
+public class LimiteurConcurrence {
+
+    private static final double FACTEUR_REDUCTION = 0.9;
+
+    private final ReentrantLock verrou = new ReentrantLock();
+    private final Condition libre = verrou.newCondition();
+    private final boolean adaptatif;
+    private final double limiteMin;
+    private final double limiteMax;
+    private final long latenceCibleNanos;
+    private final int fileMax;
+    private double limite;
+    private int enCours;
+    private int enAttente;
+    // Samples left before another decrease is allowed
+    private int echantillonsAvantReduction;
+
+    public LimiteurConcurrence(boolean adaptatif, int limiteInitiale, int limiteMin, int limiteMax,
+                               long latenceCibleNanos, int fileMax) {
+        this.adaptatif = adaptatif;
+        this.limite = limiteInitiale;
+        this.limiteMin = limiteMin;
+        this.limiteMax = limiteMax;
+        this.latenceCibleNanos = latenceCibleNanos;
+        this.fileMax = fileMax;
+    }
+
+    /**
+     * Prend une place, en attendant au plus attenteMaxNanos si la file n'est pas pleine.
+     *
+     * @return false si la requête doit être refusée
+     */
+    public boolean acquerir(long attenteMaxNanos) throws InterruptedException {
+        verrou.lock();
+        try {
+            if (enCours < (int) limite) {
+                enCours++;
+                return true;
+            }
+            if (enAttente >= fileMax) {
+                return false;
+            }
+            enAttente++;
+            try {
+                long restant = attenteMaxNanos;
+                while (enCours >= (int) limite) {
+                    if (restant <= 0) {
+                        return false;
+                    }
+                    restant = libre.awaitNanos(restant);
+                }
+                enCours++;
+                return true;
+            } finally {
+                enAttente--;
+            }
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    public void liberer() {
+        verrou.lock();
+        try {
+            enCours--;
+            libre.signal();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Latence d'une écriture disque d'upload, qui fait évoluer la limite en mode adaptatif.
+     */
+    public void enregistrerLatence(long nanos) {
+        if (!adaptatif) {
+            return;
+        }
+        verrou.lock();
+        try {
+            if (echantillonsAvantReduction > 0) {
+                echantillonsAvantReduction--;
+            }
+            if (nanos > latenceCibleNanos) {
+                if (echantillonsAvantReduction == 0) {
+                    limite = Math.max(limiteMin, limite * FACTEUR_REDUCTION);
+                    echantillonsAvantReduction = (int) limite;
+                }
+            } else if (enCours + enAttente >= (int) limite) {
+                // Only a limit that is actually reached grows, so an idle period does not inflate it
+                int avant = (int) limite;
+                limite = Math.min(limiteMax, limite + 1 / limite);
+                if ((int) limite > avant) {
+                    libre.signal();
+                }
+            }
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    public int limite() {
+        return (int) limite;
+    }
+
+    public int enCours() {
+        return enCours;
+    }
+
+    public int enAttente() {
+        return enAttente;
+    }
+}
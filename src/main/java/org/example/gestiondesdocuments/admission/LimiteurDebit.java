@@ -0,0 +1,139 @@
+package org.example.gestiondesdocuments.admission;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limites de débit par groupe d'endpoints, avec un seau par utilisateur et un seau par société :
+ * une requête doit obtenir un jeton des deux. Le chemin d'une requête est sans verrou (lecture de
+ * ConcurrentHashMap puis compare-and-set sur le seau) ; les seaux redevenus pleins sont supprimés
+ * par {@link #evincer()}.
+ */
+public class LimiteurDebit {
+
+    private static final long ORIGINE = System.nanoTime();
+
+    private final Map<GroupeLimite, Regles> regles = new EnumMap<>(GroupeLimite.class);
+
+    /**
+     * Limite d'un seau : débit en jetons par seconde, rafale = nombre de jetons du seau plein.
+     */
+    public record Limite(double debit, int rafale) {
+
+        long intervalle() {
+            return Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / debit));
+        }
+    }
+
+    /**
+     * Décision pour une requête, avec ce qu'il faut pour les en-têtes RateLimit-* du seau le plus
+     * contraignant.
+     */
+    public record Decision(boolean autorisee, int limite, long restant, long resetNanos, long attenteNanos) {
+    }
+
+    public void configurer(GroupeLimite groupe, Limite utilisateur, Limite societe) {
+        regles.put(groupe, new Regles(utilisateur, societe));
+    }
+
+    /**
+     * Null when the group has no limit.
+     */
+    public Decision verifier(GroupeLimite groupe, String utilisateur, Long societeId) {
+        Regles r = regles.get(groupe);
+        if (r == null) {
+            return null;
+        }
+        long maintenant = maintenant();
+        Decision decision = null;
+        SeauJetons seauUtilisateur = null;
+        if (r.utilisateur != null && utilisateur != null) {
+            seauUtilisateur = seau(r.parUtilisateur, utilisateur);
+            decision = decider(seauUtilisateur.prendre(maintenant, r.intervalleUtilisateur, r.fenetreUtilisateur),
+                    r.utilisateur, r.intervalleUtilisateur);
+            if (!decision.autorisee()) {
+                return decision;
+            }
+        }
+        if (r.societe != null && societeId != null) {
+            Decision societe = decider(seau(r.parSociete, societeId).prendre(maintenant, r.intervalleSociete, r.fenetreSociete),
+                    r.societe, r.intervalleSociete);
+            if (!societe.autorisee()) {
+                if (seauUtilisateur != null) {
+                    seauUtilisateur.rendre(r.intervalleUtilisateur);
+                }
+                return societe;
+            }
+            if (decision == null || societe.restant() < decision.restant()) {
+                decision = societe;
+            }
+        }
+        return decision;
+    }
+
+    /**
+     * Supprime les seaux pleins : ils n'ont plus rien à mémoriser.
+     *
+     * @return le nombre de seaux supprimés
+     */
+    public int evincer() {
+        long maintenant = maintenant();
+        int evinces = 0;
+        for (Regles r : regles.values()) {
+            int avant = r.parUtilisateur.size() + r.parSociete.size();
+            r.parUtilisateur.values().removeIf(s -> s.estPlein(maintenant));
+            r.parSociete.values().removeIf(s -> s.estPlein(maintenant));
+            evinces += avant - r.parUtilisateur.size() - r.parSociete.size();
+        }
+        return evinces;
+    }
+
+    public int nombreSeaux() {
+        int total = 0;
+        for (Regles r : regles.values()) {
+            total += r.parUtilisateur.size() + r.parSociete.size();
+        }
+        return total;
+    }
+
+    private static long maintenant() {
+        return System.nanoTime() - ORIGINE;
+    }
+
+    private static <K> SeauJetons seau(ConcurrentHashMap<K, SeauJetons> seaux, K cle) {
+        // get() does not lock; computeIfAbsent only runs for a new key
+        SeauJetons seau = seaux.get(cle);
+        return seau != null ? seau : seaux.computeIfAbsent(cle, k -> new SeauJetons());
+    }
+
+    private static Decision decider(long resultat, Limite limite, long intervalle) {
+        if (resultat < 0) {
+            return new Decision(false, limite.rafale(), 0, -resultat, -resultat);
+        }
+        long restant = (intervalle * limite.rafale() - resultat) / intervalle;
+        return new Decision(true, limite.rafale(), restant, resultat, 0);
+    }
+
+    private static final class Regles {
+
+        private final Limite utilisateur;
+        private final Limite societe;
+        private final long intervalleUtilisateur;
+        private final long fenetreUtilisateur;
+        private final long intervalleSociete;
+        private final long fenetreSociete;
+        private final ConcurrentHashMap<String, SeauJetons> parUtilisateur = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, SeauJetons> parSociete = new ConcurrentHashMap<>();
+
+        Regles(Limite utilisateur, Limite societe) {
+            this.utilisateur = utilisateur;
+            this.societe = societe;
+            this.intervalleUtilisateur = utilisateur != null ? utilisateur.intervalle() : 0;
+            this.fenetreUtilisateur = utilisateur != null ? intervalleUtilisateur * utilisateur.rafale() : 0;
+            this.intervalleSociete = societe != null ? societe.intervalle() : 0;
+            this.fenetreSociete = societe != null ? intervalleSociete * societe.rafale() : 0;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.gestiondesdocuments.admission;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Seau à jetons sous forme GCRA : tout l'état tient dans un long, l'instant théorique où le seau
+ * sera de nouveau plein, mis à jour par compare-and-set. Un seau plein n'a plus d'état utile et
+ * peut être supprimé sans rien perdre.
+ */
+final class SeauJetons {
+
+    private static final VarHandle PLEIN_A;
+
+    static {
+        try {
+            PLEIN_A = MethodHandles.lookup().findVarHandle(SeauJetons.class, "pleinA", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Nanoseconds on the limiter's clock; at or before "now" the bucket is full
+    @SuppressWarnings("unused")
+    private volatile long pleinA;
+
+    /**
+     * Prend un jeton. Rend le délai avant que le seau soit de nouveau plein si le jeton est accordé
+     * (>= 0), sinon l'opposé de l'attente avant le prochain jeton (< 0).
+     */
+    long prendre(long maintenant, long intervalle, long fenetre) {
+        while (true) {
+            long actuel = (long) PLEIN_A.getVolatile(this);
+            long suivant = Math.max(actuel, maintenant) + intervalle;
+            long delai = suivant - maintenant;
+            if (delai > fenetre) {
+                return -(delai - fenetre);
+            }
+            if (PLEIN_A.compareAndSet(this, actuel, suivant)) {
+                return delai;
+            }
+        }
+    }
+
+    // Gives back a token taken for a request that another bucket refused
+    void rendre(long intervalle) {
+        PLEIN_A.getAndAdd(this, -intervalle);
+    }
+
+    boolean estPlein(long maintenant) {
+        return (long) PLEIN_A.getVolatile(this) <= maintenant;
+    }
+}
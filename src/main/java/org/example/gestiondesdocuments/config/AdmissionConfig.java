@@ -0,0 +1,61 @@
+package org.example.gestiondesdocuments.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.admission.AdmissionUploadFilter;
+import org.example.gestiondesdocuments.admission.LimiteurConcurrence;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Contrôle d'admission de l'upload de documents. Le filtre passe avant Spring Security : un refus
+ * ne coûte ni la validation du JWT ni la lecture du corps de la requête.
+ */
+@Configuration
+@Slf4j
+public class AdmissionConfig {
+
+    @Bean
+    public LimiteurConcurrence limiteurUploads(
+            @Value("${app.upload.admission.mode:adaptatif}") String mode,
+            @Value("${app.upload.admission.limite-initiale:8}") int limiteInitiale,
+            @Value("${app.upload.admission.limite-min:2}") int limiteMin,
+            @Value("${app.upload.admission.limite-max:64}") int limiteMax,
+            @Value("${app.upload.admission.latence-cible:500ms}") Duration latenceCible,
+            @Value("${app.upload.admission.file-max:32}") int fileMax) {
+        boolean adaptatif = !"fixe".equals(mode);
+        log.info("Admission des uploads : limite {} {} (file de {})", adaptatif ? "adaptative, initiale" : "fixe",
+                limiteInitiale, fileMax);
+        return new LimiteurConcurrence(adaptatif, limiteInitiale, limiteMin, limiteMax, latenceCible.toNanos(), fileMax);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionUploadFilter> admissionUploadFilter(
+            LimiteurConcurrence limiteurUploads,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.upload.dir}") String uploadDir,
+            @Value("${app.upload.admission.espace-disque-min:1GB}") DataSize espaceMin,
+            @Value("${app.upload.admission.attente-max:2s}") Duration attenteMax,
+            @Value("${app.upload.admission.retry-after:2s}") Duration retryAfter,
+            @Value("${app.upload.admission.retry-after-disque:5m}") Duration retryAfterDisque) throws IOException {
+        Path dossier = Files.createDirectories(Paths.get(uploadDir));
+        AdmissionUploadFilter filtre = new AdmissionUploadFilter(limiteurUploads, Files.getFileStore(dossier),
+                espaceMin.toBytes(), attenteMax, retryAfter, retryAfterDisque, objectMapper, meterRegistry);
+        FilterRegistrationBean<AdmissionUploadFilter> enregistrement = new FilterRegistrationBean<>(filtre);
+        enregistrement.addUrlPatterns("/api/documents/upload", "/api/documents/uploads/*");
+        enregistrement.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return enregistrement;
+    }
+}
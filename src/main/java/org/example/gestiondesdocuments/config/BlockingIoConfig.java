@@ -0,0 +1,65 @@
+package org.example.gestiondesdocuments.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Exécuteur des appels bloquants rendus asynchrones (Cloudinary), injecté par son nom.
+ * Avec spring.threads.virtual.enabled=true sur un JRE 21+, chaque tâche tourne sur un thread virtuel
+ * (et Tomcat traite aussi les requêtes sur des threads virtuels) ; sinon, pool de threads plateforme borné.
+ *
+ * Les envois du flux SSE ont leur propre exécuteur : un client lent bloque dans l'écriture de sa
+ * réponse et ne doit pas occuper les threads des uploads.
+ *
+ * Aucun des deux n'est primaire : l'exécuteur applicationTaskExecutor de Spring Boot reste celui de
+ * l'application (spring.task.execution.mode=force, sinon il s'efface devant tout bean Executor).
+ */
+@Configuration
+@Slf4j
+public class BlockingIoConfig {
+
+    @Bean
+    public AsyncTaskExecutor blockingIoExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${app.io.platform-threads:32}") int platformThreads) {
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            log.info("Appels de stockage bloquants exécutés sur des threads virtuels");
+            return new VirtualThreadTaskExecutor("blocking-io-");
+        }
+        if (virtualThreads) {
+            log.warn("spring.threads.virtual.enabled ignoré : JRE {} < 21, repli sur un pool de {} threads",
+                    Runtime.version().feature(), platformThreads);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("blocking-io-");
+        executor.setCorePoolSize(platformThreads);
+        executor.setMaxPoolSize(platformThreads);
+        executor.setQueueCapacity(platformThreads * 16);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public AsyncTaskExecutor sseExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${app.sse.threads:4}") int threads,
+            @Value("${app.sse.max-connections:1000}") int maxConnections) {
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            return new VirtualThreadTaskExecutor("sse-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("sse-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // At most one pending drain per connection
+        executor.setQueueCapacity(maxConnections);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.gestiondesdocuments.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache de second niveau Hibernate (JCache / Caffeine) pour les rôles, les sociétés et les
+ * utilisateurs, avec leurs identifiants naturels (email, ICE) et la collection des rôles d'un
+ * utilisateur : l'authentification d'une requête ne lit plus la base.
+ *
+ * Invalidation : les régions sont en READ_WRITE. Une modification faite par Hibernate (save, flush,
+ * suppression) verrouille l'entrée pendant la transaction puis la remplace au commit ; une requête
+ * JPQL update/delete sur l'une de ces entités vide toute sa région. Une écriture qui contourne
+ * Hibernate (SQL natif, JdbcTemplate, autre instance de l'application) n'est pas vue : l'entrée reste
+ * servie jusqu'à app.cache.hibernate.duree, qui borne ce retard.
+ */
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "app.cache.hibernate.actif", havingValue = "true", matchIfMissing = true)
+public class CacheHibernateConfig {
+
+    public static final String ROLES = "roles";
+    public static final String SOCIETES = "societes";
+    public static final String SOCIETES_ICE = "societes.ice";
+    public static final String UTILISATEURS = "utilisateurs";
+    public static final String UTILISATEURS_EMAIL = "utilisateurs.email";
+    public static final String UTILISATEURS_ROLES = "utilisateurs.roles";
+
+    private static final List<String> REGIONS = List.of(
+            ROLES, SOCIETES, SOCIETES_ICE, UTILISATEURS, UTILISATEURS_EMAIL, UTILISATEURS_ROLES);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerHibernate(
+            @Value("${app.cache.hibernate.max-entrees:10000}") long maxEntrees,
+            @Value("${app.cache.hibernate.duree:1h}") Duration duree) {
+        // Own manager per application context: the provider's default one is shared by the whole JVM
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("urn:hibernate:" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : REGIONS) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxEntrees));
+            configuration.setExpireAfterWrite(OptionalLong.of(duree.toNanos()));
+            cacheManager.createCache(region, configuration);
+        }
+        log.info("Cache de second niveau : {} régions de {} entrées au plus, expiration {}", REGIONS.size(), maxEntrees, duree);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheHibernate(CacheManager cacheManagerHibernate) {
+        return proprietes -> {
+            proprietes.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            proprietes.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            proprietes.put(ConfigSettings.CACHE_MANAGER, cacheManagerHibernate);
+            // Every region is created above; a misspelled one must not silently get an unbounded cache
+            proprietes.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+            proprietes.put(AvailableSettings.GENERATE_STATISTICS, true);
+            // Statistics are exported as metrics, not logged for each session
+            proprietes.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+
+    @Bean
+    public MeterBinder statistiquesCacheHibernate(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : REGIONS) {
+                compteur(registry, "hibernate.cache.requests", statistiques, region, CacheRegionStatistics::getHitCount, "hit");
+                compteur(registry, "hibernate.cache.requests", statistiques, region, CacheRegionStatistics::getMissCount, "miss");
+                compteur(registry, "hibernate.cache.puts", statistiques, region, CacheRegionStatistics::getPutCount, null);
+            }
+            FunctionCounter.builder("hibernate.statements", statistiques, Statistics::getPrepareStatementCount)
+                    .description("Requêtes SQL préparées par Hibernate")
+                    .register(registry);
+        };
+    }
+
+    private static void compteur(MeterRegistry registry, String nom, Statistics statistiques,
+                                 String region, ToLongFunction<CacheRegionStatistics> valeur, String resultat) {
+        FunctionCounter.Builder<Statistics> builder = FunctionCounter.builder(nom, statistiques,
+                        s -> valeur.applyAsLong(s.getDomainDataRegionStatistics(region)))
+                .tag("region", region);
+        if (resultat != null) {
+            builder.tag("result", resultat);
+        }
+        builder.register(registry);
+    }
+}
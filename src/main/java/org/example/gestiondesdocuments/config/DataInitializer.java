@@ -6,7 +6,10 @@ import org.example.gestiondesdocuments.entite.Utilisateur;
 import org.example.gestiondesdocuments.repository.RoleRepository;
 import org.example.gestiondesdocuments.repository.SocietyRepository;
 import org.example.gestiondesdocuments.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
@@ -20,12 +23,20 @@ public class DataInitializer implements CommandLineRunner {
     private final SocietyRepository societyRepository;
     private final RoleRepository roleRepository;
         private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final String adminEmail;
+    private final String adminMotDePasse;
 
-    public DataInitializer(UserRepository userRepository, SocietyRepository societyRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public DataInitializer(UserRepository userRepository, SocietyRepository societyRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder, JdbcTemplate jdbcTemplate,
+                           @Value("${app.admin.email:}") String adminEmail,
+                           @Value("${app.admin.mot-de-passe:}") String adminMotDePasse) {
         this.userRepository = userRepository;
         this.societyRepository = societyRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.adminEmail = adminEmail;
+        this.adminMotDePasse = adminMotDePasse;
     }
 
     @Override
@@ -33,6 +44,7 @@ public class DataInitializer implements CommandLineRunner {
         // Check if data already exists
         if (roleRepository.count() > 0) {
             System.out.println("Data already initialized, skipping...");
+            initAdmin();
             return;
         }
 
@@ -77,6 +89,51 @@ public class DataInitializer implements CommandLineRunner {
                 .build();
 
         userRepository.saveAll(List.of(utilisateur1, utilisateur2));
+        initAdmin();
         System.out.println("Initial data created successfully!");
     }
+
+    // Added separately so that databases initialized before the admin role also get it.
+    // Only when app.admin.email and app.admin.mot-de-passe are set: no account with a known password by default
+    private void initAdmin() {
+        elargirColonneRoles();
+
+        if (adminEmail.isBlank() || adminMotDePasse.isBlank()) {
+            System.out.println("No admin credentials configured (app.admin.email, app.admin.mot-de-passe), admin user not created");
+            return;
+        }
+        if (userRepository.findByEmail(adminEmail).isPresent()) {
+            return;
+        }
+
+        Role roleAdmin = roleRepository.findByNom(Role.TypeRole.ROLE_ADMIN)
+                .orElseGet(() -> roleRepository.save(Role.builder()
+                        .nom(Role.TypeRole.ROLE_ADMIN)
+                        .build()));
+
+        Utilisateur admin = Utilisateur.builder()
+                .email(adminEmail)
+                .motDePasse(passwordEncoder.encode(adminMotDePasse))
+                .nomComplet("Administrateur")
+                .societe(null)
+                .actif(true)
+                .roles(Set.of(roleAdmin))
+                .build();
+        userRepository.save(admin);
+        System.out.println("Admin user created");
+    }
+
+    // H2 databases created before ROLE_ADMIN typed roles.nom as ENUM('ROLE_COMPTABLE', 'ROLE_SOCIETE')
+    // and ddl-auto=update never alters existing columns; other databases and migrated schemas are left alone
+    private void elargirColonneRoles() {
+        String base = jdbcTemplate.execute((ConnectionCallback<String>) connexion -> connexion.getMetaData().getDatabaseProductName());
+        if (!"H2".equals(base)) {
+            return;
+        }
+        List<String> types = jdbcTemplate.queryForList("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS"
+                + " WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'ROLES' AND COLUMN_NAME = 'NOM'", String.class);
+        if (types.contains("ENUM")) {
+            jdbcTemplate.execute("ALTER TABLE roles ALTER COLUMN nom VARCHAR(50)");
+        }
+    }
 }
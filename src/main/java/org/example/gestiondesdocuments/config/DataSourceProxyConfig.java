@@ -0,0 +1,48 @@
+package org.example.gestiondesdocuments.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.example.gestiondesdocuments.monitoring.AsyncQueryLogWriter;
+import org.example.gestiondesdocuments.monitoring.QueryStatistics;
+import org.example.gestiondesdocuments.monitoring.SlowQueryListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Enveloppe la DataSource dans un proxy datasource-proxy pour le journal SQL échantillonné
+ * et les agrégats par forme de requête.
+ */
+@Configuration
+public class DataSourceProxyConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(
+            ObjectProvider<QueryStatistics> queryStatistics,
+            ObjectProvider<AsyncQueryLogWriter> logWriter,
+            @Value("${app.sql.log.enabled:true}") boolean logEnabled,
+            @Value("${app.sql.log.slow-threshold-ms:200}") long slowThresholdMillis,
+            @Value("${app.sql.log.sample-rate:0.01}") double sampleRate) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                // Absent from sliced test contexts such as @DataJpaTest
+                QueryStatistics statistics = queryStatistics.getIfAvailable();
+                AsyncQueryLogWriter writer = logWriter.getIfAvailable();
+                if (statistics == null || writer == null) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(new SlowQueryListener(statistics, writer, logEnabled, slowThresholdMillis, sampleRate))
+                        .build();
+            }
+        };
+    }
+}
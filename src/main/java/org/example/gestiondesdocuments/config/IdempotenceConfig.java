@@ -0,0 +1,30 @@
+package org.example.gestiondesdocuments.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.gestiondesdocuments.idempotence.IdempotenceFilter;
+import org.example.gestiondesdocuments.service.IdempotenceService;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Clés d'idempotence sur l'upload, la création par empreinte, la validation et le rejet. Le filtre
+ * passe après Spring Security, qui a alors authentifié l'utilisateur, et après les limites de débit.
+ */
+@Configuration
+public class IdempotenceConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotenceFilter> idempotenceFilter(IdempotenceService idempotenceService,
+                                                                       ObjectMapper objectMapper,
+                                                                       MeterRegistry meterRegistry) {
+        FilterRegistrationBean<IdempotenceFilter> enregistrement =
+                new FilterRegistrationBean<>(new IdempotenceFilter(idempotenceService, objectMapper, meterRegistry));
+        enregistrement.addUrlPatterns("/api/documents/upload", "/api/documents/empreintes",
+                "/api/documents/comptable/valider/*", "/api/documents/comptable/reject/*");
+        enregistrement.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 2);
+        return enregistrement;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.gestiondesdocuments.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.admission.LimiteDebitFilter;
+import org.example.gestiondesdocuments.admission.LimiteurDebit;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Limites de débit. La connexion est limitée avant Spring Security (par adresse IP, avant la
+ * vérification coûteuse du mot de passe) ; les autres groupes juste après, une fois l'utilisateur
+ * et sa société connus, et avant l'idempotence pour qu'une rafale de répétitions soit aussi limitée.
+ */
+@Configuration
+@EnableConfigurationProperties(LimiteDebitProperties.class)
+@ConditionalOnProperty(name = "app.limites.actif", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class LimiteDebitConfig {
+
+    private final LimiteurDebit limiteurDebit = new LimiteurDebit();
+
+    @Bean
+    public LimiteurDebit limiteurDebit(LimiteDebitProperties properties, MeterRegistry meterRegistry) {
+        if (properties.groupes() != null) {
+            properties.groupes().forEach((groupe, limites) -> {
+                limiteurDebit.configurer(groupe, limites.utilisateur(), limites.societe());
+                log.info("Limite de débit {} : utilisateur {}, société {}", groupe, limites.utilisateur(), limites.societe());
+            });
+        }
+        Gauge.builder("documents.limites.seaux", limiteurDebit, LimiteurDebit::nombreSeaux)
+                .description("Seaux de limite de débit en mémoire")
+                .register(meterRegistry);
+        return limiteurDebit;
+    }
+
+    @Bean
+    public FilterRegistrationBean<LimiteDebitFilter> limiteDebitConnexionFilter(LimiteurDebit limiteurDebit,
+                                                                               ObjectMapper objectMapper,
+                                                                               MeterRegistry meterRegistry) {
+        FilterRegistrationBean<LimiteDebitFilter> enregistrement =
+                new FilterRegistrationBean<>(new LimiteDebitFilter(limiteurDebit, objectMapper, meterRegistry));
+        enregistrement.addUrlPatterns("/api/auth/*");
+        enregistrement.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 2);
+        return enregistrement;
+    }
+
+    @Bean
+    public FilterRegistrationBean<LimiteDebitFilter> limiteDebitFilter(LimiteurDebit limiteurDebit,
+                                                                      ObjectMapper objectMapper,
+                                                                      MeterRegistry meterRegistry) {
+        FilterRegistrationBean<LimiteDebitFilter> enregistrement =
+                new FilterRegistrationBean<>(new LimiteDebitFilter(limiteurDebit, objectMapper, meterRegistry));
+        enregistrement.addUrlPatterns("/api/documents/*", "/api/comptable/*", "/api/societe/*");
+        enregistrement.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return enregistrement;
+    }
+
+    @Scheduled(fixedDelayString = "${app.limites.eviction-interval:1m}")
+    public void evincer() {
+        int evinces = limiteurDebit.evincer();
+        if (evinces > 0) {
+            log.debug("{} seau(x) de limite de débit inactif(s) supprimé(s)", evinces);
+        }
+    }
+}
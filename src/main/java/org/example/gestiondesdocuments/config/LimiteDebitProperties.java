@@ -0,0 +1,18 @@
+package org.example.gestiondesdocuments.config;
+
+import org.example.gestiondesdocuments.admission.GroupeLimite;
+import org.example.gestiondesdocuments.admission.LimiteurDebit;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Limites de débit par groupe d'endpoints (app.limites.groupes.&lt;groupe&gt;.utilisateur|societe.debit|rafale).
+ * Un groupe ou un seau absent n'est pas limité.
+ */
+@ConfigurationProperties(prefix = "app.limites")
+public record LimiteDebitProperties(boolean actif, Map<GroupeLimite, Groupe> groupes) {
+
+    public record Groupe(LimiteurDebit.Limite utilisateur, LimiteurDebit.Limite societe) {
+    }
+}
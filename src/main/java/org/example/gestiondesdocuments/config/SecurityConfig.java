@@ -1,5 +1,7 @@
 package org.example.gestiondesdocuments.config;
 
+import jakarta.servlet.DispatcherType;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.example.gestiondesdocuments.security.JwtRequestFilter;
 import org.example.gestiondesdocuments.security.JwtTokenService;
 import org.example.gestiondesdocuments.security.LoginAuthenticationFilter;
@@ -35,11 +37,12 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager,
+                                           MeterRegistry meterRegistry) throws Exception {
 
         // Create login authentication filter
         LoginAuthenticationFilter loginAuthenticationFilter =
-                new LoginAuthenticationFilter("/api/auth/login", authenticationManager, jwtTokenService);
+                new LoginAuthenticationFilter("/api/auth/login", authenticationManager, jwtTokenService, meterRegistry);
 
         http
                 .csrf(csrf -> csrf.disable())
@@ -48,9 +51,23 @@ public class SecurityConfig {
                 )
 
                 .authorizeHttpRequests(auth -> auth
+                        // Async redispatches (SSE, CompletableFuture) were already authorized on the initial request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers( "/api/auth/**").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        // Metrics expose per-societe activity and query shapes
+                        .requestMatchers("/actuator/prometheus").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/comptable/**").hasRole("COMPTABLE")
+                        // Change feed across all societes
+                        .requestMatchers("/api/documents/comptable/stream").hasRole("COMPTABLE")
+                        // Work queue claims on any societe's documents
+                        .requestMatchers("/api/documents/comptable/reservations/**").hasRole("COMPTABLE")
+                        // Any societe's counters and quota
+                        .requestMatchers("/api/documents/comptable/compteurs/**").hasRole("COMPTABLE")
+                        // Search across all societes
+                        .requestMatchers("/api/documents/comptable/recherche").hasRole("COMPTABLE")
                         .requestMatchers("/api/societe/**").hasRole("SOCIETE")
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,44 @@
+package org.example.gestiondesdocuments.config;
+
+import org.example.gestiondesdocuments.service.CleChiffrementService;
+import org.example.gestiondesdocuments.storage.ColdStorage;
+import org.example.gestiondesdocuments.storage.PackedBlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Stockage compacté des petits documents, activé par app.stockage.mode=pack. Les segments et
+ * l'index sont placés dans le sous-répertoire pack du répertoire d'upload.
+ *
+ * Le stockage froid des exercices clos vit dans app.stockage.froid.dir ; son cache de rappel
+ * reste sur le disque rapide, dans le sous-répertoire cache-froid du répertoire d'upload.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.stockage.mode", havingValue = "pack")
+    public PackedBlobStore packedBlobStore(
+            @Value("${app.upload.dir}") String uploadDir,
+            @Value("${app.stockage.pack.taille-segment:1GB}") DataSize tailleSegment,
+            @Value("${app.stockage.pack.fsync:false}") boolean fsync) throws IOException {
+        return new PackedBlobStore(Paths.get(uploadDir, "pack"), tailleSegment.toBytes(), fsync);
+    }
+
+    @Bean
+    public ColdStorage coldStorage(
+            @Value("${app.upload.dir}") String uploadDir,
+            @Value("${app.stockage.froid.dir:cold}") String dir,
+            @Value("${app.stockage.froid.niveau-zstd:9}") int niveau,
+            @Value("${app.stockage.froid.cache-max:256MB}") DataSize cacheMax,
+            CleChiffrementService cleChiffrementService) throws IOException {
+        return new ColdStorage(Paths.get(dir), Paths.get(uploadDir, "cache-froid"), niveau, cacheMax.toBytes(),
+                cleChiffrementService::cle);
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.gestiondesdocuments.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.gestiondesdocuments.dto.Admin.JfrRecordingResponse;
+import org.example.gestiondesdocuments.dto.Admin.PinningReportResponse;
+import org.example.gestiondesdocuments.dto.Admin.QueryStatsResponse;
+import org.example.gestiondesdocuments.dto.Admin.IntegriteResponse;
+import org.example.gestiondesdocuments.dto.Admin.ReconciliationResponse;
+import org.example.gestiondesdocuments.dto.Admin.RecalculCompteursResponse;
+import org.example.gestiondesdocuments.dto.Admin.TachesResponse;
+import org.example.gestiondesdocuments.dto.Admin.TraitementResponse;
+import org.example.gestiondesdocuments.dto.ErrorResponse;
+import org.example.gestiondesdocuments.monitoring.QueryStatistics;
+import org.example.gestiondesdocuments.monitoring.VirtualThreadPinningMonitor;
+import org.example.gestiondesdocuments.service.CompteurSocieteService;
+import org.example.gestiondesdocuments.service.JfrRecordingService;
+import org.example.gestiondesdocuments.service.ReconciliationStockageService;
+import org.example.gestiondesdocuments.service.StockageCompactionService;
+import org.example.gestiondesdocuments.service.StockageFroidService;
+import org.example.gestiondesdocuments.service.VerificationIntegriteService;
+import org.example.gestiondesdocuments.service.StockageMigrationService;
+import org.example.gestiondesdocuments.service.TacheService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final JfrRecordingService jfrRecordingService;
+    private final QueryStatistics queryStatistics;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final StockageMigrationService stockageMigrationService;
+    private final StockageCompactionService stockageCompactionService;
+    private final StockageFroidService stockageFroidService;
+    private final VerificationIntegriteService verificationIntegriteService;
+    private final ReconciliationStockageService reconciliationStockageService;
+    private final TacheService tacheService;
+    private final CompteurSocieteService compteurSocieteService;
+
+    @PostMapping("/jfr/start")
+    public ResponseEntity<?> startRecording(
+            @RequestParam(value = "profile", defaultValue = "default") String profile
+    ) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(jfrRecordingService.start(profile));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/jfr/{id}/stop")
+    public ResponseEntity<?> stopRecording(@PathVariable("id") long id) {
+        try {
+            return ResponseEntity.ok(jfrRecordingService.stop(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/jfr")
+    public ResponseEntity<List<JfrRecordingResponse>> getRecordings() {
+        return ResponseEntity.ok(jfrRecordingService.getRecordings());
+    }
+
+    @GetMapping("/jfr/{id}/fichier")
+    public ResponseEntity<?> downloadRecording(@PathVariable("id") long id) {
+        try {
+            Path fichier = jfrRecordingService.getFichier(id);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fichier.getFileName() + "\"")
+                    .body(new FileSystemResource(fichier));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/jfr/{id}")
+    public ResponseEntity<?> deleteRecording(@PathVariable("id") long id) {
+        try {
+            jfrRecordingService.delete(id);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/queries")
+    public ResponseEntity<List<QueryStatsResponse>> getQueryStatistics(
+            @RequestParam(value = "limit", defaultValue = "50") int limit
+    ) {
+        return ResponseEntity.ok(queryStatistics.getStatistics(limit));
+    }
+
+    @DeleteMapping("/queries")
+    public ResponseEntity<Void> resetQueryStatistics() {
+        queryStatistics.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/threads/pinning")
+    public ResponseEntity<?> getPinningReport() {
+        if (!pinningMonitor.isActive()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse("Erreur", "Threads virtuels désactivés (spring.threads.virtual.enabled=true sur Java 21+)"));
+        }
+        List<PinningReportResponse> report = pinningMonitor.getReport();
+        return ResponseEntity.ok(report);
+    }
+
+    @PostMapping("/stockage/migration")
+    public ResponseEntity<?> demarrerMigrationStockage() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(stockageMigrationService.demarrer());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stockage/migration")
+    public ResponseEntity<TraitementResponse> getMigrationStockage() {
+        return ResponseEntity.ok(stockageMigrationService.getEtat());
+    }
+
+    @DeleteMapping("/stockage/migration")
+    public ResponseEntity<TraitementResponse> arreterMigrationStockage() {
+        return ResponseEntity.ok(stockageMigrationService.arreter());
+    }
+
+    @PostMapping("/stockage/compactage")
+    public ResponseEntity<?> demarrerCompactage() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(stockageCompactionService.demarrer());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stockage/compactage")
+    public ResponseEntity<TraitementResponse> getCompactage() {
+        return ResponseEntity.ok(stockageCompactionService.getEtat());
+    }
+
+    @DeleteMapping("/stockage/compactage")
+    public ResponseEntity<TraitementResponse> arreterCompactage() {
+        return ResponseEntity.ok(stockageCompactionService.arreter());
+    }
+
+    @PostMapping("/stockage/froid")
+    public ResponseEntity<?> demarrerStockageFroid() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(stockageFroidService.demarrer());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stockage/froid")
+    public ResponseEntity<TraitementResponse> getStockageFroid() {
+        return ResponseEntity.ok(stockageFroidService.getEtat());
+    }
+
+    @DeleteMapping("/stockage/froid")
+    public ResponseEntity<TraitementResponse> arreterStockageFroid() {
+        return ResponseEntity.ok(stockageFroidService.arreter());
+    }
+
+    @PostMapping("/stockage/integrite")
+    public ResponseEntity<?> demarrerVerificationIntegrite() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(verificationIntegriteService.demarrer());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stockage/integrite")
+    public ResponseEntity<IntegriteResponse> getRapportIntegrite() {
+        return ResponseEntity.ok(verificationIntegriteService.getRapport());
+    }
+
+    @DeleteMapping("/stockage/integrite")
+    public ResponseEntity<TraitementResponse> arreterVerificationIntegrite() {
+        return ResponseEntity.ok(verificationIntegriteService.arreter());
+    }
+
+    @PostMapping("/stockage/reconciliation")
+    public ResponseEntity<?> demarrerReconciliation(
+            @RequestParam(value = "quarantaine", defaultValue = "false") boolean quarantaine) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(reconciliationStockageService.demarrer(quarantaine));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stockage/reconciliation")
+    public ResponseEntity<ReconciliationResponse> getReconciliation() {
+        return ResponseEntity.ok(reconciliationStockageService.getRapport());
+    }
+
+    @DeleteMapping("/stockage/reconciliation")
+    public ResponseEntity<TraitementResponse> arreterReconciliation() {
+        return ResponseEntity.ok(reconciliationStockageService.arreter());
+    }
+
+    @GetMapping("/taches")
+    public ResponseEntity<TachesResponse> getTaches() {
+        return ResponseEntity.ok(tacheService.getEtat());
+    }
+
+    @PostMapping("/taches/{id}/relancer")
+    public ResponseEntity<?> relancerTache(@PathVariable("id") Long id) {
+        try {
+            tacheService.relancer(id);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(tacheService.getEtat());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/compteurs/recalcul")
+    public ResponseEntity<RecalculCompteursResponse> recalculerCompteurs() {
+        return ResponseEntity.ok(compteurSocieteService.recalculer());
+    }
+}
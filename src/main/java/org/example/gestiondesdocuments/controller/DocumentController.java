@@ -1,25 +1,51 @@
 package org.example.gestiondesdocuments.controller;
 
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.websocket.server.PathParam;
 import lombok.RequiredArgsConstructor;
+import org.example.gestiondesdocuments.dto.Documents.DocumentFiltreRequest;
+import org.example.gestiondesdocuments.dto.Documents.DocumentFichier;
+import org.example.gestiondesdocuments.dto.Documents.DocumentReservationResponse;
 import org.example.gestiondesdocuments.dto.Documents.DocumentUploadRequest;
 import org.example.gestiondesdocuments.dto.Documents.DocumentUploadResponse;
+import org.example.gestiondesdocuments.dto.Documents.UploadEmpreinteRequest;
+import org.example.gestiondesdocuments.dto.Documents.UploadRepriseRequest;
+import org.example.gestiondesdocuments.dto.Documents.UploadRepriseResponse;
 import org.example.gestiondesdocuments.dto.ErrorResponse;
 import org.example.gestiondesdocuments.entite.Document;
 import org.example.gestiondesdocuments.repository.DocumentRepository;
 import org.example.gestiondesdocuments.service.CloudinaryService;
+import org.example.gestiondesdocuments.service.CompteurSocieteService;
+import org.example.gestiondesdocuments.service.DocumentReservationService;
 import org.example.gestiondesdocuments.service.DocumentService;
+import org.example.gestiondesdocuments.service.DocumentStreamService;
+import org.example.gestiondesdocuments.service.UploadRepriseService;
+import org.example.gestiondesdocuments.storage.ContenuDocument;
+import org.example.gestiondesdocuments.storage.RegionFichier;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.swing.text.html.parser.Entity;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/documents")
@@ -29,6 +55,19 @@ public class DocumentController {
     private final DocumentService documentService;
     private final DocumentRepository documentRepository;
     private final CloudinaryService cloudinaryService;
+    private final DocumentStreamService documentStreamService;
+    private final DocumentReservationService documentReservationService;
+    private final UploadRepriseService uploadRepriseService;
+    private final CompteurSocieteService compteurSocieteService;
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Browsers keep listings and send If-None-Match instead of the default no-store
+    private static final CacheControl REVALIDER = CacheControl.noCache().cachePrivate();
 
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -50,45 +89,258 @@ public class DocumentController {
     }
 
 
+    // Lets a client skip sending bytes the societe already stored; 404 means the file must be uploaded
+    @PostMapping("/empreintes")
+    public ResponseEntity<?> uploadParEmpreinte(
+            @RequestBody @Valid UploadEmpreinteRequest request,
+            Authentication authentication) {
+        try {
+            return documentService.uploadParEmpreinte(request, authentication.getName())
+                    .<ResponseEntity<?>>map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new ErrorResponse("Erreur", "Contenu inconnu, le fichier doit être envoyé")));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/uploads")
+    public ResponseEntity<?> creerUploadReprise(
+            @RequestBody @Valid UploadRepriseRequest request,
+            Authentication authentication) {
+        try {
+            UploadRepriseResponse response = uploadRepriseService.creer(request, authentication.getName());
+            return ResponseEntity.created(URI.create("/api/documents/uploads/" + response.id()))
+                    .header(UPLOAD_OFFSET, String.valueOf(response.decalage()))
+                    .body(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    // Also answers HEAD: the client reads Upload-Offset to know where to resume
+    @GetMapping("/uploads/{id}")
+    public ResponseEntity<?> getUploadReprise(@PathVariable("id") String id, Authentication authentication) {
+        try {
+            UploadRepriseResponse response = uploadRepriseService.getEtat(id, authentication.getName());
+            return ResponseEntity.ok()
+                    .header(UPLOAD_OFFSET, String.valueOf(response.decalage()))
+                    .header(UPLOAD_LENGTH, String.valueOf(response.taille()))
+                    .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                    .body(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @PatchMapping(value = "/uploads/{id}", consumes = "application/offset+octet-stream")
+    public ResponseEntity<?> envoyerMorceau(
+            @PathVariable("id") String id,
+            @RequestHeader(UPLOAD_OFFSET) long decalage,
+            HttpServletRequest request,
+            Authentication authentication) {
+        try {
+            // The body is streamed straight to the upload file, never buffered
+            long nouveau = uploadRepriseService.ecrire(id, decalage, request.getInputStream(), authentication.getName());
+            return ResponseEntity.noContent().header(UPLOAD_OFFSET, String.valueOf(nouveau)).build();
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/uploads/{id}/finaliser")
+    public ResponseEntity<?> finaliserUploadReprise(@PathVariable("id") String id, Authentication authentication) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadRepriseService.finaliser(id, authentication.getName()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/uploads/{id}")
+    public ResponseEntity<?> annulerUploadReprise(@PathVariable("id") String id, Authentication authentication) {
+        try {
+            uploadRepriseService.annuler(id, authentication.getName());
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+
     @PostMapping("/coundinary")
-    public ResponseEntity<?> uploadDocumetCloudinary(
+    public CompletableFuture<ResponseEntity<?>> uploadDocumetCloudinary(
             @RequestPart("document") @Valid DocumentUploadRequest request,
             @RequestPart("file") MultipartFile file,
             Authentication authentication
 
     ){
         try {
-            String url = cloudinaryService.uploadFile(file);
-            return ResponseEntity.ok(url);
+            // The request thread is released while the upload runs on the blocking I/O executor
+            return cloudinaryService.uploadFileAsync(file)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> ResponseEntity.badRequest().body("Upload failed: " + rootMessage(e)));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Upload failed: " + e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Upload failed: " + e.getMessage()));
         }
 
 
     }
 
+    private static String rootMessage(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+    }
+
 
     @GetMapping
     public ResponseEntity<List<DocumentUploadResponse>> getAllDocuments(
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "taille", required = false) Integer taille,
+            WebRequest webRequest
     ){
-            List<DocumentUploadResponse> list=documentService.getAllDocuments();
-       return ResponseEntity.ok(list);
+        String etag = documentService.etagDocuments(page, taille);
+        // If-None-Match still current: the 304 is already set, the listing is not read
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+            List<DocumentUploadResponse> list=documentService.getAllDocuments(page, taille);
+       return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDER).body(list);
     }
     @GetMapping ("/comptable/status")
     public ResponseEntity<List<DocumentUploadResponse>> getByStatus(
-            @RequestParam(value = "status",defaultValue = "EN_ATTENTE",required = false) Document.StatutDocument status
+            @RequestParam(value = "status",defaultValue = "EN_ATTENTE",required = false) Document.StatutDocument status,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "taille", required = false) Integer taille,
+            WebRequest webRequest
             ){
-        List<DocumentUploadResponse> list=documentService.getDocumentsByStatus(status);
-        return ResponseEntity.ok(list);
+        String etag = documentService.etagDocumentsByStatus(status, page, taille);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        List<DocumentUploadResponse> list=documentService.getDocumentsByStatus(status, page, taille);
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDER).body(list);
+    }
+    @GetMapping("/{id}/fichier")
+    public ResponseEntity<?> telechargerFichier(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            Authentication authentication,
+            HttpServletRequest request
+    ){
+        try {
+            DocumentFichier fichier = documentService.getFichier(id, authentication.getName());
+            ContenuDocument contenu = fichier.contenu();
+            long taille = contenu.taille();
+
+            // A single byte range is served with 206; several ranges fall back to the whole file
+            long debut = 0;
+            long longueur = taille;
+            HttpStatus statut = HttpStatus.OK;
+            List<HttpRange> plages = range != null ? HttpRange.parseRanges(range) : List.of();
+            if (plages.size() == 1) {
+                if (taille == 0 || plages.get(0).getRangeStart(taille) >= taille) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + taille).build();
+                }
+                debut = plages.get(0).getRangeStart(taille);
+                longueur = plages.get(0).getRangeEnd(taille) - debut + 1;
+                statut = HttpStatus.PARTIAL_CONTENT;
+            }
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(statut)
+                    .contentType(fichier.typeFichier() != null
+                            ? MediaType.parseMediaType(fichier.typeFichier())
+                            : MediaType.APPLICATION_OCTET_STREAM)
+                    .contentLength(longueur)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                            .filename(fichier.nomFichierOriginal(), StandardCharsets.UTF_8).build().toString());
+            if (statut == HttpStatus.PARTIAL_CONTENT) {
+                response.header(HttpHeaders.CONTENT_RANGE, "bytes " + debut + "-" + (debut + longueur - 1) + "/" + taille);
+            }
+
+            // Tomcat sends the file region itself with sendfile once the headers are written (no copy through the JVM);
+            // encrypted files go through the JVM to be decrypted, only the blocks covering the range are read
+            if (!contenu.estChiffre() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                RegionFichier region = contenu.region();
+                request.setAttribute(SENDFILE_FILENAME, region.fichier().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, region.position() + debut);
+                request.setAttribute(SENDFILE_END, region.position() + debut + longueur);
+                return response.build();
+            }
+            return response.body(new InputStreamResource(contenu.ouvrir(debut, longueur)));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponse("Erreur", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).body(new ErrorResponse("Erreur", e.getMessage()));
+        } catch (RuntimeException | IOException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+    // Counters of the caller's societe, kept up to date by uploads and transitions
+    @GetMapping("/compteurs")
+    public ResponseEntity<?> getMesCompteurs(Authentication authentication) {
+        try {
+            return ResponseEntity.ok(compteurSocieteService.getMesCompteurs(authentication.getName()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+    @GetMapping("/comptable/compteurs/{societe}")
+    public ResponseEntity<?> getCompteurs(@PathVariable("societe") Long societe) {
+        try {
+            return ResponseEntity.ok(compteurSocieteService.getCompteurs(societe));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+    @GetMapping(value = "/comptable/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamDocuments(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ){
+        try {
+            SseEmitter emitter = documentStreamService.subscribe(lastEventId);
+            return ResponseEntity.ok(emitter);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+    @PostMapping("/comptable/reservations")
+    public ResponseEntity<?> reserverSuivants(
+            @RequestParam(value = "nombre", defaultValue = "10") int nombre,
+            Authentication authentication
+    ){
+        try {
+            DocumentReservationResponse response = documentReservationService.reserverSuivants(authentication.getName(), nombre);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
+    @DeleteMapping("/comptable/reservations/{id}")
+    public ResponseEntity<?> libererReservation(
+            @PathVariable("id") Long id,
+            Authentication authentication
+    ){
+        try {
+            documentReservationService.liberer(id, authentication.getName());
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("Erreur", e.getMessage()));
+        }
     }
     @PutMapping ("/comptable/valider/{id}")
     public  ResponseEntity<DocumentUploadResponse> validerDocs(
             @PathVariable("id") Long id,
-            @RequestParam(value = "commenatire",required = false) String commentaire
+            @RequestParam(value = "commenatire",required = false) String commentaire,
+            Authentication authentication
 
     )
     {
-        DocumentUploadResponse response=documentService.validerDocs(id,commentaire);
+        DocumentUploadResponse response=documentService.validerDocs(id,commentaire,authentication.getName());
         return ResponseEntity.ok(response);
     }
 
@@ -96,28 +348,52 @@ public class DocumentController {
         @PutMapping ("/comptable/reject/{id}")
     public  ResponseEntity<DocumentUploadResponse> rejectDocs(
             @PathVariable("id") Long id,
-            @RequestParam(value = "motif",required = true) String motif
+            @RequestParam(value = "motif",required = true) String motif,
+            Authentication authentication
     )
     {
-        DocumentUploadResponse response=documentService.rejectrDocs(id,motif);
+        DocumentUploadResponse response=documentService.rejectrDocs(id,motif,authentication.getName());
         return ResponseEntity.ok(response);
     }
+    // e.g. ?type=FACTURE_ACHAT&montantMin=10000&dateDebut=2024-07-01&dateFin=2024-09-30&tri=montant&sens=desc
+    @GetMapping("/comptable/recherche")
+    public ResponseEntity<?> rechercher(DocumentFiltreRequest filtre){
+        try {
+            return ResponseEntity.ok(documentService.rechercher(filtre));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Erreur", e.getMessage()));
+        }
+    }
     @GetMapping("/comptable/bysociete/{societe}")
     public ResponseEntity<List<DocumentUploadResponse>> getBySociety(
-            @PathVariable("societe") Long societe
+            @PathVariable("societe") Long societe,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "taille", required = false) Integer taille,
+            WebRequest webRequest
     ){
-       List< DocumentUploadResponse > list=documentService.getDocsBySociete(societe);
-        return ResponseEntity.ok(list);
+        String etag = documentService.etagDocsBySociete(societe, page, taille);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+       List< DocumentUploadResponse > list=documentService.getDocsBySociete(societe, page, taille);
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDER).body(list);
     }
 
     @GetMapping("/comptable/societe/exercice/{year}")
     public  ResponseEntity<List<DocumentUploadResponse>> getByExercice(
             @PathVariable("year") String year,
-            Authentication authentication
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "taille", required = false) Integer taille,
+            Authentication authentication,
+            WebRequest webRequest
     ){
+        String etag = documentService.etagDocsByExercice(year, page, taille);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         String username=authentication.getName();
-        List< DocumentUploadResponse > list=documentService.getDocsByExercice(username,year);
-        return ResponseEntity.ok(list);
+        List< DocumentUploadResponse > list=documentService.getDocsByExercice(username,year, page, taille);
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDER).body(list);
 
     }
 
@@ -0,0 +1,21 @@
+package org.example.gestiondesdocuments.dto.Admin;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record IntegriteResponse(
+        TraitementResponse verification,
+        double debitOctetsParSeconde,
+        List<DocumentDefectueux> defectueux
+) {
+
+    public record DocumentDefectueux(
+            Long id,
+            String numeroPiece,
+            Long societeId,
+            String cheminFichier,
+            String integrite,
+            LocalDateTime dateVerification
+    ) {
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.gestiondesdocuments.dto.Admin;
+
+import java.time.Instant;
+
+public record JfrRecordingResponse(
+        long id,
+        String nom,
+        String profil,
+        String etat,
+        Instant debut,
+        Instant fin,
+        Long tailleOctets
+) {
+}
@@ -0,0 +1,8 @@
+package org.example.gestiondesdocuments.dto.Admin;
+
+public record PinningReportResponse(
+        String site,
+        long occurrences,
+        double dureeMaxMs
+) {
+}
@@ -0,0 +1,11 @@
+package org.example.gestiondesdocuments.dto.Admin;
+
+public record QueryStatsResponse(
+        String requete,
+        long nombre,
+        long tempsTotalMs,
+        long tempsMaxMs,
+        double tempsMoyenMs,
+        long nombreLentes
+) {
+}
@@ -0,0 +1,8 @@
+package org.example.gestiondesdocuments.dto.Admin;
+
+public record RecalculCompteursResponse(
+        int societes,
+        // Societes whose counters had drifted from the documents table
+        int corriges
+) {
+}
@@ -0,0 +1,14 @@
+package org.example.gestiondesdocuments.dto.Admin;
+
+import java.util.List;
+
+public record ReconciliationResponse(
+        TraitementResponse reconciliation,
+        boolean quarantaine,
+        List<String> orphelins,
+        List<DocumentPendant> pendants
+) {
+
+    public record DocumentPendant(Long id, String cheminFichier) {
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.gestiondesdocuments.dto.Admin;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public record TachesResponse(
+        int workers,
+        int actives,
+        Map<String, Long> parStatut,
+        List<TacheEchouee> echecs
+) {
+
+    public record TacheEchouee(
+            Long id,
+            String type,
+            Long documentId,
+            int tentatives,
+            String derniereErreur,
+            LocalDateTime dateModification
+    ) {
+    }
+}
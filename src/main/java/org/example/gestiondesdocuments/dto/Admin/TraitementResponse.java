@@ -0,0 +1,14 @@
+package org.example.gestiondesdocuments.dto.Admin;
+
+import java.time.Instant;
+import java.util.Map;
+
+public record TraitementResponse(
+        String nom,
+        boolean enCours,
+        long dernierId,
+        Map<String, Long> compteurs,
+        Instant debut,
+        Instant fin
+) {
+}
@@ -0,0 +1,15 @@
+package org.example.gestiondesdocuments.dto.Documents;
+
+import java.time.LocalDateTime;
+
+public record CompteursSocieteResponse(
+        Long societeId,
+        long enAttente,
+        long valides,
+        long rejetes,
+        long octetsStockes,
+        // Null without a quota
+        Long quotaOctets,
+        LocalDateTime dateRecalcul
+) {
+}
@@ -0,0 +1,10 @@
+package org.example.gestiondesdocuments.dto.Documents;
+
+import org.example.gestiondesdocuments.storage.ContenuDocument;
+
+public record DocumentFichier(
+        String nomFichierOriginal,
+        String typeFichier,
+        ContenuDocument contenu
+) {
+}
@@ -0,0 +1,26 @@
+package org.example.gestiondesdocuments.dto.Documents;
+
+import org.example.gestiondesdocuments.entite.Document;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Every criterion is optional; date and amount bounds are inclusive
+public record DocumentFiltreRequest(
+        Document.TypeDocument type,
+        String categorieComptable,
+        Document.StatutDocument statut,
+        Long societeId,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin,
+        BigDecimal montantMin,
+        BigDecimal montantMax,
+        // datePiece or montant; by id otherwise
+        String tri,
+        // asc (default) or desc
+        String sens,
+        Integer page,
+        Integer taille
+) {
+}
@@ -0,0 +1,10 @@
+package org.example.gestiondesdocuments.dto.Documents;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record DocumentReservationResponse(
+        List<DocumentUploadResponse> documents,
+        LocalDateTime reserveJusqua
+) {
+}
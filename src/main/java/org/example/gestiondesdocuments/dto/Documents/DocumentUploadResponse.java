@@ -20,6 +20,8 @@ public record DocumentUploadResponse(
         Document.StatutDocument statut,
         String exerciceComptable,
         LocalDateTime dateCreation,
+        Boolean doublonSuspect,
+        Long doublonDe,
         String message
 ) {
 }
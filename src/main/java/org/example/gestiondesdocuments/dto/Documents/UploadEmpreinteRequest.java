@@ -0,0 +1,27 @@
+package org.example.gestiondesdocuments.dto.Documents;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public record UploadEmpreinteRequest(
+        @NotNull(message = "Les informations du document sont obligatoires")
+        @Valid
+        DocumentUploadRequest document,
+
+        @NotBlank(message = "L'empreinte SHA-256 est obligatoire")
+        @Pattern(regexp = "[0-9a-fA-F]{64}", message = "L'empreinte SHA-256 doit contenir 64 caractères hexadécimaux")
+        String sha256,
+
+        @NotNull(message = "La taille du fichier est obligatoire")
+        @Positive(message = "La taille du fichier doit être supérieure à 0")
+        Long taille,
+
+        @NotBlank(message = "Le nom du fichier est obligatoire")
+        @Size(max = 100, message = "Le nom du fichier ne doit pas dépasser 100 caractères")
+        String nomFichier
+) {
+}
@@ -0,0 +1,25 @@
+package org.example.gestiondesdocuments.dto.Documents;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public record UploadRepriseRequest(
+        @NotNull(message = "Les informations du document sont obligatoires")
+        @Valid
+        DocumentUploadRequest document,
+
+        @NotBlank(message = "Le nom du fichier est obligatoire")
+        @Size(max = 100, message = "Le nom du fichier ne doit pas dépasser 100 caractères")
+        String nomFichier,
+
+        @NotBlank(message = "Le type du fichier est obligatoire")
+        String typeFichier,
+
+        @NotNull(message = "La taille du fichier est obligatoire")
+        @Positive(message = "La taille du fichier doit être supérieure à 0")
+        Long taille
+) {
+}
@@ -0,0 +1,12 @@
+package org.example.gestiondesdocuments.dto.Documents;
+
+import java.time.LocalDateTime;
+
+public record UploadRepriseResponse(
+        String id,
+        String nomFichier,
+        long taille,
+        long decalage,
+        LocalDateTime expiration
+) {
+}
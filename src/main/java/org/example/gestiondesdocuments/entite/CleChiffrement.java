@@ -0,0 +1,45 @@
+package org.example.gestiondesdocuments.entite;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clé de données d'une société, chiffrée par la clé maître (app.chiffrement.cle-maitre).
+ * Les fichiers portent la version de clé qui les a chiffrés, ce qui permet d'en ajouter une nouvelle
+ * sans rechiffrer les anciens.
+ */
+@Entity
+@Table(name = "cles_chiffrement", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_cles_chiffrement_societe_version", columnNames = {"societe_id", "version"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CleChiffrement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "societe_id", nullable = false)
+    private Societe societe;
+
+    @Column(nullable = false)
+    private Integer version;
+
+    @Column(name = "cle_chiffree", nullable = false, length = 64)
+    private byte[] cleChiffree;
+
+    @Column(name = "date_creation", nullable = false, updatable = false)
+    private LocalDateTime dateCreation;
+
+    @PrePersist
+    protected void onCreate() {
+        dateCreation = LocalDateTime.now();
+    }
+}
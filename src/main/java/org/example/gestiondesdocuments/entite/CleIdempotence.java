@@ -0,0 +1,60 @@
+package org.example.gestiondesdocuments.entite;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clé d'idempotence reçue dans l'en-tête Idempotency-Key : tant qu'elle n'a pas expiré, une
+ * requête répétée avec la même clé reçoit la réponse enregistrée au lieu d'être exécutée à nouveau.
+ */
+@Entity
+@Table(name = "cles_idempotence", indexes = {
+        @Index(name = "idx_cles_idempotence_expiration", columnList = "expiration"),
+        @Index(name = "idx_cles_idempotence_date_creation", columnList = "date_creation")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CleIdempotence {
+
+    // SHA-256 of the user and the key: a key only exists for the user who sent it
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    // Method, path and query of the first request; the key cannot be reused for another one
+    @Column(nullable = false, length = 500)
+    private String requete;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatutCle statut;
+
+    // Lease of the request being executed; past it, a retry takes over (instance stopped mid-request)
+    @Column(name = "reserve_jusqua")
+    private LocalDateTime reserveJusqua;
+
+    @Column(name = "statut_http")
+    private Integer statutHttp;
+
+    @Column(name = "type_contenu", length = 100)
+    private String typeContenu;
+
+    @Lob
+    private String corps;
+
+    @Column(nullable = false)
+    private LocalDateTime expiration;
+
+    @Column(name = "date_creation", nullable = false, updatable = false)
+    private LocalDateTime dateCreation;
+
+    public enum StatutCle {
+        EN_COURS,
+        TERMINEE
+    }
+}
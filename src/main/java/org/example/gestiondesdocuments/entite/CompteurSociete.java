@@ -0,0 +1,50 @@
+package org.example.gestiondesdocuments.entite;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compteurs d'une société (documents par statut, octets stockés) au dernier recalcul depuis la table
+ * documents ; les uploads et changements de statut ajoutent ensuite leurs deltas dans les
+ * {@link CompteurSocieteBande} : le tableau de bord les lit sans parcourir la table documents. Une
+ * table à part évite qu'une écriture de compteur n'invalide la société dans le cache de second niveau.
+ */
+@Entity
+@Table(name = "compteurs_societes")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CompteurSociete {
+
+    @Id
+    @Column(name = "societe_id")
+    private Long societeId;
+
+    @Column(name = "en_attente", nullable = false)
+    @Builder.Default
+    private Long enAttente = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long valides = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long rejetes = 0L;
+
+    // Bytes of the stored files: a file shared by several documents (upload by fingerprint) counts once
+    @Column(nullable = false)
+    @Builder.Default
+    private Long octets = 0L;
+
+    // Overrides app.quotas.octets-par-societe for this societe; 0 means no limit
+    @Column(name = "quota_octets")
+    private Long quotaOctets;
+
+    @Column(name = "date_recalcul")
+    private LocalDateTime dateRecalcul;
+}
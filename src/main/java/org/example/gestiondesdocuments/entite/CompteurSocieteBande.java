@@ -0,0 +1,48 @@
+package org.example.gestiondesdocuments.entite;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Une des bandes (app.compteurs.bandes) entre lesquelles sont répartis les deltas des compteurs d'une
+ * société depuis le dernier recalcul : chaque upload ou changement de statut n'en verrouille qu'une
+ * jusqu'à son commit, au lieu de la ligne unique de la société. La valeur d'un compteur est celle de
+ * {@link CompteurSociete} plus la somme des bandes.
+ */
+@Entity
+@Table(name = "compteurs_societes_bandes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_compteurs_societes_bandes_societe_bande", columnNames = {"societe_id", "bande"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CompteurSocieteBande {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "societe_id", nullable = false)
+    private Long societeId;
+
+    @Column(nullable = false)
+    private Integer bande;
+
+    @Column(name = "en_attente", nullable = false)
+    @Builder.Default
+    private Long enAttente = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long valides = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long rejetes = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long octets = 0L;
+}
@@ -0,0 +1,37 @@
+package org.example.gestiondesdocuments.entite;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position d'avancement d'un traitement de fond parcourant les documents par id croissant,
+ * pour pouvoir le reprendre là où il s'est arrêté.
+ */
+@Entity
+@Table(name = "curseurs_traitement")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CurseurTraitement {
+
+    @Id
+    @Column(length = 50)
+    private String nom;
+
+    @Column(name = "dernier_id", nullable = false)
+    @Builder.Default
+    private Long dernierId = 0L;
+
+    @Column(name = "date_modification")
+    private LocalDateTime dateModification;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        dateModification = LocalDateTime.now();
+    }
+}
@@ -8,7 +8,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_documents_statut_reservation", columnList = "statut, reserve_jusqua, date_creation"),
+        @Index(name = "idx_documents_chemin_fichier", columnList = "chemin_fichier"),
+        @Index(name = "idx_documents_societe_piece", columnList = "societe_id, numero_piece"),
+        // Range searches (DocumentSpecifications): the type equality first, then the range and the sort column
+        @Index(name = "idx_documents_type_date", columnList = "type, date_piece, montant"),
+        @Index(name = "idx_documents_type_montant", columnList = "type, montant"),
+        @Index(name = "idx_documents_date_montant", columnList = "date_piece, montant"),
+        @Index(name = "idx_documents_montant", columnList = "montant")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -51,6 +60,34 @@ public class Document {
     @Column
     private Long tailleFichier;
 
+    // CRC32C des octets stockés, calculé pendant l'écriture et contrôlé par la vérification d'intégrité
+    @Column(name = "somme_controle")
+    private Long sommeControle;
+
+    // SHA-256 du contenu en clair : plusieurs documents d'une société peuvent partager le même fichier
+    @Column(name = "empreinte_sha256", length = 64)
+    private String empreinte;
+
+    // Même numéro de pièce, fournisseur et montant qu'un document antérieur de la société : signalé, pas rejeté
+    @Column(name = "doublon_suspect", columnDefinition = "boolean default false")
+    @Builder.Default
+    private Boolean doublonSuspect = false;
+
+    @Column(name = "doublon_de")
+    private Long doublonDe;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private EtatIntegrite integrite;
+
+    @Column(name = "date_verification")
+    private LocalDateTime dateVerification;
+
+    // Fichier déplacé vers le stockage froid (exercice clos)
+    @Column(name = "stockage_froid", columnDefinition = "boolean default false")
+    @Builder.Default
+    private Boolean stockageFroid = false;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     @Builder.Default
@@ -74,6 +111,14 @@ public class Document {
     @JoinColumn(name = "valide_par_id")
     private Utilisateur validePar;
 
+    // Réservation du document par un comptable (file de travail), libérée à expiration
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "reserve_par_id")
+    private Utilisateur reservePar;
+
+    @Column(name = "reserve_jusqua")
+    private LocalDateTime reserveJusqua;
+
     @Column(nullable = false, length = 4)
     private String exerciceComptable;
 
@@ -107,5 +152,11 @@ public class Document {
         VALIDE,
         REJETE
     }
+
+    public enum EtatIntegrite {
+        INTACT,
+        CORROMPU,
+        MANQUANT
+    }
 }
 
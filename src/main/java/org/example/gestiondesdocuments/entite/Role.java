@@ -2,6 +2,9 @@ package org.example.gestiondesdocuments.entite;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.gestiondesdocuments.config.CacheHibernateConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -14,13 +17,14 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheHibernateConfig.ROLES)
 public class Role {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true, length = 50)
+    @Column(nullable = false, unique = true, length = 50, columnDefinition = "varchar(50)")
     @Enumerated(EnumType.STRING)
     private TypeRole nom;
 
@@ -41,7 +45,8 @@ public class Role {
 
     public enum TypeRole {
         ROLE_SOCIETE,
-        ROLE_COMPTABLE
+        ROLE_COMPTABLE,
+        ROLE_ADMIN
     }
 }
 
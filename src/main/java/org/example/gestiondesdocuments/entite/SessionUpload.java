@@ -0,0 +1,57 @@
+package org.example.gestiondesdocuments.entite;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Upload en plusieurs morceaux en cours : le fichier est reçu dans un fichier temporaire
+ * préalloué et decalage indique combien d'octets en sont déjà écrits durablement.
+ */
+@Entity
+@Table(name = "sessions_upload", indexes = {
+        @Index(name = "idx_sessions_upload_expiration", columnList = "expiration")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SessionUpload {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "utilisateur_email", nullable = false, length = 100)
+    private String utilisateurEmail;
+
+    // DocumentUploadRequest en JSON, appliqué à la finalisation
+    @Column(nullable = false, length = 2000)
+    private String metadonnees;
+
+    @Column(name = "nom_fichier", nullable = false, length = 100)
+    private String nomFichier;
+
+    @Column(name = "type_fichier", nullable = false, length = 100)
+    private String typeFichier;
+
+    @Column(nullable = false)
+    private Long taille;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long decalage = 0L;
+
+    @Column(nullable = false)
+    private LocalDateTime expiration;
+
+    @Column(name = "date_creation", nullable = false, updatable = false)
+    private LocalDateTime dateCreation;
+
+    @PrePersist
+    protected void onCreate() {
+        dateCreation = LocalDateTime.now();
+    }
+}
@@ -2,6 +2,11 @@ package org.example.gestiondesdocuments.entite;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.gestiondesdocuments.config.CacheHibernateConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -14,6 +19,8 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheHibernateConfig.SOCIETES)
+@NaturalIdCache(region = CacheHibernateConfig.SOCIETES_ICE)
 public class Societe {
 
     @Id
@@ -23,6 +30,7 @@ public class Societe {
     @Column(nullable = false, length = 255)
     private String raisonSociale;
 
+    @NaturalId
     @Column(nullable = false, unique = true, length = 15)
     private String ice;
 
@@ -0,0 +1,104 @@
+package org.example.gestiondesdocuments.entite;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tâche différée liée à un document, écrite dans la même transaction que le changement qui la
+ * provoque (outbox) puis exécutée au moins une fois par les workers de TacheService.
+ */
+@Entity
+@Table(name = "taches", indexes = {
+        @Index(name = "idx_taches_statut_priorite", columnList = "statut, priorite, executer_apres")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Tache {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private TypeTache type;
+
+    @Column(name = "document_id")
+    private Long documentId;
+
+    // Higher first
+    @Column(nullable = false)
+    private Integer priorite;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private StatutTache statut = StatutTache.EN_ATTENTE;
+
+    // Incremented by each claim; completions are only recorded for the claim that is still current
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer tentatives = 0;
+
+    @Column(name = "executer_apres", nullable = false)
+    private LocalDateTime executerApres;
+
+    // Lease of the worker running the task; an expired lease puts it back in the queue
+    @Column(name = "reserve_jusqua")
+    private LocalDateTime reserveJusqua;
+
+    @Column(length = 500)
+    private String resultat;
+
+    @Column(name = "derniere_erreur", length = 1000)
+    private String derniereErreur;
+
+    @Column(name = "date_creation", nullable = false, updatable = false)
+    private LocalDateTime dateCreation;
+
+    @Column(name = "date_modification")
+    private LocalDateTime dateModification;
+
+    @PrePersist
+    protected void onCreate() {
+        dateCreation = LocalDateTime.now();
+        dateModification = dateCreation;
+        if (executerApres == null) {
+            executerApres = dateCreation;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        dateModification = LocalDateTime.now();
+    }
+
+    public enum TypeTache {
+        // Re-reads a freshly uploaded file against its checksum
+        CONTROLE_ECRITURE(5),
+        // Copies a validated document to Cloudinary
+        COPIE_DISTANTE(1);
+
+        private final int priorite;
+
+        TypeTache(int priorite) {
+            this.priorite = priorite;
+        }
+
+        public int getPriorite() {
+            return priorite;
+        }
+    }
+
+    public enum StatutTache {
+        EN_ATTENTE,
+        EN_COURS,
+        TERMINEE,
+        ECHEC
+    }
+}
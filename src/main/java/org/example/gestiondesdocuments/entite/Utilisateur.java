@@ -2,6 +2,11 @@ package org.example.gestiondesdocuments.entite;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.gestiondesdocuments.config.CacheHibernateConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -14,12 +19,15 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheHibernateConfig.UTILISATEURS)
+@NaturalIdCache(region = CacheHibernateConfig.UTILISATEURS_EMAIL)
 public class Utilisateur {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(nullable = false, unique = true, length = 100)
     private String email;
 
@@ -44,6 +52,7 @@ public class Utilisateur {
     private LocalDateTime dateModification;
 
     @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheHibernateConfig.UTILISATEURS_ROLES)
     @JoinTable(
         name = "utilisateur_roles",
         joinColumns = @JoinColumn(name = "utilisateur_id"),
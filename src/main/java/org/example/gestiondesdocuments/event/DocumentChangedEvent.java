@@ -0,0 +1,24 @@
+package org.example.gestiondesdocuments.event;
+
+import org.example.gestiondesdocuments.dto.Documents.DocumentUploadResponse;
+import org.example.gestiondesdocuments.entite.Document;
+
+/**
+ * Publié par DocumentServiceImpl à chaque écriture d'un document. Les écouteurs qui ont besoin
+ * de l'état validé s'abonnent avec @TransactionalEventListener (phase AFTER_COMMIT).
+ */
+public record DocumentChangedEvent(
+        Type type,
+        Long societeId,
+        String exerciceComptable,
+        // Null for a new document
+        Document.StatutDocument ancienStatut,
+        DocumentUploadResponse document
+) {
+
+    public enum Type {
+        DOCUMENT_CREE,
+        DOCUMENT_VALIDE,
+        DOCUMENT_REJETE
+    }
+}
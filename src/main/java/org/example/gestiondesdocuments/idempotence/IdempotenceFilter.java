@@ -0,0 +1,133 @@
+package org.example.gestiondesdocuments.idempotence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.gestiondesdocuments.dto.ErrorResponse;
+import org.example.gestiondesdocuments.service.IdempotenceService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Honore l'en-tête Idempotency-Key sur les requêtes qui créent ou changent un document. Placé
+ * après Spring Security (la clé appartient à l'utilisateur authentifié) et avant le DispatcherServlet :
+ * une requête répétée reçoit la réponse enregistrée sans que son corps multipart ne soit analysé
+ * ni le fichier réécrit.
+ *
+ * Seules les réponses 2xx sont enregistrées, avant d'être envoyées au client ; une erreur libère
+ * la clé et la requête répétée est exécutée à nouveau.
+ */
+public class IdempotenceFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    private static final int LONGUEUR_MAX = 255;
+
+    private final IdempotenceService idempotenceService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public IdempotenceFilter(IdempotenceService idempotenceService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.idempotenceService = idempotenceService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(IDEMPOTENCY_KEY) == null || "GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cle = request.getHeader(IDEMPOTENCY_KEY);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (cle.isBlank() || cle.length() > LONGUEUR_MAX) {
+            erreur(response, HttpStatus.BAD_REQUEST, "La clé d'idempotence doit contenir de 1 à " + LONGUEUR_MAX + " caractères");
+            return;
+        }
+
+        IdempotenceService.Reservation reservation = idempotenceService.reserver(authentication.getName(), cle, requete(request));
+        compter(reservation.resultat());
+        switch (reservation.resultat()) {
+            case REJOUEE -> rejouer(response, reservation);
+            case EN_COURS -> erreur(response, HttpStatus.CONFLICT,
+                    "Une requête avec cette clé d'idempotence est encore en cours, réessayez plus tard");
+            case CONFLIT -> erreur(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Cette clé d'idempotence a déjà été utilisée pour une autre requête");
+            case NOUVELLE -> executer(request, response, chain, reservation.id());
+        }
+    }
+
+    private void executer(HttpServletRequest request, HttpServletResponse response, FilterChain chain, String id)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper reponse = new ContentCachingResponseWrapper(response);
+        boolean terminee = false;
+        try {
+            chain.doFilter(request, reponse);
+            if (HttpStatus.valueOf(reponse.getStatus()).is2xxSuccessful()) {
+                // Recorded before the client sees it: a retry after a lost response gets this same response
+                idempotenceService.terminer(id, reponse.getStatus(), reponse.getContentType(),
+                        new String(reponse.getContentAsByteArray(), StandardCharsets.UTF_8));
+                terminee = true;
+            }
+        } finally {
+            if (!terminee) {
+                idempotenceService.abandonner(id);
+            }
+        }
+        reponse.copyBodyToResponse();
+    }
+
+    private void rejouer(HttpServletResponse response, IdempotenceService.Reservation reservation) throws IOException {
+        response.setStatus(reservation.statutHttp());
+        response.setHeader(IDEMPOTENT_REPLAYED, "true");
+        if (reservation.typeContenu() != null) {
+            response.setContentType(reservation.typeContenu());
+        }
+        if (reservation.corps() != null) {
+            byte[] corps = reservation.corps().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(corps.length);
+            response.getOutputStream().write(corps);
+        }
+    }
+
+    private void erreur(HttpServletResponse response, HttpStatus statut, String message) throws IOException {
+        response.setStatus(statut.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse("Erreur", message));
+    }
+
+    private void compter(IdempotenceService.Resultat resultat) {
+        Counter.builder("documents.idempotence")
+                .description("Requêtes reçues avec une clé d'idempotence")
+                .tag("resultat", resultat.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String requete(HttpServletRequest request) {
+        String requete = request.getMethod() + " " + request.getRequestURI();
+        if (request.getQueryString() != null) {
+            requete += "?" + request.getQueryString();
+        }
+        return requete.length() > 500 ? requete.substring(0, 500) : requete;
+    }
+}
@@ -14,6 +14,13 @@ public interface DocumentMapper {
     @Mapping(target = "nomFichierOriginal", ignore = true)
     @Mapping(target = "typeFichier", ignore = true)
     @Mapping(target = "tailleFichier", ignore = true)
+    @Mapping(target = "stockageFroid", ignore = true)
+    @Mapping(target = "sommeControle", ignore = true)
+    @Mapping(target = "empreinte", ignore = true)
+    @Mapping(target = "doublonSuspect", ignore = true)
+    @Mapping(target = "doublonDe", ignore = true)
+    @Mapping(target = "integrite", ignore = true)
+    @Mapping(target = "dateVerification", ignore = true)
     @Mapping(target = "statut", constant = "EN_ATTENTE")
     @Mapping(target = "dateCreation", ignore = true)
     @Mapping(target = "dateModification", ignore = true)
@@ -21,6 +28,8 @@ public interface DocumentMapper {
     @Mapping(target = "uploadePar", ignore = true)
     @Mapping(target = "validePar", ignore = true)
     @Mapping(target = "dateValidation", ignore = true)
+    @Mapping(target = "reservePar", ignore = true)
+    @Mapping(target = "reserveJusqua", ignore = true)
     Document toEntity(DocumentUploadRequest request);
 
     @Mapping(target = "message", constant = "Document uploadé avec succès")
@@ -0,0 +1,57 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Écrit le journal SQL sur un thread dédié. La file est bornée : si le thread d'écriture
+ * ne suit pas, les entrées sont abandonnées (et comptées) plutôt que de ralentir les requêtes.
+ */
+@Component
+public class AsyncQueryLogWriter {
+
+    private static final Logger QUERY_LOG = LoggerFactory.getLogger("SLOW_QUERY");
+
+    private final BlockingQueue<String> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+
+    public AsyncQueryLogWriter(@Value("${app.sql.log.queue-capacity:10000}") int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drain, "sql-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void submit(String entry) {
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                QUERY_LOG.info(queue.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.interrupt();
+    }
+}
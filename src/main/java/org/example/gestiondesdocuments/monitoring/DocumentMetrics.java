@@ -0,0 +1,123 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.gestiondesdocuments.entite.Document;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Métriques métier des documents : phases de l'upload et transitions de statut.
+ * Les appels aux repositories sont mesurés par Spring Data (spring.data.repository.invocations)
+ * et le pool Hikari par l'auto-configuration de l'actuator.
+ */
+@Component
+public class DocumentMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer validationTimer;
+    private final Timer diskWriteTimer;
+    private final Timer dbInsertTimer;
+    private final Counter bytesWritten;
+    private final Counter empreintesTrouvees;
+    private final Counter empreintesAbsentes;
+    private final Counter bytesEvites;
+    private final Map<String, Counter> doublons;
+
+    public DocumentMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.validationTimer = uploadPhase("validate");
+        this.diskWriteTimer = uploadPhase("disk_write");
+        this.dbInsertTimer = uploadPhase("db_insert");
+        this.bytesWritten = Counter.builder("documents.upload.bytes")
+                .description("Octets écrits sur le disque par les uploads")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.empreintesTrouvees = empreinte("trouve");
+        this.empreintesAbsentes = empreinte("absent");
+        this.bytesEvites = Counter.builder("documents.upload.empreinte.bytes")
+                .description("Octets non envoyés grâce aux uploads par empreinte")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.doublons = Stream.of("absent", "faux_positif", "suspect")
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), this::doublonCounter));
+    }
+
+    private Counter doublonCounter(String resultat) {
+        return Counter.builder("documents.doublons")
+                .description("Contrôles de doublon des factures à l'upload")
+                .tag("resultat", resultat)
+                .register(meterRegistry);
+    }
+
+    private Counter empreinte(String resultat) {
+        return Counter.builder("documents.upload.empreinte")
+                .description("Uploads par empreinte, selon que le contenu était déjà stocké")
+                .tag("resultat", resultat)
+                .register(meterRegistry);
+    }
+
+    private Timer uploadPhase(String phase) {
+        return Timer.builder("documents.upload")
+                .description("Durée des phases de l'upload d'un document")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    public Timer validation() {
+        return validationTimer;
+    }
+
+    public Timer diskWrite() {
+        return diskWriteTimer;
+    }
+
+    public Timer dbInsert() {
+        return dbInsertTimer;
+    }
+
+    public void bytesWritten(long bytes) {
+        bytesWritten.increment(bytes);
+    }
+
+    /**
+     * Issue du contrôle des doublons : absent (filtre seul), faux_positif ou suspect (après requête).
+     */
+    public void doublon(String resultat) {
+        doublons.get(resultat).increment();
+    }
+
+    public void deduplication(boolean trouve, long bytes) {
+        if (trouve) {
+            empreintesTrouvees.increment();
+            bytesEvites.increment(bytes);
+        } else {
+            empreintesAbsentes.increment();
+        }
+    }
+
+    /**
+     * Mesure une transition de statut (validation ou rejet), avec l'issue en tag.
+     */
+    public <T> T transition(Document.StatutDocument cible, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = action.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("documents.transition")
+                    .description("Durée des transitions de statut des documents")
+                    .tag("statut", cible.name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
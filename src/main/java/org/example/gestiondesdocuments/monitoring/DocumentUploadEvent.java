@@ -0,0 +1,30 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Événement JFR couvrant l'upload complet d'un document (validation, écriture, insertion).
+ */
+@Name("org.example.gestiondesdocuments.DocumentUpload")
+@Label("Upload de document")
+@Category({"Gestion des documents", "Documents"})
+@Description("Upload d'un document, de la validation du fichier à l'insertion en base")
+public class DocumentUploadEvent extends jdk.jfr.Event {
+
+    @Label("Document")
+    public long documentId;
+
+    @Label("Taille")
+    @DataAmount
+    public long taille;
+
+    @Label("Société")
+    public long societeId;
+
+    @Label("Succès")
+    public boolean succes;
+}
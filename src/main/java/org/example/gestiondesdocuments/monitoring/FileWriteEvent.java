@@ -0,0 +1,24 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Événement JFR couvrant l'écriture d'un fichier uploadé sur le disque.
+ */
+@Name("org.example.gestiondesdocuments.FileWrite")
+@Label("Écriture de fichier")
+@Category({"Gestion des documents", "Stockage"})
+@Description("Écriture du contenu d'un document dans le répertoire d'upload")
+public class FileWriteEvent extends jdk.jfr.Event {
+
+    @Label("Chemin")
+    public String chemin;
+
+    @Label("Taille")
+    @DataAmount
+    public long taille;
+}
@@ -0,0 +1,22 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Événement JFR couvrant la validation du JWT d'une requête (parsing et chargement de l'utilisateur).
+ */
+@Name("org.example.gestiondesdocuments.JwtValidation")
+@Label("Validation JWT")
+@Category({"Gestion des documents", "Sécurité"})
+@Description("Parsing du token, chargement de l'utilisateur et vérification de la signature")
+public class JwtValidationEvent extends jdk.jfr.Event {
+
+    @Label("Utilisateur")
+    public String utilisateur;
+
+    @Label("Valide")
+    public boolean valide;
+}
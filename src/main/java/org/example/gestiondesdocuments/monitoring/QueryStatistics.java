@@ -0,0 +1,84 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import org.example.gestiondesdocuments.dto.Admin.QueryStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Agrégats par forme de requête SQL (nombre, temps total, max). Les littéraux sont remplacés
+ * par '?' pour que les variantes d'une même requête partagent une entrée.
+ */
+@Component
+public class QueryStatistics {
+
+    static final String OTHER_SHAPES = "<autres requêtes>";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final int maxShapes;
+
+    public QueryStatistics(@Value("${app.sql.stats.max-shapes:1000}") int maxShapes) {
+        this.maxShapes = maxShapes;
+    }
+
+    public void record(String sql, long elapsedMillis, boolean slow) {
+        String shape = normalize(sql);
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null) {
+            if (shapes.size() >= maxShapes) {
+                shape = OTHER_SHAPES;
+            }
+            stats = shapes.computeIfAbsent(shape, key -> new ShapeStats());
+        }
+        stats.count.increment();
+        stats.totalMillis.add(elapsedMillis);
+        stats.maxMillis.accumulate(elapsedMillis);
+        if (slow) {
+            stats.slowCount.increment();
+        }
+    }
+
+    public List<QueryStatsResponse> getStatistics(int limit) {
+        return shapes.entrySet().stream()
+                .map(entry -> entry.getValue().toResponse(entry.getKey()))
+                .sorted(Comparator.comparingLong(QueryStatsResponse::tempsTotalMs).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    private static final class ShapeStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final LongAccumulator maxMillis = new LongAccumulator(Math::max, 0);
+        private final LongAdder slowCount = new LongAdder();
+
+        QueryStatsResponse toResponse(String shape) {
+            long n = count.sum();
+            long total = totalMillis.sum();
+            return new QueryStatsResponse(shape, n, total, maxMillis.get(), n == 0 ? 0 : (double) total / n, slowCount.sum());
+        }
+    }
+}
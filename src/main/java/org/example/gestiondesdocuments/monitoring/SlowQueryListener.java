@@ -0,0 +1,94 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Listener JDBC : alimente les agrégats pour chaque requête, journalise les requêtes plus lentes
+ * que le seuil avec leurs paramètres et le service appelant, et un échantillon des autres.
+ */
+public class SlowQueryListener implements QueryExecutionListener {
+
+    private static final String SERVICE_PACKAGE = "org.example.gestiondesdocuments.service";
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private final QueryStatistics queryStatistics;
+    private final AsyncQueryLogWriter logWriter;
+    private final boolean logEnabled;
+    private final long slowThresholdMillis;
+    private final double sampleRate;
+
+    public SlowQueryListener(QueryStatistics queryStatistics, AsyncQueryLogWriter logWriter,
+                             boolean logEnabled, long slowThresholdMillis, double sampleRate) {
+        this.queryStatistics = queryStatistics;
+        this.logWriter = logWriter;
+        this.logEnabled = logEnabled;
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        boolean slow = elapsed >= slowThresholdMillis;
+        for (QueryInfo queryInfo : queryInfoList) {
+            queryStatistics.record(queryInfo.getQuery(), elapsed, slow);
+        }
+
+        if (!logEnabled || !(slow || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            return;
+        }
+        // The caller is resolved here, on the query thread, since the stack is gone once queued
+        String caller = findCallingService();
+        for (QueryInfo queryInfo : queryInfoList) {
+            logWriter.submit(String.format("%s %dms appelant=%s succes=%s requete=[%s] parametres=%s",
+                    slow ? "LENTE" : "ECHANTILLON", elapsed, caller, execInfo.isSuccess(),
+                    queryInfo.getQuery(), formatParameters(queryInfo)));
+        }
+    }
+
+    private static String findCallingService() {
+        Optional<StackWalker.StackFrame> frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(SERVICE_PACKAGE))
+                .findFirst());
+        return frame.map(f -> simpleName(f.getClassName()) + "." + f.getMethodName()).orElse("inconnu");
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static String formatParameters(QueryInfo queryInfo) {
+        return queryInfo.getParametersList().stream()
+                .map(operations -> operations.stream()
+                        .sorted(Comparator.comparingInt(SlowQueryListener::parameterIndex))
+                        .map(SlowQueryListener::formatParameter)
+                        .collect(Collectors.joining(", ", "(", ")")))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static int parameterIndex(ParameterSetOperation operation) {
+        return operation.getArgs()[0] instanceof Integer index ? index : Integer.MAX_VALUE;
+    }
+
+    private static String formatParameter(ParameterSetOperation operation) {
+        if (ParameterSetOperation.isSetNullParameterOperation(operation)) {
+            return "null";
+        }
+        Object[] args = operation.getArgs();
+        String value = args.length > 1 ? String.valueOf(args[1]) : "?";
+        return value.length() > MAX_PARAMETER_LENGTH ? value.substring(0, MAX_PARAMETER_LENGTH) + "..." : value;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Événement JFR couvrant la validation ou le rejet d'un document par un comptable.
+ */
+@Name("org.example.gestiondesdocuments.StatusTransition")
+@Label("Transition de statut")
+@Category({"Gestion des documents", "Documents"})
+@Description("Validation ou rejet d'un document")
+public class StatusTransitionEvent extends jdk.jfr.Event {
+
+    @Label("Document")
+    public long documentId;
+
+    @Label("Taille")
+    @DataAmount
+    public long taille;
+
+    @Label("Société")
+    public long societeId;
+
+    @Label("Statut cible")
+    public String statut;
+
+    @Label("Succès")
+    public boolean succes;
+}
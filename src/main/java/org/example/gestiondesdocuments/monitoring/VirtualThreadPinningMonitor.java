@@ -0,0 +1,139 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Admin.PinningReportResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Détecte les threads virtuels épinglés à leur thread porteur (bloc synchronized, code natif)
+ * en écoutant l'événement JFR jdk.VirtualThreadPinned. Chaque site est journalisé une fois
+ * avec sa pile, compté dans jvm.threads.virtual.pinned et listé sur /api/admin/threads/pinning.
+ */
+@Component
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_SITES = 200;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean virtualThreads;
+    private final Duration threshold;
+    private final Map<String, SiteStats> sites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                       @Value("${app.threads.pinning-threshold:20ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.virtualThreads = virtualThreads;
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!isActive()) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Détection de l'épinglage des threads virtuels active (seuil {})", threshold);
+    }
+
+    public boolean isActive() {
+        return virtualThreads && Runtime.version().feature() >= 21;
+    }
+
+    public List<PinningReportResponse> getReport() {
+        return sites.entrySet().stream()
+                .map(entry -> new PinningReportResponse(entry.getKey(), entry.getValue().count.sum(),
+                        entry.getValue().maxNanos.get() / 1_000_000.0))
+                .sorted(Comparator.comparingLong(PinningReportResponse::occurrences).reversed())
+                .toList();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String site = pinningSite(event);
+        SiteStats stats = sites.get(site);
+        if (stats == null) {
+            if (sites.size() >= MAX_SITES) {
+                return;
+            }
+            stats = sites.computeIfAbsent(site, key -> {
+                log.warn("Thread virtuel épinglé {} ms sur {} :\n{}", event.getDuration().toMillis(), key, formatStack(event));
+                return new SiteStats(Counter.builder("jvm.threads.virtual.pinned")
+                        .description("Épinglages de threads virtuels au-delà du seuil")
+                        .tag("site", key)
+                        .register(meterRegistry));
+            });
+        }
+        stats.count.increment();
+        stats.counter.increment();
+        stats.maxNanos.accumulate(event.getDuration().toNanos());
+    }
+
+    // First frame outside the JDK, i.e. the application or library code holding the monitor
+    private static String pinningSite(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "inconnu";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .filter(frame -> {
+                    String type = frame.getMethod().getType().getName();
+                    return !type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.");
+                })
+                .findFirst()
+                .map(VirtualThreadPinningMonitor::formatFrame)
+                .orElse("jdk");
+    }
+
+    private static String formatStack(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .map(frame -> "\tat " + formatFrame(frame))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String formatFrame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private static final class SiteStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final Counter counter;
+
+        SiteStats(Counter counter) {
+            this.counter = counter;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.CleChiffrement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CleChiffrementRepository extends JpaRepository<CleChiffrement, Long> {
+
+    Optional<CleChiffrement> findFirstBySocieteIdOrderByVersionDesc(Long societeId);
+
+    Optional<CleChiffrement> findBySocieteIdAndVersion(Long societeId, Integer version);
+}
@@ -0,0 +1,62 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.CleIdempotence;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CleIdempotenceRepository extends JpaRepository<CleIdempotence, String> {
+
+    // A plain insert: the primary key decides which of two concurrent requests runs, never a merge
+    @Modifying
+    @Transactional
+    @Query("insert into CleIdempotence (id, requete, statut, reserveJusqua, expiration, dateCreation)"
+            + " values (:id, :requete, :statut, :jusqua, :expiration, :now)")
+    int inserer(@Param("id") String id,
+                @Param("requete") String requete,
+                @Param("statut") CleIdempotence.StatutCle statut,
+                @Param("jusqua") LocalDateTime jusqua,
+                @Param("expiration") LocalDateTime expiration,
+                @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("update CleIdempotence c set c.reserveJusqua = :jusqua"
+            + " where c.id = :id and c.statut = 'EN_COURS' and c.reserveJusqua < :now")
+    int reprendre(@Param("id") String id, @Param("jusqua") LocalDateTime jusqua, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("update CleIdempotence c set c.statut = 'TERMINEE', c.statutHttp = :statutHttp, c.typeContenu = :typeContenu,"
+            + " c.corps = :corps, c.reserveJusqua = null where c.id = :id and c.statut = 'EN_COURS'")
+    int terminer(@Param("id") String id,
+                 @Param("statutHttp") int statutHttp,
+                 @Param("typeContenu") String typeContenu,
+                 @Param("corps") String corps);
+
+    @Modifying
+    @Transactional
+    @Query("delete from CleIdempotence c where c.id = :id and c.statut = 'EN_COURS'")
+    int abandonner(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("delete from CleIdempotence c where c.id = :id and c.expiration < :now")
+    int supprimerExpiree(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from CleIdempotence c where c.expiration < :now")
+    int supprimerExpirees(@Param("now") LocalDateTime now);
+
+    @Query("select c.id from CleIdempotence c order by c.dateCreation, c.id")
+    List<String> findPlusAnciennes(Pageable pageable);
+}
@@ -0,0 +1,60 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.CompteurSocieteBande;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface CompteurSocieteBandeRepository extends JpaRepository<CompteurSocieteBande, Long> {
+
+    // Delta update in the caller's transaction, locking only this band of the societe until commit
+    @Modifying
+    @Query("update CompteurSocieteBande b set b.enAttente = b.enAttente + :enAttente, b.valides = b.valides + :valides,"
+            + " b.rejetes = b.rejetes + :rejetes, b.octets = b.octets + :octets"
+            + " where b.societeId = :societeId and b.bande = :bande")
+    int ajouter(@Param("societeId") Long societeId,
+                @Param("bande") int bande,
+                @Param("enAttente") long enAttente,
+                @Param("valides") long valides,
+                @Param("rejetes") long rejetes,
+                @Param("octets") long octets);
+
+    // Counts a new pending document only if the societe's total (recount plus committed bands) stays in the quota;
+    // 0 rows means refused (or no band yet). Adding no bytes is never refused
+    @Modifying
+    @Query("update CompteurSocieteBande b set b.enAttente = b.enAttente + 1, b.octets = b.octets + :octets"
+            + " where b.societeId = :societeId and b.bande = :bande and (:octets <= 0"
+            + " or coalesce((select c.quotaOctets from CompteurSociete c where c.societeId = :societeId), :quota) <= 0"
+            + " or (select c.octets from CompteurSociete c where c.societeId = :societeId)"
+            + " + (select sum(x.octets) from CompteurSocieteBande x where x.societeId = :societeId) + :octets"
+            + " <= coalesce((select c.quotaOctets from CompteurSociete c where c.societeId = :societeId), :quota))")
+    int ajouterDocument(@Param("societeId") Long societeId,
+                        @Param("bande") int bande,
+                        @Param("octets") long octets,
+                        @Param("quota") long quota);
+
+    // Own transaction, like CompteurSocieteRepository.creerManquants; one band number per call
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("insert into CompteurSocieteBande (societeId, bande, enAttente, valides, rejetes, octets)"
+            + " select c.societeId, :bande, 0L, 0L, 0L, 0L from CompteurSociete c"
+            + " where not exists (select 1 from CompteurSocieteBande b where b.societeId = c.societeId and b.bande = :bande)")
+    int creerManquants(@Param("bande") int bande);
+
+    // Locks every band of the societe: run first in the recount's transaction
+    @Modifying
+    @Query("update CompteurSocieteBande b set b.enAttente = 0, b.valides = 0, b.rejetes = 0, b.octets = 0"
+            + " where b.societeId = :societeId")
+    int remettreAZero(@Param("societeId") Long societeId);
+
+    List<CompteurSocieteBande> findBySocieteId(Long societeId);
+
+    boolean existsBySocieteIdAndBande(Long societeId, Integer bande);
+}
@@ -0,0 +1,41 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.CompteurSociete;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CompteurSocieteRepository extends JpaRepository<CompteurSociete, Long> {
+
+    // Own transaction: a concurrent creation only fails this insert, not the caller's upload
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("insert into CompteurSociete (societeId, enAttente, valides, rejetes, octets)"
+            + " select s.id, 0L, 0L, 0L, 0L from Societe s"
+            + " where not exists (select 1 from CompteurSociete c where c.societeId = s.id)")
+    int creerManquants();
+
+    // One statement per societe, so the row lock is held only for its own recount. A file shared by several
+    // documents (upload by fingerprint) is counted once
+    @Modifying
+    @Transactional
+    @Query("update CompteurSociete c set"
+            + " c.enAttente = (select count(d) from Document d where d.societe.id = c.societeId and d.statut = 'EN_ATTENTE'),"
+            + " c.valides = (select count(d) from Document d where d.societe.id = c.societeId and d.statut = 'VALIDE'),"
+            + " c.rejetes = (select count(d) from Document d where d.societe.id = c.societeId and d.statut = 'REJETE'),"
+            + " c.octets = (select coalesce(sum(d.tailleFichier), 0) from Document d where d.societe.id = c.societeId"
+            + " and not exists (select 1 from Document p where p.cheminFichier = d.cheminFichier and p.id < d.id)),"
+            + " c.dateRecalcul = :now where c.societeId = :societeId")
+    int recalculer(@Param("societeId") Long societeId, @Param("now") LocalDateTime now);
+
+    @Query("select c.societeId from CompteurSociete c order by c.societeId")
+    List<Long> findSocieteIds();
+}
@@ -0,0 +1,9 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.CurseurTraitement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CurseurTraitementRepository extends JpaRepository<CurseurTraitement, String> {
+}
@@ -1,15 +1,188 @@
 package org.example.gestiondesdocuments.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.gestiondesdocuments.dto.Documents.DocumentUploadResponse;
 import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.entite.Utilisateur;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface DocumentRepository extends JpaRepository<Document,Long> {
+public interface DocumentRepository extends JpaRepository<Document,Long>, JpaSpecificationExecutor<Document> {
+
+    @Query("select d from Document d")
+    List<Document> findPage(Pageable pageable);
+
+    List<Document> findByStatut(Document.StatutDocument statut, Pageable pageable);
+
+    List<Document> findBySocieteId(Long societeId, Pageable pageable);
+
+    List<Document> findByExerciceComptable(String exerciceComptable, Pageable pageable);
 
     @Query("select d from Document d where d.societe.id=:societyId and YEAR(d.datePiece)=:exercice")
     List<DocumentUploadResponse> getDocsByExercice(@Param("societyId") Long societyId, @Param("exercice") int exercice);
+
+    // Lock timeout -2 = SKIP LOCKED : only used when the dialect supports it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select d from Document d where d.statut = :statut and (d.reserveJusqua is null or d.reserveJusqua < :now)"
+            + " order by d.dateCreation, d.id")
+    List<Document> lockReservables(@Param("statut") Document.StatutDocument statut,
+                                   @Param("now") LocalDateTime now,
+                                   Pageable pageable);
+
+    @Query("select d.id from Document d where d.statut = :statut and (d.reserveJusqua is null or d.reserveJusqua < :now)"
+            + " order by d.dateCreation, d.id")
+    List<Long> findReservableIds(@Param("statut") Document.StatutDocument statut,
+                                 @Param("now") LocalDateTime now,
+                                 Pageable pageable);
+
+    // Own transaction per row: a compare-and-set must not hold its row lock while the next candidates are tried
+    @Modifying
+    @Transactional
+    @Query("update Document d set d.reservePar = :comptable, d.reserveJusqua = :jusqua"
+            + " where d.id = :id and d.statut = :statut and (d.reserveJusqua is null or d.reserveJusqua < :now)")
+    int reserver(@Param("id") Long id,
+                 @Param("comptable") Utilisateur comptable,
+                 @Param("jusqua") LocalDateTime jusqua,
+                 @Param("statut") Document.StatutDocument statut,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Document d set d.reservePar = null, d.reserveJusqua = null where d.id = :id and d.reservePar = :comptable")
+    int liberer(@Param("id") Long id, @Param("comptable") Utilisateur comptable);
+
+    @Modifying
+    @Query("update Document d set d.reservePar = null, d.reserveJusqua = null where d.reserveJusqua < :now")
+    int libererExpirees(@Param("now") LocalDateTime now);
+
+    @Query("select d.id as id, d.cheminFichier as cheminFichier from Document d where d.id > :apres order by d.id")
+    List<CheminFichier> findChemins(@Param("apres") Long apres, Pageable pageable);
+
+    @Modifying
+    // Every row sharing the file follows it (documents deduplicated by digest)
+    @Query("update Document d set d.cheminFichier = :nouveau where d.cheminFichier = :ancien")
+    int deplacerChemin(@Param("ancien") String ancien, @Param("nouveau") String nouveau);
+
+    @Query("select d.id as id, d.cheminFichier as cheminFichier, d.typeFichier as typeFichier from Document d"
+            + " where d.id > :apres and d.exerciceComptable <= :dernierExerciceClos"
+            + " and (d.stockageFroid is null or d.stockageFroid = false) order by d.id")
+    List<FichierStocke> findAArchiver(@Param("apres") Long apres,
+                                      @Param("dernierExerciceClos") String dernierExerciceClos,
+                                      Pageable pageable);
+
+    // Documents of open years sharing the file keep the hot copy
+    @Modifying
+    @Query("update Document d set d.cheminFichier = :nouveau, d.stockageFroid = true"
+            + " where d.cheminFichier = :ancien and d.exerciceComptable <= :dernierExerciceClos")
+    int archiver(@Param("ancien") String ancien,
+                 @Param("nouveau") String nouveau,
+                 @Param("dernierExerciceClos") String dernierExerciceClos);
+
+    long countByCheminFichier(String cheminFichier);
+
+    // Shared lock until commit: the cold archiving cannot repoint the file while a document is created from it
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select d from Document d where d.id = :id")
+    Optional<Document> lockPourPartage(@Param("id") Long id);
+
+    @Query("select d.id as id, d.societe.id as societeId, d.empreinte as empreinte, d.tailleFichier as tailleFichier"
+            + " from Document d where d.id > :apres and d.empreinte is not null order by d.id")
+    List<EmpreinteDocument> findEmpreintes(@Param("apres") Long apres, Pageable pageable);
+
+    @Query("select d.id as id, d.cheminFichier as cheminFichier, d.sommeControle as sommeControle from Document d"
+            + " where d.id > :apres order by d.id")
+    List<FichierAVerifier> findAVerifier(@Param("apres") Long apres, Pageable pageable);
+
+    Optional<FichierAVerifier> findFichierAVerifierById(Long id);
+
+    // Only recorded if the file was not moved meanwhile; a missing checksum is adopted from the first check
+    @Modifying
+    @Query("update Document d set d.integrite = :integrite, d.dateVerification = :date,"
+            + " d.sommeControle = coalesce(d.sommeControle, :sommeControle)"
+            + " where d.id = :id and d.cheminFichier = :chemin")
+    int enregistrerVerification(@Param("id") Long id,
+                                @Param("chemin") String chemin,
+                                @Param("integrite") Document.EtatIntegrite integrite,
+                                @Param("sommeControle") Long sommeControle,
+                                @Param("date") LocalDateTime date);
+
+    List<Document> findByIntegriteInOrderById(Collection<Document.EtatIntegrite> integrites);
+
+    long countByIntegrite(Document.EtatIntegrite integrite);
+
+    @Query("select coalesce(sum(d.tailleFichier), 0) from Document d")
+    long sommeTailles();
+
+    @Query("select d.cheminFichier from Document d where d.cheminFichier in :chemins")
+    List<String> findCheminsExistants(@Param("chemins") Collection<String> chemins);
+
+    interface CheminFichier {
+        Long getId();
+
+        String getCheminFichier();
+    }
+
+    interface FichierAVerifier extends CheminFichier {
+        Long getSommeControle();
+    }
+
+    @Query("select d.societe.id as societeId, count(d) as nombre from Document d group by d.societe.id")
+    List<DocumentsParSociete> countParSociete();
+
+    @Query("select d.id as id, d.numeroPiece as numeroPiece, d.fournisseur as fournisseur, d.montant as montant"
+            + " from Document d where d.societe.id = :societeId and d.id > :apres order by d.id")
+    List<CleDoublon> findClesDoublon(@Param("societeId") Long societeId, @Param("apres") Long apres, Pageable pageable);
+
+    // Served by idx_documents_societe_piece; only asked when the societe's Bloom filter reports a possible match
+    @Query("select d.id from Document d where d.societe.id = :societeId and d.numeroPiece = :numeroPiece"
+            + " and coalesce(d.fournisseur, '') = :fournisseur and d.montant = :montant order by d.id")
+    List<Long> findDoublons(@Param("societeId") Long societeId,
+                            @Param("numeroPiece") String numeroPiece,
+                            @Param("fournisseur") String fournisseur,
+                            @Param("montant") BigDecimal montant,
+                            Pageable pageable);
+
+    interface DocumentsParSociete {
+        Long getSocieteId();
+
+        Long getNombre();
+    }
+
+    interface CleDoublon {
+        Long getId();
+
+        String getNumeroPiece();
+
+        String getFournisseur();
+
+        BigDecimal getMontant();
+    }
+
+    interface EmpreinteDocument {
+        Long getId();
+
+        Long getSocieteId();
+
+        String getEmpreinte();
+
+        Long getTailleFichier();
+    }
+
+    interface FichierStocke extends CheminFichier {
+        String getTypeFichier();
+    }
 }
@@ -0,0 +1,50 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.dto.Documents.DocumentFiltreRequest;
+import org.example.gestiondesdocuments.entite.Document;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Recherche multicritère sur les documents (Criteria API) : seuls les critères renseignés entrent
+ * dans la requête. Les index composites de Document mettent l'égalité sur le type en tête, puis la
+ * plage de dates ou de montants, pour que la recherche ne parcoure que la plage demandée.
+ */
+public final class DocumentSpecifications {
+
+    private DocumentSpecifications() {
+    }
+
+    public static Specification<Document> filtre(DocumentFiltreRequest filtre) {
+        return Specification.allOf(
+                egal("type", filtre.type()),
+                egal("categorieComptable", filtre.categorieComptable()),
+                egal("statut", filtre.statut()),
+                societe(filtre.societeId()),
+                entre("datePiece", filtre.dateDebut(), filtre.dateFin()),
+                entre("montant", filtre.montantMin(), filtre.montantMax()));
+    }
+
+    private static Specification<Document> egal(String attribut, Object valeur) {
+        return (root, query, cb) -> valeur == null ? null : cb.equal(root.get(attribut), valeur);
+    }
+
+    // Compares the foreign key column, without joining societes
+    private static Specification<Document> societe(Long societeId) {
+        return (root, query, cb) -> societeId == null ? null : cb.equal(root.get("societe").get("id"), societeId);
+    }
+
+    private static <T extends Comparable<? super T>> Specification<Document> entre(String attribut, T min, T max) {
+        return (root, query, cb) -> {
+            if (min != null && max != null) {
+                return cb.between(root.get(attribut), min, max);
+            }
+            if (min != null) {
+                return cb.greaterThanOrEqualTo(root.get(attribut), min);
+            }
+            if (max != null) {
+                return cb.lessThanOrEqualTo(root.get(attribut), max);
+            }
+            return null;
+        };
+    }
+}
@@ -8,5 +8,7 @@ import java.util.Optional;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
+
+    Optional<Role> findByNom(Role.TypeRole nom);
 }
 
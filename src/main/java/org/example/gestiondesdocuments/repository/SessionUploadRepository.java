@@ -0,0 +1,32 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.SessionUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SessionUploadRepository extends JpaRepository<SessionUpload, String> {
+
+    // Compare-and-set on the offset: a chunk is only recorded on top of the offset it was written at
+    @Modifying
+    @Transactional
+    @Query("update SessionUpload s set s.decalage = :nouveau, s.expiration = :expiration"
+            + " where s.id = :id and s.decalage = :ancien")
+    int avancer(@Param("id") String id,
+                @Param("ancien") Long ancien,
+                @Param("nouveau") Long nouveau,
+                @Param("expiration") LocalDateTime expiration);
+
+    List<SessionUpload> findByExpirationBefore(LocalDateTime now);
+
+    // Bytes still expected by the open sessions
+    @Query("select coalesce(sum(s.taille - s.decalage), 0) from SessionUpload s")
+    long resteARecevoir();
+}
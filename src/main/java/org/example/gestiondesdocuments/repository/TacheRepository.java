@@ -0,0 +1,79 @@
+package org.example.gestiondesdocuments.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.example.gestiondesdocuments.entite.Tache;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TacheRepository extends JpaRepository<Tache, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select t from Tache t where t.statut = 'EN_ATTENTE' and t.executerApres <= :now"
+            + " order by t.priorite desc, t.executerApres, t.id")
+    List<Tache> lockExecutables(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("select t.id from Tache t where t.statut = 'EN_ATTENTE' and t.executerApres <= :now"
+            + " order by t.priorite desc, t.executerApres, t.id")
+    List<Long> findExecutableIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Own transaction per row, as for the document reservations
+    @Modifying
+    @Transactional
+    @Query("update Tache t set t.statut = 'EN_COURS', t.tentatives = t.tentatives + 1, t.reserveJusqua = :jusqua,"
+            + " t.dateModification = :now where t.id = :id and t.statut = 'EN_ATTENTE' and t.executerApres <= :now")
+    int reserver(@Param("id") Long id, @Param("jusqua") LocalDateTime jusqua, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("update Tache t set t.statut = 'TERMINEE', t.resultat = :resultat, t.reserveJusqua = null,"
+            + " t.dateModification = :now where t.id = :id and t.statut = 'EN_COURS' and t.tentatives = :tentatives")
+    int terminer(@Param("id") Long id,
+                 @Param("tentatives") int tentatives,
+                 @Param("resultat") String resultat,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("update Tache t set t.statut = :statut, t.executerApres = :executerApres, t.derniereErreur = :erreur,"
+            + " t.reserveJusqua = null, t.dateModification = :now"
+            + " where t.id = :id and t.statut = 'EN_COURS' and t.tentatives = :tentatives")
+    int echouer(@Param("id") Long id,
+                @Param("tentatives") int tentatives,
+                @Param("statut") Tache.StatutTache statut,
+                @Param("executerApres") LocalDateTime executerApres,
+                @Param("erreur") String erreur,
+                @Param("now") LocalDateTime now);
+
+    // A task whose worker died is either retried or, past the last attempt, dead-lettered
+    @Modifying
+    @Query("update Tache t set t.statut = case when t.tentatives >= :tentativesMax then 'ECHEC' else 'EN_ATTENTE' end,"
+            + " t.derniereErreur = 'Bail expiré', t.reserveJusqua = null, t.dateModification = :now"
+            + " where t.statut = 'EN_COURS' and t.reserveJusqua < :now")
+    int libererExpirees(@Param("now") LocalDateTime now, @Param("tentativesMax") int tentativesMax);
+
+    @Modifying
+    @Query("update Tache t set t.statut = 'EN_ATTENTE', t.tentatives = 0, t.executerApres = :now, t.dateModification = :now"
+            + " where t.id = :id and t.statut = 'ECHEC'")
+    int relancer(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from Tache t where t.statut = 'TERMINEE' and t.dateModification < :avant")
+    int supprimerTerminees(@Param("avant") LocalDateTime avant);
+
+    long countByStatut(Tache.StatutTache statut);
+
+    List<Tache> findByStatutOrderByIdDesc(Tache.StatutTache statut, Pageable pageable);
+}
@@ -3,8 +3,5 @@ package org.example.gestiondesdocuments.repository;
 import org.example.gestiondesdocuments.entite.Utilisateur;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.Optional;
-
-public interface UserRepository extends JpaRepository<Utilisateur,Long> {
-    Optional<Utilisateur> findByEmail(String email);
+public interface UserRepository extends JpaRepository<Utilisateur,Long>, UserRepositoryCustom {
 }
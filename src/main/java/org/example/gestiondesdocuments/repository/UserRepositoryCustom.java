@@ -0,0 +1,11 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.Utilisateur;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    // Resolved through the natural-id cache instead of a query on every authenticated request
+    Optional<Utilisateur> findByEmail(String email);
+}
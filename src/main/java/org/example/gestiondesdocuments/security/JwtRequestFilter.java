@@ -1,9 +1,12 @@
 package org.example.gestiondesdocuments.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.gestiondesdocuments.monitoring.JwtValidationEvent;
 import org.example.gestiondesdocuments.service.CustomUserDetailsService;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,10 +21,21 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final CustomUserDetailsService userDetailsService;
     private final JwtTokenService jwtTokenService;
+    private final Timer parseTimer;
+    private final Timer userLookupTimer;
 
-    public JwtRequestFilter(CustomUserDetailsService userDetailsService, JwtTokenService jwtTokenService) {
+    public JwtRequestFilter(CustomUserDetailsService userDetailsService, JwtTokenService jwtTokenService,
+                            MeterRegistry meterRegistry) {
         this.userDetailsService = userDetailsService;
         this.jwtTokenService = jwtTokenService;
+        this.parseTimer = Timer.builder("auth.jwt")
+                .description("Durée de traitement du JWT par phase")
+                .tag("phase", "parse")
+                .register(meterRegistry);
+        this.userLookupTimer = Timer.builder("auth.jwt")
+                .description("Durée de traitement du JWT par phase")
+                .tag("phase", "user_lookup")
+                .register(meterRegistry);
     }
 
     @Override
@@ -32,18 +46,24 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         if (authHeader != null && authHeader.startsWith("Bearer ") && SecurityContextHolder.getContext().getAuthentication() == null) {
             String token = authHeader.substring(7);
+            JwtValidationEvent event = new JwtValidationEvent();
+            event.begin();
 
             try {
-                String username = jwtTokenService.getUsernameFromToken(token);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                String username = parseTimer.record(() -> jwtTokenService.getUsernameFromToken(token));
+                event.utilisateur = username;
+                UserDetails userDetails = userLookupTimer.record(() -> userDetailsService.loadUserByUsername(username));
 
                     if (jwtTokenService.validateToken(token, userDetails)) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     SecurityContextHolder.getContext().setAuthentication(authentication);
+                    event.valide = true;
                 }
             } catch (Exception e) {
                 // Token invalid, continue without authentication
+            } finally {
+                event.commit();
             }
         }
 
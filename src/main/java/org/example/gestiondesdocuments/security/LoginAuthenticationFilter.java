@@ -1,6 +1,8 @@
 package org.example.gestiondesdocuments.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,15 +30,20 @@ import java.util.stream.Collectors;
 public class LoginAuthenticationFilter extends AbstractAuthenticationProcessingFilter {
 
     private final JwtTokenService jwtTokenService;
+    private static final String TIMER_SAMPLE_ATTRIBUTE = LoginAuthenticationFilter.class.getName() + ".sample";
+
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
     public LoginAuthenticationFilter(String loginUrl,
                                      AuthenticationManager authenticationManager,
-                                     JwtTokenService jwtTokenService) {
+                                     JwtTokenService jwtTokenService,
+                                     MeterRegistry meterRegistry) {
         super(new AntPathRequestMatcher(loginUrl, "POST"));
         setAuthenticationManager(authenticationManager);
         this.jwtTokenService = jwtTokenService;
         this.objectMapper = new ObjectMapper();
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -44,6 +51,8 @@ public class LoginAuthenticationFilter extends AbstractAuthenticationProcessingF
                                                HttpServletResponse response)
             throws AuthenticationException, IOException {
 
+         request.setAttribute(TIMER_SAMPLE_ATTRIBUTE, Timer.start(meterRegistry));
+
          LoginRequest loginRequest = objectMapper.readValue(request.getInputStream(), LoginRequest.class);
 
          UsernamePasswordAuthenticationToken authenticationToken =
@@ -76,6 +85,7 @@ public class LoginAuthenticationFilter extends AbstractAuthenticationProcessingF
          response.setContentType(MediaType.APPLICATION_JSON_VALUE);
         response.setStatus(HttpServletResponse.SC_OK);
         objectMapper.writeValue(response.getWriter(), loginResponse);
+        recordLogin(request, "success");
     }
 
     @Override
@@ -93,6 +103,16 @@ public class LoginAuthenticationFilter extends AbstractAuthenticationProcessingF
          response.setContentType(MediaType.APPLICATION_JSON_VALUE);
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         objectMapper.writeValue(response.getWriter(), errorResponse);
+        recordLogin(request, "failure");
+    }
+
+    private void recordLogin(HttpServletRequest request, String outcome) {
+        if (request.getAttribute(TIMER_SAMPLE_ATTRIBUTE) instanceof Timer.Sample sample) {
+            sample.stop(Timer.builder("auth.login")
+                    .description("Durée des authentifications par login")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
     }
 }
 
@@ -0,0 +1,23 @@
+package org.example.gestiondesdocuments.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Utilisateur authentifié, avec l'identifiant de sa société (null pour les comptables et les
+ * administrateurs) pour que les filtres n'aient pas à le relire en base.
+ */
+@Getter
+public class UtilisateurConnecte extends User {
+
+    private final Long societeId;
+
+    public UtilisateurConnecte(String email, String motDePasse, boolean actif,
+                               Collection<? extends GrantedAuthority> authorities, Long societeId) {
+        super(email, motDePasse, actif, true, true, true, authorities);
+        this.societeId = societeId;
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.gestiondesdocuments.service;
+
+import javax.crypto.SecretKey;
+
+public interface CleChiffrementService {
+
+    boolean estActif();
+
+    CleSociete cleCourante(Long societeId);
+
+    SecretKey cle(Long societeId, int version);
+
+    record CleSociete(Long societeId, int version, SecretKey cle) {
+    }
+}
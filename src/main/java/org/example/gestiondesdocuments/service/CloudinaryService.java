@@ -3,7 +3,12 @@ package org.example.gestiondesdocuments.service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface CloudinaryService {
      String uploadFile(MultipartFile file) throws IOException;
+
+     CompletableFuture<String> uploadFileAsync(MultipartFile file) throws IOException;
+
+     String uploadContenu(byte[] content, String publicId) throws IOException;
 }
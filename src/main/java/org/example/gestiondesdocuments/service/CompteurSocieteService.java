@@ -0,0 +1,32 @@
+package org.example.gestiondesdocuments.service;
+
+import org.example.gestiondesdocuments.dto.Admin.RecalculCompteursResponse;
+import org.example.gestiondesdocuments.dto.Documents.CompteursSocieteResponse;
+import org.example.gestiondesdocuments.entite.Document;
+
+public interface CompteurSocieteService {
+
+    CompteursSocieteResponse getCompteurs(Long societeId);
+
+    CompteursSocieteResponse getMesCompteurs(String userEmail);
+
+    /**
+     * Refuse d'avance un fichier qui ne tient plus dans le quota de la société, avant qu'il ne soit
+     * écrit. Le quota n'est garanti que par enregistrerDocument.
+     */
+    void verifierQuota(Long societeId, long octets);
+
+    /**
+     * Compte un nouveau document en attente dans la transaction de l'upload, avec les octets qu'il
+     * ajoute au stockage (0 pour un fichier partagé), ou lève une exception si le quota de la société
+     * serait dépassé.
+     */
+    void enregistrerDocument(Long societeId, long octets);
+
+    void enregistrerTransition(Long societeId, Document.StatutDocument ancien, Document.StatutDocument nouveau);
+
+    /**
+     * Recalcule les compteurs de chaque société à partir de la table documents.
+     */
+    RecalculCompteursResponse recalculer();
+}
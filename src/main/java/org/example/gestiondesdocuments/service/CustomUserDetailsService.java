@@ -2,9 +2,9 @@ package org.example.gestiondesdocuments.service;
 
 import org.example.gestiondesdocuments.entite.Utilisateur;
 import org.example.gestiondesdocuments.repository.UserRepository;
+import org.example.gestiondesdocuments.security.UtilisateurConnecte;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -31,15 +31,9 @@ public class CustomUserDetailsService implements UserDetailsService {
             throw new UsernameNotFoundException("Le compte utilisateur est désactivé : " + email);
         }
 
-        return User.builder()
-                .username(utilisateur.getEmail())
-                .password(utilisateur.getMotDePasse())
-                .authorities(getAuthorities(utilisateur))
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(!utilisateur.getActif())
-                .build();
+        // The societe proxy gives its id without being loaded
+        return new UtilisateurConnecte(utilisateur.getEmail(), utilisateur.getMotDePasse(), utilisateur.getActif(),
+                getAuthorities(utilisateur), utilisateur.getSociete() != null ? utilisateur.getSociete().getId() : null);
     }
 
     private Collection<? extends GrantedAuthority> getAuthorities(Utilisateur utilisateur) {
@@ -0,0 +1,12 @@
+package org.example.gestiondesdocuments.service;
+
+import org.example.gestiondesdocuments.dto.Documents.DocumentReservationResponse;
+
+public interface DocumentReservationService {
+
+    DocumentReservationResponse reserverSuivants(String comptableEmail, int nombre);
+
+    void liberer(Long documentId, String comptableEmail);
+
+    int libererExpirees();
+}
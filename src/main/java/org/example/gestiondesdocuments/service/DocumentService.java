@@ -1,22 +1,44 @@
 package org.example.gestiondesdocuments.service;
 
+import org.example.gestiondesdocuments.dto.Documents.DocumentFiltreRequest;
+import org.example.gestiondesdocuments.dto.Documents.DocumentFichier;
 import org.example.gestiondesdocuments.dto.Documents.DocumentUploadRequest;
 import org.example.gestiondesdocuments.dto.Documents.DocumentUploadResponse;
+import org.example.gestiondesdocuments.dto.Documents.UploadEmpreinteRequest;
 import org.example.gestiondesdocuments.entite.Document;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface DocumentService {
     DocumentUploadResponse uploadDocument(DocumentUploadRequest request, MultipartFile file, String userEmail);
 
-    List<DocumentUploadResponse> getAllDocuments();
+    DocumentUploadResponse uploadDocumentAssemble(DocumentUploadRequest request, MultipartFile file, String userEmail);
 
-    List<DocumentUploadResponse> getDocumentsByStatus(Document.StatutDocument status);
+    // Empty when the societe does not hold these bytes yet: the file must then be uploaded
+    Optional<DocumentUploadResponse> uploadParEmpreinte(UploadEmpreinteRequest request, String userEmail);
 
-    DocumentUploadResponse validerDocs(Long id,String commentaire);
-    DocumentUploadResponse rejectrDocs(Long id,String motif);
-    List<DocumentUploadResponse>  getDocsBySociete(Long societe);
-    List<DocumentUploadResponse>  getDocsByExercice(String username, String year);
+    // page and taille are optional: without them the whole list is returned
+    List<DocumentUploadResponse> getAllDocuments(Integer page, Integer taille);
+
+    List<DocumentUploadResponse> getDocumentsByStatus(Document.StatutDocument status, Integer page, Integer taille);
+
+    DocumentUploadResponse validerDocs(Long id,String commentaire,String comptableEmail);
+    DocumentUploadResponse rejectrDocs(Long id,String motif,String comptableEmail);
+    List<DocumentUploadResponse>  getDocsBySociete(Long societe, Integer page, Integer taille);
+    List<DocumentUploadResponse>  getDocsByExercice(String username, String year, Integer page, Integer taille);
+
+    // Always paged; sorted by datePiece, montant or id
+    List<DocumentUploadResponse> rechercher(DocumentFiltreRequest filtre);
+
+    // Weak ETags of the listings above, read from in-memory change versions without touching the database.
+    // Read before the listing itself: a write in between only makes the client fetch once more.
+    String etagDocuments(Integer page, Integer taille);
+    String etagDocumentsByStatus(Document.StatutDocument status, Integer page, Integer taille);
+    String etagDocsBySociete(Long societe, Integer page, Integer taille);
+    String etagDocsByExercice(String year, Integer page, Integer taille);
+
+    DocumentFichier getFichier(Long id, String userEmail);
 }
 
@@ -0,0 +1,29 @@
+package org.example.gestiondesdocuments.service;
+
+import org.example.gestiondesdocuments.storage.ContenuDocument;
+import org.example.gestiondesdocuments.storage.FichierEcrit;
+import org.example.gestiondesdocuments.storage.RegionFichier;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+public interface DocumentStorageService {
+
+    FichierEcrit stocker(MultipartFile file, Long societeId);
+
+    RegionFichier localiser(String chemin);
+
+    ContenuDocument lire(String chemin);
+
+    InputStream ouvrirStocke(String chemin) throws IOException;
+
+    void supprimer(String chemin);
+
+    Path emplacement(String nomFichier);
+
+    boolean estCompacte(String chemin);
+
+    boolean estFroid(String chemin);
+}
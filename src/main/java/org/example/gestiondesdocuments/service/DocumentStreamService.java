@@ -0,0 +1,8 @@
+package org.example.gestiondesdocuments.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface DocumentStreamService {
+
+    SseEmitter subscribe(String lastEventId);
+}
@@ -0,0 +1,17 @@
+package org.example.gestiondesdocuments.service;
+
+import org.example.gestiondesdocuments.entite.Tache;
+
+/**
+ * Exécute un type de tâche différée. Une tâche peut être rejouée (exécution au moins une fois) :
+ * l'exécution doit donc être idempotente. Une exception déclenche une nouvelle tentative plus tard.
+ */
+public interface ExecuteurTache {
+
+    Tache.TypeTache type();
+
+    /**
+     * @return le résultat conservé sur la tâche (peut être null)
+     */
+    String executer(Tache tache) throws Exception;
+}
@@ -0,0 +1,28 @@
+package org.example.gestiondesdocuments.service;
+
+public interface IdempotenceService {
+
+    /**
+     * Réserve la clé pour cette requête, ou rend la réponse enregistrée. Si la même clé est en cours
+     * d'exécution, attend qu'elle se termine (au plus app.idempotence.attente-max).
+     */
+    Reservation reserver(String userEmail, String cle, String requete);
+
+    // Only successful responses are kept; anything else releases the key so the client can retry
+    void terminer(String id, int statutHttp, String typeContenu, String corps);
+
+    void abandonner(String id);
+
+    enum Resultat {
+        // The caller executes the request then calls terminer or abandonner
+        NOUVELLE,
+        REJOUEE,
+        // Still running after the wait
+        EN_COURS,
+        // Same key, different request
+        CONFLIT
+    }
+
+    record Reservation(Resultat resultat, String id, Integer statutHttp, String typeContenu, String corps) {
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.gestiondesdocuments.service;
+
+import org.example.gestiondesdocuments.dto.Admin.JfrRecordingResponse;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public interface JfrRecordingService {
+
+    JfrRecordingResponse start(String profil);
+
+    JfrRecordingResponse stop(long id);
+
+    List<JfrRecordingResponse> getRecordings();
+
+    Path getFichier(long id);
+
+    void delete(long id);
+}
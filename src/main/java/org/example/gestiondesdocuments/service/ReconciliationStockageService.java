@@ -0,0 +1,13 @@
+package org.example.gestiondesdocuments.service;
+
+import org.example.gestiondesdocuments.dto.Admin.ReconciliationResponse;
+import org.example.gestiondesdocuments.dto.Admin.TraitementResponse;
+
+public interface ReconciliationStockageService {
+
+    TraitementResponse demarrer(boolean quarantaine);
+
+    TraitementResponse arreter();
+
+    ReconciliationResponse getRapport();
+}
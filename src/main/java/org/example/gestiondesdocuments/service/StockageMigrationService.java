@@ -0,0 +1,12 @@
+package org.example.gestiondesdocuments.service;
+
+import org.example.gestiondesdocuments.dto.Admin.TraitementResponse;
+
+public interface StockageMigrationService {
+
+    TraitementResponse demarrer();
+
+    TraitementResponse arreter();
+
+    TraitementResponse getEtat();
+}
@@ -0,0 +1,16 @@
+package org.example.gestiondesdocuments.service;
+
+import org.example.gestiondesdocuments.dto.Admin.TachesResponse;
+import org.example.gestiondesdocuments.entite.Tache;
+
+public interface TacheService {
+
+    /**
+     * Enregistre une tâche dans la transaction en cours ; elle n'est exécutée qu'après son commit.
+     */
+    void planifier(Tache.TypeTache type, Long documentId);
+
+    TachesResponse getEtat();
+
+    void relancer(Long id);
+}
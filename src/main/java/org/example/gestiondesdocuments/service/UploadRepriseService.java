@@ -0,0 +1,25 @@
+package org.example.gestiondesdocuments.service;
+
+import org.example.gestiondesdocuments.dto.Documents.DocumentUploadResponse;
+import org.example.gestiondesdocuments.dto.Documents.UploadRepriseRequest;
+import org.example.gestiondesdocuments.dto.Documents.UploadRepriseResponse;
+
+import java.io.InputStream;
+
+public interface UploadRepriseService {
+
+    UploadRepriseResponse creer(UploadRepriseRequest request, String userEmail);
+
+    UploadRepriseResponse getEtat(String id, String userEmail);
+
+    /**
+     * Écrit le morceau reçu à partir de decalage, qui doit être le décalage courant de la session.
+     *
+     * @return le nouveau décalage
+     */
+    long ecrire(String id, long decalage, InputStream contenu, String userEmail);
+
+    DocumentUploadResponse finaliser(String id, String userEmail);
+
+    void annuler(String id, String userEmail);
+}
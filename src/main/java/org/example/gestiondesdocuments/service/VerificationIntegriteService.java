@@ -0,0 +1,19 @@
+package org.example.gestiondesdocuments.service;
+
+import org.example.gestiondesdocuments.dto.Admin.IntegriteResponse;
+import org.example.gestiondesdocuments.dto.Admin.TraitementResponse;
+import org.example.gestiondesdocuments.entite.Document;
+
+public interface VerificationIntegriteService {
+
+    TraitementResponse demarrer();
+
+    TraitementResponse arreter();
+
+    IntegriteResponse getRapport();
+
+    /**
+     * Relit immédiatement le fichier d'un document, sans limitation de débit, et enregistre le résultat.
+     */
+    Document.EtatIntegrite verifierDocument(Long documentId);
+}
@@ -0,0 +1,160 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.gestiondesdocuments.dto.Documents.DocumentUploadResponse;
+import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.event.DocumentChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des listes de documents (Caffeine, éviction W-TinyLFU), borné en nombre de documents.
+ *
+ * Chaque vue dépend d'un compteur de version : par société, par exercice, par statut, ou global
+ * pour la liste complète. La clé d'une entrée contient la version lue au moment de la requête ;
+ * une écriture validée incrémente les compteurs qu'elle touche, les anciennes entrées ne sont plus
+ * jamais lues et sortent du cache par éviction. Les versions sont incrémentées après le commit :
+ * une requête ne peut pas mettre en cache sous la nouvelle version un état qui n'a pas encore été
+ * validé. Un compteur n'est créé que par une écriture : une société ou un exercice jamais écrit
+ * est en version 0, sans entrée, quel que soit le filtre demandé par le client.
+ *
+ * Deux requêtes manquées sur la même clé n'exécutent qu'une requête SQL (la seconde attend le
+ * résultat de la première). Les versions sont propres à l'instance : app.listings.cache.duree borne
+ * le retard sur les écritures faites par une autre instance.
+ *
+ * La même clé donne l'ETag faible des listes : il ne change que si une écriture touche la vue, et
+ * contient une époque tirée au démarrage pour qu'une version d'une autre instance, ou d'avant un
+ * redémarrage, ne soit jamais prise pour la version courante.
+ */
+@Component
+class CacheListings {
+
+    private final Cache<Cle, List<DocumentUploadResponse>> cache;
+    private final String epoque = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final AtomicLong versionGlobale = new AtomicLong();
+    private final Map<Long, AtomicLong> versionsSociete = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> versionsExercice = new ConcurrentHashMap<>();
+    private final Map<Document.StatutDocument, AtomicLong> versionsStatut = new EnumMap<>(Document.StatutDocument.class);
+
+    CacheListings(MeterRegistry meterRegistry,
+                  @Value("${app.listings.cache.max-documents:100000}") long maxDocuments,
+                  @Value("${app.listings.cache.duree:5m}") Duration duree) {
+        this.cache = Caffeine.newBuilder()
+                // An empty list still costs an entry
+                .maximumWeight(maxDocuments)
+                .<Cle, List<DocumentUploadResponse>>weigher((cle, documents) -> documents.size() + 1)
+                .expireAfterWrite(duree)
+                .recordStats()
+                .build();
+        for (Document.StatutDocument statut : Document.StatutDocument.values()) {
+            versionsStatut.put(statut, new AtomicLong());
+        }
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "documents.listings");
+        Gauge.builder("documents.listings.hit_ratio", cache, c -> c.stats().hitRate())
+                .description("Part des listes de documents servies par le cache")
+                .register(meterRegistry);
+    }
+
+    List<DocumentUploadResponse> tous(int page, int taille, Supplier<List<DocumentUploadResponse>> requete) {
+        return charger(cleTous(page, taille), requete);
+    }
+
+    List<DocumentUploadResponse> parStatut(Document.StatutDocument statut, int page, int taille,
+                                           Supplier<List<DocumentUploadResponse>> requete) {
+        return charger(cleStatut(statut, page, taille), requete);
+    }
+
+    List<DocumentUploadResponse> parSociete(Long societeId, int page, int taille,
+                                            Supplier<List<DocumentUploadResponse>> requete) {
+        return charger(cleSociete(societeId, page, taille), requete);
+    }
+
+    List<DocumentUploadResponse> parExercice(String exercice, int page, int taille,
+                                             Supplier<List<DocumentUploadResponse>> requete) {
+        return charger(cleExercice(exercice, page, taille), requete);
+    }
+
+    String etagTous(int page, int taille) {
+        return etag(cleTous(page, taille));
+    }
+
+    String etagStatut(Document.StatutDocument statut, int page, int taille) {
+        return etag(cleStatut(statut, page, taille));
+    }
+
+    String etagSociete(Long societeId, int page, int taille) {
+        return etag(cleSociete(societeId, page, taille));
+    }
+
+    String etagExercice(String exercice, int page, int taille) {
+        return etag(cleExercice(exercice, page, taille));
+    }
+
+    @TransactionalEventListener
+    public void onDocumentChanged(DocumentChangedEvent event) {
+        versionGlobale.incrementAndGet();
+        versionsSociete.computeIfAbsent(event.societeId(), c -> new AtomicLong()).incrementAndGet();
+        versionsExercice.computeIfAbsent(event.exerciceComptable(), c -> new AtomicLong()).incrementAndGet();
+        versionsStatut.get(event.document().statut()).incrementAndGet();
+        if (event.ancienStatut() != null) {
+            versionsStatut.get(event.ancienStatut()).incrementAndGet();
+        }
+    }
+
+    private Cle cleTous(int page, int taille) {
+        return new Cle(Vue.TOUS, null, page, taille, versionGlobale.get());
+    }
+
+    private Cle cleStatut(Document.StatutDocument statut, int page, int taille) {
+        return new Cle(Vue.STATUT, statut, page, taille, versionsStatut.get(statut).get());
+    }
+
+    private Cle cleSociete(Long societeId, int page, int taille) {
+        return new Cle(Vue.SOCIETE, societeId, page, taille, version(versionsSociete, societeId));
+    }
+
+    private Cle cleExercice(String exercice, int page, int taille) {
+        return new Cle(Vue.EXERCICE, exercice, page, taille, version(versionsExercice, exercice));
+    }
+
+    // The filter itself is in the URL, so the version and the page are enough
+    private String etag(Cle cle) {
+        String page = cle.page() < 0 ? "" : "-" + cle.page() + "-" + cle.taille();
+        return "W/\"" + epoque + "-" + cle.version() + page + "\"";
+    }
+
+    private List<DocumentUploadResponse> charger(Cle cle, Supplier<List<DocumentUploadResponse>> requete) {
+        // Atomic per key: concurrent misses wait for the single load
+        return cache.get(cle, c -> requete.get());
+    }
+
+    // Read-only: request parameters must not add entries, only writes do
+    private static <K> long version(Map<K, AtomicLong> versions, K cle) {
+        AtomicLong version = versions.get(cle);
+        return version == null ? 0 : version.get();
+    }
+
+    private enum Vue {
+        TOUS,
+        STATUT,
+        SOCIETE,
+        EXERCICE
+    }
+
+    private record Cle(Vue vue, Object filtre, int page, int taille, long version) {
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.entite.CleChiffrement;
+import org.example.gestiondesdocuments.repository.CleChiffrementRepository;
+import org.example.gestiondesdocuments.repository.SocietyRepository;
+import org.example.gestiondesdocuments.service.CleChiffrementService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Clés de données AES-256 par société, créées au premier upload et stockées chiffrées par la clé
+ * maître (AES Key Wrap, RFC 3394). Les clés déchiffrées restent en mémoire : une société ne coûte
+ * qu'un accès à la base par démarrage.
+ */
+@Service
+@Slf4j
+public class CleChiffrementServiceImpl implements CleChiffrementService {
+
+    private final CleChiffrementRepository cleRepository;
+    private final SocietyRepository societyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean actif;
+    private final SecretKey cleMaitre;
+    private final Map<Long, CleSociete> courantes = new ConcurrentHashMap<>();
+    private final Map<String, SecretKey> cles = new ConcurrentHashMap<>();
+
+    public CleChiffrementServiceImpl(CleChiffrementRepository cleRepository,
+                                     SocietyRepository societyRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.chiffrement.actif:false}") boolean actif,
+                                     @Value("${app.chiffrement.cle-maitre:}") String cleMaitre) {
+        this.cleRepository = cleRepository;
+        this.societyRepository = societyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.actif = actif;
+        this.cleMaitre = cleMaitre.isBlank() ? null : new SecretKeySpec(Base64.getDecoder().decode(cleMaitre), "AES");
+        if (actif && this.cleMaitre == null) {
+            throw new IllegalStateException(
+                    "Chiffrement actif sans clé maître : définir CHIFFREMENT_CLE_MAITRE (app.chiffrement.cle-maitre)");
+        }
+        if (actif && this.cleMaitre.getEncoded().length != 32) {
+            throw new IllegalStateException("app.chiffrement.cle-maitre doit contenir 32 octets encodés en base64");
+        }
+    }
+
+    @Override
+    public boolean estActif() {
+        return actif;
+    }
+
+    @Override
+    public CleSociete cleCourante(Long societeId) {
+        return courantes.computeIfAbsent(societeId, id -> {
+            CleChiffrement cle = cleRepository.findFirstBySocieteIdOrderByVersionDesc(id)
+                    .orElseGet(() -> creer(id));
+            return new CleSociete(id, cle.getVersion(), dechiffrer(cle));
+        });
+    }
+
+    @Override
+    public SecretKey cle(Long societeId, int version) {
+        return cles.computeIfAbsent(societeId + ":" + version, k -> dechiffrer(
+                cleRepository.findBySocieteIdAndVersion(societeId, version)
+                        .orElseThrow(() -> new RuntimeException("Clé de chiffrement introuvable pour la société " + societeId))));
+    }
+
+    private CleChiffrement creer(Long societeId) {
+        try {
+            KeyGenerator generateur = KeyGenerator.getInstance("AES");
+            generateur.init(256);
+            Cipher wrap = Cipher.getInstance("AESWrap");
+            wrap.init(Cipher.WRAP_MODE, cleMaitre());
+            byte[] cleChiffree = wrap.wrap(generateur.generateKey());
+            return transactionTemplate.execute(status -> cleRepository.save(CleChiffrement.builder()
+                    .societe(societyRepository.getReferenceById(societeId))
+                    .version(1)
+                    .cleChiffree(cleChiffree)
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created it first
+            return cleRepository.findFirstBySocieteIdOrderByVersionDesc(societeId).orElseThrow(() -> e);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Impossible de créer la clé de la société " + societeId, e);
+        }
+    }
+
+    private SecretKey dechiffrer(CleChiffrement cle) {
+        try {
+            Cipher unwrap = Cipher.getInstance("AESWrap");
+            unwrap.init(Cipher.UNWRAP_MODE, cleMaitre());
+            return (SecretKey) unwrap.unwrap(cle.getCleChiffree(), "AES", Cipher.SECRET_KEY);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Clé de chiffrement illisible avec la clé maître configurée", e);
+        }
+    }
+
+    private SecretKey cleMaitre() {
+        if (cleMaitre == null) {
+            throw new RuntimeException("Clé maître non configurée (app.chiffrement.cle-maitre)");
+        }
+        return cleMaitre;
+    }
+}
@@ -0,0 +1,216 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Admin.RecalculCompteursResponse;
+import org.example.gestiondesdocuments.dto.Documents.CompteursSocieteResponse;
+import org.example.gestiondesdocuments.entite.CompteurSociete;
+import org.example.gestiondesdocuments.entite.CompteurSocieteBande;
+import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.entite.Utilisateur;
+import org.example.gestiondesdocuments.repository.CompteurSocieteBandeRepository;
+import org.example.gestiondesdocuments.repository.CompteurSocieteRepository;
+import org.example.gestiondesdocuments.repository.UserRepository;
+import org.example.gestiondesdocuments.service.CompteurSocieteService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compteurs par société (documents en attente, validés, rejetés, octets stockés) et quota de stockage.
+ *
+ * Les compteurs ne sont jamais lus puis réécrits : l'upload et le changement de statut ajoutent leur
+ * delta par un UPDATE dans leur propre transaction, sur une des app.compteurs.bandes bandes de la
+ * société tirée au hasard, si bien que deux écritures concurrentes ne s'attendent que si elles tombent
+ * sur la même. L'upload n'est compté que si le total tient dans le quota (même UPDATE) ; les bandes
+ * verrouillées par d'autres uploads en cours ne comptent qu'une fois validées, le quota peut donc être
+ * dépassé d'au plus un fichier par bande. Un fichier partagé par plusieurs documents (upload par
+ * empreinte) n'est compté qu'une fois dans les octets stockés. Le recalcul au démarrage puis toutes les
+ * app.compteurs.recalcul-interval corrige un écart éventuel (écriture hors application, compteurs
+ * créés sur une base existante).
+ */
+@Service
+@Slf4j
+public class CompteurSocieteServiceImpl implements CompteurSocieteService {
+
+    private final CompteurSocieteRepository compteurRepository;
+    private final CompteurSocieteBandeRepository bandeRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long quotaDefaut;
+    private final int bandes;
+
+    public CompteurSocieteServiceImpl(CompteurSocieteRepository compteurRepository,
+                                      CompteurSocieteBandeRepository bandeRepository,
+                                      UserRepository userRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.quotas.octets-par-societe:0}") DataSize quotaDefaut,
+                                      @Value("${app.compteurs.bandes:8}") int bandes) {
+        this.compteurRepository = compteurRepository;
+        this.bandeRepository = bandeRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.quotaDefaut = quotaDefaut.toBytes();
+        this.bandes = Math.max(1, bandes);
+    }
+
+    @Override
+    public CompteursSocieteResponse getCompteurs(Long societeId) {
+        return compteur(societeId)
+                .map(this::lire)
+                .orElseThrow(() -> new RuntimeException("Société non trouvée : " + societeId));
+    }
+
+    @Override
+    public CompteursSocieteResponse getMesCompteurs(String userEmail) {
+        Utilisateur user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        if (user.getSociete() == null) {
+            throw new RuntimeException("L'utilisateur n'est associé à aucune société");
+        }
+        return getCompteurs(user.getSociete().getId());
+    }
+
+    @Override
+    public void verifierQuota(Long societeId, long octets) {
+        compteurRepository.findById(societeId).map(this::lire).ifPresent(compteurs -> {
+            if (compteurs.quotaOctets() != null && octets > 0 && compteurs.octetsStockes() + octets > compteurs.quotaOctets()) {
+                throw quotaDepasse(compteurs.quotaOctets());
+            }
+        });
+    }
+
+    @Override
+    public void enregistrerDocument(Long societeId, long octets) {
+        int bande = bande();
+        if (bandeRepository.ajouterDocument(societeId, bande, octets, quotaDefaut) == 1) {
+            return;
+        }
+        // First document of a societe created since the last recount, or app.compteurs.bandes raised
+        if (!bandeRepository.existsBySocieteIdAndBande(societeId, bande)) {
+            creerManquants();
+            if (bandeRepository.ajouterDocument(societeId, bande, octets, quotaDefaut) == 1) {
+                return;
+            }
+        }
+        throw quotaDepasse(compteurRepository.findById(societeId).map(this::quota).orElse(quotaDefaut));
+    }
+
+    @Override
+    public void enregistrerTransition(Long societeId, Document.StatutDocument ancien, Document.StatutDocument nouveau) {
+        long enAttente = delta(Document.StatutDocument.EN_ATTENTE, ancien, nouveau);
+        long valides = delta(Document.StatutDocument.VALIDE, ancien, nouveau);
+        long rejetes = delta(Document.StatutDocument.REJETE, ancien, nouveau);
+        if (bandeRepository.ajouter(societeId, bande(), enAttente, valides, rejetes, 0) == 0) {
+            // Created from the documents table by the next recount
+            log.warn("Pas de compteurs pour la société {}, transition {} -> {} non comptée", societeId, ancien, nouveau);
+        }
+    }
+
+    // At startup too: counters created on an existing database start from the documents already there
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.compteurs.recalcul-interval:6h}",
+            initialDelayString = "${app.compteurs.recalcul-interval:6h}")
+    public void recalculerPeriodiquement() {
+        recalculer();
+    }
+
+    @Override
+    public RecalculCompteursResponse recalculer() {
+        creerManquants();
+        int societes = 0;
+        int corriges = 0;
+        for (Long societeId : compteurRepository.findSocieteIds()) {
+            Optional<CompteursSocieteResponse> avant = compteurRepository.findById(societeId).map(this::lire);
+            // Bands first: their locks wait for the uploads in flight, whose documents the recount then sees
+            transactionTemplate.executeWithoutResult(status -> {
+                bandeRepository.remettreAZero(societeId);
+                compteurRepository.recalculer(societeId, LocalDateTime.now());
+            });
+            Optional<CompteursSocieteResponse> apres = compteurRepository.findById(societeId).map(this::lire);
+            societes++;
+            if (avant.isPresent() && apres.isPresent() && !memesValeurs(avant.get(), apres.get())) {
+                corriges++;
+                log.warn("Compteurs de la société {} corrigés : {} -> {}", societeId, avant.get(), apres.get());
+            }
+        }
+        log.info("Compteurs recalculés pour {} société(s), {} corrigée(s)", societes, corriges);
+        return new RecalculCompteursResponse(societes, corriges);
+    }
+
+    private Optional<CompteurSociete> compteur(Long societeId) {
+        Optional<CompteurSociete> compteur = compteurRepository.findById(societeId);
+        if (compteur.isPresent()) {
+            return compteur;
+        }
+        creerManquants();
+        return compteurRepository.findById(societeId);
+    }
+
+    private void creerManquants() {
+        try {
+            compteurRepository.creerManquants();
+        } catch (DataIntegrityViolationException e) {
+            // Created at the same time by another request
+            log.debug("Compteurs déjà créés", e);
+        }
+        for (int bande = 0; bande < bandes; bande++) {
+            try {
+                bandeRepository.creerManquants(bande);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Bande {} des compteurs déjà créée", bande, e);
+            }
+        }
+    }
+
+    private int bande() {
+        return ThreadLocalRandom.current().nextInt(bandes);
+    }
+
+    private long quota(CompteurSociete compteur) {
+        return compteur.getQuotaOctets() != null ? compteur.getQuotaOctets() : quotaDefaut;
+    }
+
+    private static RuntimeException quotaDepasse(long quota) {
+        DataSize taille = DataSize.ofBytes(quota);
+        return new RuntimeException("Quota de stockage de la société atteint ("
+                + (taille.toMegabytes() > 0 ? taille.toMegabytes() + "MB" : quota + " octets") + ")");
+    }
+
+    private static long delta(Document.StatutDocument statut, Document.StatutDocument ancien, Document.StatutDocument nouveau) {
+        return (statut == nouveau ? 1 : 0) - (statut == ancien ? 1 : 0);
+    }
+
+    private static boolean memesValeurs(CompteursSocieteResponse a, CompteursSocieteResponse b) {
+        return a.enAttente() == b.enAttente()
+                && a.valides() == b.valides()
+                && a.rejetes() == b.rejetes()
+                && a.octetsStockes() == b.octetsStockes();
+    }
+
+    // Recount plus the deltas of every band since
+    private CompteursSocieteResponse lire(CompteurSociete compteur) {
+        long enAttente = compteur.getEnAttente();
+        long valides = compteur.getValides();
+        long rejetes = compteur.getRejetes();
+        long octets = compteur.getOctets();
+        for (CompteurSocieteBande bande : bandeRepository.findBySocieteId(compteur.getSocieteId())) {
+            enAttente += bande.getEnAttente();
+            valides += bande.getValides();
+            rejetes += bande.getRejetes();
+            octets += bande.getOctets();
+        }
+        long quota = quota(compteur);
+        return new CompteursSocieteResponse(compteur.getSocieteId(), enAttente, valides, rejetes, octets,
+                quota > 0 ? quota : null, compteur.getDateRecalcul());
+    }
+}
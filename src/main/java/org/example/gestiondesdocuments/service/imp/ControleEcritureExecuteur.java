@@ -0,0 +1,30 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.RequiredArgsConstructor;
+import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.entite.Tache;
+import org.example.gestiondesdocuments.service.ExecuteurTache;
+import org.example.gestiondesdocuments.service.VerificationIntegriteService;
+import org.springframework.stereotype.Service;
+
+/**
+ * Relit le fichier d'un document juste après son upload et compare son CRC32C à celui calculé
+ * pendant l'écriture, sans attendre le prochain passage de la vérification d'intégrité.
+ */
+@Service
+@RequiredArgsConstructor
+public class ControleEcritureExecuteur implements ExecuteurTache {
+
+    private final VerificationIntegriteService verificationIntegriteService;
+
+    @Override
+    public Tache.TypeTache type() {
+        return Tache.TypeTache.CONTROLE_ECRITURE;
+    }
+
+    @Override
+    public String executer(Tache tache) {
+        Document.EtatIntegrite etat = verificationIntegriteService.verifierDocument(tache.getDocumentId());
+        return etat.name();
+    }
+}
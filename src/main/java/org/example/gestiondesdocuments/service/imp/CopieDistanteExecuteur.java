@@ -0,0 +1,46 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.RequiredArgsConstructor;
+import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.entite.Tache;
+import org.example.gestiondesdocuments.repository.DocumentRepository;
+import org.example.gestiondesdocuments.service.CloudinaryService;
+import org.example.gestiondesdocuments.service.DocumentStorageService;
+import org.example.gestiondesdocuments.service.ExecuteurTache;
+import org.example.gestiondesdocuments.storage.ContenuDocument;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Copie sur Cloudinary le contenu en clair d'un document validé, sous un identifiant dérivé du
+ * document pour qu'une tâche rejouée écrase la copie au lieu d'en créer une seconde.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.taches.copie-distante.actif", havingValue = "true")
+public class CopieDistanteExecuteur implements ExecuteurTache {
+
+    private final DocumentRepository documentRepository;
+    private final DocumentStorageService documentStorageService;
+    private final CloudinaryService cloudinaryService;
+
+    @Override
+    public Tache.TypeTache type() {
+        return Tache.TypeTache.COPIE_DISTANTE;
+    }
+
+    @Override
+    public String executer(Tache tache) throws IOException {
+        Document document = documentRepository.findById(tache.getDocumentId())
+                .orElseThrow(() -> new RuntimeException("Document non trouvé avec l'ID: " + tache.getDocumentId()));
+        ContenuDocument contenu = documentStorageService.lire(document.getCheminFichier());
+        byte[] octets;
+        try (InputStream in = contenu.ouvrir(0, contenu.taille())) {
+            octets = in.readAllBytes();
+        }
+        return cloudinaryService.uploadContenu(octets, "document-" + document.getId());
+    }
+}
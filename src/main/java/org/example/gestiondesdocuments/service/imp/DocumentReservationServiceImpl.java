@@ -0,0 +1,148 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Documents.DocumentReservationResponse;
+import org.example.gestiondesdocuments.dto.Documents.DocumentUploadResponse;
+import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.entite.Utilisateur;
+import org.example.gestiondesdocuments.mapper.DocumentMapper;
+import org.example.gestiondesdocuments.repository.DocumentRepository;
+import org.example.gestiondesdocuments.repository.UserRepository;
+import org.example.gestiondesdocuments.service.DocumentReservationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * File de travail des comptables : chaque appel réserve les N plus anciens documents EN_ATTENTE
+ * libres pour une durée limitée.
+ *
+ * Sur les bases qui le supportent (PostgreSQL, MySQL 8, Oracle...) les lignes sont verrouillées avec
+ * FOR UPDATE SKIP LOCKED, ce qui permet à plusieurs comptables de réserver en parallèle sans s'attendre.
+ * Sur H2, la réservation se fait ligne par ligne par un UPDATE conditionnel (compare-and-set), chacun
+ * dans sa propre transaction, sur une fenêtre de candidats mélangée pour limiter les collisions.
+ */
+@Service
+@Slf4j
+public class DocumentReservationServiceImpl implements DocumentReservationService {
+
+    private static final int CANDIDATS_PAR_PLACE = 4;
+    private static final int TENTATIVES_MAX = 3;
+
+    private final DocumentRepository documentRepository;
+    private final UserRepository userRepository;
+    private final DocumentMapper documentMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean skipLocked;
+    private final Duration duree;
+    private final int maxParReservation;
+
+    public DocumentReservationServiceImpl(DocumentRepository documentRepository,
+                                          UserRepository userRepository,
+                                          DocumentMapper documentMapper,
+                                          EntityManagerFactory entityManagerFactory,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${app.reservations.duree:15m}") Duration duree,
+                                          @Value("${app.reservations.max:50}") int maxParReservation) {
+        this.documentRepository = documentRepository;
+        this.userRepository = userRepository;
+        this.documentMapper = documentMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.duree = duree;
+        this.maxParReservation = maxParReservation;
+        this.skipLocked = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().supportsSkipLocked();
+        log.info("Réservation des documents par {}", skipLocked ? "SKIP LOCKED" : "compare-and-set");
+    }
+
+    @Override
+    public DocumentReservationResponse reserverSuivants(String comptableEmail, int nombre) {
+        if (nombre < 1 || nombre > maxParReservation) {
+            throw new RuntimeException("Le nombre de documents à réserver doit être compris entre 1 et " + maxParReservation);
+        }
+        Utilisateur comptable = userRepository.findByEmail(comptableEmail)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime jusqua = now.plus(duree);
+
+        List<Document> reserves = skipLocked
+                ? transactionTemplate.execute(status -> reserverSkipLocked(comptable, nombre, now, jusqua))
+                : reserverCompareAndSet(comptable, nombre, now, jusqua);
+
+        List<DocumentUploadResponse> documents = reserves.stream()
+                .sorted(Comparator.comparing(Document::getDateCreation).thenComparing(Document::getId))
+                .map(documentMapper::toUploadResponse)
+                .toList();
+        return new DocumentReservationResponse(documents, jusqua);
+    }
+
+    private List<Document> reserverSkipLocked(Utilisateur comptable, int nombre,
+                                              LocalDateTime now, LocalDateTime jusqua) {
+        List<Document> documents = documentRepository.lockReservables(
+                Document.StatutDocument.EN_ATTENTE, now, PageRequest.of(0, nombre));
+        for (Document document : documents) {
+            document.setReservePar(comptable);
+            document.setReserveJusqua(jusqua);
+        }
+        return documents;
+    }
+
+    private List<Document> reserverCompareAndSet(Utilisateur comptable, int nombre,
+                                                 LocalDateTime now, LocalDateTime jusqua) {
+        List<Long> reserves = new ArrayList<>(nombre);
+        for (int tentative = 0; tentative < TENTATIVES_MAX && reserves.size() < nombre; tentative++) {
+            List<Long> candidats = new ArrayList<>(documentRepository.findReservableIds(
+                    Document.StatutDocument.EN_ATTENTE, now,
+                    PageRequest.of(0, (nombre - reserves.size()) * CANDIDATS_PAR_PLACE)));
+            if (candidats.isEmpty()) {
+                break;
+            }
+            // Concurrent reviewers see the same window: shuffling spreads them over different rows
+            Collections.shuffle(candidats, ThreadLocalRandom.current());
+            for (Long id : candidats) {
+                if (reserves.size() == nombre) {
+                    break;
+                }
+                if (documentRepository.reserver(id, comptable, jusqua, Document.StatutDocument.EN_ATTENTE, now) == 1) {
+                    reserves.add(id);
+                }
+            }
+        }
+        return documentRepository.findAllById(reserves);
+    }
+
+    @Override
+    @Transactional
+    public void liberer(Long documentId, String comptableEmail) {
+        Utilisateur comptable = userRepository.findByEmail(comptableEmail)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        if (documentRepository.liberer(documentId, comptable) == 0) {
+            throw new RuntimeException("Aucune réservation de ce document à votre nom");
+        }
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.reservations.purge-interval:1m}")
+    public int libererExpirees() {
+        int liberees = documentRepository.libererExpirees(LocalDateTime.now());
+        if (liberees > 0) {
+            log.info("{} réservation(s) expirée(s) libérée(s)", liberees);
+        }
+        return liberees;
+    }
+}
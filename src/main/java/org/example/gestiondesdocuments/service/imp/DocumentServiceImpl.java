@@ -3,34 +3,51 @@ package org.example.gestiondesdocuments.service.imp;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.exception.ExceptionContext;
+import org.example.gestiondesdocuments.admission.LimiteurConcurrence;
+import org.example.gestiondesdocuments.dto.Documents.DocumentFiltreRequest;
+import org.example.gestiondesdocuments.dto.Documents.DocumentFichier;
 import org.example.gestiondesdocuments.dto.Documents.DocumentUploadRequest;
 import org.example.gestiondesdocuments.dto.Documents.DocumentUploadResponse;
+import org.example.gestiondesdocuments.dto.Documents.UploadEmpreinteRequest;
 import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.entite.Role;
 import org.example.gestiondesdocuments.entite.Societe;
+import org.example.gestiondesdocuments.entite.Tache;
 import org.example.gestiondesdocuments.entite.Utilisateur;
+import org.example.gestiondesdocuments.event.DocumentChangedEvent;
 import org.example.gestiondesdocuments.mapper.DocumentMapper;
+import org.example.gestiondesdocuments.monitoring.DocumentMetrics;
+import org.example.gestiondesdocuments.monitoring.DocumentUploadEvent;
+import org.example.gestiondesdocuments.monitoring.StatusTransitionEvent;
 import org.example.gestiondesdocuments.repository.DocumentRepository;
+import org.example.gestiondesdocuments.repository.DocumentSpecifications;
 import org.example.gestiondesdocuments.repository.SocietyRepository;
 import org.example.gestiondesdocuments.repository.UserRepository;
+import org.example.gestiondesdocuments.service.CompteurSocieteService;
 import org.example.gestiondesdocuments.service.DocumentService;
-import org.springframework.beans.factory.annotation.Value;
+import org.example.gestiondesdocuments.service.DocumentStorageService;
+import org.example.gestiondesdocuments.service.TacheService;
+import org.example.gestiondesdocuments.storage.FichierEcrit;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -41,32 +58,192 @@ public class DocumentServiceImpl implements DocumentService {
     private final UserRepository userRepository;
     private final DocumentMapper documentMapper;
     private final SocietyRepository societyRepository;
-
-    @Value("${app.upload.dir}")
-    private String uploadDir;
+    private final DocumentMetrics documentMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DocumentStorageService documentStorageService;
+    private final TacheService tacheService;
+    private final LimiteurConcurrence limiteurUploads;
+    private final IndexEmpreintes indexEmpreintes;
+    private final IndexDoublons indexDoublons;
+    private final CacheListings cacheListings;
+    private final CompteurSocieteService compteurSocieteService;
 
     private static final Set<String> ALLOWED_EXTENSIONS = Set.of("pdf", "jpg", "jpeg", "png");
     private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of(
             "application/pdf", "image/jpeg", "image/jpg", "image/png"
     );
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final int TAILLE_PAGE_DEFAUT = 50;
+    private static final int TAILLE_PAGE_MAX = 500;
+    private static final Sort TRI_LISTES = Sort.by("id");
+    private static final Set<String> TRIS_RECHERCHE = Set.of("datePiece", "montant");
 
     @Override
     @Transactional
     public DocumentUploadResponse uploadDocument(DocumentUploadRequest request, MultipartFile file, String userEmail) {
+        return enregistrer(request, file, userEmail, MAX_FILE_SIZE);
+    }
+
+    // The size of a resumable upload was already checked against its own limit when the session was created
+    @Override
+    @Transactional
+    public DocumentUploadResponse uploadDocumentAssemble(DocumentUploadRequest request, MultipartFile file, String userEmail) {
+        return enregistrer(request, file, userEmail, Long.MAX_VALUE);
+    }
+
+    private DocumentUploadResponse enregistrer(DocumentUploadRequest request, MultipartFile file, String userEmail,
+                                               long tailleMax) {
+        DocumentUploadEvent event = new DocumentUploadEvent();
+        event.begin();
+        try {
+            documentMetrics.validation().record(() -> validateFile(file, tailleMax));
+            event.taille = file.getSize();
+
+            // The societe picks the encryption key, so it is resolved before the write starts
+            Utilisateur user = getUserWithSociete(userEmail);
+            Long societeId = user.getSociete().getId();
+            event.societeId = societeId;
+            compteurSocieteService.verifierQuota(societeId, file.getSize());
+
+            // Written on the request thread: nothing else in the upload can overlap it
+            FichierEcrit fichierEcrit = documentMetrics.diskWrite().record(() -> ecrire(file, societeId));
+            supprimerSiAnnule(fichierEcrit);
+            documentMetrics.bytesWritten(file.getSize());
+
+            Document document = buildDocument(request, file, user);
+            document.setCheminFichier(fichierEcrit.chemin());
+            document.setSommeControle(fichierEcrit.sommeControle());
+            document.setEmpreinte(fichierEcrit.empreinte());
+            signalerDoublon(document);
+
+            // Last before the insert: the counter band stays locked until commit
+            compteurSocieteService.enregistrerDocument(societeId, file.getSize());
+            Document savedDocument = documentMetrics.dbInsert().record(() -> documentRepository.save(document));
+            event.documentId = savedDocument.getId();
+            // Committed with the document, run once it is visible
+            tacheService.planifier(Tache.TypeTache.CONTROLE_ECRITURE, savedDocument.getId());
+            indexerApresCommit(savedDocument);
+            event.succes = true;
+
+            DocumentUploadResponse response = toUploadResponse(savedDocument);
+            publishChange(DocumentChangedEvent.Type.DOCUMENT_CREE, savedDocument, null, response);
+            return response;
+        } finally {
+            event.commit();
+        }
+    }
 
-        validateFile(file);
+    @Override
+    @Transactional
+    public Optional<DocumentUploadResponse> uploadParEmpreinte(UploadEmpreinteRequest request, String userEmail) {
+        validateExtension(request.nomFichier());
         Utilisateur user = getUserWithSociete(userEmail);
+        Long societeId = user.getSociete().getId();
+
+        // Only the societe's own files: a shared index would tell anyone which bytes another societe holds
+        Long sourceId = indexEmpreintes.chercher(societeId, request.sha256(), request.taille());
+        Optional<Document> source = Optional.ofNullable(sourceId)
+                .flatMap(documentRepository::lockPourPartage)
+                .filter(d -> d.getSociete().getId().equals(societeId)
+                        && request.sha256().equalsIgnoreCase(d.getEmpreinte())
+                        && request.taille().equals(d.getTailleFichier())
+                        && (d.getIntegrite() == null || d.getIntegrite() == Document.EtatIntegrite.INTACT));
+        if (source.isEmpty()) {
+            if (sourceId != null) {
+                // Stale or damaged: the next regular upload of these bytes takes its place
+                indexEmpreintes.retirer(societeId, request.sha256(), request.taille(), sourceId);
+            }
+            documentMetrics.deduplication(false, 0);
+            return Optional.empty();
+        }
 
+        Document fichier = source.get();
+        Document document = documentMapper.toEntity(request.document());
+        document.setNomFichierOriginal(request.nomFichier());
+        document.setTypeFichier(fichier.getTypeFichier());
+        document.setTailleFichier(fichier.getTailleFichier());
+        document.setCheminFichier(fichier.getCheminFichier());
+        document.setSommeControle(fichier.getSommeControle());
+        document.setEmpreinte(fichier.getEmpreinte());
+        document.setIntegrite(fichier.getIntegrite());
+        document.setDateVerification(fichier.getDateVerification());
+        document.setStockageFroid(fichier.getStockageFroid());
+        document.setSociete(user.getSociete());
+        document.setUploadePar(user);
+        signalerDoublon(document);
+
+        // No new bytes stored: the shared file is already counted with its source document
+        compteurSocieteService.enregistrerDocument(societeId, 0);
+        Document savedDocument = documentMetrics.dbInsert().record(() -> documentRepository.save(document));
+        indexerApresCommit(savedDocument);
+        documentMetrics.deduplication(true, fichier.getTailleFichier());
+        log.info("Document {} créé à partir du fichier déjà stocké du document {}", savedDocument.getId(), fichier.getId());
+
+        DocumentUploadResponse response = toUploadResponse(savedDocument);
+        publishChange(DocumentChangedEvent.Type.DOCUMENT_CREE, savedDocument, null, response);
+        return Optional.of(response);
+    }
 
-        Document document = buildDocument(request, file, user);
+    // Flags, never rejects: the accountant decides. The query only runs when the Bloom filter cannot rule it out
+    private void signalerDoublon(Document document) {
+        Long societeId = document.getSociete().getId();
+        if (!indexDoublons.peutContenir(societeId, document.getNumeroPiece(), document.getFournisseur(), document.getMontant())) {
+            documentMetrics.doublon("absent");
+            return;
+        }
+        List<Long> doublons = documentRepository.findDoublons(societeId, document.getNumeroPiece(),
+                document.getFournisseur() == null ? "" : document.getFournisseur(), document.getMontant(),
+                PageRequest.of(0, 1));
+        if (doublons.isEmpty()) {
+            documentMetrics.doublon("faux_positif");
+            return;
+        }
+        document.setDoublonSuspect(true);
+        document.setDoublonDe(doublons.get(0));
+        documentMetrics.doublon("suspect");
+    }
 
-        String filePath = saveFileToSystem(file);
-        document.setCheminFichier(filePath);
+    private DocumentUploadResponse toUploadResponse(Document document) {
+        if (Boolean.TRUE.equals(document.getDoublonSuspect())) {
+            return documentMapper.toUploadResponse(document,
+                    "Document uploadé avec succès, doublon possible du document " + document.getDoublonDe());
+        }
+        return documentMapper.toUploadResponse(document);
+    }
 
-        Document savedDocument = documentRepository.save(document);
+    private void indexerApresCommit(Document document) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (document.getEmpreinte() != null) {
+                    indexEmpreintes.ajouter(document.getSociete().getId(), document.getEmpreinte(),
+                            document.getTailleFichier(), document.getId());
+                }
+                indexDoublons.ajouter(document.getSociete().getId(), document.getNumeroPiece(),
+                        document.getFournisseur(), document.getMontant());
+            }
+        });
+    }
 
-        return documentMapper.toUploadResponse(savedDocument);
+    // A rollback (quota lost to a concurrent upload, failed insert...) must not leave the stored file behind
+    private void supprimerSiAnnule(FichierEcrit fichierEcrit) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    documentStorageService.supprimer(fichierEcrit.chemin());
+                    log.info("Fichier {} supprimé après l'annulation de l'upload", fichierEcrit.chemin());
+                }
+            }
+        });
+    }
+
+    // The write latency drives the adaptive upload admission limit
+    private FichierEcrit ecrire(MultipartFile file, Long societeId) {
+        long debut = System.nanoTime();
+        FichierEcrit fichierEcrit = documentStorageService.stocker(file, societeId);
+        limiteurUploads.enregistrerLatence(System.nanoTime() - debut);
+        return fichierEcrit;
     }
 
     private Utilisateur getUserWithSociete(String email) {
@@ -89,7 +266,7 @@ public class DocumentServiceImpl implements DocumentService {
         return document;
     }
 
-    private void validateFile(MultipartFile file) {
+    private void validateFile(MultipartFile file, long tailleMax) {
         if (file == null || file.isEmpty()) {
             throw new RuntimeException("Le fichier est vide ou n'existe pas");
         }
@@ -98,16 +275,11 @@ public class DocumentServiceImpl implements DocumentService {
             throw new RuntimeException("Le nom du fichier est invalide");
         }
 
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new RuntimeException("La taille du fichier dépasse la limite de 10MB");
+        if (file.getSize() > tailleMax) {
+            throw new RuntimeException("La taille du fichier dépasse la limite de " + DataSize.ofBytes(tailleMax).toMegabytes() + "MB");
         }
 
-        String filename = StringUtils.cleanPath(file.getOriginalFilename());
-        String extension = StringUtils.getFilenameExtension(filename);
-
-        if (extension == null || !ALLOWED_EXTENSIONS.contains(extension.toLowerCase())) {
-            throw new RuntimeException("Type de fichier non autorisé. Formats acceptés : PDF, JPG, JPEG, PNG");
-        }
+        validateExtension(file.getOriginalFilename());
 
         String contentType = file.getContentType();
         if (contentType == null || !ALLOWED_CONTENT_TYPES.contains(contentType.toLowerCase())) {
@@ -115,90 +287,207 @@ public class DocumentServiceImpl implements DocumentService {
         }
     }
 
-    private String saveFileToSystem(MultipartFile file) {
-        try {
-            Path uploadPath = Paths.get(uploadDir);
-            Files.createDirectories(uploadPath);
-
-            String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
-            String uniqueFilename = UUID.randomUUID() + "." + extension;
-            Path filePath = uploadPath.resolve(uniqueFilename);
-
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+    private void validateExtension(String nomFichier) {
+        String filename = StringUtils.cleanPath(nomFichier);
+        String extension = StringUtils.getFilenameExtension(filename);
 
-            return filePath.toString();
-        } catch (IOException e) {
-            throw new RuntimeException("Impossible de sauvegarder le fichier: " + e.getMessage());
+        if (extension == null || !ALLOWED_EXTENSIONS.contains(extension.toLowerCase())) {
+            throw new RuntimeException("Type de fichier non autorisé. Formats acceptés : PDF, JPG, JPEG, PNG");
         }
     }
 
-    public List<DocumentUploadResponse> getAllDocuments(){
-       return documentRepository.findAll().stream()
-                .map(documentMapper::toUploadResponse).toList();
+
+    public List<DocumentUploadResponse> getAllDocuments(Integer page, Integer taille){
+       Pageable pageable = pageable(page, taille);
+       return cacheListings.tous(numero(pageable), taille(pageable),
+               () -> toResponses(documentRepository.findPage(pageable)));
     }
-    public  List<DocumentUploadResponse> getDocumentsByStatus(Document.StatutDocument status){
-       return documentRepository.findAll()
-               .stream().filter(d->d.getStatut()==status)
-               .map(documentMapper::toUploadResponse)
-               .toList();
+    public  List<DocumentUploadResponse> getDocumentsByStatus(Document.StatutDocument status, Integer page, Integer taille){
+       Pageable pageable = pageable(page, taille);
+       return cacheListings.parStatut(status, numero(pageable), taille(pageable),
+               () -> toResponses(documentRepository.findByStatut(status, pageable)));
     }
 
     @Override
     @Transactional
-    public DocumentUploadResponse validerDocs(Long id,String commentaire) {
+    public DocumentUploadResponse validerDocs(Long id,String commentaire,String comptableEmail) {
+        return documentMetrics.transition(Document.StatutDocument.VALIDE,
+                () -> changerStatut(id, Document.StatutDocument.VALIDE, commentaire, comptableEmail,
+                        "Le document est déjà validé"));
+    }
+    @Transactional
+    public DocumentUploadResponse rejectrDocs(Long id,String morif,String comptableEmail) {
+        return documentMetrics.transition(Document.StatutDocument.REJETE,
+                () -> changerStatut(id, Document.StatutDocument.REJETE, morif, comptableEmail,
+                        "Le document est déjà REJETE"));
+    }
+
+    private DocumentUploadResponse changerStatut(Long id, Document.StatutDocument cible, String commentaire,
+                                                 String comptableEmail, String messageDejaFait) {
+        StatusTransitionEvent event = new StatusTransitionEvent();
+        event.begin();
+        event.documentId = id;
+        event.statut = cible.name();
+        try {
+            Document document = documentRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Document non trouvé avec l'ID: " + id));
+            event.taille = document.getTailleFichier() != null ? document.getTailleFichier() : 0;
+            event.societeId = document.getSociete().getId();
+
+            if (document.getStatut() == cible) {
+                throw new RuntimeException(messageDejaFait);
+            }
+            verifierReservation(document, comptableEmail);
+
+            Document.StatutDocument ancienStatut = document.getStatut();
+            document.setStatut(cible);
+            document.setReservePar(null);
+            document.setReserveJusqua(null);
+            document.setCommentaireComptable(commentaire);
+            document.setDateValidation(java.time.LocalDateTime.now());
+
+            Document savedDocument = documentRepository.save(document);
+            compteurSocieteService.enregistrerTransition(savedDocument.getSociete().getId(), ancienStatut, cible);
+            if (cible == Document.StatutDocument.VALIDE) {
+                tacheService.planifier(Tache.TypeTache.COPIE_DISTANTE, savedDocument.getId());
+            }
+            event.succes = true;
+
+            DocumentUploadResponse response = documentMapper.toUploadResponse(savedDocument);
+            publishChange(cible == Document.StatutDocument.VALIDE
+                    ? DocumentChangedEvent.Type.DOCUMENT_VALIDE
+                    : DocumentChangedEvent.Type.DOCUMENT_REJETE, savedDocument, ancienStatut, response);
+            return response;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DocumentFichier getFichier(Long id, String userEmail) {
         Document document = documentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Document non trouvé avec l'ID: " + id));
+        Utilisateur user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
-        if (document.getStatut() == Document.StatutDocument.VALIDE) {
-            throw new RuntimeException("Le document est déjà validé");
+        // A societe only sees its own documents; comptables and admins see all of them
+        boolean societe = user.getRoles().stream().anyMatch(r -> r.getNom() == Role.TypeRole.ROLE_SOCIETE);
+        if (societe && (user.getSociete() == null || !user.getSociete().getId().equals(document.getSociete().getId()))) {
+            throw new AccessDeniedException("Accès refusé à ce document");
         }
+        return new DocumentFichier(document.getNomFichierOriginal(), document.getTypeFichier(),
+                documentStorageService.lire(document.getCheminFichier()));
+    }
 
-        document.setStatut(Document.StatutDocument.VALIDE);
-        document.setCommentaireComptable(commentaire);
-        document.setDateValidation(java.time.LocalDateTime.now());
+    private void verifierReservation(Document document, String comptableEmail) {
+        LocalDateTime jusqua = document.getReserveJusqua();
+        if (jusqua != null && jusqua.isAfter(LocalDateTime.now())
+                && !document.getReservePar().getEmail().equals(comptableEmail)) {
+            throw new RuntimeException("Document réservé par un autre comptable jusqu'à " + jusqua);
+        }
+    }
 
-        Document savedDocument = documentRepository.save(document);
+    private void publishChange(DocumentChangedEvent.Type type, Document document, Document.StatutDocument ancienStatut,
+                               DocumentUploadResponse response) {
+        eventPublisher.publishEvent(new DocumentChangedEvent(
+                type, document.getSociete().getId(), document.getExerciceComptable(), ancienStatut, response));
+    }
 
-        return documentMapper.toUploadResponse(savedDocument);
+    @Override
+    public List<DocumentUploadResponse> getDocsBySociete(Long societe, Integer page, Integer taille) {
+        Pageable pageable = pageable(page, taille);
+        return cacheListings.parSociete(societe, numero(pageable), taille(pageable),
+                () -> toResponses(documentRepository.findBySocieteId(societe, pageable)));
     }
-    @Transactional
-    public DocumentUploadResponse rejectrDocs(Long id,String morif) {
-        Document document = documentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Document non trouvé avec l'ID: " + id));
 
-        if (document.getStatut() == Document.StatutDocument.REJETE) {
-            throw new RuntimeException("Le document est déjà REJETE");
-        }
+    public List<DocumentUploadResponse> getDocsByExercice(String username, String year, Integer page, Integer taille){
 
-        document.setStatut(Document.StatutDocument.REJETE);
-        document.setCommentaireComptable(morif);
-        document.setDateValidation(java.time.LocalDateTime.now());
+      //  Utilisateur user=userRepository.findByEmail(username).orElseThrow(()->new RuntimeException("user not found"));
 
-        Document savedDocument = documentRepository.save(document);
+        Pageable pageable = pageable(page, taille);
+        return cacheListings.parExercice(year, numero(pageable), taille(pageable),
+                () -> toResponses(documentRepository.findByExerciceComptable(year, pageable)));
+    }
 
-        return documentMapper.toUploadResponse(savedDocument);
+    @Override
+    public String etagDocuments(Integer page, Integer taille) {
+        Pageable pageable = pageable(page, taille);
+        return cacheListings.etagTous(numero(pageable), taille(pageable));
     }
 
     @Override
-    public List<DocumentUploadResponse> getDocsBySociete(Long societe) {
-        Optional<Societe> societeObject = societyRepository.findById(societe);
-        return documentRepository.findAll().stream()
-                .filter(doc -> societeObject.isPresent() && doc.getSociete().equals(societeObject.get()))
-                .map(documentMapper::toUploadResponse)
-                .toList();
+    public String etagDocumentsByStatus(Document.StatutDocument status, Integer page, Integer taille) {
+        Pageable pageable = pageable(page, taille);
+        return cacheListings.etagStatut(status, numero(pageable), taille(pageable));
     }
 
-    public List<DocumentUploadResponse> getDocsByExercice(String username, String year){
+    @Override
+    public String etagDocsBySociete(Long societe, Integer page, Integer taille) {
+        Pageable pageable = pageable(page, taille);
+        return cacheListings.etagSociete(societe, numero(pageable), taille(pageable));
+    }
 
-      //  Utilisateur user=userRepository.findByEmail(username).orElseThrow(()->new RuntimeException("user not found"));
+    @Override
+    public String etagDocsByExercice(String year, Integer page, Integer taille) {
+        Pageable pageable = pageable(page, taille);
+        return cacheListings.etagExercice(year, numero(pageable), taille(pageable));
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<DocumentUploadResponse> rechercher(DocumentFiltreRequest filtre) {
+        if (filtre.dateDebut() != null && filtre.dateFin() != null && filtre.dateDebut().isAfter(filtre.dateFin())) {
+            throw new RuntimeException("La date de début doit précéder la date de fin");
+        }
+        if (filtre.montantMin() != null && filtre.montantMax() != null
+                && filtre.montantMin().compareTo(filtre.montantMax()) > 0) {
+            throw new RuntimeException("Le montant minimum dépasse le montant maximum");
+        }
+        Sort.Direction sens = sens(filtre.sens());
+        Sort tri = Sort.by(sens, "id");
+        if (filtre.tri() != null && !"id".equals(filtre.tri())) {
+            if (!TRIS_RECHERCHE.contains(filtre.tri())) {
+                throw new RuntimeException("Tri non supporté : " + filtre.tri() + ". Tris acceptés : datePiece, montant");
+            }
+            tri = Sort.by(sens, filtre.tri()).and(tri);
+        }
+        Pageable page = pageable(filtre.page() != null ? filtre.page() : 0, filtre.taille());
+        Pageable pageable = PageRequest.of(page.getPageNumber(), page.getPageSize(), tri);
+        // A slice fetches one extra row instead of running a count over the whole range
+        return toResponses(documentRepository.findBy(DocumentSpecifications.filtre(filtre),
+                requete -> requete.slice(pageable)).getContent());
+    }
 
-        return documentRepository.findAll().stream().
-                filter(doc->doc.getExerciceComptable().equals(year)
-                       )
-                .map(documentMapper::toUploadResponse)
-                .toList();
+    private static Sort.Direction sens(String sens) {
+        if (sens == null || "asc".equalsIgnoreCase(sens)) {
+            return Sort.Direction.ASC;
+        }
+        if ("desc".equalsIgnoreCase(sens)) {
+            return Sort.Direction.DESC;
+        }
+        throw new RuntimeException("Sens de tri non supporté : " + sens + ". Sens acceptés : asc, desc");
+    }
+
+    // Without a page the whole list is returned, as before; pages are ordered by id so they do not overlap
+    private static Pageable pageable(Integer page, Integer taille) {
+        if (page == null && taille == null) {
+            return Pageable.unpaged(TRI_LISTES);
+        }
+        return PageRequest.of(page != null ? Math.max(0, page) : 0,
+                taille != null ? Math.min(Math.max(1, taille), TAILLE_PAGE_MAX) : TAILLE_PAGE_DEFAUT, TRI_LISTES);
+    }
+
+    private static int numero(Pageable pageable) {
+        return pageable.isPaged() ? pageable.getPageNumber() : -1;
+    }
+
+    private static int taille(Pageable pageable) {
+        return pageable.isPaged() ? pageable.getPageSize() : -1;
+    }
 
+    private List<DocumentUploadResponse> toResponses(List<Document> documents) {
+        return documents.stream().map(documentMapper::toUploadResponse).toList();
     }
 
 
@@ -0,0 +1,219 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.monitoring.FileWriteEvent;
+import org.example.gestiondesdocuments.service.CleChiffrementService;
+import org.example.gestiondesdocuments.service.DocumentStorageService;
+import org.example.gestiondesdocuments.storage.ColdStorage;
+import org.example.gestiondesdocuments.storage.ContenuDocument;
+import org.example.gestiondesdocuments.storage.FichierChiffre;
+import org.example.gestiondesdocuments.storage.FichierEcrit;
+import org.example.gestiondesdocuments.storage.PackedBlobStore;
+import org.example.gestiondesdocuments.storage.RegionFichier;
+import org.example.gestiondesdocuments.storage.Shards;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Stockage des fichiers uploadés sur le disque, répartis par {@link Shards} (uploads/ab/cd/&lt;uuid&gt;.pdf)
+ * pour garder des répertoires de taille raisonnable.
+ *
+ * Avec app.stockage.mode=pack, les fichiers jusqu'à app.stockage.pack.taille-max sont ajoutés au
+ * {@link PackedBlobStore} et référencés par "pack:&lt;id&gt;" ; les plus gros restent des fichiers.
+ *
+ * Les fichiers des exercices clos sont relus depuis le {@link ColdStorage}, décompressés au besoin.
+ *
+ * Avec app.chiffrement.actif, le contenu est chiffré au fil de l'écriture avec la clé de la société
+ * ({@link FichierChiffre}) ; {@link #localiser} donne alors les octets chiffrés et {@link #lire} le
+ * contenu en clair. Les fichiers écrits avant l'activation restent lisibles en clair.
+ *
+ * Le CRC32C des octets stockés (chiffrés le cas échéant) et le SHA-256 du contenu en clair sont
+ * calculés au fil de l'écriture.
+ */
+@Service
+@Slf4j
+public class DocumentStorageServiceImpl implements DocumentStorageService {
+
+    private final Path racine;
+    private final PackedBlobStore packedBlobStore;
+    private final long tailleMaxPack;
+    private final ColdStorage coldStorage;
+    private final CleChiffrementService cleChiffrementService;
+    private final int tailleBlocChiffrement;
+
+    public DocumentStorageServiceImpl(@Value("${app.upload.dir}") String uploadDir,
+                                      ObjectProvider<PackedBlobStore> packedBlobStore,
+                                      @Value("${app.stockage.pack.taille-max:512KB}") DataSize tailleMaxPack,
+                                      ColdStorage coldStorage,
+                                      CleChiffrementService cleChiffrementService,
+                                      @Value("${app.chiffrement.taille-bloc:64KB}") DataSize tailleBlocChiffrement) {
+        this.racine = Paths.get(uploadDir);
+        this.packedBlobStore = packedBlobStore.getIfAvailable();
+        this.tailleMaxPack = tailleMaxPack.toBytes();
+        this.coldStorage = coldStorage;
+        this.cleChiffrementService = cleChiffrementService;
+        this.tailleBlocChiffrement = (int) tailleBlocChiffrement.toBytes();
+    }
+
+    @Override
+    public FichierEcrit stocker(MultipartFile file, Long societeId) {
+        FileWriteEvent event = new FileWriteEvent();
+        event.begin();
+        event.taille = file.getSize();
+        try {
+            MessageDigest sha256 = sha256();
+            if (packedBlobStore != null && file.getSize() <= tailleMaxPack) {
+                try (CheckedInputStream contenu = new CheckedInputStream(contenuAEcrire(file, sha256, societeId), new CRC32C())) {
+                    String reference = PackedBlobStore.PREFIXE + packedBlobStore.ajouter(contenu, tailleAEcrire(file));
+                    event.chemin = reference;
+                    return new FichierEcrit(reference, contenu.getChecksum().getValue(), HexFormat.of().formatHex(sha256.digest()));
+                }
+            }
+
+            String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
+            Path filePath = emplacement(UUID.randomUUID() + "." + extension);
+            Files.createDirectories(filePath.getParent());
+
+            long sommeControle;
+            try (CheckedInputStream contenu = new CheckedInputStream(contenuAEcrire(file, sha256, societeId), new CRC32C())) {
+                Files.copy(contenu, filePath, StandardCopyOption.REPLACE_EXISTING);
+                sommeControle = contenu.getChecksum().getValue();
+            }
+            event.chemin = filePath.toString();
+
+            return new FichierEcrit(filePath.toString(), sommeControle, HexFormat.of().formatHex(sha256.digest()));
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible de sauvegarder le fichier: " + e.getMessage());
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public RegionFichier localiser(String chemin) {
+        if (estCompacte(chemin)) {
+            return packedBlobStore().localiser(idBlob(chemin));
+        }
+        Path fichier = Paths.get(chemin);
+        try {
+            if (estFroid(chemin)) {
+                return coldStorage.localiser(fichier);
+            }
+            return new RegionFichier(fichier, 0, Files.size(fichier));
+        } catch (IOException e) {
+            throw new RuntimeException("Fichier introuvable : " + fichier.getFileName());
+        }
+    }
+
+    @Override
+    public ContenuDocument lire(String chemin) {
+        RegionFichier region = localiser(chemin);
+        try {
+            FichierChiffre.EnTete enTete = FichierChiffre.lireEnTete(region);
+            if (enTete == null) {
+                return ContenuDocument.enClair(region);
+            }
+            return new ContenuDocument(region, enTete, cleChiffrementService.cle(enTete.societeId(), enTete.versionCle()));
+        } catch (IOException e) {
+            throw new RuntimeException("Fichier illisible : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public InputStream ouvrirStocke(String chemin) throws IOException {
+        if (estFroid(chemin)) {
+            return coldStorage.ouvrir(Paths.get(chemin));
+        }
+        // Missing content is a NoSuchFileException here, whatever the storage, so callers can tell it from a failure
+        if (estCompacte(chemin)) {
+            if (!packedBlobStore().contient(idBlob(chemin))) {
+                throw new NoSuchFileException(chemin);
+            }
+            return packedBlobStore().localiser(idBlob(chemin)).ouvrir();
+        }
+        Path fichier = Paths.get(chemin);
+        return new RegionFichier(fichier, 0, Files.size(fichier)).ouvrir();
+    }
+
+    @Override
+    public void supprimer(String chemin) {
+        try {
+            if (estCompacte(chemin)) {
+                packedBlobStore().supprimer(idBlob(chemin));
+                return;
+            }
+            Files.deleteIfExists(Paths.get(chemin));
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer le fichier {}", chemin, e);
+        }
+    }
+
+    @Override
+    public Path emplacement(String nomFichier) {
+        return Shards.resoudre(racine, nomFichier);
+    }
+
+    @Override
+    public boolean estCompacte(String chemin) {
+        return chemin.startsWith(PackedBlobStore.PREFIXE);
+    }
+
+    @Override
+    public boolean estFroid(String chemin) {
+        return !estCompacte(chemin) && coldStorage.contient(chemin);
+    }
+
+    // The SHA-256 is taken on the plaintext, before encryption
+    private InputStream contenuAEcrire(MultipartFile file, MessageDigest sha256, Long societeId) throws IOException {
+        InputStream clair = new DigestInputStream(file.getInputStream(), sha256);
+        if (!cleChiffrementService.estActif()) {
+            return clair;
+        }
+        CleChiffrementService.CleSociete cle = cleChiffrementService.cleCourante(societeId);
+        return FichierChiffre.chiffrer(clair, cle.cle(), societeId, cle.version(), tailleBlocChiffrement);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private long tailleAEcrire(MultipartFile file) {
+        return cleChiffrementService.estActif()
+                ? FichierChiffre.tailleChiffree(file.getSize(), tailleBlocChiffrement)
+                : file.getSize();
+    }
+
+    private PackedBlobStore packedBlobStore() {
+        if (packedBlobStore == null) {
+            throw new RuntimeException("Stockage compacté désactivé (app.stockage.mode=pack)");
+        }
+        return packedBlobStore;
+    }
+
+    private static long idBlob(String chemin) {
+        return Long.parseLong(chemin.substring(PackedBlobStore.PREFIXE.length()));
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.event.DocumentChangedEvent;
+import org.example.gestiondesdocuments.service.DocumentStreamService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Flux SSE des changements de documents pour les comptables.
+ *
+ * Les événements sont émis après commit, numérotés et conservés dans un petit anneau pour
+ * permettre la reprise via Last-Event-ID. Chaque connexion a son propre tampon borné : si le
+ * client ne lit pas assez vite, les événements les plus anciens sont abandonnés et il reçoit
+ * un événement "resync" l'invitant à recharger la liste.
+ */
+@Service
+@Slf4j
+public class DocumentStreamServiceImpl implements DocumentStreamService {
+
+    static final String RESYNC_EVENT = "resync";
+
+    private final AsyncTaskExecutor sseExecutor;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final StreamEvent[] ring;
+    private final int bufferSize;
+    private final int maxConnections;
+    private final Duration timeout;
+    private final Counter droppedEvents;
+    private long sequence;
+
+    public DocumentStreamServiceImpl(@Qualifier("sseExecutor") AsyncTaskExecutor sseExecutor,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.sse.replay-size:256}") int replaySize,
+                                     @Value("${app.sse.buffer-size:64}") int bufferSize,
+                                     @Value("${app.sse.max-connections:1000}") int maxConnections,
+                                     @Value("${app.sse.timeout:30m}") Duration timeout) {
+        this.sseExecutor = sseExecutor;
+        this.ring = new StreamEvent[replaySize];
+        this.bufferSize = bufferSize;
+        this.maxConnections = maxConnections;
+        this.timeout = timeout;
+        this.droppedEvents = Counter.builder("documents.stream.dropped")
+                .description("Événements SSE abandonnés faute de lecture par le client")
+                .register(meterRegistry);
+        meterRegistry.gaugeCollectionSize("documents.stream.connections", List.of(), subscriptions);
+    }
+
+    @Override
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscriptions.size() >= maxConnections) {
+            throw new RuntimeException("Nombre maximal de connexions au flux atteint");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(emitter);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+
+        // Replayed and registered under the ring lock: every later event is live, every earlier one replayed
+        synchronized (ring) {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                replay(subscription, lastEventId);
+            }
+            subscriptions.add(subscription);
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onDocumentChanged(DocumentChangedEvent event) {
+        // offer() only buffers, so the fan-out stays under the lock: each connection gets the ids in order
+        synchronized (ring) {
+            StreamEvent streamEvent = new StreamEvent(++sequence, event.type().name(), event.document());
+            ring[(int) (streamEvent.id() % ring.length)] = streamEvent;
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(streamEvent);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat:15s}")
+    public void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(StreamEvent.HEARTBEAT);
+        }
+    }
+
+    // Called with the ring lock held
+    private void replay(Subscription subscription, String lastEventId) {
+        long lastId;
+        try {
+            lastId = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            subscription.offer(StreamEvent.RESYNC);
+            return;
+        }
+        long oldestKept = Math.max(1, sequence - ring.length + 1);
+        if (lastId < oldestKept - 1 || lastId > sequence) {
+            // Too old for the ring, or issued before a restart
+            subscription.offer(StreamEvent.RESYNC);
+            return;
+        }
+        for (long id = lastId + 1; id <= sequence; id++) {
+            subscription.offer(ring[(int) (id % ring.length)]);
+        }
+    }
+
+    private record StreamEvent(long id, String name, Object data) {
+        static final StreamEvent HEARTBEAT = new StreamEvent(0, null, null);
+        static final StreamEvent RESYNC = new StreamEvent(0, RESYNC_EVENT, "");
+    }
+
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private final ArrayDeque<StreamEvent> buffer = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private boolean overflowed;
+
+        Subscription(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(StreamEvent event) {
+            synchronized (buffer) {
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    overflowed = true;
+                    droppedEvents.increment();
+                }
+                buffer.addLast(event);
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sseExecutor.execute(this::drain);
+                } catch (TaskRejectedException e) {
+                    // The event stays buffered and the next offer (at the latest the heartbeat) schedules the drain again
+                    draining.set(false);
+                    log.warn("Envoi SSE différé, exécuteur saturé : {}", e.getMessage());
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    StreamEvent next;
+                    boolean resync;
+                    synchronized (buffer) {
+                        next = buffer.pollFirst();
+                        resync = overflowed;
+                        overflowed = false;
+                        if (next == null) {
+                            // Reset under the lock: a concurrent offer() either sees the flag cleared or is polled here
+                            draining.set(false);
+                            return;
+                        }
+                    }
+                    if (resync) {
+                        send(StreamEvent.RESYNC);
+                    }
+                    send(next);
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscriptions.remove(this);
+                draining.set(false);
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void send(StreamEvent event) throws IOException {
+            if (event == StreamEvent.HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.name()).data(event.data());
+            if (event.id() > 0) {
+                builder.id(String.valueOf(event.id()));
+            }
+            emitter.send(builder);
+        }
+    }
+}
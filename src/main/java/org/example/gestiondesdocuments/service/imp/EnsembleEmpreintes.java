@@ -0,0 +1,66 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import java.util.Arrays;
+
+/**
+ * Ensemble compact de chemins, représentés par une empreinte de 64 bits dans un tableau trié :
+ * 8 octets par chemin, soit 80 Mo pour 10 millions de fichiers.
+ *
+ * Une collision d'empreintes fait passer un chemin absent pour présent. La réconciliation s'en
+ * sert dans le sens où ce faux positif masque une anomalie au lieu d'en inventer une.
+ */
+final class EnsembleEmpreintes {
+
+    private long[] empreintes;
+    private int taille;
+    private boolean trie;
+
+    EnsembleEmpreintes(int capacite) {
+        this.empreintes = new long[Math.max(capacite, 16)];
+    }
+
+    static long empreinte(String chemin) {
+        // FNV-1a 64 bits, puis le mélange final de SplitMix64 pour répartir les bits
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < chemin.length(); i++) {
+            h ^= chemin.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    void ajouter(long empreinte) {
+        if (taille == empreintes.length) {
+            empreintes = Arrays.copyOf(empreintes, taille + (taille >> 1));
+        }
+        empreintes[taille++] = empreinte;
+        trie = false;
+    }
+
+    void ajouterTout(EnsembleEmpreintes autre) {
+        if (taille + autre.taille > empreintes.length) {
+            empreintes = Arrays.copyOf(empreintes, Math.max(taille + autre.taille, taille + (taille >> 1)));
+        }
+        System.arraycopy(autre.empreintes, 0, empreintes, taille, autre.taille);
+        taille += autre.taille;
+        trie = false;
+    }
+
+    void trier() {
+        Arrays.parallelSort(empreintes, 0, taille);
+        trie = true;
+    }
+
+    boolean contient(long empreinte) {
+        if (!trie) {
+            throw new IllegalStateException("Ensemble non trié");
+        }
+        return Arrays.binarySearch(empreintes, 0, taille, empreinte) >= 0;
+    }
+
+    int taille() {
+        return taille;
+    }
+}
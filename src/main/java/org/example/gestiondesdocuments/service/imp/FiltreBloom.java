@@ -0,0 +1,95 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtre de Bloom de taille fixe, dimensionné pour une capacité et un taux de faux positifs.
+ * Sans verrou : les bits sont posés par compare-and-set, une lecture concurrente voit au pire un
+ * ajout incomplet et répond "absent", comme si elle avait eu lieu juste avant.
+ */
+final class FiltreBloom {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray mots;
+    private final long nombreBits;
+    private final int nombreHachages;
+    private final long capacite;
+    private final AtomicLong elements = new AtomicLong();
+
+    FiltreBloom(long capacite, double tauxFauxPositifs) {
+        this.capacite = Math.max(1, capacite);
+        this.nombreBits = nombreBits(this.capacite, tauxFauxPositifs);
+        this.nombreHachages = Math.max(1, (int) Math.round((double) nombreBits / this.capacite * LN2));
+        this.mots = new AtomicLongArray(Math.toIntExact((nombreBits + 63) / 64));
+    }
+
+    // m = -n ln(p) / (ln 2)^2, rounded up to whole words
+    static long nombreBits(long capacite, double tauxFauxPositifs) {
+        long bits = (long) Math.ceil(-Math.max(1, capacite) * Math.log(tauxFauxPositifs) / (LN2 * LN2));
+        return Math.max(64, (bits + 63) / 64 * 64);
+    }
+
+    static long memoire(long capacite, double tauxFauxPositifs) {
+        return nombreBits(capacite, tauxFauxPositifs) / 8;
+    }
+
+    void ajouter(String cle) {
+        long h1 = hacher(cle);
+        long h2 = melanger(h1 + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < nombreHachages; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, nombreBits);
+            int mot = (int) (bit >>> 6);
+            long masque = 1L << bit;
+            long valeur;
+            do {
+                valeur = mots.get(mot);
+            } while ((valeur & masque) == 0 && !mots.compareAndSet(mot, valeur, valeur | masque));
+        }
+        elements.incrementAndGet();
+    }
+
+    boolean peutContenir(String cle) {
+        long h1 = hacher(cle);
+        long h2 = melanger(h1 + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < nombreHachages; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, nombreBits);
+            if ((mots.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean estPlein() {
+        return elements.get() >= capacite;
+    }
+
+    long capacite() {
+        return capacite;
+    }
+
+    long memoire() {
+        return nombreBits / 8;
+    }
+
+    // FNV-1a then a 64-bit finalizer; the second hash is derived from the first (Kirsch-Mitzenmacher)
+    private static long hacher(String cle) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : cle.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return melanger(h);
+    }
+
+    private static long melanger(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
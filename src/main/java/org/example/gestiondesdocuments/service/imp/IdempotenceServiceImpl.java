@@ -0,0 +1,185 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.entite.CleIdempotence;
+import org.example.gestiondesdocuments.repository.CleIdempotenceRepository;
+import org.example.gestiondesdocuments.service.IdempotenceService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clés d'idempotence enregistrées en base : la première requête insère la clé (la clé primaire
+ * départage deux requêtes simultanées), s'exécute sous un bail puis enregistre sa réponse. Une
+ * requête répétée reçoit cette réponse ; si la première est encore en cours, elle attend sa fin,
+ * réveillée immédiatement sur la même instance et par interrogation périodique sinon.
+ *
+ * Les clés expirent après app.idempotence.duree et le nombre de clés conservées est borné par
+ * app.idempotence.max-cles (les plus anciennes sont supprimées en premier).
+ */
+@Service
+@Slf4j
+public class IdempotenceServiceImpl implements IdempotenceService {
+
+    private static final long INTERVALLE_MILLIS = 100;
+
+    private final CleIdempotenceRepository cleRepository;
+    private final Duration duree;
+    private final Duration bail;
+    private final Duration attenteMax;
+    private final int maxCles;
+    // Requests running on this instance, so that a retry here is woken up as soon as they finish
+    private final Map<String, CountDownLatch> enCours = new ConcurrentHashMap<>();
+
+    public IdempotenceServiceImpl(CleIdempotenceRepository cleRepository,
+                                  @Value("${app.idempotence.duree:24h}") Duration duree,
+                                  @Value("${app.idempotence.bail:2m}") Duration bail,
+                                  @Value("${app.idempotence.attente-max:30s}") Duration attenteMax,
+                                  @Value("${app.idempotence.max-cles:100000}") int maxCles) {
+        this.cleRepository = cleRepository;
+        this.duree = duree;
+        this.bail = bail;
+        this.attenteMax = attenteMax;
+        this.maxCles = maxCles;
+    }
+
+    @Override
+    public Reservation reserver(String userEmail, String cle, String requete) {
+        String id = identifiant(userEmail, cle);
+        long limite = System.nanoTime() + attenteMax.toNanos();
+        while (true) {
+            LocalDateTime maintenant = LocalDateTime.now();
+            try {
+                cleRepository.inserer(id, requete, CleIdempotence.StatutCle.EN_COURS, maintenant.plus(bail),
+                        maintenant.plus(duree), maintenant);
+                return nouvelle(id);
+            } catch (DataIntegrityViolationException e) {
+                // Already known: replayed, waited for or taken over below
+            }
+
+            Optional<CleIdempotence> existante = cleRepository.findById(id);
+            if (existante.isEmpty()) {
+                continue;
+            }
+            CleIdempotence enregistree = existante.get();
+            if (enregistree.getExpiration().isBefore(maintenant)) {
+                cleRepository.supprimerExpiree(id, maintenant);
+                continue;
+            }
+            if (!enregistree.getRequete().equals(requete)) {
+                return new Reservation(Resultat.CONFLIT, id, null, null, null);
+            }
+            if (enregistree.getStatut() == CleIdempotence.StatutCle.TERMINEE) {
+                return new Reservation(Resultat.REJOUEE, id, enregistree.getStatutHttp(), enregistree.getTypeContenu(),
+                        enregistree.getCorps());
+            }
+            if (cleRepository.reprendre(id, maintenant.plus(bail), maintenant) == 1) {
+                log.warn("Clé d'idempotence {} reprise après expiration du bail", id);
+                return nouvelle(id);
+            }
+
+            long restant = limite - System.nanoTime();
+            if (restant <= 0) {
+                return new Reservation(Resultat.EN_COURS, id, null, null, null);
+            }
+            if (!attendre(id, Math.min(restant, TimeUnit.MILLISECONDS.toNanos(INTERVALLE_MILLIS * 10)))) {
+                return new Reservation(Resultat.EN_COURS, id, null, null, null);
+            }
+        }
+    }
+
+    @Override
+    public void terminer(String id, int statutHttp, String typeContenu, String corps) {
+        try {
+            if (cleRepository.terminer(id, statutHttp, typeContenu, corps) == 0) {
+                log.warn("Réponse de la clé d'idempotence {} non enregistrée : la clé a été reprise ou supprimée", id);
+            }
+        } finally {
+            liberer(id);
+        }
+    }
+
+    @Override
+    public void abandonner(String id) {
+        try {
+            cleRepository.abandonner(id);
+        } finally {
+            liberer(id);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotence.purge-interval:10m}")
+    public void purger() {
+        int expirees = cleRepository.supprimerExpirees(LocalDateTime.now());
+        long surplus = cleRepository.count() - maxCles;
+        int evincees = 0;
+        while (surplus > 0) {
+            List<String> ids = cleRepository.findPlusAnciennes(PageRequest.of(0, (int) Math.min(surplus, 1000)));
+            if (ids.isEmpty()) {
+                break;
+            }
+            cleRepository.deleteAllByIdInBatch(ids);
+            evincees += ids.size();
+            surplus -= ids.size();
+        }
+        if (expirees > 0 || evincees > 0) {
+            log.info("Clés d'idempotence supprimées : {} expirée(s), {} au-delà de {}", expirees, evincees, maxCles);
+        }
+    }
+
+    private Reservation nouvelle(String id) {
+        enCours.put(id, new CountDownLatch(1));
+        return new Reservation(Resultat.NOUVELLE, id, null, null, null);
+    }
+
+    private void liberer(String id) {
+        CountDownLatch fin = enCours.remove(id);
+        if (fin != null) {
+            fin.countDown();
+        }
+    }
+
+    // False when interrupted
+    private boolean attendre(String id, long nanos) {
+        try {
+            CountDownLatch fin = enCours.get(id);
+            if (fin != null) {
+                fin.await(nanos, TimeUnit.NANOSECONDS);
+            } else {
+                // Running on another instance: polled
+                TimeUnit.NANOSECONDS.sleep(Math.min(nanos, TimeUnit.MILLISECONDS.toNanos(INTERVALLE_MILLIS)));
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String identifiant(String userEmail, String cle) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(userEmail.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            sha256.update(cle.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
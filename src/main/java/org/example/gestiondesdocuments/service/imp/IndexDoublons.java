@@ -0,0 +1,195 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.repository.DocumentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filtres de Bloom par société sur (numéro de pièce, fournisseur, montant) : un upload dont la clé
+ * est absente du filtre n'est certainement pas un doublon et n'interroge pas la base ; une présence
+ * n'est qu'un soupçon, confirmé par une requête indexée.
+ *
+ * Les filtres sont reconstruits depuis la base au démarrage, une société par thread. Tant que le
+ * filtre d'une société n'est pas prêt, chaque upload va jusqu'à la requête. Un filtre plein reçoit
+ * un étage deux fois plus grand avec un taux de faux positifs deux fois plus faible (filtre de Bloom
+ * extensible), ce qui borne le taux global à environ deux fois le taux configuré, dans la limite de
+ * app.doublons.memoire-max.
+ */
+@Component
+@Slf4j
+class IndexDoublons {
+
+    private final DocumentRepository documentRepository;
+    private final double tauxFauxPositifs;
+    private final long capaciteMin;
+    private final long memoireMax;
+    private final int threads;
+    private final int tailleLot;
+    private final Map<Long, FiltresSociete> societes = new ConcurrentHashMap<>();
+    private final AtomicLong memoire = new AtomicLong();
+    // Set once every societe known to the database has its entry
+    private volatile boolean inscrites;
+    private volatile boolean limiteAtteinte;
+
+    IndexDoublons(DocumentRepository documentRepository,
+                  MeterRegistry meterRegistry,
+                  @Value("${app.doublons.taux-faux-positifs:0.01}") double tauxFauxPositifs,
+                  @Value("${app.doublons.capacite-min:1024}") long capaciteMin,
+                  @Value("${app.doublons.memoire-max:64MB}") DataSize memoireMax,
+                  @Value("${app.doublons.threads:4}") int threads,
+                  @Value("${app.doublons.taille-lot:1000}") int tailleLot) {
+        this.documentRepository = documentRepository;
+        this.tauxFauxPositifs = tauxFauxPositifs;
+        this.capaciteMin = capaciteMin;
+        this.memoireMax = memoireMax.toBytes();
+        this.threads = threads;
+        this.tailleLot = tailleLot;
+        Gauge.builder("documents.doublons.memoire", memoire, AtomicLong::get)
+                .description("Mémoire occupée par les filtres de détection des doublons")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void reconstruire() {
+        long debut = System.nanoTime();
+        for (DocumentRepository.DocumentsParSociete societe : documentRepository.countParSociete()) {
+            societes.computeIfAbsent(societe.getSocieteId(),
+                    id -> new FiltresSociete(creerEtage(Math.max(capaciteMin, 2 * societe.getNombre()), tauxFauxPositifs)));
+        }
+        inscrites = true;
+
+        // Uploads committed meanwhile add themselves to the filters; the paging picks up the rest
+        List<Map.Entry<Long, FiltresSociete>> aCharger = new ArrayList<>(societes.entrySet());
+        ExecutorService executeur = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "doublons-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<?>[] chargements = aCharger.stream()
+                .map(entree -> CompletableFuture.runAsync(() -> charger(entree.getKey(), entree.getValue()), executeur))
+                .toArray(CompletableFuture[]::new);
+        executeur.shutdown();
+        CompletableFuture.allOf(chargements).whenComplete((ignore, erreur) -> {
+            if (erreur != null) {
+                log.error("Reconstruction des filtres de doublons incomplète", erreur);
+            } else {
+                log.info("Filtres de doublons reconstruits : {} société(s), {} Ko en {} ms", aCharger.size(),
+                        memoire.get() / 1024, (System.nanoTime() - debut) / 1_000_000);
+            }
+        });
+    }
+
+    /**
+     * False only when the key is certainly absent; true when the database must be asked.
+     */
+    boolean peutContenir(Long societeId, String numeroPiece, String fournisseur, BigDecimal montant) {
+        FiltresSociete filtres = societes.get(societeId);
+        if (filtres == null) {
+            // Before the societes are known nothing can be ruled out; afterwards the societe has no document
+            return !inscrites;
+        }
+        return !filtres.pret || filtres.peutContenir(cle(numeroPiece, fournisseur, montant));
+    }
+
+    void ajouter(Long societeId, String numeroPiece, String fournisseur, BigDecimal montant) {
+        FiltresSociete filtres = societes.computeIfAbsent(societeId, id -> {
+            FiltresSociete nouveaux = new FiltresSociete(creerEtage(capaciteMin, tauxFauxPositifs));
+            // A societe first seen after the startup count has nothing else to load
+            nouveaux.pret = inscrites;
+            return nouveaux;
+        });
+        filtres.ajouter(cle(numeroPiece, fournisseur, montant));
+    }
+
+    private void charger(Long societeId, FiltresSociete filtres) {
+        long curseur = 0;
+        List<DocumentRepository.CleDoublon> lot;
+        do {
+            lot = documentRepository.findClesDoublon(societeId, curseur, PageRequest.of(0, tailleLot));
+            for (DocumentRepository.CleDoublon document : lot) {
+                filtres.ajouter(cle(document.getNumeroPiece(), document.getFournisseur(), document.getMontant()));
+                curseur = document.getId();
+            }
+        } while (lot.size() == tailleLot);
+        filtres.pret = true;
+    }
+
+    private FiltreBloom creerEtage(long capacite, double taux) {
+        FiltreBloom etage = new FiltreBloom(capacite, taux);
+        memoire.addAndGet(etage.memoire());
+        return etage;
+    }
+
+    // Same equality as the confirmation query: exact strings, missing supplier as empty, amount by value
+    static String cle(String numeroPiece, String fournisseur, BigDecimal montant) {
+        return numeroPiece + '\u0000' + (fournisseur == null ? "" : fournisseur) + '\u0000'
+                + (montant == null ? "" : montant.stripTrailingZeros().toPlainString());
+    }
+
+    private final class FiltresSociete {
+
+        private final List<FiltreBloom> etages = new CopyOnWriteArrayList<>();
+        private volatile boolean pret;
+
+        FiltresSociete(FiltreBloom premier) {
+            etages.add(premier);
+        }
+
+        boolean peutContenir(String cle) {
+            for (FiltreBloom etage : etages) {
+                if (etage.peutContenir(cle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void ajouter(String cle) {
+            FiltreBloom dernier = etages.get(etages.size() - 1);
+            if (dernier.estPlein() && !limiteAtteinte) {
+                dernier = agrandir(dernier);
+            }
+            dernier.ajouter(cle);
+        }
+
+        private synchronized FiltreBloom agrandir(FiltreBloom plein) {
+            FiltreBloom dernier = etages.get(etages.size() - 1);
+            if (dernier != plein) {
+                return dernier;
+            }
+            long capacite = plein.capacite() * 2;
+            double taux = tauxFauxPositifs / Math.pow(2, etages.size());
+            if (memoire.get() + FiltreBloom.memoire(capacite, taux) > memoireMax) {
+                // Keeps filling the last stage: more false positives, each one settled by the query
+                if (!limiteAtteinte) {
+                    limiteAtteinte = true;
+                    log.warn("Mémoire des filtres de doublons au maximum ({} octets), le taux de faux positifs va augmenter",
+                            memoireMax);
+                }
+                return plein;
+            }
+            FiltreBloom etage = creerEtage(capacite, taux);
+            etages.add(etage);
+            return etage;
+        }
+    }
+}
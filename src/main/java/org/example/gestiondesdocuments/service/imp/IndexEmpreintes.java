@@ -0,0 +1,74 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.repository.DocumentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index en mémoire des fichiers déjà stockés, par société, SHA-256 et taille : il répond aux
+ * demandes d'upload par empreinte sans requête SQL. Reconstruit au démarrage par lots depuis la
+ * table des documents, puis complété à chaque upload validé en base.
+ *
+ * L'index peut être en retard ou en avance sur la base : une entrée trouvée est toujours relue
+ * avant d'être utilisée, une entrée manquante coûte seulement un upload classique.
+ */
+@Component
+@Slf4j
+class IndexEmpreintes {
+
+    private final DocumentRepository documentRepository;
+    private final int tailleLot;
+    private final Map<Cle, Long> documents = new ConcurrentHashMap<>();
+
+    IndexEmpreintes(DocumentRepository documentRepository,
+                    @Value("${app.upload.empreintes.taille-lot:1000}") int tailleLot) {
+        this.documentRepository = documentRepository;
+        this.tailleLot = tailleLot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void reconstruire() {
+        long debut = System.nanoTime();
+        long curseur = 0;
+        List<DocumentRepository.EmpreinteDocument> lot;
+        do {
+            lot = documentRepository.findEmpreintes(curseur, PageRequest.of(0, tailleLot));
+            for (DocumentRepository.EmpreinteDocument document : lot) {
+                // The oldest row wins: it is the one that wrote the file
+                documents.putIfAbsent(new Cle(document.getSocieteId(), document.getEmpreinte(), document.getTailleFichier()),
+                        document.getId());
+                curseur = document.getId();
+            }
+        } while (lot.size() == tailleLot);
+        log.info("Index des empreintes reconstruit : {} fichier(s) en {} ms", documents.size(),
+                (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    Long chercher(Long societeId, String empreinte, long taille) {
+        return documents.get(new Cle(societeId, normaliser(empreinte), taille));
+    }
+
+    void ajouter(Long societeId, String empreinte, long taille, Long documentId) {
+        documents.putIfAbsent(new Cle(societeId, normaliser(empreinte), taille), documentId);
+    }
+
+    void retirer(Long societeId, String empreinte, long taille, Long documentId) {
+        documents.remove(new Cle(societeId, normaliser(empreinte), taille), documentId);
+    }
+
+    private static String normaliser(String empreinte) {
+        return empreinte.toLowerCase(Locale.ROOT);
+    }
+
+    private record Cle(Long societeId, String empreinte, long taille) {
+    }
+}
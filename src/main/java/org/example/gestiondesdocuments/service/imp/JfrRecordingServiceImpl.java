@@ -0,0 +1,150 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Admin.JfrRecordingResponse;
+import org.example.gestiondesdocuments.service.JfrRecordingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pilote des enregistrements Java Flight Recorder à chaud. Un seul enregistrement peut tourner
+ * à la fois ; il est borné en durée et écrit dans app.jfr.dir à l'arrêt.
+ */
+@Service
+@Slf4j
+public class JfrRecordingServiceImpl implements JfrRecordingService {
+
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+    private final Map<Long, String> profils = new ConcurrentHashMap<>();
+
+    @Value("${app.jfr.dir:jfr}")
+    private String jfrDir;
+
+    @Value("${app.jfr.max-duration:30m}")
+    private Duration maxDuration;
+
+    @Override
+    public synchronized JfrRecordingResponse start(String profil) {
+        boolean enCours = recordings.values().stream().anyMatch(r -> r.getState() == RecordingState.RUNNING);
+        if (enCours) {
+            throw new RuntimeException("Un enregistrement JFR est déjà en cours");
+        }
+
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(profil);
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("Profil JFR inconnu : " + profil);
+        }
+
+        try {
+            Path dir = Paths.get(jfrDir);
+            Files.createDirectories(dir);
+
+            Recording recording = new Recording(configuration);
+            recording.setName("gestion-documents-" + profil);
+            recording.setToDisk(true);
+            recording.setDuration(maxDuration);
+            recording.setDestination(dir.resolve("recording-" + recording.getId() + ".jfr"));
+            recording.start();
+
+            recordings.put(recording.getId(), recording);
+            profils.put(recording.getId(), profil);
+            log.info("Enregistrement JFR {} démarré avec le profil {}", recording.getId(), profil);
+            return toResponse(recording);
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible de démarrer l'enregistrement JFR: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public JfrRecordingResponse stop(long id) {
+        Recording recording = getRecording(id);
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Enregistrement JFR {} arrêté, écrit dans {}", id, recording.getDestination());
+        }
+        return toResponse(recording);
+    }
+
+    @Override
+    public List<JfrRecordingResponse> getRecordings() {
+        return recordings.values().stream()
+                .sorted(Comparator.comparingLong(Recording::getId))
+                .map(this::toResponse)
+                .toList();
+    }
+
+    @Override
+    public Path getFichier(long id) {
+        Recording recording = getRecording(id);
+        if (!isTermine(recording) || !Files.exists(recording.getDestination())) {
+            throw new RuntimeException("L'enregistrement JFR n'est pas encore arrêté");
+        }
+        return recording.getDestination();
+    }
+
+    @Override
+    public void delete(long id) {
+        Recording recording = getRecording(id);
+        Path destination = recording.getDestination();
+        if (recording.getState() != RecordingState.CLOSED) {
+            recording.close();
+        }
+        recordings.remove(id);
+        profils.remove(id);
+        try {
+            Files.deleteIfExists(destination);
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible de supprimer l'enregistrement JFR: " + e.getMessage());
+        }
+    }
+
+    private Recording getRecording(long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw new RuntimeException("Enregistrement JFR non trouvé avec l'ID: " + id);
+        }
+        return recording;
+    }
+
+    // A recording with a destination is written and closed as soon as it stops
+    private static boolean isTermine(Recording recording) {
+        return recording.getState() == RecordingState.STOPPED || recording.getState() == RecordingState.CLOSED;
+    }
+
+    private JfrRecordingResponse toResponse(Recording recording) {
+        Path destination = recording.getDestination();
+        Long taille = null;
+        try {
+            if (isTermine(recording) && destination != null && Files.exists(destination)) {
+                taille = Files.size(destination);
+            }
+        } catch (IOException e) {
+            log.warn("Taille de l'enregistrement JFR {} indisponible", recording.getId());
+        }
+        return new JfrRecordingResponse(
+                recording.getId(),
+                recording.getName(),
+                profils.get(recording.getId()),
+                recording.getState().name(),
+                recording.getStartTime(),
+                isTermine(recording) ? recording.getStopTime() : null,
+                taille
+        );
+    }
+}
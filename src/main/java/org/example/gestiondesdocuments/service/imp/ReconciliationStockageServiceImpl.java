@@ -0,0 +1,304 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Admin.ReconciliationResponse;
+import org.example.gestiondesdocuments.dto.Admin.TraitementResponse;
+import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.repository.DocumentRepository;
+import org.example.gestiondesdocuments.service.DocumentStorageService;
+import org.example.gestiondesdocuments.service.ReconciliationStockageService;
+import org.example.gestiondesdocuments.storage.ColdStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Réconciliation entre les fichiers présents sur le disque (stockage chaud et froid) et les chemins
+ * référencés par les documents.
+ *
+ * Les chemins des documents sont lus par lots dans l'ordre des ids et réduits à des empreintes de
+ * 64 bits triées ({@link EnsembleEmpreintes}) ; les répertoires sont parcourus en parallèle
+ * (fork-join, une tâche par répertoire de shard) et chaque fichier y est cherché par dichotomie.
+ * Les empreintes des fichiers rencontrés servent ensuite à repérer, dans un second passage sur les
+ * documents, les lignes dont le fichier manque. La mémoire reste de l'ordre de 16 octets par
+ * fichier, quelle que soit la longueur des chemins.
+ *
+ * Un fichier orphelin n'est signalé qu'après confirmation par la base et s'il est plus ancien que
+ * app.reconciliation.delai-grace (un upload écrit le fichier avant la ligne). En mode quarantaine,
+ * les orphelins sont déplacés dans le sous-répertoire quarantaine et les documents sans fichier
+ * sont marqués MANQUANT, comme le fait la vérification d'intégrité.
+ */
+@Service
+@Slf4j
+public class ReconciliationStockageServiceImpl implements ReconciliationStockageService {
+
+    static final String NOM = "reconciliation-stockage";
+    static final String QUARANTAINE = "quarantaine";
+
+    // Managed by the stores themselves, never reconciled against cheminFichier
+    private static final Set<String> REPERTOIRES_EXCLUS = Set.of("pack", "cache-froid", QUARANTAINE, UploadRepriseServiceImpl.DOSSIER);
+    private static final int CONFIRMATION_LOT = 500;
+
+    private final DocumentRepository documentRepository;
+    private final DocumentStorageService documentStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Path> racines;
+    private final TraitementDeFond traitement;
+    private final int paralleles;
+    private final int tailleLot;
+    private final Duration delaiGrace;
+    private final int maxRapport;
+    private final Queue<String> orphelins = new ConcurrentLinkedQueue<>();
+    private final Queue<ReconciliationResponse.DocumentPendant> pendants = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger tailleRapport = new AtomicInteger();
+    private volatile boolean quarantaine;
+
+    public ReconciliationStockageServiceImpl(DocumentRepository documentRepository,
+                                             DocumentStorageService documentStorageService,
+                                             ColdStorage coldStorage,
+                                             PlatformTransactionManager transactionManager,
+                                             VerrouStockage verrouStockage,
+                                             @Value("${app.upload.dir}") String uploadDir,
+                                             @Value("${app.reconciliation.paralleles:4}") int paralleles,
+                                             @Value("${app.reconciliation.lot:1000}") int tailleLot,
+                                             @Value("${app.reconciliation.delai-grace:1h}") Duration delaiGrace,
+                                             @Value("${app.reconciliation.max-rapport:1000}") int maxRapport) {
+        this.documentRepository = documentRepository;
+        this.documentStorageService = documentStorageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.traitement = new TraitementDeFond(NOM, verrouStockage);
+        this.racines = List.of(Paths.get(uploadDir), coldStorage.racine());
+        this.paralleles = paralleles;
+        this.tailleLot = tailleLot;
+        this.delaiGrace = delaiGrace;
+        this.maxRapport = maxRapport;
+    }
+
+    @Override
+    public TraitementResponse demarrer(boolean quarantaine) {
+        return traitement.demarrer(() -> {
+            this.quarantaine = quarantaine;
+            orphelins.clear();
+            pendants.clear();
+            tailleRapport.set(0);
+            reconcilier();
+        });
+    }
+
+    @Override
+    public TraitementResponse arreter() {
+        return traitement.arreter();
+    }
+
+    @Override
+    public ReconciliationResponse getRapport() {
+        return new ReconciliationResponse(traitement.etat(), quarantaine, List.copyOf(orphelins), List.copyOf(pendants));
+    }
+
+    private void reconcilier() {
+        Instant limite = Instant.now().minus(delaiGrace);
+
+        EnsembleEmpreintes references = new EnsembleEmpreintes(tailleLot);
+        parcourirDocuments(chemin -> {
+            references.ajouter(EnsembleEmpreintes.empreinte(normaliser(chemin.getCheminFichier())));
+            traitement.incrementer("references");
+        });
+        references.trier();
+
+        EnsembleEmpreintes fichiers = new EnsembleEmpreintes(references.taille());
+        ForkJoinPool pool = new ForkJoinPool(paralleles);
+        try {
+            for (Path racine : racines) {
+                if (Files.isDirectory(racine) && !traitement.arretDemande()) {
+                    pool.invoke(new Parcours(racine, racine, references, fichiers, limite));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (traitement.arretDemande()) {
+            return;
+        }
+        fichiers.trier();
+
+        List<ReconciliationResponse.DocumentPendant> sansFichier = new ArrayList<>();
+        parcourirDocuments(chemin -> {
+            // Checked on disk as well: the file may have been written or moved since the walk
+            if (!fichiers.contient(EnsembleEmpreintes.empreinte(normaliser(chemin.getCheminFichier())))
+                    && !Files.exists(Paths.get(chemin.getCheminFichier()))) {
+                sansFichier.add(new ReconciliationResponse.DocumentPendant(chemin.getId(), chemin.getCheminFichier()));
+            }
+        }, () -> {
+            signalerPendants(sansFichier);
+            sansFichier.clear();
+        });
+    }
+
+    private void parcourirDocuments(Consumer<DocumentRepository.CheminFichier> action) {
+        parcourirDocuments(action, () -> {
+        });
+    }
+
+    private void parcourirDocuments(Consumer<DocumentRepository.CheminFichier> action, Runnable finDeLot) {
+        long curseur = 0;
+        while (!traitement.arretDemande()) {
+            List<DocumentRepository.CheminFichier> lot = documentRepository.findChemins(curseur, PageRequest.of(0, tailleLot));
+            if (lot.isEmpty()) {
+                return;
+            }
+            for (DocumentRepository.CheminFichier chemin : lot) {
+                // Pack blobs are not files of their own; the integrity check covers them
+                if (!documentStorageService.estCompacte(chemin.getCheminFichier())) {
+                    action.accept(chemin);
+                }
+            }
+            finDeLot.run();
+            curseur = lot.get(lot.size() - 1).getId();
+            traitement.avancer(curseur);
+        }
+    }
+
+    private void signalerPendants(List<ReconciliationResponse.DocumentPendant> sansFichier) {
+        if (sansFichier.isEmpty()) {
+            return;
+        }
+        for (ReconciliationResponse.DocumentPendant pendant : sansFichier) {
+            traitement.incrementer("pendants");
+            log.warn("Document {} sans fichier : {}", pendant.id(), pendant.cheminFichier());
+            if (tailleRapport.incrementAndGet() <= maxRapport) {
+                pendants.add(pendant);
+            }
+        }
+        if (quarantaine) {
+            LocalDateTime maintenant = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status -> sansFichier.forEach(pendant ->
+                    documentRepository.enregistrerVerification(pendant.id(), pendant.cheminFichier(),
+                            Document.EtatIntegrite.MANQUANT, null, maintenant)));
+        }
+    }
+
+    private void signalerOrphelins(Path racine, List<Path> candidats) {
+        for (int debut = 0; debut < candidats.size(); debut += CONFIRMATION_LOT) {
+            List<Path> lot = candidats.subList(debut, Math.min(candidats.size(), debut + CONFIRMATION_LOT));
+            // The row may have been written after the references were read
+            Set<String> chemins = new HashSet<>();
+            lot.forEach(fichier -> {
+                chemins.add(fichier.toString());
+                chemins.add(normaliser(fichier.toString()));
+            });
+            Set<String> references = new HashSet<>(documentRepository.findCheminsExistants(chemins));
+            for (Path fichier : lot) {
+                if (references.contains(fichier.toString()) || references.contains(normaliser(fichier.toString()))) {
+                    continue;
+                }
+                traitement.incrementer("orphelins");
+                if (tailleRapport.incrementAndGet() <= maxRapport) {
+                    orphelins.add(fichier.toString());
+                }
+                if (quarantaine) {
+                    mettreEnQuarantaine(racine, fichier);
+                }
+            }
+        }
+    }
+
+    private void mettreEnQuarantaine(Path racine, Path fichier) {
+        Path cible = racine.resolve(QUARANTAINE).resolve(racine.relativize(fichier));
+        try {
+            Files.createDirectories(cible.getParent());
+            Files.move(fichier, cible, StandardCopyOption.ATOMIC_MOVE);
+            traitement.incrementer("quarantaines");
+        } catch (IOException e) {
+            traitement.incrementer("erreurs");
+            log.warn("Impossible de mettre {} en quarantaine", fichier, e);
+        }
+    }
+
+    private static String normaliser(String chemin) {
+        return Paths.get(chemin).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Parcours d'un répertoire : ses fichiers sont traités sur place, ses sous-répertoires en parallèle.
+     */
+    private final class Parcours extends RecursiveAction {
+
+        private final Path racine;
+        private final Path repertoire;
+        private final EnsembleEmpreintes references;
+        private final EnsembleEmpreintes fichiers;
+        private final Instant limite;
+
+        private Parcours(Path racine, Path repertoire, EnsembleEmpreintes references, EnsembleEmpreintes fichiers,
+                         Instant limite) {
+            this.racine = racine;
+            this.repertoire = repertoire;
+            this.references = references;
+            this.fichiers = fichiers;
+            this.limite = limite;
+        }
+
+        @Override
+        protected void compute() {
+            if (traitement.arretDemande()) {
+                return;
+            }
+            List<Parcours> sousRepertoires = new ArrayList<>();
+            EnsembleEmpreintes locaux = new EnsembleEmpreintes(0);
+            List<Path> candidats = new ArrayList<>();
+            try (DirectoryStream<Path> entrees = Files.newDirectoryStream(repertoire)) {
+                for (Path entree : entrees) {
+                    BasicFileAttributes attributs = Files.readAttributes(entree, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+                    String nom = entree.getFileName().toString();
+                    if (attributs.isDirectory()) {
+                        if (!(repertoire.equals(racine) && REPERTOIRES_EXCLUS.contains(nom))) {
+                            sousRepertoires.add(new Parcours(racine, entree, references, fichiers, limite));
+                        }
+                    } else if (attributs.isRegularFile()) {
+                        traitement.incrementer("fichiers");
+                        long empreinte = EnsembleEmpreintes.empreinte(normaliser(entree.toString()));
+                        locaux.ajouter(empreinte);
+                        // Recent files and temporary files may belong to a write still in progress
+                        if (!references.contient(empreinte) && !nom.endsWith(".tmp")
+                                && attributs.lastModifiedTime().toInstant().isBefore(limite)) {
+                            candidats.add(entree);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                traitement.incrementer("erreurs");
+                log.warn("Impossible de parcourir {}", repertoire, e);
+            }
+            synchronized (fichiers) {
+                fichiers.ajouterTout(locaux);
+            }
+            signalerOrphelins(racine, candidats);
+            invokeAll(sousRepertoires);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Admin.TraitementResponse;
+import org.example.gestiondesdocuments.service.StockageCompactionService;
+import org.example.gestiondesdocuments.storage.PackedBlobStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compactage du stockage compacté : les segments scellés dont la part de contenu vivant est
+ * sous app.stockage.pack.seuil-compactage sont recopiés puis effacés. L'effacement attend
+ * app.stockage.pack.delai-effacement pour laisser finir les téléchargements qui visent encore
+ * l'ancien segment.
+ */
+@Service
+@Slf4j
+public class StockageCompactionServiceImpl implements StockageCompactionService {
+
+    private final ObjectProvider<PackedBlobStore> packedBlobStore;
+    private final TraitementDeFond traitement;
+    private final double seuilVivants;
+    private final Duration delaiEffacement;
+
+    public StockageCompactionServiceImpl(ObjectProvider<PackedBlobStore> packedBlobStore,
+                                         VerrouStockage verrouStockage,
+                                         @Value("${app.stockage.pack.seuil-compactage:0.5}") double seuilVivants,
+                                         @Value("${app.stockage.pack.delai-effacement:30s}") Duration delaiEffacement) {
+        this.packedBlobStore = packedBlobStore;
+        this.traitement = new TraitementDeFond("compactage-stockage", verrouStockage);
+        this.seuilVivants = seuilVivants;
+        this.delaiEffacement = delaiEffacement;
+    }
+
+    @Override
+    public TraitementResponse demarrer() {
+        PackedBlobStore store = packedBlobStore.getIfAvailable();
+        if (store == null) {
+            throw new RuntimeException("Stockage compacté désactivé (app.stockage.mode=pack)");
+        }
+        return traitement.demarrer(() -> compacter(store));
+    }
+
+    @Override
+    public TraitementResponse arreter() {
+        return traitement.arreter();
+    }
+
+    @Override
+    public TraitementResponse getEtat() {
+        return traitement.etat();
+    }
+
+    private void compacter(PackedBlobStore store) {
+        try {
+            List<Integer> compactes = new ArrayList<>();
+            for (int segment : store.segmentsACompacter(seuilVivants)) {
+                if (traitement.arretDemande()) {
+                    break;
+                }
+                long taille = store.compacter(segment);
+                compactes.add(segment);
+                traitement.avancer(segment);
+                traitement.incrementer("segments");
+                traitement.ajouter("octetsRelus", taille);
+            }
+            if (compactes.isEmpty()) {
+                return;
+            }
+            LockSupport.parkNanos(delaiEffacement.toNanos());
+            for (int segment : compactes) {
+                store.effacerSegment(segment);
+                traitement.incrementer("segmentsEffaces");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
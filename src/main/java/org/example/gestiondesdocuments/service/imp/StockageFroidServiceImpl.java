@@ -0,0 +1,194 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Admin.TraitementResponse;
+import org.example.gestiondesdocuments.entite.CurseurTraitement;
+import org.example.gestiondesdocuments.repository.CurseurTraitementRepository;
+import org.example.gestiondesdocuments.repository.DocumentRepository;
+import org.example.gestiondesdocuments.service.DocumentStorageService;
+import org.example.gestiondesdocuments.service.StockageFroidService;
+import org.example.gestiondesdocuments.storage.ColdStorage;
+import org.example.gestiondesdocuments.storage.ContenuDocument;
+import org.example.gestiondesdocuments.storage.RegionFichier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Passage au stockage froid des fichiers des exercices clos (plus anciens que
+ * app.stockage.froid.annees-ouvertes). Les documents sont parcourus par lots dans l'ordre des ids :
+ * les fichiers sont d'abord copiés durablement dans le stockage froid, puis cheminFichier et le
+ * curseur sont mis à jour dans une même transaction, et seulement ensuite les copies chaudes sont
+ * supprimées. Un arrêt à n'importe quelle étape laisse au pire une copie froide orpheline, et le
+ * passage suivant reprend au curseur ; un passage terminé repart du début.
+ * Un fichier partagé par dédoublonnage avec un document d'un exercice ouvert garde aussi sa copie
+ * chaude, que ce document continue d'utiliser.
+ * Le débit est limité en octets par seconde pour ménager le disque rapide.
+ */
+@Service
+@Slf4j
+public class StockageFroidServiceImpl implements StockageFroidService {
+
+    static final String CURSEUR = "tiering-froid";
+
+    // Already compressed formats, copied as is
+    private static final Set<String> TYPES_COMPRESSES = Set.of(
+            "image/jpeg", "image/png", "image/gif", "image/webp", "application/zip", "application/gzip");
+
+    private final DocumentRepository documentRepository;
+    private final CurseurTraitementRepository curseurRepository;
+    private final DocumentStorageService documentStorageService;
+    private final ColdStorage coldStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final TraitementDeFond traitement;
+    private final int anneesOuvertes;
+    private final int tailleLot;
+    private final double octetsParSeconde;
+
+    public StockageFroidServiceImpl(DocumentRepository documentRepository,
+                                    CurseurTraitementRepository curseurRepository,
+                                    DocumentStorageService documentStorageService,
+                                    ColdStorage coldStorage,
+                                    PlatformTransactionManager transactionManager,
+                                    VerrouStockage verrouStockage,
+                                    @Value("${app.stockage.froid.annees-ouvertes:2}") int anneesOuvertes,
+                                    @Value("${app.stockage.froid.lot:100}") int tailleLot,
+                                    @Value("${app.stockage.froid.octets-par-seconde:20MB}") DataSize octetsParSeconde) {
+        this.documentRepository = documentRepository;
+        this.curseurRepository = curseurRepository;
+        this.documentStorageService = documentStorageService;
+        this.coldStorage = coldStorage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.traitement = new TraitementDeFond(CURSEUR, verrouStockage);
+        this.anneesOuvertes = anneesOuvertes;
+        this.tailleLot = tailleLot;
+        this.octetsParSeconde = octetsParSeconde.toBytes();
+    }
+
+    @Override
+    public TraitementResponse demarrer() {
+        return traitement.demarrer(this::archiver);
+    }
+
+    @Override
+    public TraitementResponse arreter() {
+        return traitement.arreter();
+    }
+
+    @Override
+    public TraitementResponse getEtat() {
+        return traitement.etat();
+    }
+
+    @Scheduled(cron = "${app.stockage.froid.cron:-}")
+    public void demarrerPlanifie() {
+        traitement.demarrerSiLibre(this::archiver);
+    }
+
+    private void archiver() {
+        TraitementDeFond.Limiteur limiteur = new TraitementDeFond.Limiteur(octetsParSeconde);
+        String dernierExerciceClos = String.valueOf(Year.now().getValue() - anneesOuvertes);
+        long curseur = curseurRepository.findById(CURSEUR).map(CurseurTraitement::getDernierId).orElse(0L);
+        traitement.avancer(curseur);
+
+        while (!traitement.arretDemande()) {
+            List<DocumentRepository.FichierStocke> lot =
+                    documentRepository.findAArchiver(curseur, dernierExerciceClos, PageRequest.of(0, tailleLot));
+            if (lot.isEmpty()) {
+                // A completed pass rewinds: the next closed year brings rows below the cursor
+                curseurRepository.save(CurseurTraitement.builder().nom(CURSEUR).dernierId(0L).build());
+                return;
+            }
+
+            List<Archivage> archivages = new ArrayList<>();
+            for (DocumentRepository.FichierStocke fichier : lot) {
+                Archivage archivage = copier(fichier, limiteur);
+                if (archivage != null) {
+                    archivages.add(archivage);
+                }
+            }
+
+            long fin = lot.get(lot.size() - 1).getId();
+            List<Archivage> valides = transactionTemplate.execute(status -> {
+                List<Archivage> appliques = new ArrayList<>();
+                for (Archivage archivage : archivages) {
+                    if (documentRepository.archiver(archivage.ancien(), archivage.nouveau(), dernierExerciceClos) > 0) {
+                        appliques.add(archivage);
+                    }
+                }
+                curseurRepository.save(CurseurTraitement.builder().nom(CURSEUR).dernierId(fin).build());
+                return appliques;
+            });
+
+            for (Archivage archivage : archivages) {
+                if (valides.contains(archivage)) {
+                    // Open-year documents and documents created from the hot path before the update keep it alive;
+                    // a creation after the update waits for it on the source row lock and gets the cold path
+                    if (documentRepository.countByCheminFichier(archivage.ancien()) == 0) {
+                        documentStorageService.supprimer(archivage.ancien());
+                    }
+                    traitement.incrementer("archives");
+                } else {
+                    // The row changed meanwhile: the cold copy is not referenced
+                    documentStorageService.supprimer(archivage.nouveau());
+                    traitement.incrementer("ignores");
+                }
+            }
+            curseur = fin;
+            traitement.avancer(fin);
+        }
+    }
+
+    private Archivage copier(DocumentRepository.FichierStocke fichier, TraitementDeFond.Limiteur limiteur) {
+        String chemin = fichier.getCheminFichier();
+        try {
+            ContenuDocument contenuDocument = documentStorageService.lire(chemin);
+            RegionFichier region = contenuDocument.region();
+            limiteur.acquerir(region.taille());
+            boolean compresser = fichier.getTypeFichier() == null || !TYPES_COMPRESSES.contains(fichier.getTypeFichier());
+            Path cible;
+            if (compresser && contenuDocument.estChiffre()) {
+                // Encrypted bytes do not compress: the plaintext is compressed, then encrypted again
+                cible = coldStorage.archiverChiffre(contenuDocument, nomFichier(fichier));
+            } else {
+                try (InputStream contenu = region.ouvrir()) {
+                    cible = coldStorage.archiver(contenu, nomFichier(fichier), compresser);
+                }
+            }
+            traitement.ajouter("octetsLus", region.taille());
+            traitement.ajouter("octetsEcrits", Files.size(cible));
+            if (ColdStorage.estCompresse(cible)) {
+                traitement.incrementer("compresses");
+            }
+            return new Archivage(fichier.getId(), chemin, cible.toString());
+        } catch (IOException | RuntimeException e) {
+            traitement.incrementer("erreurs");
+            log.warn("Impossible d'archiver le document {} ({})", fichier.getId(), chemin, e);
+            return null;
+        }
+    }
+
+    private String nomFichier(DocumentRepository.FichierStocke fichier) {
+        if (documentStorageService.estCompacte(fichier.getCheminFichier())) {
+            return "doc-" + fichier.getId();
+        }
+        return Paths.get(fichier.getCheminFichier()).getFileName().toString();
+    }
+
+    private record Archivage(Long id, String ancien, String nouveau) {
+    }
+}
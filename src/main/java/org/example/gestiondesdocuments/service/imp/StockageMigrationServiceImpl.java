@@ -0,0 +1,184 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Admin.TraitementResponse;
+import org.example.gestiondesdocuments.entite.CurseurTraitement;
+import org.example.gestiondesdocuments.repository.CurseurTraitementRepository;
+import org.example.gestiondesdocuments.repository.DocumentRepository;
+import org.example.gestiondesdocuments.service.DocumentStorageService;
+import org.example.gestiondesdocuments.service.StockageMigrationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Migration en ligne des fichiers stockés à plat dans le répertoire d'upload vers l'arborescence
+ * répartie. Les documents sont parcourus par lots dans l'ordre des ids ; chaque lot lie (ou copie)
+ * ses fichiers à leur nouvel emplacement, met à jour cheminFichier et le curseur dans une même
+ * transaction, et ne supprime les anciens chemins qu'après le commit : un fichier reste lisible à
+ * l'adresse que porte sa ligne pendant tout le lot, et un arrêt ou un crash laisse au pire une copie
+ * non référencée, refaite à la reprise. Le débit est limité pour ne pas concurrencer les uploads.
+ */
+@Service
+@Slf4j
+public class StockageMigrationServiceImpl implements StockageMigrationService {
+
+    static final String CURSEUR = "migration-stockage";
+
+    private final DocumentRepository documentRepository;
+    private final CurseurTraitementRepository curseurRepository;
+    private final DocumentStorageService documentStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final TraitementDeFond traitement;
+    private final int tailleLot;
+    private final double fichiersParSeconde;
+
+    public StockageMigrationServiceImpl(DocumentRepository documentRepository,
+                                        CurseurTraitementRepository curseurRepository,
+                                        DocumentStorageService documentStorageService,
+                                        PlatformTransactionManager transactionManager,
+                                        VerrouStockage verrouStockage,
+                                        @Value("${app.stockage.migration.lot:200}") int tailleLot,
+                                        @Value("${app.stockage.migration.fichiers-par-seconde:100}") double fichiersParSeconde) {
+        this.documentRepository = documentRepository;
+        this.curseurRepository = curseurRepository;
+        this.documentStorageService = documentStorageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.traitement = new TraitementDeFond(CURSEUR, verrouStockage);
+        this.tailleLot = tailleLot;
+        this.fichiersParSeconde = fichiersParSeconde;
+    }
+
+    @Override
+    public TraitementResponse demarrer() {
+        return traitement.demarrer(this::migrer);
+    }
+
+    @Override
+    public TraitementResponse arreter() {
+        return traitement.arreter();
+    }
+
+    @Override
+    public TraitementResponse getEtat() {
+        return traitement.etat();
+    }
+
+    private void migrer() {
+        TraitementDeFond.Limiteur limiteur = new TraitementDeFond.Limiteur(fichiersParSeconde);
+        long curseur = curseurRepository.findById(CURSEUR).map(CurseurTraitement::getDernierId).orElse(0L);
+        traitement.avancer(curseur);
+
+        while (!traitement.arretDemande()) {
+            List<DocumentRepository.CheminFichier> lot = documentRepository.findChemins(curseur, PageRequest.of(0, tailleLot));
+            if (lot.isEmpty()) {
+                return;
+            }
+
+            // Keyed by the old path: documents deduplicated by digest share one file
+            Map<String, Deplacement> deplacements = new LinkedHashMap<>();
+            for (DocumentRepository.CheminFichier chemin : lot) {
+                if (deplacements.containsKey(chemin.getCheminFichier())) {
+                    continue;
+                }
+                Deplacement deplacement = deplacer(chemin, limiteur);
+                if (deplacement != null) {
+                    deplacements.put(deplacement.ancien(), deplacement);
+                }
+            }
+
+            long fin = lot.get(lot.size() - 1).getId();
+            Set<Deplacement> appliques = transactionTemplate.execute(status -> {
+                Set<Deplacement> faits = new HashSet<>();
+                for (Deplacement deplacement : deplacements.values()) {
+                    if (documentRepository.deplacerChemin(deplacement.ancien(), deplacement.nouveau()) > 0) {
+                        faits.add(deplacement);
+                    }
+                }
+                curseurRepository.save(CurseurTraitement.builder().nom(CURSEUR).dernierId(fin).build());
+                return faits;
+            });
+            for (Deplacement deplacement : deplacements.values()) {
+                nettoyer(deplacement, appliques.contains(deplacement));
+            }
+            curseur = fin;
+            traitement.avancer(fin);
+        }
+    }
+
+    private Deplacement deplacer(DocumentRepository.CheminFichier chemin, TraitementDeFond.Limiteur limiteur) {
+        if (documentStorageService.estCompacte(chemin.getCheminFichier())
+                || documentStorageService.estFroid(chemin.getCheminFichier())) {
+            traitement.incrementer("dejaEnPlace");
+            return null;
+        }
+        Path source = Paths.get(chemin.getCheminFichier());
+        Path cible = documentStorageService.emplacement(source.getFileName().toString());
+        if (source.equals(cible)) {
+            traitement.incrementer("dejaEnPlace");
+            return null;
+        }
+        try {
+            if (Files.exists(source)) {
+                limiteur.acquerir(1);
+                Files.createDirectories(cible.getParent());
+                lier(source, cible);
+            } else if (!Files.exists(cible)) {
+                // Nothing to move: reported, and the row keeps its current path
+                traitement.incrementer("manquants");
+                return null;
+            }
+            // Without a source, an earlier version of the migration moved the file but did not commit the row
+            traitement.incrementer("deplaces");
+            return new Deplacement(chemin.getId(), chemin.getCheminFichier(), cible.toString());
+        } catch (IOException e) {
+            traitement.incrementer("erreurs");
+            log.warn("Impossible de déplacer {} vers {}", source, cible, e);
+            return null;
+        }
+    }
+
+    // A copy left by a run stopped before its commit is not referenced: it is made again
+    private static void lier(Path source, Path cible) throws IOException {
+        Files.deleteIfExists(cible);
+        try {
+            Files.createLink(cible, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            // Other file system or no hard links
+            Files.copy(source, cible);
+        }
+        // Counts as a new file for the reconciliation grace period, not as an old unreferenced one
+        Files.setLastModifiedTime(cible, FileTime.from(Instant.now()));
+    }
+
+    // Only once the rows point at the new path; a row changed meanwhile keeps its file where it is
+    private void nettoyer(Deplacement deplacement, boolean applique) {
+        Path supprime = Paths.get(applique ? deplacement.ancien() : deplacement.nouveau());
+        if (!applique && documentRepository.countByCheminFichier(deplacement.nouveau()) > 0) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(supprime);
+        } catch (IOException e) {
+            traitement.incrementer("erreurs");
+            log.warn("Impossible de supprimer {}", supprime, e);
+        }
+    }
+
+    private record Deplacement(Long id, String ancien, String nouveau) {
+    }
+}
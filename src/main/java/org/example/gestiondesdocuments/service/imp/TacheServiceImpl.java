@@ -0,0 +1,318 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Admin.TachesResponse;
+import org.example.gestiondesdocuments.entite.Tache;
+import org.example.gestiondesdocuments.repository.TacheRepository;
+import org.example.gestiondesdocuments.service.ExecuteurTache;
+import org.example.gestiondesdocuments.service.TacheService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File de tâches durable : les tâches sont insérées dans la transaction du changement qui les
+ * provoque, puis exécutées par un pool local de app.taches.workers threads.
+ *
+ * Un seul thread répartiteur réserve les tâches par lots, à hauteur des workers libres, par ordre
+ * de priorité puis d'échéance (SKIP LOCKED quand la base le permet, sinon compare-and-set ligne à
+ * ligne sur une fenêtre mélangée, comme les réservations de documents). Chaque réservation pose un
+ * bail : une tâche dont le worker a disparu (arrêt, crash) revient dans la file à son expiration,
+ * d'où une exécution au moins une fois. Un échec est retenté avec un délai exponentiel aléatoire,
+ * jusqu'à app.taches.tentatives-max, puis la tâche reste en ECHEC jusqu'à sa relance manuelle.
+ */
+@Service
+@Slf4j
+public class TacheServiceImpl implements TacheService {
+
+    private static final int CANDIDATS_PAR_PLACE = 4;
+    private static final int MAX_ECHECS_AFFICHES = 100;
+
+    private final TacheRepository tacheRepository;
+    private final Map<Tache.TypeTache, ExecuteurTache> executeurs = new EnumMap<>(Tache.TypeTache.class);
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean skipLocked;
+    private final boolean actif;
+    private final int workers;
+    private final int tailleLot;
+    private final Duration intervalle;
+    private final Duration bail;
+    private final int tentativesMax;
+    private final Duration attenteMin;
+    private final Duration attenteMax;
+    private final Duration retention;
+    // One permit per idle worker: the dispatcher never claims more than it can start
+    private final Semaphore places;
+    private final Semaphore reveil = new Semaphore(0);
+    private final ExecutorService pool;
+    private volatile boolean arret;
+    private Thread repartiteur;
+
+    public TacheServiceImpl(TacheRepository tacheRepository,
+                            List<ExecuteurTache> executeurs,
+                            EntityManagerFactory entityManagerFactory,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.taches.actif:true}") boolean actif,
+                            @Value("${app.taches.workers:4}") int workers,
+                            @Value("${app.taches.lot:20}") int tailleLot,
+                            @Value("${app.taches.intervalle:5s}") Duration intervalle,
+                            @Value("${app.taches.bail:5m}") Duration bail,
+                            @Value("${app.taches.tentatives-max:8}") int tentativesMax,
+                            @Value("${app.taches.attente-min:10s}") Duration attenteMin,
+                            @Value("${app.taches.attente-max:1h}") Duration attenteMax,
+                            @Value("${app.taches.retention:7d}") Duration retention) {
+        this.tacheRepository = tacheRepository;
+        executeurs.forEach(executeur -> this.executeurs.put(executeur.type(), executeur));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.skipLocked = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().supportsSkipLocked();
+        this.actif = actif;
+        this.workers = workers;
+        this.tailleLot = tailleLot;
+        this.intervalle = intervalle;
+        this.bail = bail;
+        this.tentativesMax = tentativesMax;
+        this.attenteMin = attenteMin;
+        this.attenteMax = attenteMax;
+        this.retention = retention;
+        this.places = new Semaphore(workers);
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "taches-worker-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void planifier(Tache.TypeTache type, Long documentId) {
+        if (!executeurs.containsKey(type)) {
+            log.debug("Aucun exécuteur actif pour les tâches {}, document {} ignoré", type, documentId);
+            return;
+        }
+        tacheRepository.save(Tache.builder()
+                .type(type)
+                .documentId(documentId)
+                .priorite(type.getPriorite())
+                .build());
+        reveillerApresCommit();
+    }
+
+    @Override
+    public TachesResponse getEtat() {
+        Map<String, Long> parStatut = new LinkedHashMap<>();
+        for (Tache.StatutTache statut : Tache.StatutTache.values()) {
+            parStatut.put(statut.name(), tacheRepository.countByStatut(statut));
+        }
+        List<TachesResponse.TacheEchouee> echecs = tacheRepository
+                .findByStatutOrderByIdDesc(Tache.StatutTache.ECHEC, PageRequest.of(0, MAX_ECHECS_AFFICHES)).stream()
+                .map(t -> new TachesResponse.TacheEchouee(t.getId(), t.getType().name(), t.getDocumentId(),
+                        t.getTentatives(), t.getDerniereErreur(), t.getDateModification()))
+                .toList();
+        return new TachesResponse(workers, workers - places.availablePermits(), parStatut, echecs);
+    }
+
+    @Override
+    @Transactional
+    public void relancer(Long id) {
+        if (tacheRepository.relancer(id, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Aucune tâche en échec avec l'ID: " + id);
+        }
+        reveillerApresCommit();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        if (!actif) {
+            log.info("Exécution des tâches désactivée sur cette instance");
+            return;
+        }
+        repartiteur = new Thread(this::repartir, "taches-repartiteur");
+        repartiteur.setDaemon(true);
+        repartiteur.start();
+        log.info("{} worker(s) de tâches, réservation par {}", workers, skipLocked ? "SKIP LOCKED" : "compare-and-set");
+    }
+
+    // Running tasks are not waited for: their lease expires and they run again elsewhere or after the restart
+    @PreDestroy
+    public void arreter() {
+        arret = true;
+        if (repartiteur != null) {
+            repartiteur.interrupt();
+        }
+        pool.shutdownNow();
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.taches.purge-interval:1m}")
+    public void entretenir() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        int liberees = tacheRepository.libererExpirees(maintenant, tentativesMax);
+        if (liberees > 0) {
+            log.warn("{} tâche(s) au bail expiré remise(s) en file", liberees);
+            reveillerApresCommit();
+        }
+        tacheRepository.supprimerTerminees(maintenant.minus(retention));
+    }
+
+    private void repartir() {
+        while (!arret) {
+            int demandees = 0;
+            try {
+                places.acquire();
+                int libres = 1 + places.drainPermits();
+                demandees = Math.min(libres, tailleLot);
+                places.release(libres - demandees);
+
+                List<Tache> reservees = reserver(demandees);
+                boolean fileVide = reservees.size() < demandees;
+                places.release(demandees - reservees.size());
+                demandees = 0;
+                for (Tache tache : reservees) {
+                    pool.execute(() -> executer(tache));
+                }
+                if (fileVide) {
+                    // Nothing more is due: sleep until a commit enqueues work or the next poll
+                    reveil.tryAcquire(intervalle.toMillis(), TimeUnit.MILLISECONDS);
+                    reveil.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                places.release(demandees);
+                log.error("Réservation des tâches en échec", e);
+                try {
+                    Thread.sleep(intervalle.toMillis());
+                } catch (InterruptedException interrompu) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<Tache> reserver(int nombre) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime jusqua = maintenant.plus(bail);
+        if (skipLocked) {
+            return transactionTemplate.execute(status -> {
+                List<Tache> taches = tacheRepository.lockExecutables(maintenant, PageRequest.of(0, nombre));
+                for (Tache tache : taches) {
+                    tache.setStatut(Tache.StatutTache.EN_COURS);
+                    tache.setTentatives(tache.getTentatives() + 1);
+                    tache.setReserveJusqua(jusqua);
+                }
+                return taches;
+            });
+        }
+        List<Long> candidats = new ArrayList<>(tacheRepository.findExecutableIds(
+                maintenant, PageRequest.of(0, nombre * CANDIDATS_PAR_PLACE)));
+        // Other instances poll the same window: shuffling spreads them over different rows
+        Collections.shuffle(candidats, ThreadLocalRandom.current());
+        List<Long> reservees = new ArrayList<>(nombre);
+        for (Long id : candidats) {
+            if (reservees.size() == nombre) {
+                break;
+            }
+            if (tacheRepository.reserver(id, jusqua, maintenant) == 1) {
+                reservees.add(id);
+            }
+        }
+        List<Tache> taches = new ArrayList<>(tacheRepository.findAllById(reservees));
+        taches.sort(Comparator.comparing(Tache::getPriorite).reversed().thenComparing(Tache::getId));
+        return taches;
+    }
+
+    private void executer(Tache tache) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String issue = "succes";
+        try {
+            String resultat = executeurs.get(tache.getType()).executer(tache);
+            tacheRepository.terminer(tache.getId(), tache.getTentatives(), tronquer(resultat, 500), LocalDateTime.now());
+        } catch (Exception e) {
+            issue = echouer(tache, e);
+        } finally {
+            sample.stop(Timer.builder("taches.execution")
+                    .description("Durée d'exécution des tâches différées")
+                    .tag("type", tache.getType().name())
+                    .tag("issue", issue)
+                    .register(meterRegistry));
+            places.release();
+        }
+    }
+
+    private String echouer(Tache tache, Exception erreur) {
+        boolean definitif = tache.getTentatives() >= tentativesMax;
+        LocalDateTime maintenant = LocalDateTime.now();
+        String message = erreur.getClass().getSimpleName() + ": " + erreur.getMessage();
+        try {
+            tacheRepository.echouer(tache.getId(), tache.getTentatives(),
+                    definitif ? Tache.StatutTache.ECHEC : Tache.StatutTache.EN_ATTENTE,
+                    definitif ? maintenant : maintenant.plus(attente(tache.getTentatives())),
+                    tronquer(message, 1000), maintenant);
+        } catch (RuntimeException e) {
+            // The lease will expire and the task will be retried anyway
+            log.error("Échec de la tâche {} non enregistré", tache.getId(), e);
+        }
+        if (definitif) {
+            log.error("Tâche {} {} (document {}) abandonnée après {} tentatives", tache.getId(), tache.getType(),
+                    tache.getDocumentId(), tache.getTentatives(), erreur);
+            return "echec";
+        }
+        log.warn("Tâche {} {} (document {}) en échec, tentative {}/{} : {}", tache.getId(), tache.getType(),
+                tache.getDocumentId(), tache.getTentatives(), tentativesMax, message);
+        return "nouvelle_tentative";
+    }
+
+    // Exponential backoff with jitter, so that tasks failing together do not retry together
+    private Duration attente(int tentatives) {
+        long plafond = Math.min(attenteMax.toMillis(), attenteMin.toMillis() << Math.min(tentatives - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(plafond / 2, plafond + 1));
+    }
+
+    private void reveillerApresCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reveil.release();
+            }
+        });
+    }
+
+    private static String tronquer(String texte, int longueur) {
+        return texte == null || texte.length() <= longueur ? texte : texte.substring(0, longueur);
+    }
+}
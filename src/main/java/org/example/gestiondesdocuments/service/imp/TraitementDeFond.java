@@ -0,0 +1,132 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Admin.TraitementResponse;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * État partagé des traitements de fond pilotés depuis l'administration : un seul passage à la fois,
+ * sur un thread dédié, arrêt coopératif, compteurs exposés et limitation de débit. Les traitements
+ * du stockage partagent en plus un {@link VerrouStockage} : un seul d'entre eux tourne à la fois.
+ */
+@Slf4j
+class TraitementDeFond {
+
+    private final String nom;
+    private final VerrouStockage verrou;
+    private final AtomicBoolean enCours = new AtomicBoolean();
+    private final Map<String, AtomicLong> compteurs = new ConcurrentHashMap<>();
+    private volatile boolean arretDemande;
+    private volatile long dernierId;
+    private volatile Instant debut;
+    private volatile Instant fin;
+
+    TraitementDeFond(String nom, VerrouStockage verrou) {
+        this.nom = nom;
+        this.verrou = verrou;
+    }
+
+    TraitementResponse demarrer(Runnable corps) {
+        if (!enCours.compareAndSet(false, true)) {
+            throw new RuntimeException("Le traitement " + nom + " est déjà en cours");
+        }
+        if (!verrou.prendre(nom)) {
+            enCours.set(false);
+            throw new RuntimeException("Le traitement " + verrou.detenteur() + " est en cours sur le stockage");
+        }
+        compteurs.clear();
+        arretDemande = false;
+        debut = Instant.now();
+        fin = null;
+        Thread thread = new Thread(() -> {
+            try {
+                corps.run();
+                log.info("Traitement {} {} : {}", nom, arretDemande ? "interrompu" : "terminé", compteurs);
+            } catch (RuntimeException e) {
+                incrementer("erreurs");
+                log.error("Traitement {} en échec", nom, e);
+            } finally {
+                fin = Instant.now();
+                verrou.rendre(nom);
+                enCours.set(false);
+            }
+        }, nom);
+        thread.setDaemon(true);
+        thread.start();
+        return etat();
+    }
+
+    // Scheduled runs skip their turn while this or another storage job is running
+    void demarrerSiLibre(Runnable corps) {
+        try {
+            demarrer(corps);
+        } catch (RuntimeException e) {
+            log.info("Traitement {} planifié non lancé : {}", nom, e.getMessage());
+        }
+    }
+
+    TraitementResponse arreter() {
+        arretDemande = true;
+        return etat();
+    }
+
+    boolean arretDemande() {
+        return arretDemande;
+    }
+
+    void avancer(long id) {
+        dernierId = id;
+    }
+
+    void incrementer(String compteur) {
+        ajouter(compteur, 1);
+    }
+
+    void ajouter(String compteur, long valeur) {
+        compteurs.computeIfAbsent(compteur, c -> new AtomicLong()).addAndGet(valeur);
+    }
+
+    TraitementResponse etat() {
+        Map<String, Long> valeurs = new TreeMap<>();
+        compteurs.forEach((cle, valeur) -> valeurs.put(cle, valeur.get()));
+        return new TraitementResponse(nom, enCours.get(), dernierId, valeurs, debut, fin);
+    }
+
+    /**
+     * Espace les opérations pour ne pas dépasser un débit donné (par seconde), en dormant
+     * juste ce qu'il faut plutôt qu'en rafales.
+     */
+    static final class Limiteur {
+
+        private final double nanosParUnite;
+        private long prochain = System.nanoTime();
+
+        Limiteur(double unitesParSeconde) {
+            this.nanosParUnite = unitesParSeconde > 0 ? 1_000_000_000d / unitesParSeconde : 0;
+        }
+
+        void acquerir(long unites) {
+            if (nanosParUnite == 0) {
+                return;
+            }
+            long attente;
+            // Shared by parallel workers: each one books its slot under the lock and sleeps outside it
+            synchronized (this) {
+                long maintenant = System.nanoTime();
+                attente = prochain - maintenant;
+                // No credit is banked while idle, so a pause is never followed by a burst
+                prochain = Math.max(prochain, maintenant) + (long) (unites * nanosParUnite);
+            }
+            if (attente > 0) {
+                LockSupport.parkNanos(attente);
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Documents.DocumentUploadRequest;
+import org.example.gestiondesdocuments.dto.Documents.DocumentUploadResponse;
+import org.example.gestiondesdocuments.dto.Documents.UploadRepriseRequest;
+import org.example.gestiondesdocuments.dto.Documents.UploadRepriseResponse;
+import org.example.gestiondesdocuments.entite.SessionUpload;
+import org.example.gestiondesdocuments.repository.SessionUploadRepository;
+import org.example.gestiondesdocuments.service.DocumentService;
+import org.example.gestiondesdocuments.service.UploadRepriseService;
+import org.example.gestiondesdocuments.storage.FichierAssemble;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uploads en plusieurs morceaux, avec reprise (protocole inspiré de tus) : une session crée dans
+ * uploads/sessions un fichier temporaire creux de la taille annoncée, chaque morceau y est écrit à son
+ * décalage puis synchronisé avant que le nouveau décalage ne soit enregistré, et la finalisation
+ * crée le document par le même chemin qu'un upload classique.
+ *
+ * Le fichier creux n'occupe pas encore le disque : une session n'est acceptée que si l'espace libre
+ * couvre ce qui reste à recevoir pour toutes les sessions ouvertes, elle comprise.
+ *
+ * Les morceaux sont copiés par un tampon fixe : la mémoire utilisée ne dépend pas de la taille du
+ * fichier. Une connexion coupée garde ce qui a été reçu ; le client demande le décalage et reprend.
+ * Les sessions inactives au-delà de app.upload.reprise.duree sont supprimées avec leur fichier.
+ */
+@Service
+@Slf4j
+public class UploadRepriseServiceImpl implements UploadRepriseService {
+
+    public static final String DOSSIER = "sessions";
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+    private static final Set<String> ALLOWED_EXTENSIONS = Set.of("pdf", "jpg", "jpeg", "png");
+    private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of(
+            "application/pdf", "image/jpeg", "image/jpg", "image/png"
+    );
+
+    private final SessionUploadRepository sessionRepository;
+    private final DocumentService documentService;
+    private final ObjectMapper objectMapper;
+    private final Path dossier;
+    private final long tailleMax;
+    private final Duration duree;
+    // Sessions with a chunk or a finalization in progress on this instance
+    private final Set<String> occupees = ConcurrentHashMap.newKeySet();
+    // Serializes the free space check with the session it admits on this instance
+    private final Object reservation = new Object();
+
+    public UploadRepriseServiceImpl(SessionUploadRepository sessionRepository,
+                                    DocumentService documentService,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.upload.dir}") String uploadDir,
+                                    @Value("${app.upload.reprise.taille-max:1GB}") DataSize tailleMax,
+                                    @Value("${app.upload.reprise.duree:24h}") Duration duree) throws IOException {
+        this.sessionRepository = sessionRepository;
+        this.documentService = documentService;
+        this.objectMapper = objectMapper;
+        this.dossier = Files.createDirectories(Paths.get(uploadDir, DOSSIER));
+        this.tailleMax = tailleMax.toBytes();
+        this.duree = duree;
+    }
+
+    @Override
+    public UploadRepriseResponse creer(UploadRepriseRequest request, String userEmail) {
+        if (request.taille() > tailleMax) {
+            throw new RuntimeException("La taille du fichier dépasse la limite de " + DataSize.ofBytes(tailleMax).toMegabytes() + "MB");
+        }
+        String extension = StringUtils.getFilenameExtension(StringUtils.cleanPath(request.nomFichier()));
+        if (extension == null || !ALLOWED_EXTENSIONS.contains(extension.toLowerCase())) {
+            throw new RuntimeException("Type de fichier non autorisé. Formats acceptés : PDF, JPG, JPEG, PNG");
+        }
+        if (!ALLOWED_CONTENT_TYPES.contains(request.typeFichier().toLowerCase())) {
+            throw new RuntimeException("Type MIME non autorisé. Formats acceptés : PDF et images (JPG, PNG)");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path fichier = fichier(id);
+        try {
+            String metadonnees = objectMapper.writeValueAsString(request.document());
+            SessionUpload session;
+            synchronized (reservation) {
+                // The sparse files of open sessions take their space as chunks arrive
+                if (Files.getFileStore(dossier).getUsableSpace() < sessionRepository.resteARecevoir() + request.taille()) {
+                    throw new RuntimeException("Espace de stockage insuffisant pour ce fichier");
+                }
+                // Sparse file of the announced size; chunks are then written in place
+                try (RandomAccessFile fichierSession = new RandomAccessFile(fichier.toFile(), "rw")) {
+                    fichierSession.setLength(request.taille());
+                }
+                session = sessionRepository.save(SessionUpload.builder()
+                        .id(id)
+                        .utilisateurEmail(userEmail)
+                        .metadonnees(metadonnees)
+                        .nomFichier(request.nomFichier())
+                        .typeFichier(request.typeFichier())
+                        .taille(request.taille())
+                        .expiration(LocalDateTime.now().plus(duree))
+                        .build());
+            }
+            return toResponse(session);
+        } catch (IOException e) {
+            supprimerFichier(id);
+            throw new RuntimeException("Impossible de créer l'upload : " + e.getMessage());
+        } catch (RuntimeException e) {
+            supprimerFichier(id);
+            throw e;
+        }
+    }
+
+    @Override
+    public UploadRepriseResponse getEtat(String id, String userEmail) {
+        return toResponse(session(id, userEmail));
+    }
+
+    @Override
+    public long ecrire(String id, long decalage, InputStream contenu, String userEmail) {
+        occuper(id);
+        try {
+            SessionUpload session = session(id, userEmail);
+            if (decalage != session.getDecalage()) {
+                throw new RuntimeException("Décalage " + decalage + " incorrect, l'upload en est à " + session.getDecalage());
+            }
+            long restant = session.getTaille() - decalage;
+            long ecrits = 0;
+            byte[] tampon = new byte[TAILLE_TAMPON];
+            try (FileChannel canal = FileChannel.open(fichier(id), StandardOpenOption.WRITE)) {
+                try {
+                    int lus;
+                    while ((lus = contenu.read(tampon)) > 0) {
+                        if (ecrits + lus > restant) {
+                            throw new RuntimeException("Le morceau dépasse la taille annoncée du fichier");
+                        }
+                        ByteBuffer morceau = ByteBuffer.wrap(tampon, 0, lus);
+                        while (morceau.hasRemaining()) {
+                            ecrits += canal.write(morceau, decalage + ecrits);
+                        }
+                    }
+                } finally {
+                    // What was received before a dropped connection is kept: the client resumes from there
+                    if (ecrits > 0) {
+                        canal.force(false);
+                        if (sessionRepository.avancer(id, decalage, decalage + ecrits, LocalDateTime.now().plus(duree)) == 0) {
+                            throw new RuntimeException("L'upload a été modifié pendant l'envoi du morceau");
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Réception du morceau interrompue après " + ecrits + " octets : " + e.getMessage());
+            }
+            return decalage + ecrits;
+        } finally {
+            occupees.remove(id);
+        }
+    }
+
+    @Override
+    @Transactional
+    public DocumentUploadResponse finaliser(String id, String userEmail) {
+        occuper(id);
+        try {
+            SessionUpload session = session(id, userEmail);
+            if (!session.getDecalage().equals(session.getTaille())) {
+                throw new RuntimeException("Upload incomplet : " + session.getDecalage() + " octets reçus sur " + session.getTaille());
+            }
+            DocumentUploadRequest request = objectMapper.readValue(session.getMetadonnees(), DocumentUploadRequest.class);
+            DocumentUploadResponse response = documentService.uploadDocumentAssemble(request,
+                    new FichierAssemble(fichier(id), session.getNomFichier(), session.getTypeFichier(), session.getTaille()),
+                    userEmail);
+            // The session goes with the document insert, so a retried finalization cannot create it twice
+            sessionRepository.delete(session);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    supprimerFichier(id);
+                }
+            });
+            return response;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Informations du document illisibles : " + e.getOriginalMessage());
+        } finally {
+            occupees.remove(id);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void annuler(String id, String userEmail) {
+        occuper(id);
+        try {
+            SessionUpload session = session(id, userEmail);
+            sessionRepository.delete(session);
+            supprimerFichier(id);
+        } finally {
+            occupees.remove(id);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.reprise.purge-interval:10m}")
+    public void purgerExpirees() {
+        int purgees = 0;
+        for (SessionUpload session : sessionRepository.findByExpirationBefore(LocalDateTime.now())) {
+            if (!occupees.add(session.getId())) {
+                continue;
+            }
+            try {
+                sessionRepository.delete(session);
+                supprimerFichier(session.getId());
+                purgees++;
+            } finally {
+                occupees.remove(session.getId());
+            }
+        }
+        if (purgees > 0) {
+            log.info("{} upload(s) expiré(s) supprimé(s)", purgees);
+        }
+    }
+
+    private SessionUpload session(String id, String userEmail) {
+        return sessionRepository.findById(id)
+                .filter(s -> s.getUtilisateurEmail().equals(userEmail))
+                .orElseThrow(() -> new RuntimeException("Upload non trouvé : " + id));
+    }
+
+    private void occuper(String id) {
+        if (!occupees.add(id)) {
+            throw new RuntimeException("Un envoi est déjà en cours pour cet upload");
+        }
+    }
+
+    private Path fichier(String id) {
+        return dossier.resolve(id + ".part");
+    }
+
+    private void supprimerFichier(String id) {
+        try {
+            Files.deleteIfExists(fichier(id));
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer le fichier de l'upload {}", id, e);
+        }
+    }
+
+    private static UploadRepriseResponse toResponse(SessionUpload session) {
+        return new UploadRepriseResponse(session.getId(), session.getNomFichier(), session.getTaille(),
+                session.getDecalage(), session.getExpiration());
+    }
+}
@@ -0,0 +1,293 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.gestiondesdocuments.dto.Admin.IntegriteResponse;
+import org.example.gestiondesdocuments.dto.Admin.TraitementResponse;
+import org.example.gestiondesdocuments.entite.CurseurTraitement;
+import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.repository.CurseurTraitementRepository;
+import org.example.gestiondesdocuments.repository.DocumentRepository;
+import org.example.gestiondesdocuments.service.DocumentStorageService;
+import org.example.gestiondesdocuments.service.VerificationIntegriteService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Vérification d'intégrité en continu des fichiers stockés : chaque fichier est relu et son CRC32C
+ * comparé à celui enregistré à l'upload (ou adopté au premier passage pour les documents plus anciens).
+ *
+ * Le débit est calculé pour relire tout le stockage en app.integrite.fenetre, plafonné à
+ * app.integrite.debit-max et partagé entre app.integrite.paralleles lecteurs. Les lectures se font
+ * par tranches de 1 Mo espacées par le limiteur, sur des threads de basse priorité, pour ne jamais
+ * occuper le disque en rafale devant les requêtes. Le passage reprend au curseur après un arrêt.
+ */
+@Service
+@Slf4j
+public class VerificationIntegriteServiceImpl implements VerificationIntegriteService {
+
+    static final String CURSEUR = "verification-integrite";
+
+    private static final int TAILLE_LECTURE = 1024 * 1024;
+    private static final double DEBIT_MIN = 1024 * 1024;
+    private static final TraitementDeFond.Limiteur SANS_LIMITE = new TraitementDeFond.Limiteur(0);
+
+    private final DocumentRepository documentRepository;
+    private final CurseurTraitementRepository curseurRepository;
+    private final DocumentStorageService documentStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final TraitementDeFond traitement;
+    private final int tailleLot;
+    private final int paralleles;
+    private final Duration fenetre;
+    private final double debitMax;
+    private final boolean automatique;
+    private final Counter octetsVerifies;
+    private final Map<Document.EtatIntegrite, Counter> verifications = new EnumMap<>(Document.EtatIntegrite.class);
+    private final Map<Document.EtatIntegrite, AtomicLong> defectueux = new EnumMap<>(Document.EtatIntegrite.class);
+    private volatile double debit;
+
+    public VerificationIntegriteServiceImpl(DocumentRepository documentRepository,
+                                            CurseurTraitementRepository curseurRepository,
+                                            DocumentStorageService documentStorageService,
+                                            PlatformTransactionManager transactionManager,
+                                            VerrouStockage verrouStockage,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${app.integrite.lot:100}") int tailleLot,
+                                            @Value("${app.integrite.paralleles:2}") int paralleles,
+                                            @Value("${app.integrite.fenetre:30d}") Duration fenetre,
+                                            @Value("${app.integrite.debit-max:50MB}") DataSize debitMax,
+                                            @Value("${app.integrite.automatique:false}") boolean automatique) {
+        this.documentRepository = documentRepository;
+        this.curseurRepository = curseurRepository;
+        this.documentStorageService = documentStorageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.traitement = new TraitementDeFond(CURSEUR, verrouStockage);
+        this.tailleLot = tailleLot;
+        this.paralleles = paralleles;
+        this.fenetre = fenetre;
+        this.debitMax = debitMax.toBytes();
+        this.automatique = automatique;
+        this.octetsVerifies = Counter.builder("documents.integrite.octets")
+                .description("Octets relus par la vérification d'intégrité")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        for (Document.EtatIntegrite etat : Document.EtatIntegrite.values()) {
+            verifications.put(etat, Counter.builder("documents.integrite.verifications")
+                    .description("Fichiers vérifiés, par résultat")
+                    .tag("resultat", etat.name())
+                    .register(meterRegistry));
+        }
+        for (Document.EtatIntegrite etat : List.of(Document.EtatIntegrite.CORROMPU, Document.EtatIntegrite.MANQUANT)) {
+            AtomicLong compte = new AtomicLong();
+            defectueux.put(etat, compte);
+            Gauge.builder("documents.integrite.defectueux", compte, AtomicLong::get)
+                    .description("Documents dont le fichier est corrompu ou manquant à la dernière vérification")
+                    .tag("etat", etat.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public TraitementResponse demarrer() {
+        return traitement.demarrer(this::verifier);
+    }
+
+    @Override
+    public TraitementResponse arreter() {
+        return traitement.arreter();
+    }
+
+    @Override
+    public IntegriteResponse getRapport() {
+        List<IntegriteResponse.DocumentDefectueux> documents = documentRepository
+                .findByIntegriteInOrderById(defectueux.keySet()).stream()
+                .map(d -> new IntegriteResponse.DocumentDefectueux(d.getId(), d.getNumeroPiece(), d.getSociete().getId(),
+                        d.getCheminFichier(), d.getIntegrite().name(), d.getDateVerification()))
+                .toList();
+        actualiserDefectueux();
+        return new IntegriteResponse(traitement.etat(), debit, documents);
+    }
+
+    @Scheduled(initialDelayString = "${app.integrite.delai-initial:5m}", fixedDelayString = "${app.integrite.relance:1h}")
+    public void demarrerPlanifie() {
+        if (automatique) {
+            traitement.demarrerSiLibre(this::verifier);
+        }
+    }
+
+    private void verifier() {
+        long taille = documentRepository.sommeTailles();
+        debit = Math.min(debitMax, Math.max(DEBIT_MIN, taille / (double) fenetre.toSeconds()));
+        if (taille / debitMax > fenetre.toSeconds()) {
+            log.warn("Le stockage ne peut pas être relu en {} à {} octets/s", fenetre, (long) debitMax);
+        }
+        TraitementDeFond.Limiteur limiteur = new TraitementDeFond.Limiteur(debit);
+        long curseur = curseurRepository.findById(CURSEUR).map(CurseurTraitement::getDernierId).orElse(0L);
+        traitement.avancer(curseur);
+
+        AtomicInteger numero = new AtomicInteger();
+        ExecutorService lecteurs = Executors.newFixedThreadPool(paralleles, r -> {
+            Thread thread = new Thread(r, CURSEUR + "-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        try {
+            while (!traitement.arretDemande()) {
+                List<DocumentRepository.FichierAVerifier> lot = documentRepository.findAVerifier(curseur, PageRequest.of(0, tailleLot));
+                if (lot.isEmpty()) {
+                    // A completed pass rewinds, the next one starts from the first document
+                    curseurRepository.save(CurseurTraitement.builder().nom(CURSEUR).dernierId(0L).build());
+                    return;
+                }
+
+                List<Future<Verification>> enCours = new ArrayList<>();
+                for (DocumentRepository.FichierAVerifier fichier : lot) {
+                    enCours.add(lecteurs.submit(() -> verifier(fichier, limiteur, true)));
+                }
+                List<Verification> resultats = new ArrayList<>();
+                for (Future<Verification> verification : enCours) {
+                    Verification resultat = attendre(verification);
+                    if (resultat != null) {
+                        resultats.add(resultat);
+                    }
+                }
+                if (resultats.size() < lot.size()) {
+                    // Stopped in the middle of the batch: the cursor stays before it
+                    enregistrer(resultats, curseur);
+                    return;
+                }
+
+                long fin = lot.get(lot.size() - 1).getId();
+                enregistrer(resultats, fin);
+                curseur = fin;
+                traitement.avancer(fin);
+            }
+        } finally {
+            lecteurs.shutdownNow();
+            actualiserDefectueux();
+        }
+    }
+
+    @Override
+    public Document.EtatIntegrite verifierDocument(Long documentId) {
+        DocumentRepository.FichierAVerifier fichier = documentRepository.findFichierAVerifierById(documentId)
+                .orElseThrow(() -> new RuntimeException("Document non trouvé avec l'ID: " + documentId));
+        Verification resultat = verifier(fichier, SANS_LIMITE, false);
+        enregistrer(List.of(resultat), null);
+        if (resultat.etat() != Document.EtatIntegrite.INTACT) {
+            actualiserDefectueux();
+        }
+        return resultat.etat();
+    }
+
+    // A background pass can be stopped and reports its progress; a single check does neither
+    private Verification verifier(DocumentRepository.FichierAVerifier fichier, TraitementDeFond.Limiteur limiteur,
+                                  boolean passage) {
+        String chemin = fichier.getCheminFichier();
+        CRC32C crc = new CRC32C();
+        byte[] tampon = new byte[TAILLE_LECTURE];
+        Document.EtatIntegrite etat;
+        try (InputStream in = documentStorageService.ouvrirStocke(chemin)) {
+            int lus;
+            while ((lus = in.readNBytes(tampon, 0, tampon.length)) > 0) {
+                if (passage && traitement.arretDemande()) {
+                    return null;
+                }
+                crc.update(tampon, 0, lus);
+                limiteur.acquerir(lus);
+                octetsVerifies.increment(lus);
+                if (passage) {
+                    traitement.ajouter("octets", lus);
+                }
+            }
+            etat = fichier.getSommeControle() == null || fichier.getSommeControle() == crc.getValue()
+                    ? Document.EtatIntegrite.INTACT
+                    : Document.EtatIntegrite.CORROMPU;
+        } catch (NoSuchFileException e) {
+            etat = Document.EtatIntegrite.MANQUANT;
+        } catch (IOException e) {
+            // A read error is what a failing disk looks like
+            log.warn("Lecture impossible du document {} ({})", fichier.getId(), chemin, e);
+            etat = Document.EtatIntegrite.CORROMPU;
+        } catch (RuntimeException e) {
+            if (!passage) {
+                throw e;
+            }
+            // Says nothing about the file (storage disabled, bug...): the pass goes on, its state is left as it is
+            log.error("Vérification impossible du document {} ({})", fichier.getId(), chemin, e);
+            traitement.incrementer("erreurs");
+            return new Verification(fichier.getId(), chemin, null, 0);
+        }
+        if (etat != Document.EtatIntegrite.INTACT) {
+            log.error("Document {} {} : {}", fichier.getId(), etat, chemin);
+        }
+        verifications.get(etat).increment();
+        if (passage) {
+            traitement.incrementer(etat.name().toLowerCase());
+        }
+        return new Verification(fichier.getId(), chemin, etat, crc.getValue());
+    }
+
+    private void enregistrer(List<Verification> resultats, Long curseur) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Verification resultat : resultats) {
+                if (resultat.etat() == null) {
+                    continue;
+                }
+                // The file content is only adopted as reference when it could be read
+                Long sommeControle = resultat.etat() == Document.EtatIntegrite.INTACT ? resultat.sommeControle() : null;
+                documentRepository.enregistrerVerification(resultat.id(), resultat.chemin(), resultat.etat(),
+                        sommeControle, maintenant);
+            }
+            if (curseur != null) {
+                curseurRepository.save(CurseurTraitement.builder().nom(CURSEUR).dernierId(curseur).build());
+            }
+        });
+    }
+
+    private Verification attendre(Future<Verification> verification) {
+        try {
+            return verification.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Vérification en échec : " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void actualiserDefectueux() {
+        defectueux.forEach((etat, compte) -> compte.set(documentRepository.countByIntegrite(etat)));
+    }
+
+    // A null state means the file could not be checked
+    private record Verification(Long id, String chemin, Document.EtatIntegrite etat, long sommeControle) {
+    }
+}
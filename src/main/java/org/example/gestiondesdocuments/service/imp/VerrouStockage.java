@@ -0,0 +1,28 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Un seul traitement de fond à la fois sur les fichiers stockés (migration, archivage froid,
+ * compactage, réconciliation, vérification d'intégrité) : chacun déplace ou juge des fichiers
+ * d'après cheminFichier, et ne doit pas voir un fichier à mi-chemin d'un autre traitement.
+ */
+@Component
+class VerrouStockage {
+
+    private final AtomicReference<String> detenteur = new AtomicReference<>();
+
+    boolean prendre(String traitement) {
+        return detenteur.compareAndSet(null, traitement);
+    }
+
+    void rendre(String traitement) {
+        detenteur.compareAndSet(traitement, null);
+    }
+
+    String detenteur() {
+        return detenteur.get();
+    }
+}
@@ -2,8 +2,9 @@ package org.example.gestiondesdocuments.service.imp;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
-import lombok.RequiredArgsConstructor;
 import org.example.gestiondesdocuments.service.CloudinaryService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
@@ -11,21 +12,47 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 @Service
-@RequiredArgsConstructor
 public class cloudinaryServiceImp implements CloudinaryService {
     private final Cloudinary cloudinary;
+    private final AsyncTaskExecutor blockingIoExecutor;
     private static final Set<String> ALLOWED_EXTENSIONS = Set.of("pdf", "jpg", "jpeg", "png");
     private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of(
             "application/pdf", "image/jpeg", "image/jpg", "image/png"
     );
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+
+    public cloudinaryServiceImp(Cloudinary cloudinary, @Qualifier("blockingIoExecutor") AsyncTaskExecutor blockingIoExecutor) {
+        this.cloudinary = cloudinary;
+        this.blockingIoExecutor = blockingIoExecutor;
+    }
     
     public String uploadFile(MultipartFile file) throws IOException {
 
        validateFile(file);
+        return upload(file.getBytes());
+    }
+
+    /**
+     * Validates and reads the multipart on the caller's thread (the part is cleaned up with the request),
+     * then runs the network call on the blocking I/O executor.
+     */
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file) throws IOException {
+        validateFile(file);
+        byte[] content = file.getBytes();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return upload(content);
+            } catch (IOException e) {
+                throw new RuntimeException("Upload Cloudinary échoué: " + e.getMessage());
+            }
+        }, blockingIoExecutor);
+    }
+
+    private String upload(byte[] content) throws IOException {
         Map uploadResult = cloudinary.uploader().upload(
-                file.getBytes(),
+                content,
                 ObjectUtils.asMap(
                         "resource_type", "auto"
                 )
@@ -34,6 +61,22 @@ public class cloudinaryServiceImp implements CloudinaryService {
         return uploadResult.get("secure_url").toString();
     }
 
+    /**
+     * Upload under a fixed public id: a replayed call overwrites the same asset instead of creating another.
+     */
+    public String uploadContenu(byte[] content, String publicId) throws IOException {
+        Map uploadResult = cloudinary.uploader().upload(
+                content,
+                ObjectUtils.asMap(
+                        "resource_type", "auto",
+                        "public_id", publicId,
+                        "overwrite", true
+                )
+        );
+
+        return uploadResult.get("secure_url").toString();
+    }
+
 
     private void validateFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
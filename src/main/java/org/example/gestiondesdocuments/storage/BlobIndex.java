@@ -0,0 +1,155 @@
+package org.example.gestiondesdocuments.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index des blobs du stockage compacté, projeté en mémoire : l'entrée du blob n est à une position
+ * fixe du fichier, la recherche est donc un simple accès mémoire.
+ *
+ * Une entrée fait 16 octets : l'emplacement (segment sur 24 bits, position sur 40 bits, 0 si absent)
+ * puis la longueur (-1 une fois le blob supprimé, l'emplacement d'origine étant conservé). Les deux
+ * valeurs sont lues et écrites en volatile pour qu'un lecteur ne voie jamais une valeur déchirée.
+ */
+final class BlobIndex implements Closeable {
+
+    private static final int MAGIC = 0x49445831; // "IDX1"
+    private static final int ENTETE = 64;
+    private static final int TAILLE_ENTREE = 16;
+    private static final long TAILLE_BLOC = 64L * 1024 * 1024;
+    private static final int DECALAGE_SEGMENT = 40;
+    private static final long MASQUE_POSITION = (1L << DECALAGE_SEGMENT) - 1;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel canal;
+    private volatile MappedByteBuffer[] blocs;
+    private final boolean reconstruit;
+
+    BlobIndex(Path fichier) throws IOException {
+        this.canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.nativeOrder());
+        boolean valide = canal.read(magic, 0) == Integer.BYTES && magic.getInt(0) == MAGIC;
+        if (!valide) {
+            // New or unreadable index: start empty, the store rebuilds it from the segments
+            canal.truncate(0);
+        }
+        this.reconstruit = !valide;
+        this.blocs = new MappedByteBuffer[0];
+        assurerBlocs((int) Math.max(1, (canal.size() + TAILLE_BLOC - 1) / TAILLE_BLOC));
+        if (!valide) {
+            LONGS.setVolatile(blocs[0], 8, 1L);
+            INTS.setVolatile(blocs[0], 0, MAGIC);
+        }
+    }
+
+    static long emplacement(int segment, long position) {
+        return ((long) segment << DECALAGE_SEGMENT) | position;
+    }
+
+    static int segment(long emplacement) {
+        return (int) (emplacement >>> DECALAGE_SEGMENT);
+    }
+
+    static long position(long emplacement) {
+        return emplacement & MASQUE_POSITION;
+    }
+
+    boolean reconstruit() {
+        return reconstruit;
+    }
+
+    long prochainId() {
+        return (long) LONGS.getVolatile(blocs[0], 8);
+    }
+
+    void prochainId(long id) {
+        LONGS.setVolatile(blocs[0], 8, id);
+    }
+
+    long allouer() throws IOException {
+        long id = prochainId();
+        assurerCapacite(id);
+        prochainId(id + 1);
+        return id;
+    }
+
+    long emplacement(long id) {
+        if (id <= 0 || id >= prochainId()) {
+            return 0;
+        }
+        return lire(decalage(id));
+    }
+
+    long longueur(long id) {
+        if (id <= 0 || id >= prochainId()) {
+            return -1;
+        }
+        return lire(decalage(id) + Long.BYTES);
+    }
+
+    void ecrire(long id, long emplacement, long longueur) throws IOException {
+        assurerCapacite(id);
+        long decalage = decalage(id);
+        // Length first: a reader that sees the new location also sees a valid length
+        ecrire(decalage + Long.BYTES, longueur);
+        ecrire(decalage, emplacement);
+    }
+
+    void supprimer(long id) {
+        ecrire(decalage(id) + Long.BYTES, -1L);
+    }
+
+    void forcer() {
+        for (MappedByteBuffer bloc : blocs) {
+            bloc.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        forcer();
+        canal.close();
+    }
+
+    private long lire(long decalage) {
+        return (long) LONGS.getVolatile(blocs[(int) (decalage / TAILLE_BLOC)], (int) (decalage % TAILLE_BLOC));
+    }
+
+    private void ecrire(long decalage, long valeur) {
+        LONGS.setVolatile(blocs[(int) (decalage / TAILLE_BLOC)], (int) (decalage % TAILLE_BLOC), valeur);
+    }
+
+    private static long decalage(long id) {
+        return ENTETE + id * TAILLE_ENTREE;
+    }
+
+    private void assurerCapacite(long id) throws IOException {
+        long fin = decalage(id) + TAILLE_ENTREE;
+        int nombreBlocs = (int) ((fin + TAILLE_BLOC - 1) / TAILLE_BLOC);
+        if (nombreBlocs > blocs.length) {
+            assurerBlocs(nombreBlocs);
+        }
+    }
+
+    private synchronized void assurerBlocs(int nombreBlocs) throws IOException {
+        if (nombreBlocs <= blocs.length) {
+            return;
+        }
+        List<MappedByteBuffer> nouveaux = new ArrayList<>(List.of(blocs));
+        for (int i = blocs.length; i < nombreBlocs; i++) {
+            nouveaux.add(canal.map(FileChannel.MapMode.READ_WRITE, i * TAILLE_BLOC, TAILLE_BLOC));
+        }
+        blocs = nouveaux.toArray(MappedByteBuffer[]::new);
+    }
+}
@@ -0,0 +1,251 @@
+package org.example.gestiondesdocuments.storage;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Stockage froid des exercices clos, sur un répertoire distinct (disque lent, moins cher).
+ *
+ * Les formats compressibles sont recompressés en zstd (suffixe .zst) quand le gain en vaut la peine.
+ * Un fichier compressé relu est décompressé dans un petit cache local (LRU borné en octets), ce qui
+ * permet de le servir ensuite comme un fichier ordinaire.
+ *
+ * Un fichier chiffré ne se compresse pas : il est déchiffré, compressé puis rechiffré avec la même clé
+ * sous un nouveau préfixe de nonce (suffixe .zstc). L'en-tête d'origine est conservé en tête du contenu
+ * compressé ; au rappel, le contenu est rechiffré avec cet en-tête, ce qui redonne exactement les octets
+ * stockés à l'upload (CRC32C compris). Ni le cache ni les fichiers temporaires ne contiennent de clair.
+ */
+@Slf4j
+public class ColdStorage {
+
+    public static final String EXTENSION_ZSTD = ".zst";
+    public static final String EXTENSION_ZSTD_CHIFFRE = ".zstc";
+
+    private static final double GAIN_MIN = 0.9;
+
+    private final Path racine;
+    private final Path cache;
+    private final int niveau;
+    private final long tailleCacheMax;
+    private final Cles cles;
+    private final Map<Path, Long> entrees = new LinkedHashMap<>(16, 0.75f, true);
+    private long tailleCache;
+
+    /**
+     * Clés de données des sociétés, pour relire les fichiers chiffrés compressés.
+     */
+    public interface Cles {
+        SecretKey cle(Long societeId, int version);
+    }
+
+    public ColdStorage(Path racine, Path cache, int niveau, long tailleCacheMax, Cles cles) throws IOException {
+        this.racine = racine;
+        this.cache = cache;
+        this.niveau = niveau;
+        this.tailleCacheMax = tailleCacheMax;
+        this.cles = cles;
+        Files.createDirectories(racine);
+        viderCache();
+    }
+
+    public Path racine() {
+        return racine;
+    }
+
+    public boolean contient(String chemin) {
+        return Path.of(chemin).toAbsolutePath().normalize().startsWith(racine.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Copie un contenu dans le stockage froid, durablement, et le compresse si demandé et utile.
+     *
+     * @return le chemin du fichier froid, avec le suffixe .zst s'il a été compressé
+     */
+    public Path archiver(InputStream contenu, String nomFichier, boolean compresser) throws IOException {
+        Path cible = Shards.resoudre(racine, nomFichier);
+        Files.createDirectories(cible.getParent());
+        Path temporaire = cible.resolveSibling(nomFichier + ".tmp");
+        Files.copy(contenu, temporaire, StandardCopyOption.REPLACE_EXISTING);
+
+        if (compresser) {
+            Path compresse = cible.resolveSibling(nomFichier + EXTENSION_ZSTD);
+            Path temporaireCompresse = cible.resolveSibling(nomFichier + EXTENSION_ZSTD + ".tmp");
+            try (InputStream in = Files.newInputStream(temporaire);
+                 OutputStream out = new ZstdOutputStream(Files.newOutputStream(temporaireCompresse), niveau)) {
+                in.transferTo(out);
+            }
+            if (Files.size(temporaireCompresse) < Files.size(temporaire) * GAIN_MIN) {
+                Files.delete(temporaire);
+                return publier(temporaireCompresse, compresse);
+            }
+            Files.delete(temporaireCompresse);
+        }
+        return publier(temporaire, cible);
+    }
+
+    /**
+     * Archive un document chiffré : compressé sous son propre chiffrement si le gain en vaut la peine,
+     * sinon copié tel quel.
+     */
+    public Path archiverChiffre(ContenuDocument contenu, String nomFichier) throws IOException {
+        Path cible = Shards.resoudre(racine, nomFichier);
+        Files.createDirectories(cible.getParent());
+        Path compresse = cible.resolveSibling(nomFichier + EXTENSION_ZSTD_CHIFFRE);
+        Path temporaire = cible.resolveSibling(nomFichier + EXTENSION_ZSTD_CHIFFRE + ".tmp");
+        FichierChiffre.EnTete enTete = contenu.enTete();
+        try (InputStream clair = contenu.ouvrir(0, contenu.taille());
+             OutputStream out = new ZstdOutputStream(FichierChiffre.chiffrerVers(Files.newOutputStream(temporaire),
+                     contenu.cle(), enTete.societeId(), enTete.versionCle(), enTete.tailleBloc()), niveau)) {
+            out.write(enTete.octets());
+            clair.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaire);
+            throw e;
+        }
+        if (Files.size(temporaire) < contenu.region().taille() * GAIN_MIN) {
+            return publier(temporaire, compresse);
+        }
+        Files.delete(temporaire);
+        try (InputStream stocke = contenu.region().ouvrir()) {
+            return archiver(stocke, nomFichier, false);
+        }
+    }
+
+    public static boolean estCompresse(Path fichier) {
+        return suffixe(fichier) != null;
+    }
+
+    /**
+     * Région lisible directement pour un fichier froid : le fichier lui-même, ou sa copie
+     * décompressée dans le cache.
+     */
+    public RegionFichier localiser(Path fichier) throws IOException {
+        if (!estCompresse(fichier)) {
+            return new RegionFichier(fichier, 0, Files.size(fichier));
+        }
+        Path copie = rappeler(fichier);
+        return new RegionFichier(copie, 0, Files.size(copie));
+    }
+
+    /**
+     * Flux des octets d'origine d'un fichier froid, décompressés à la volée sans passer par le cache.
+     */
+    public InputStream ouvrir(Path fichier) throws IOException {
+        String suffixe = suffixe(fichier);
+        if (EXTENSION_ZSTD_CHIFFRE.equals(suffixe)) {
+            return restaurerChiffre(fichier);
+        }
+        InputStream in = Files.newInputStream(fichier);
+        return suffixe != null ? new ZstdInputStream(in) : in;
+    }
+
+    private InputStream restaurerChiffre(Path fichier) throws IOException {
+        RegionFichier region = new RegionFichier(fichier, 0, Files.size(fichier));
+        FichierChiffre.EnTete enTete = FichierChiffre.lireEnTete(region);
+        if (enTete == null) {
+            throw new IOException("En-tête de chiffrement absent : " + fichier.getFileName());
+        }
+        SecretKey cle = cles.cle(enTete.societeId(), enTete.versionCle());
+        InputStream compresse = new ZstdInputStream(FichierChiffre.dechiffrer(region, enTete, cle, 0, Long.MAX_VALUE));
+        try {
+            FichierChiffre.EnTete origine = FichierChiffre.enTete(compresse.readNBytes(FichierChiffre.TAILLE_EN_TETE));
+            if (origine == null) {
+                throw new IOException("En-tête d'origine absent : " + fichier.getFileName());
+            }
+            return FichierChiffre.chiffrer(compresse, cle, origine);
+        } catch (IOException | RuntimeException e) {
+            compresse.close();
+            throw e;
+        }
+    }
+
+    private static String suffixe(Path fichier) {
+        String nom = fichier.getFileName().toString();
+        if (nom.endsWith(EXTENSION_ZSTD)) {
+            return EXTENSION_ZSTD;
+        }
+        return nom.endsWith(EXTENSION_ZSTD_CHIFFRE) ? EXTENSION_ZSTD_CHIFFRE : null;
+    }
+
+    private Path rappeler(Path fichier) throws IOException {
+        String nom = fichier.getFileName().toString();
+        Path copie = cache.resolve(HexFormat.of().toHexDigits(fichier.toAbsolutePath().toString().hashCode())
+                + "-" + nom.substring(0, nom.length() - suffixe(fichier).length()));
+        synchronized (entrees) {
+            if (entrees.get(copie) != null && Files.exists(copie)) {
+                return copie;
+            }
+        }
+
+        // Decompressed outside the lock; two concurrent recalls of the same file just race to the same result
+        Files.createDirectories(cache);
+        Path temporaire = Files.createTempFile(cache, "rappel-", ".tmp");
+        try (InputStream in = ouvrir(fichier)) {
+            Files.copy(in, temporaire, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporaire, copie, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+
+        long taille = Files.size(copie);
+        synchronized (entrees) {
+            Long precedente = entrees.put(copie, taille);
+            tailleCache += taille - (precedente != null ? precedente : 0);
+            evincer(copie);
+        }
+        return copie;
+    }
+
+    private void evincer(Path conservee) {
+        Iterator<Map.Entry<Path, Long>> iterateur = entrees.entrySet().iterator();
+        while (tailleCache > tailleCacheMax && iterateur.hasNext()) {
+            Map.Entry<Path, Long> entree = iterateur.next();
+            if (entree.getKey().equals(conservee)) {
+                continue;
+            }
+            iterateur.remove();
+            tailleCache -= entree.getValue();
+            try {
+                Files.deleteIfExists(entree.getKey());
+            } catch (IOException e) {
+                log.warn("Impossible de retirer {} du cache froid", entree.getKey(), e);
+            }
+        }
+    }
+
+    private static Path publier(Path temporaire, Path cible) throws IOException {
+        // The hot copy is deleted once the row points here, so the cold copy must be on disk first
+        try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+        Files.move(temporaire, cible, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return cible;
+    }
+
+    private void viderCache() throws IOException {
+        if (!Files.isDirectory(cache)) {
+            return;
+        }
+        try (Stream<Path> fichiers = Files.list(cache)) {
+            for (Path fichier : (Iterable<Path>) fichiers::iterator) {
+                Files.deleteIfExists(fichier);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.gestiondesdocuments.storage;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Contenu en clair d'un document stocké. Un fichier en clair peut être envoyé tel quel depuis sa
+ * région ; un fichier chiffré est déchiffré à la lecture, bloc par bloc.
+ */
+public record ContenuDocument(RegionFichier region, FichierChiffre.EnTete enTete, SecretKey cle) {
+
+    public static ContenuDocument enClair(RegionFichier region) {
+        return new ContenuDocument(region, null, null);
+    }
+
+    public boolean estChiffre() {
+        return enTete != null;
+    }
+
+    public long taille() {
+        return estChiffre() ? FichierChiffre.tailleClaire(region.taille(), enTete.tailleBloc()) : region.taille();
+    }
+
+    public InputStream ouvrir(long debut, long longueur) throws IOException {
+        if (estChiffre()) {
+            return FichierChiffre.dechiffrer(region, enTete, cle, debut, longueur);
+        }
+        return new RegionFichier(region.fichier(), region.position() + debut, Math.min(longueur, region.taille() - debut))
+                .ouvrir();
+    }
+}
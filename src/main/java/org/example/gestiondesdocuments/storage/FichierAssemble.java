@@ -0,0 +1,59 @@
+package org.example.gestiondesdocuments.storage;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Fichier reconstitué sur le disque par un upload en plusieurs morceaux, présenté comme un
+ * MultipartFile pour suivre le même chemin d'enregistrement qu'un upload classique.
+ */
+public record FichierAssemble(Path fichier, String nomFichier, String typeFichier, long taille)
+        implements MultipartFile {
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return nomFichier;
+    }
+
+    @Override
+    public String getContentType() {
+        return typeFichier;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return taille == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return taille;
+    }
+
+    // Only the streaming accessors should be used: this one loads the whole file
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(fichier);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(fichier);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(fichier, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
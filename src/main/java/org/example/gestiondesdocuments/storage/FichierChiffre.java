@@ -0,0 +1,370 @@
+package org.example.gestiondesdocuments.storage;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * Format de chiffrement des fichiers stockés : un en-tête de 32 octets puis des blocs AES-GCM
+ * authentifiés de taille fixe, chacun suivi de son tag de 16 octets.
+ *
+ * <pre>
+ * en-tête : magic (4) | taille de bloc (4) | id société (8) | version de clé (4) | préfixe de nonce (8) | réservé (4)
+ * bloc i  : AES-GCM(clé, nonce = préfixe || i, aad = en-tête || dernier bloc ?) de min(taille de bloc, reste) octets
+ * </pre>
+ *
+ * Le numéro de bloc dans le nonce empêche de réordonner les blocs, et le drapeau « dernier bloc »
+ * dans les données authentifiées empêche de tronquer le fichier. Comme les blocs ont tous la même
+ * taille, une plage du contenu en clair se lit en ne déchiffrant que les blocs qui la couvrent.
+ */
+public final class FichierChiffre {
+
+    public static final int TAILLE_EN_TETE = 32;
+    public static final int TAILLE_TAG = 16;
+
+    private static final int MAGIC = 0x47444331; // "GDC1"
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final SecureRandom ALEATOIRE = new SecureRandom();
+
+    private FichierChiffre() {
+    }
+
+    public record EnTete(int tailleBloc, long societeId, int versionCle, long prefixeNonce) {
+
+        byte[] octets() {
+            return ByteBuffer.allocate(TAILLE_EN_TETE)
+                    .putInt(MAGIC).putInt(tailleBloc).putLong(societeId).putInt(versionCle).putLong(prefixeNonce)
+                    .array();
+        }
+    }
+
+    public static long tailleChiffree(long tailleClaire, int tailleBloc) {
+        long blocs = Math.max(1, (tailleClaire + tailleBloc - 1) / tailleBloc);
+        return TAILLE_EN_TETE + tailleClaire + blocs * TAILLE_TAG;
+    }
+
+    public static long tailleClaire(long tailleChiffree, int tailleBloc) {
+        long corps = tailleChiffree - TAILLE_EN_TETE;
+        long blocs = (corps + tailleBloc + TAILLE_TAG - 1) / (tailleBloc + TAILLE_TAG);
+        return corps - blocs * TAILLE_TAG;
+    }
+
+    /**
+     * En-tête de la région si elle est chiffrée dans ce format, null pour un fichier en clair.
+     */
+    public static EnTete lireEnTete(RegionFichier region) throws IOException {
+        if (region.taille() < TAILLE_EN_TETE + TAILLE_TAG) {
+            return null;
+        }
+        ByteBuffer tampon = ByteBuffer.allocate(TAILLE_EN_TETE);
+        try (FileChannel canal = FileChannel.open(region.fichier())) {
+            lireComplet(canal, tampon, region.position());
+        }
+        return enTete(tampon.array());
+    }
+
+    static EnTete enTete(byte[] octets) {
+        if (octets.length < TAILLE_EN_TETE) {
+            return null;
+        }
+        ByteBuffer tampon = ByteBuffer.wrap(octets);
+        if (tampon.getInt() != MAGIC) {
+            return null;
+        }
+        return new EnTete(tampon.getInt(), tampon.getLong(), tampon.getInt(), tampon.getLong());
+    }
+
+    /**
+     * Chiffre le flux au fil de la lecture, sans le charger en mémoire.
+     */
+    public static InputStream chiffrer(InputStream clair, SecretKey cle, long societeId, int versionCle, int tailleBloc) {
+        return chiffrer(clair, cle, new EnTete(tailleBloc, societeId, versionCle, ALEATOIRE.nextLong()));
+    }
+
+    // With a given header: the same key, header and plaintext give back the same bytes
+    static InputStream chiffrer(InputStream clair, SecretKey cle, EnTete enTete) {
+        return new ChiffrementInputStream(clair, cle, enTete);
+    }
+
+    /**
+     * Chiffre ce qui est écrit dans le flux retourné vers sortie ; le dernier bloc est écrit à la fermeture.
+     */
+    public static OutputStream chiffrerVers(OutputStream sortie, SecretKey cle, long societeId, int versionCle,
+                                            int tailleBloc) throws IOException {
+        return new ChiffrementOutputStream(sortie, cle, new EnTete(tailleBloc, societeId, versionCle, ALEATOIRE.nextLong()));
+    }
+
+    /**
+     * Déchiffre la plage [debut, debut + longueur) du contenu en clair, en ne lisant que les blocs concernés.
+     */
+    public static InputStream dechiffrer(RegionFichier region, EnTete enTete, SecretKey cle, long debut, long longueur)
+            throws IOException {
+        return new DechiffrementInputStream(region, enTete, cle, debut, longueur);
+    }
+
+    private static Cipher nouveauCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM indisponible", e);
+        }
+    }
+
+    // One Cipher per stream, re-initialised with each block's nonce
+    private static Cipher initialiser(Cipher cipher, int mode, SecretKey cle, EnTete enTete, byte[] aad, long bloc,
+                                      boolean dernier) throws GeneralSecurityException {
+        byte[] nonce = ByteBuffer.allocate(12).putLong(enTete.prefixeNonce()).putInt((int) bloc).array();
+        cipher.init(mode, cle, new GCMParameterSpec(TAILLE_TAG * 8, nonce));
+        aad[TAILLE_EN_TETE] = (byte) (dernier ? 1 : 0);
+        cipher.updateAAD(aad);
+        return cipher;
+    }
+
+    private static byte[] aad(EnTete enTete) {
+        byte[] aad = new byte[TAILLE_EN_TETE + 1];
+        System.arraycopy(enTete.octets(), 0, aad, 0, TAILLE_EN_TETE);
+        return aad;
+    }
+
+    private static void lireComplet(FileChannel canal, ByteBuffer tampon, long position) throws IOException {
+        while (tampon.hasRemaining()) {
+            int lus = canal.read(tampon, position);
+            if (lus < 0) {
+                throw new IOException("Fichier chiffré tronqué");
+            }
+            position += lus;
+        }
+    }
+
+    private static final class ChiffrementInputStream extends InputStream {
+
+        private final InputStream clair;
+        private final SecretKey cle;
+        private final EnTete enTete;
+        private final Cipher cipher = nouveauCipher();
+        private final byte[] aad;
+        private final byte[] blocClair;
+        private final byte[] blocChiffre;
+        private byte[] sortie;
+        private int tailleSortie;
+        private int positionSortie;
+        private long bloc;
+        private int anticipe = -1;
+        private boolean termine;
+
+        private ChiffrementInputStream(InputStream clair, SecretKey cle, EnTete enTete) {
+            this.clair = clair;
+            this.cle = cle;
+            this.enTete = enTete;
+            this.aad = aad(enTete);
+            this.blocClair = new byte[enTete.tailleBloc()];
+            this.blocChiffre = new byte[enTete.tailleBloc() + TAILLE_TAG];
+            this.sortie = enTete.octets();
+            this.tailleSortie = sortie.length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] un = new byte[1];
+            return read(un, 0, 1) < 0 ? -1 : un[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (positionSortie == tailleSortie && !blocSuivant()) {
+                return -1;
+            }
+            int n = Math.min(len, tailleSortie - positionSortie);
+            System.arraycopy(sortie, positionSortie, b, off, n);
+            positionSortie += n;
+            return n;
+        }
+
+        private boolean blocSuivant() throws IOException {
+            if (termine) {
+                return false;
+            }
+            int lus = 0;
+            if (anticipe >= 0) {
+                blocClair[lus++] = (byte) anticipe;
+            }
+            lus += clair.readNBytes(blocClair, lus, blocClair.length - lus);
+            // A full block is the last one only if nothing follows it
+            anticipe = lus == blocClair.length ? clair.read() : -1;
+            boolean dernier = anticipe < 0;
+            try {
+                tailleSortie = initialiser(cipher, Cipher.ENCRYPT_MODE, cle, enTete, aad, bloc++, dernier)
+                        .doFinal(blocClair, 0, lus, blocChiffre, 0);
+                sortie = blocChiffre;
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Chiffrement impossible : " + e.getMessage(), e);
+            }
+            positionSortie = 0;
+            termine = dernier;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            clair.close();
+        }
+    }
+
+    private static final class ChiffrementOutputStream extends OutputStream {
+
+        private final OutputStream sortie;
+        private final SecretKey cle;
+        private final EnTete enTete;
+        private final Cipher cipher = nouveauCipher();
+        private final byte[] aad;
+        private final byte[] blocClair;
+        private final byte[] blocChiffre;
+        private int rempli;
+        private long bloc;
+        private boolean ferme;
+
+        private ChiffrementOutputStream(OutputStream sortie, SecretKey cle, EnTete enTete) throws IOException {
+            this.sortie = sortie;
+            this.cle = cle;
+            this.enTete = enTete;
+            this.aad = aad(enTete);
+            this.blocClair = new byte[enTete.tailleBloc()];
+            this.blocChiffre = new byte[enTete.tailleBloc() + TAILLE_TAG];
+            sortie.write(enTete.octets());
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                // A full block is held back until more data shows it is not the last one
+                if (rempli == blocClair.length) {
+                    chiffrerBloc(false);
+                }
+                int n = Math.min(len, blocClair.length - rempli);
+                System.arraycopy(b, off, blocClair, rempli, n);
+                rempli += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            sortie.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (ferme) {
+                return;
+            }
+            ferme = true;
+            try {
+                chiffrerBloc(true);
+            } finally {
+                sortie.close();
+            }
+        }
+
+        private void chiffrerBloc(boolean dernier) throws IOException {
+            try {
+                int n = initialiser(cipher, Cipher.ENCRYPT_MODE, cle, enTete, aad, bloc++, dernier)
+                        .doFinal(blocClair, 0, rempli, blocChiffre, 0);
+                sortie.write(blocChiffre, 0, n);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Chiffrement impossible : " + e.getMessage(), e);
+            }
+            rempli = 0;
+        }
+    }
+
+    private static final class DechiffrementInputStream extends InputStream {
+
+        private final FileChannel canal;
+        private final RegionFichier region;
+        private final EnTete enTete;
+        private final SecretKey cle;
+        private final Cipher cipher = nouveauCipher();
+        private final byte[] aad;
+        private final long tailleClaire;
+        private final ByteBuffer blocChiffre;
+        private final byte[] sortie;
+        private int tailleSortie;
+        private int positionSortie;
+        private long bloc;
+        private long restant;
+
+        private DechiffrementInputStream(RegionFichier region, EnTete enTete, SecretKey cle, long debut, long longueur)
+                throws IOException {
+            this.region = region;
+            this.enTete = enTete;
+            this.cle = cle;
+            this.aad = aad(enTete);
+            this.tailleClaire = tailleClaire(region.taille(), enTete.tailleBloc());
+            this.blocChiffre = ByteBuffer.allocate(enTete.tailleBloc() + TAILLE_TAG);
+            this.sortie = new byte[enTete.tailleBloc()];
+            this.canal = FileChannel.open(region.fichier());
+            this.bloc = debut / enTete.tailleBloc();
+            this.restant = Math.min(longueur, tailleClaire - debut);
+            if (restant > 0) {
+                blocSuivant();
+                positionSortie = (int) (debut % enTete.tailleBloc());
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] un = new byte[1];
+            return read(un, 0, 1) < 0 ? -1 : un[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (restant <= 0) {
+                return -1;
+            }
+            if (positionSortie == tailleSortie) {
+                blocSuivant();
+            }
+            int n = (int) Math.min(Math.min(len, tailleSortie - positionSortie), restant);
+            System.arraycopy(sortie, positionSortie, b, off, n);
+            positionSortie += n;
+            restant -= n;
+            return n;
+        }
+
+        private void blocSuivant() throws IOException {
+            long debutBloc = bloc * enTete.tailleBloc();
+            int tailleBloc = (int) Math.min(enTete.tailleBloc(), tailleClaire - debutBloc);
+            boolean dernier = debutBloc + tailleBloc >= tailleClaire;
+            blocChiffre.clear().limit(tailleBloc + TAILLE_TAG);
+            lireComplet(canal, blocChiffre,
+                    region.position() + TAILLE_EN_TETE + bloc * (enTete.tailleBloc() + TAILLE_TAG));
+            try {
+                tailleSortie = initialiser(cipher, Cipher.DECRYPT_MODE, cle, enTete, aad, bloc, dernier)
+                        .doFinal(blocChiffre.array(), 0, tailleBloc + TAILLE_TAG, sortie, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Bloc " + bloc + " du fichier chiffré altéré", e);
+            }
+            positionSortie = 0;
+            bloc++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+}
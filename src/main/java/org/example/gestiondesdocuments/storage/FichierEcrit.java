@@ -0,0 +1,8 @@
+package org.example.gestiondesdocuments.storage;
+
+/**
+ * Résultat d'une écriture : la référence du contenu stocké, le CRC32C des octets écrits et le
+ * SHA-256 (hexadécimal) du contenu en clair.
+ */
+public record FichierEcrit(String chemin, long sommeControle, String empreinte) {
+}
@@ -0,0 +1,365 @@
+package org.example.gestiondesdocuments.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Stockage compacté des petits documents : les contenus sont ajoutés les uns après les autres dans
+ * de gros fichiers segments (segment-00000001.dat...), et {@link BlobIndex} donne pour chaque blob
+ * son segment et sa position.
+ *
+ * Chaque enregistrement est précédé d'un en-tête de 24 octets (magic, CRC32 du contenu, id, longueur,
+ * -1 pour une suppression) écrit après le contenu : un ajout interrompu ne ressemble jamais à un
+ * enregistrement valide. Au démarrage, le dernier segment est relu pour compléter l'index et tronqué
+ * au premier enregistrement incomplet ; si l'index est perdu, tous les segments sont relus. Quand
+ * plusieurs copies d'un blob existent (après compactage), la plus récente l'emporte.
+ *
+ * Sans fsync, l'index projeté peut avoir survécu à un arrêt brutal du système alors que la fin du
+ * segment est perdue : les entrées qui visent au-delà de la fin récupérée sont marquées supprimées,
+ * sinon l'id pointerait sur le prochain blob ajouté à cette position.
+ */
+@Slf4j
+public class PackedBlobStore implements Closeable {
+
+    public static final String PREFIXE = "pack:";
+
+    private static final int MAGIC = 0x424C4F42; // "BLOB"
+    private static final int TAILLE_ENTETE = 24;
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    private final Path repertoire;
+    private final long tailleSegmentMax;
+    private final boolean fsync;
+    private final BlobIndex index;
+    private final Map<Integer, AtomicLong> octetsVivants = new ConcurrentHashMap<>();
+    private final Object ecriture = new Object();
+
+    private int segmentActif;
+    private FileChannel canalActif;
+    private long finActif;
+
+    public PackedBlobStore(Path repertoire, long tailleSegmentMax, boolean fsync) throws IOException {
+        this.repertoire = repertoire;
+        this.tailleSegmentMax = tailleSegmentMax;
+        this.fsync = fsync;
+        Files.createDirectories(repertoire);
+        this.index = new BlobIndex(repertoire.resolve("index.dat"));
+        recuperer();
+    }
+
+    public long ajouter(InputStream contenu, long taille) throws IOException {
+        synchronized (ecriture) {
+            if (finActif > 0 && finActif + TAILLE_ENTETE + taille > tailleSegmentMax) {
+                ouvrirSegment(segmentActif + 1);
+            }
+            long id = index.allouer();
+            long position = finActif;
+            CRC32 crc = new CRC32();
+            ByteBuffer tampon = ByteBuffer.allocate(TAILLE_TAMPON);
+            long ecrit = 0;
+            int lus;
+            while ((lus = contenu.read(tampon.array())) > 0) {
+                crc.update(tampon.array(), 0, lus);
+                tampon.limit(lus).position(0);
+                while (tampon.hasRemaining()) {
+                    ecrit += canalActif.write(tampon, position + TAILLE_ENTETE + ecrit);
+                }
+                tampon.clear();
+            }
+            if (ecrit != taille) {
+                throw new IOException("Taille inattendue : " + ecrit + " octets lus, " + taille + " annoncés");
+            }
+            terminerAjout(id, position, taille, (int) crc.getValue());
+            return id;
+        }
+    }
+
+    public boolean contient(long id) {
+        return index.emplacement(id) != 0 && index.longueur(id) >= 0;
+    }
+
+    public RegionFichier localiser(long id) {
+        if (!contient(id)) {
+            throw new RuntimeException("Contenu introuvable dans le stockage compacté : " + PREFIXE + id);
+        }
+        long emplacement = index.emplacement(id);
+        long longueur = index.longueur(id);
+        return new RegionFichier(fichierSegment(BlobIndex.segment(emplacement)),
+                BlobIndex.position(emplacement) + TAILLE_ENTETE, longueur);
+    }
+
+    public void supprimer(long id) throws IOException {
+        synchronized (ecriture) {
+            long emplacement = index.emplacement(id);
+            long longueur = index.longueur(id);
+            if (emplacement == 0 || longueur < 0) {
+                return;
+            }
+            ecrireEntete(canalActif, finActif, id, -1, 0);
+            finActif += TAILLE_ENTETE;
+            index.supprimer(id);
+            vivants(BlobIndex.segment(emplacement)).addAndGet(-(TAILLE_ENTETE + longueur));
+        }
+    }
+
+    /**
+     * Segments scellés dont la part de contenu encore référencé est inférieure au seuil.
+     */
+    public List<Integer> segmentsACompacter(double seuilVivants) throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        for (int segment : segmentsExistants()) {
+            if (segment == segmentActif) {
+                continue;
+            }
+            long taille = Files.size(fichierSegment(segment));
+            if (taille == 0 || (double) vivants(segment).get() / taille < seuilVivants) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Recopie les enregistrements encore vivants d'un segment scellé à la fin du segment actif.
+     * Les suppressions sont recopiées tant que le segment du contenu supprimé existe encore, pour
+     * qu'une reconstruction de l'index ne le fasse pas réapparaître. Le segment n'est pas effacé
+     * ici : l'appelant le supprime une fois que plus aucune lecture ne peut le viser.
+     *
+     * @return le nombre d'octets récupérés
+     */
+    public long compacter(int segment) throws IOException {
+        Path fichier = fichierSegment(segment);
+        long taille = Files.size(fichier);
+        try (FileChannel source = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            long position = 0;
+            ByteBuffer entete = ByteBuffer.allocate(TAILLE_ENTETE);
+            while (position + TAILLE_ENTETE <= taille) {
+                entete.clear();
+                source.read(entete, position);
+                if (entete.getInt(0) != MAGIC) {
+                    break;
+                }
+                int crc = entete.getInt(4);
+                long id = entete.getLong(8);
+                int longueur = entete.getInt(16);
+                long emplacement = BlobIndex.emplacement(segment, position);
+                synchronized (ecriture) {
+                    if (longueur >= 0 && index.emplacement(id) == emplacement && index.longueur(id) >= 0) {
+                        copier(source, position, id, longueur, crc, segment);
+                    } else if (longueur < 0) {
+                        int segmentOrigine = BlobIndex.segment(index.emplacement(id));
+                        if (segmentOrigine != segment && Files.exists(fichierSegment(segmentOrigine))) {
+                            ecrireEntete(canalActif, finActif, id, -1, 0);
+                            finActif += TAILLE_ENTETE;
+                        }
+                    }
+                }
+                position += TAILLE_ENTETE + Math.max(longueur, 0);
+            }
+        }
+        synchronized (ecriture) {
+            // The copies must be durable before the old segment can go away
+            canalActif.force(false);
+            index.forcer();
+        }
+        octetsVivants.remove(segment);
+        return taille;
+    }
+
+    public void effacerSegment(int segment) throws IOException {
+        if (segment == segmentActif) {
+            throw new IllegalStateException("Le segment actif ne peut pas être effacé");
+        }
+        Files.deleteIfExists(fichierSegment(segment));
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (ecriture) {
+            canalActif.force(false);
+            canalActif.close();
+            index.close();
+        }
+    }
+
+    private void copier(FileChannel source, long position, long id, int longueur, int crc, int segment) throws IOException {
+        if (finActif + TAILLE_ENTETE + longueur > tailleSegmentMax) {
+            ouvrirSegment(segmentActif + 1);
+        }
+        long cible = finActif;
+        long copie = 0;
+        while (copie < longueur) {
+            copie += source.transferTo(position + TAILLE_ENTETE + copie, longueur - copie,
+                    canalActif.position(cible + TAILLE_ENTETE + copie));
+        }
+        vivants(segment).addAndGet(-(TAILLE_ENTETE + longueur));
+        terminerAjout(id, cible, longueur, crc);
+    }
+
+    private void terminerAjout(long id, long position, long longueur, int crc) throws IOException {
+        ecrireEntete(canalActif, position, id, (int) longueur, crc);
+        if (fsync) {
+            canalActif.force(false);
+        }
+        finActif = position + TAILLE_ENTETE + longueur;
+        index.ecrire(id, BlobIndex.emplacement(segmentActif, position), longueur);
+        vivants(segmentActif).addAndGet(TAILLE_ENTETE + longueur);
+    }
+
+    private static void ecrireEntete(FileChannel canal, long position, long id, int longueur, int crc) throws IOException {
+        ByteBuffer entete = ByteBuffer.allocate(TAILLE_ENTETE)
+                .putInt(MAGIC).putInt(crc).putLong(id).putInt(longueur).putInt(0)
+                .flip();
+        while (entete.hasRemaining()) {
+            canal.write(entete, position + entete.position());
+        }
+    }
+
+    private void recuperer() throws IOException {
+        List<Integer> segments = segmentsExistants();
+        List<Integer> aRelire = index.reconstruit() || segments.isEmpty()
+                ? segments
+                : List.of(segments.get(segments.size() - 1));
+        if (index.reconstruit() && !segments.isEmpty()) {
+            log.warn("Index du stockage compacté absent ou illisible, reconstruction depuis {} segment(s)", segments.size());
+        }
+
+        for (int segment : aRelire) {
+            Path fichier = fichierSegment(segment);
+            try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long fin = relire(segment, canal);
+                if (fin < canal.size()) {
+                    log.warn("Segment {} tronqué de {} à {} octets (ajout interrompu)", fichier, canal.size(), fin);
+                    canal.truncate(fin);
+                }
+            }
+        }
+        Map<Integer, Long> tailles = new HashMap<>();
+        for (int segment : segments) {
+            tailles.put(segment, Files.size(fichierSegment(segment)));
+        }
+        compterVivants(tailles);
+
+        int dernier = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+        ouvrirSegment(dernier);
+        if (finActif >= tailleSegmentMax) {
+            ouvrirSegment(dernier + 1);
+        }
+        log.info("Stockage compacté {} : {} segment(s), prochain blob {}", repertoire, segments.size(), index.prochainId());
+    }
+
+    private long relire(int segment, FileChannel canal) throws IOException {
+        long taille = canal.size();
+        long position = 0;
+        ByteBuffer entete = ByteBuffer.allocate(TAILLE_ENTETE);
+        ByteBuffer contenu = ByteBuffer.allocate(TAILLE_TAMPON);
+        while (position + TAILLE_ENTETE <= taille) {
+            entete.clear();
+            canal.read(entete, position);
+            if (entete.getInt(0) != MAGIC) {
+                break;
+            }
+            int crcAttendu = entete.getInt(4);
+            long id = entete.getLong(8);
+            int longueur = entete.getInt(16);
+            if (id <= 0 || position + TAILLE_ENTETE + Math.max(longueur, 0) > taille) {
+                break;
+            }
+            if (longueur >= 0) {
+                CRC32 crc = new CRC32();
+                long lu = 0;
+                while (lu < longueur) {
+                    contenu.clear().limit((int) Math.min(contenu.capacity(), longueur - lu));
+                    int n = canal.read(contenu, position + TAILLE_ENTETE + lu);
+                    crc.update(contenu.array(), 0, n);
+                    lu += n;
+                }
+                if ((int) crc.getValue() != crcAttendu) {
+                    break;
+                }
+            }
+            appliquer(id, BlobIndex.emplacement(segment, position), longueur);
+            position += TAILLE_ENTETE + Math.max(longueur, 0);
+        }
+        return position;
+    }
+
+    private void appliquer(long id, long emplacement, int longueur) throws IOException {
+        if (id >= index.prochainId()) {
+            index.prochainId(id + 1);
+        }
+        if (longueur < 0) {
+            index.supprimer(id);
+        } else if (emplacement > index.emplacement(id)) {
+            index.ecrire(id, emplacement, longueur);
+        }
+    }
+
+    private void compterVivants(Map<Integer, Long> tailles) {
+        long perdus = 0;
+        for (long id = 1; id < index.prochainId(); id++) {
+            long emplacement = index.emplacement(id);
+            long longueur = index.longueur(id);
+            if (emplacement == 0 || longueur < 0) {
+                continue;
+            }
+            int segment = BlobIndex.segment(emplacement);
+            Long taille = tailles.get(segment);
+            if (taille == null || BlobIndex.position(emplacement) + TAILLE_ENTETE + longueur > taille) {
+                // The record did not reach the disk: the id must not resolve to whatever is appended there next
+                index.supprimer(id);
+                perdus++;
+                continue;
+            }
+            vivants(segment).addAndGet(TAILLE_ENTETE + longueur);
+        }
+        if (perdus > 0) {
+            log.warn("{} blob(s) de l'index absents des segments (arrêt brutal sans fsync), marqués supprimés", perdus);
+        }
+    }
+
+    private void ouvrirSegment(int segment) throws IOException {
+        if (canalActif != null) {
+            canalActif.force(false);
+            canalActif.close();
+        }
+        canalActif = FileChannel.open(fichierSegment(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentActif = segment;
+        finActif = canalActif.size();
+    }
+
+    private AtomicLong vivants(int segment) {
+        return octetsVivants.computeIfAbsent(segment, s -> new AtomicLong());
+    }
+
+    private Path fichierSegment(int segment) {
+        return repertoire.resolve(String.format("segment-%08d.dat", segment));
+    }
+
+    private List<Integer> segmentsExistants() throws IOException {
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            return fichiers.map(f -> f.getFileName().toString())
+                    .filter(nom -> nom.matches("segment-\\d{8}\\.dat"))
+                    .map(nom -> Integer.parseInt(nom.substring(8, 16)))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.gestiondesdocuments.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Plage d'octets d'un fichier contenant le contenu brut d'un document : le fichier entier en
+ * stockage classique, un extrait d'un segment en stockage compacté.
+ */
+public record RegionFichier(Path fichier, long position, long taille) {
+
+    public InputStream ouvrir() throws IOException {
+        FileChannel canal = FileChannel.open(fichier);
+        canal.position(position);
+        return new FilterInputStream(Channels.newInputStream(canal)) {
+            private long restant = taille;
+
+            @Override
+            public int read() throws IOException {
+                if (restant <= 0) {
+                    return -1;
+                }
+                int octet = super.read();
+                if (octet >= 0) {
+                    restant--;
+                }
+                return octet;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (restant <= 0) {
+                    return -1;
+                }
+                int lus = super.read(b, off, (int) Math.min(len, restant));
+                if (lus > 0) {
+                    restant -= lus;
+                }
+                return lus;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(Integer.MAX_VALUE, restant);
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.gestiondesdocuments.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Répartition des fichiers sur deux niveaux de sous-répertoires dérivés d'un hash du nom
+ * (racine/ab/cd/nom), pour garder des répertoires de taille raisonnable.
+ */
+public final class Shards {
+
+    private Shards() {
+    }
+
+    public static Path resoudre(Path racine, String nomFichier) {
+        byte[] hash = md5(nomFichier);
+        HexFormat hex = HexFormat.of();
+        return racine.resolve(hex.toHexDigits(hash[0]))
+                .resolve(hex.toHexDigits(hash[1]))
+                .resolve(nomFichier);
+    }
+
+    private static byte[] md5(String valeur) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(valeur.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
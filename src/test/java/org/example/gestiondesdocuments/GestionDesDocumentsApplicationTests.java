@@ -2,8 +2,10 @@ package org.example.gestiondesdocuments;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
 
 @SpringBootTest
+@TestPropertySource(locations = "classpath:chiffrement-test.properties")
 class GestionDesDocumentsApplicationTests {
 
     @Test
@@ -0,0 +1,112 @@
+package org.example.gestiondesdocuments.loadtest;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import org.example.gestiondesdocuments.storage.ContenuDocument;
+import org.example.gestiondesdocuments.storage.FichierChiffre;
+import org.example.gestiondesdocuments.storage.RegionFichier;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compare le débit d'écriture et de lecture d'un fichier en clair et chiffré par {@link FichierChiffre}
+ * (AES-GCM par blocs, accéléré par AES-NI/CLMUL via les intrinsèques de la JVM).
+ *
+ * mvn -B test -Pload-test -Dtest=ChiffrementThroughputBenchmarkTest [-Dbenchmark.taille-mb=512]
+ */
+@Tag("load")
+class ChiffrementThroughputBenchmarkTest {
+
+    private static final int TAILLE_MB = Integer.getInteger("benchmark.taille-mb", 256);
+    private static final int TAILLE_BLOC = Integer.getInteger("benchmark.taille-bloc", 64 * 1024);
+    private static final int WARMUP = 2;
+    private static final int ITERATIONS = 6;
+
+    @TempDir
+    Path repertoire;
+
+    @Test
+    void encryptionStaysCloseToRawDiskSpeed() throws Exception {
+        HotSpotDiagnosticMXBean hotspot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        assumeTrue(Boolean.parseBoolean(hotspot.getVMOption("UseAES").getValue()),
+                "AES-NI indisponible sur cette machine");
+
+        KeyGenerator generateur = KeyGenerator.getInstance("AES");
+        generateur.init(256);
+        SecretKey cle = generateur.generateKey();
+        byte[] contenu = new byte[TAILLE_MB * 1024 * 1024];
+        ThreadLocalRandom.current().nextBytes(contenu);
+        Path clair = repertoire.resolve("clair.bin");
+        Path chiffre = repertoire.resolve("chiffre.bin");
+
+        double ecritureClair = 0;
+        double ecritureChiffree = 0;
+        double lectureClair = 0;
+        double lectureChiffree = 0;
+        // The first iterations warm up the JIT (GCM intrinsics kick in late) and are not kept
+        for (int i = 0; i < ITERATIONS; i++) {
+            double ec = mesurer(() -> ecrire(new ByteArrayInputStream(contenu), clair));
+            double ecc = mesurer(() -> ecrire(FichierChiffre.chiffrer(new ByteArrayInputStream(contenu), cle, 1L, 1, TAILLE_BLOC), chiffre));
+            RegionFichier regionClair = new RegionFichier(clair, 0, Files.size(clair));
+            RegionFichier regionChiffree = new RegionFichier(chiffre, 0, Files.size(chiffre));
+            FichierChiffre.EnTete enTete = FichierChiffre.lireEnTete(regionChiffree);
+            double lc = mesurer(() -> lire(ContenuDocument.enClair(regionClair)));
+            double lcc = mesurer(() -> lire(new ContenuDocument(regionChiffree, enTete, cle)));
+            if (i >= WARMUP) {
+                ecritureClair += ec;
+                ecritureChiffree += ecc;
+                lectureClair += lc;
+                lectureChiffree += lcc;
+            }
+        }
+
+        double mo = (double) TAILLE_MB * (ITERATIONS - WARMUP);
+        System.out.printf("%d Mo, blocs de %d Ko : écriture clair %.0f Mo/s, chiffrée %.0f Mo/s ; lecture clair %.0f Mo/s, chiffrée %.0f Mo/s%n",
+                TAILLE_MB, TAILLE_BLOC / 1024, mo / ecritureClair, mo / ecritureChiffree, mo / lectureClair, mo / lectureChiffree);
+        assertThat(mo / ecritureChiffree).isGreaterThan(mo / ecritureClair * 0.5);
+        assertThat(mo / lectureChiffree).isGreaterThan(mo / lectureClair * 0.5);
+    }
+
+    private static void ecrire(InputStream source, Path cible) throws IOException {
+        try (InputStream in = source; OutputStream out = Files.newOutputStream(cible)) {
+            in.transferTo(out);
+        }
+        // Timed up to the disk, not the page cache
+        try (FileChannel canal = FileChannel.open(cible, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+    }
+
+    private static void lire(ContenuDocument contenu) throws IOException {
+        try (InputStream in = contenu.ouvrir(0, contenu.taille())) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static double mesurer(Action action) throws Exception {
+        long debut = System.nanoTime();
+        action.executer();
+        return (System.nanoTime() - debut) / 1_000_000_000.0;
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void executer() throws Exception;
+    }
+}
@@ -0,0 +1,276 @@
+package org.example.gestiondesdocuments.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de charge de bout en bout rejouant les scénarios de la collection Postman
+ * (login, upload, liste par statut, validation, rejet).
+ *
+ * Exclu du build par défaut : mvn -B test -Pload-test
+ * Paramètres : voir {@link LoadTestSettings}, seuils SLO dans loadtest/slo.properties.
+ * Threads virtuels contre pool Tomcat sur le vrai chemin d'upload : même commande avec
+ * -Pload-test,java21 -Dspring.threads.virtual.enabled=true, puis sans.
+ */
+@Tag("load")
+@Slf4j
+@TestPropertySource(locations = "classpath:chiffrement-test.properties")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.format_sql=false",
+                "app.upload.dir=target/loadtest-uploads",
+                // Measures the server, not the per-user rate limits
+                "app.limites.actif=false"
+        })
+class DocumentFlowsLoadTest {
+
+    private static final String BOUNDARY = "loadtest-" + UUID.randomUUID();
+
+    @LocalServerPort
+    private int port;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ConcurrentLinkedQueue<Long> pendingIds = new ConcurrentLinkedQueue<>();
+
+    private LoadTestSettings settings;
+    private String baseUrl;
+    private String societeToken;
+    private String comptableToken;
+    private byte[] fileContent;
+
+    @Test
+    void replayPostmanScenarios() throws Exception {
+        settings = LoadTestSettings.fromSystemProperties();
+        baseUrl = settings.baseUrl().isBlank() ? "http://localhost:" + port : settings.baseUrl();
+        societeToken = login(settings.societeEmail(), settings.societePassword());
+        comptableToken = login(settings.comptableEmail(), settings.comptablePassword());
+        fileContent = new byte[settings.fileSizeKb() * 1024];
+        ThreadLocalRandom.current().nextBytes(fileContent);
+
+        run(settings.warmup(), new EnumMap<>(LoadScenario.class));
+
+        Map<LoadScenario, LatencyRecorder> recorders = new EnumMap<>(LoadScenario.class);
+        for (LoadScenario scenario : settings.mix().keySet()) {
+            recorders.put(scenario, new LatencyRecorder());
+        }
+        long start = System.nanoTime();
+        run(settings.duration(), recorders);
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Map<LoadScenario, LatencyRecorder.Snapshot> results = new EnumMap<>(LoadScenario.class);
+        recorders.forEach((scenario, recorder) -> results.put(scenario, recorder.snapshot(elapsedSeconds)));
+
+        String report = formatReport(results);
+        log.info("\n{}", report);
+        Path reportFile = Path.of("target", "loadtest-report.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, report);
+
+        assertThat(sloViolations(results)).as("Régressions SLO").isEmpty();
+    }
+
+    private void run(Duration duration, Map<LoadScenario, LatencyRecorder> recorders) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency());
+        for (int i = 0; i < settings.concurrency(); i++) {
+            workers.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    LoadScenario scenario = pickScenario();
+                    Long pendingId = null;
+                    if (scenario == LoadScenario.VALIDATE || scenario == LoadScenario.REJECT) {
+                        pendingId = pendingIds.poll();
+                        if (pendingId == null) {
+                            // Nothing to validate yet: the upload done instead counts as an upload
+                            scenario = LoadScenario.UPLOAD;
+                        }
+                    }
+                    long begin = System.nanoTime();
+                    boolean success;
+                    try {
+                        success = execute(scenario, pendingId);
+                    } catch (Exception e) {
+                        success = false;
+                    }
+                    LatencyRecorder recorder = recorders.get(scenario);
+                    if (recorder != null) {
+                        recorder.record(System.nanoTime() - begin, success);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private LoadScenario pickScenario() {
+        int total = settings.mix().values().stream().mapToInt(Integer::intValue).sum();
+        int draw = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<LoadScenario, Integer> entry : settings.mix().entrySet()) {
+            draw -= entry.getValue();
+            if (draw < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Mix de scénarios incohérent");
+    }
+
+    private boolean execute(LoadScenario scenario, Long pendingId) throws IOException, InterruptedException {
+        return switch (scenario) {
+            case LOGIN -> login(settings.societeEmail(), settings.societePassword()) != null;
+            case UPLOAD -> upload();
+            case LIST_BY_STATUS -> send(HttpRequest.newBuilder(uri("/api/documents/comptable/status?status=EN_ATTENTE"))
+                    .header("Authorization", "Bearer " + comptableToken)
+                    .GET()) == 200;
+            case VALIDATE -> transition("/api/documents/comptable/valider/%d?commenatire=ok", pendingId);
+            case REJECT -> transition("/api/documents/comptable/reject/%d?motif=illisible", pendingId);
+        };
+    }
+
+    private String login(String email, String password) throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(Map.of("email", email, "password", password));
+        HttpResponse<InputStream> response = httpClient.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Login échoué pour " + email + " : " + response.statusCode());
+            }
+            return objectMapper.readTree(in).get("token").asText();
+        }
+    }
+
+    private boolean upload() throws IOException, InterruptedException {
+        String metadata = objectMapper.writeValueAsString(Map.of(
+                "numeroPiece", "LT-" + UUID.randomUUID(),
+                "type", "FACTURE_ACHAT",
+                "datePiece", LocalDate.now().minusDays(1).toString(),
+                "montant", 1250.75,
+                "fournisseur", "Fournisseur Charge",
+                "exerciceComptable", String.valueOf(LocalDate.now().getYear())
+        ));
+        HttpResponse<InputStream> response = httpClient.send(HttpRequest.newBuilder(uri("/api/documents/upload"))
+                        .header("Authorization", "Bearer " + societeToken)
+                        .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(multipartBody(metadata)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = response.body()) {
+            if (response.statusCode() != 201) {
+                return false;
+            }
+            JsonNode json = objectMapper.readTree(in);
+            pendingIds.add(json.get("id").asLong());
+            return true;
+        }
+    }
+
+    private boolean transition(String pathTemplate, long id) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(pathTemplate.formatted(id)))
+                .header("Authorization", "Bearer " + comptableToken)
+                .PUT(HttpRequest.BodyPublishers.noBody())) == 200;
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private byte[] multipartBody(String metadata) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(fileContent.length + 1024);
+        out.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"document\"\r\n"
+                + "Content-Type: application/json\r\n\r\n"
+                + metadata + "\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"recu.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(fileContent);
+        out.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private String formatReport(Map<LoadScenario, LatencyRecorder.Snapshot> results) {
+        StringBuilder report = new StringBuilder()
+                .append("Test de charge : concurrence=").append(settings.concurrency())
+                .append(", durée=").append(settings.duration().toSeconds()).append("s")
+                .append(", mix=").append(settings.mix()).append('\n')
+                .append(String.format("%-16s %8s %8s %10s %9s %9s %9s%n",
+                        "endpoint", "requêtes", "erreurs", "req/s", "p50 ms", "p95 ms", "p99 ms"));
+        results.forEach((scenario, s) -> report.append(String.format("%-16s %8d %8d %10.1f %9.1f %9.1f %9.1f%n",
+                scenario.key(), s.count(), s.errors(), s.throughput(), s.p50(), s.p95(), s.p99())));
+        return report.toString();
+    }
+
+    private List<String> sloViolations(Map<LoadScenario, LatencyRecorder.Snapshot> results) throws IOException {
+        Properties slo = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/loadtest/slo.properties")) {
+            if (in != null) {
+                slo.load(in);
+            }
+        }
+        List<String> violations = new ArrayList<>();
+        results.forEach((scenario, s) -> {
+            checkMax(violations, slo, scenario.key() + ".p95-ms", s.p95());
+            checkMax(violations, slo, scenario.key() + ".p99-ms", s.p99());
+            checkMax(violations, slo, scenario.key() + ".max-error-rate", s.errorRate());
+            String minThroughput = System.getProperty("loadtest.slo." + scenario.key() + ".min-throughput",
+                    slo.getProperty(scenario.key() + ".min-throughput"));
+            if (minThroughput != null && s.throughput() < Double.parseDouble(minThroughput)) {
+                violations.add(scenario.key() + ".min-throughput : " + s.throughput() + " < " + minThroughput);
+            }
+        });
+        return violations;
+    }
+
+    private static void checkMax(List<String> violations, Properties slo, String key, double value) {
+        String threshold = System.getProperty("loadtest.slo." + key, slo.getProperty(key));
+        if (threshold != null && value > Double.parseDouble(threshold)) {
+            violations.add(key + " : " + value + " > " + threshold);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.gestiondesdocuments.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Collecte les latences d'un endpoint. La contention du verrou est négligeable
+ * face au coût d'un aller-retour HTTP.
+ */
+class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private long errors;
+
+    synchronized void record(long nanos, boolean success) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    synchronized Snapshot snapshot(double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return new Snapshot(
+                size,
+                errors,
+                elapsedSeconds > 0 ? size / elapsedSeconds : 0,
+                percentileMillis(sorted, 0.50),
+                percentileMillis(sorted, 0.95),
+                percentileMillis(sorted, 0.99)
+        );
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    record Snapshot(long count, long errors, double throughput, double p50, double p95, double p99) {
+
+        double errorRate() {
+            return count == 0 ? 0 : (double) errors / count;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.gestiondesdocuments.loadtest;
+
+import org.example.gestiondesdocuments.admission.GroupeLimite;
+import org.example.gestiondesdocuments.admission.LimiteurDebit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Coût d'une vérification de {@link LimiteurDebit} à 64 threads (JMH) : un utilisateur par thread
+ * répartis sur 8 sociétés, puis les 64 threads sur le même utilisateur (contention maximale du
+ * compare-and-set). Le coût mesuré est le temps moyen d'un appel vu par chaque thread : sur une
+ * machine qui a moins de cœurs que de threads, il compte aussi l'attente du processeur, d'où
+ * -Dbenchmark.threads pour rester au nombre de cœurs.
+ *
+ * mvn -B test -Pload-test -Dtest=LimiteurDebitBenchmarkTest [-Dbenchmark.threads=64]
+ */
+@Tag("load")
+public class LimiteurDebitBenchmarkTest {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 64);
+
+    @State(Scope.Benchmark)
+    public static class Limiteur {
+
+        LimiteurDebit limiteur;
+
+        @Setup(Level.Trial)
+        public void preparer() {
+            limiteur = new LimiteurDebit();
+            // High enough for most checks to be granted: the granted path is the one that writes
+            limiteur.configurer(GroupeLimite.LISTING, new LimiteurDebit.Limite(1e9, 1_000_000),
+                    new LimiteurDebit.Limite(1e9, 1_000_000));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private static final AtomicInteger SUIVANT = new AtomicInteger();
+
+        String utilisateur;
+        Long societe;
+
+        @Setup(Level.Trial)
+        public void preparer() {
+            int numero = SUIVANT.getAndIncrement();
+            utilisateur = "user" + numero + "@example.com";
+            societe = (long) (numero % 8);
+        }
+    }
+
+    @Benchmark
+    public LimiteurDebit.Decision utilisateursDistincts(Limiteur etat, Client client) {
+        return etat.limiteur.verifier(GroupeLimite.LISTING, client.utilisateur, client.societe);
+    }
+
+    @Benchmark
+    public LimiteurDebit.Decision memeUtilisateur(Limiteur etat) {
+        return etat.limiteur.verifier(GroupeLimite.LISTING, "user0@example.com", 0L);
+    }
+
+    @Test
+    void verificationSousLaMicroseconde() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(LimiteurDebitBenchmarkTest.class.getName() + "\\.")
+                .threads(THREADS)
+                .forks(1)
+                .warmupIterations(2)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(2))
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .mode(Mode.AverageTime)
+                .build();
+        Collection<RunResult> resultats = new Runner(options).run();
+
+        for (RunResult resultat : resultats) {
+            double nanosParVerification = resultat.getPrimaryResult().getScore();
+            System.out.printf("%s, %d threads : %.0f ns par vérification%n",
+                    resultat.getParams().getBenchmark(), THREADS, nanosParVerification);
+            assertThat(nanosParVerification).isLessThan(1000);
+        }
+    }
+}
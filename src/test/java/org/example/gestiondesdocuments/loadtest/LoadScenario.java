@@ -0,0 +1,32 @@
+package org.example.gestiondesdocuments.loadtest;
+
+/**
+ * Scénarios rejoués par le test de charge, repris de la collection Postman
+ * (routes alignées sur les contrôleurs actuels).
+ */
+enum LoadScenario {
+    LOGIN("login"),
+    UPLOAD("upload"),
+    LIST_BY_STATUS("list-by-status"),
+    VALIDATE("validate"),
+    REJECT("reject");
+
+    private final String key;
+
+    LoadScenario(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    static LoadScenario fromKey(String key) {
+        for (LoadScenario scenario : values()) {
+            if (scenario.key.equals(key)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Scénario inconnu : " + key);
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.gestiondesdocuments.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Paramètres du test de charge, lus depuis les propriétés système (-Dloadtest.xxx=...).
+ */
+record LoadTestSettings(
+        String baseUrl,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        int fileSizeKb,
+        Map<LoadScenario, Integer> mix,
+        String societeEmail,
+        String societePassword,
+        String comptableEmail,
+        String comptablePassword
+) {
+
+    static final String DEFAULT_MIX = "login=1,upload=3,list-by-status=10,validate=2,reject=1";
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                System.getProperty("loadtest.base-url", ""),
+                Integer.getInteger("loadtest.concurrency", 16),
+                Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 5)),
+                Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 30)),
+                Integer.getInteger("loadtest.file-size-kb", 150),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                System.getProperty("loadtest.societe.email", "user1@example.com"),
+                System.getProperty("loadtest.societe.password", "password123"),
+                System.getProperty("loadtest.comptable.email", "comptable1@example.com"),
+                System.getProperty("loadtest.comptable.password", "secret456")
+        );
+    }
+
+    /**
+     * Format : "login=1,upload=3,list-by-status=10,validate=2,reject=1".
+     * Un scénario absent ou à 0 n'est jamais tiré.
+     */
+    static Map<LoadScenario, Integer> parseMix(String mix) {
+        Map<LoadScenario, Integer> weights = new EnumMap<>(LoadScenario.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Entrée de mix invalide : " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(LoadScenario.fromKey(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Le mix de scénarios est vide");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.gestiondesdocuments.loadtest;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.example.gestiondesdocuments.dto.Documents.DocumentFiltreRequest;
+import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.entite.Societe;
+import org.example.gestiondesdocuments.entite.Utilisateur;
+import org.example.gestiondesdocuments.repository.DocumentRepository;
+import org.example.gestiondesdocuments.repository.DocumentSpecifications;
+import org.example.gestiondesdocuments.repository.SocietyRepository;
+import org.example.gestiondesdocuments.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plan d'exécution de la recherche multicritère (DocumentSpecifications) sur une table documents
+ * de 5 millions de lignes : la requête réellement générée par Hibernate est capturée avec ses
+ * paramètres, puis passée à EXPLAIN ANALYZE. Aucun critère ne doit conduire à un parcours complet
+ * de la table.
+ *
+ * La base H2 est un fichier sous target/explain, rempli au premier lancement puis réutilisé.
+ *
+ * mvn -B test -Pload-test -Dtest=RechercheDocumentsExplainTest [-Dexplain.lignes=5000000]
+ */
+@Tag("load")
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/explain/documents;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=update"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RechercheDocumentsExplainTest {
+
+    private static final long LIGNES = Long.getLong("explain.lignes", 5_000_000);
+    private static final int LOT = 250_000;
+    private static final Sort PAR_ID = Sort.by("id");
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private SocietyRepository societyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void remplir() {
+        long existantes = documentRepository.count();
+        if (existantes >= LIGNES) {
+            return;
+        }
+        Societe societe = societyRepository.findAll().stream().findFirst().orElseGet(() -> societyRepository.save(
+                Societe.builder().raisonSociale("Explain").ice("000000000000001").emailContact("explain@test.com").build()));
+        Utilisateur utilisateur = userRepository.findByEmail("explain@test.com").orElseGet(() -> userRepository.save(
+                Utilisateur.builder().email("explain@test.com").motDePasse("x").nomComplet("Explain").societe(societe).build()));
+
+        long debut = System.nanoTime();
+        // Spread over 5 years, amounts from 0 to 20,000, 5 types, 3 statuses and 20 categories
+        for (long premier = existantes + 1; premier <= LIGNES; premier += LOT) {
+            jdbcTemplate.update("INSERT INTO documents (numero_piece, type, categorie_comptable, date_piece, montant,"
+                            + " chemin_fichier, nom_fichier_original, statut, societe_id, uploade_par_id,"
+                            + " exercice_comptable, date_creation)"
+                            + " SELECT 'P-' || X,"
+                            + " CASE MOD(X, 5) WHEN 0 THEN 'FACTURE_ACHAT' WHEN 1 THEN 'FACTURE_VENTE'"
+                            + " WHEN 2 THEN 'TICKET_CAISSE' WHEN 3 THEN 'RELEVE_BANCAIRE' ELSE 'AUTRE' END,"
+                            + " 'C' || MOD(X, 20),"
+                            + " DATEADD(DAY, MOD(X * 7919, 1826), DATE '2020-01-01'),"
+                            + " CAST(MOD(X * 104729, 2000000) / 100.0 AS DECIMAL(15, 2)),"
+                            + " '/uploads/' || X || '.pdf', X || '.pdf',"
+                            + " CASE MOD(X, 3) WHEN 0 THEN 'EN_ATTENTE' WHEN 1 THEN 'VALIDE' ELSE 'REJETE' END,"
+                            + " ?, ?, '2024', CURRENT_TIMESTAMP"
+                            + " FROM SYSTEM_RANGE(?, ?)",
+                    societe.getId(), utilisateur.getId(), premier, Math.min(premier + LOT - 1, LIGNES));
+        }
+        // Fresh selectivity statistics for the planner
+        jdbcTemplate.execute("ANALYZE");
+        System.out.printf("Table documents remplie : %d lignes en %d s%n",
+                documentRepository.count(), (System.nanoTime() - debut) / 1_000_000_000);
+    }
+
+    @Test
+    void testAchatsDuTroisiemeTrimestreParMontant() throws Exception {
+        // Purchase invoices over 10,000 in Q3 2024, largest first
+        expliquer(new DocumentFiltreRequest(Document.TypeDocument.FACTURE_ACHAT, null, null, null,
+                        LocalDate.of(2024, 7, 1), LocalDate.of(2024, 9, 30), new BigDecimal("10000"), null,
+                        null, null, null, null),
+                Sort.by(Sort.Direction.DESC, "montant").and(Sort.by(Sort.Direction.DESC, "id")));
+    }
+
+    @Test
+    void testTypeEtMontantParDate() throws Exception {
+        expliquer(new DocumentFiltreRequest(Document.TypeDocument.FACTURE_VENTE, null, null, null,
+                        null, null, new BigDecimal("19500"), new BigDecimal("20000"), null, null, null, null),
+                Sort.by("datePiece").and(PAR_ID));
+    }
+
+    @Test
+    void testPlageDeDatesSeule() throws Exception {
+        expliquer(new DocumentFiltreRequest(null, null, null, null,
+                        LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 7), null, null, null, null, null, null),
+                Sort.by("datePiece").and(PAR_ID));
+    }
+
+    @Test
+    void testPlageDeMontantsSeule() throws Exception {
+        expliquer(new DocumentFiltreRequest(null, "C3", null, null,
+                        null, null, new BigDecimal("100"), new BigDecimal("150"), null, null, null, null),
+                Sort.by("montant").and(PAR_ID));
+    }
+
+    private void expliquer(DocumentFiltreRequest filtre, Sort tri) throws Exception {
+        DerniereRequete.effacer();
+        long debut = System.nanoTime();
+        List<Document> documents = documentRepository.findBy(DocumentSpecifications.filtre(filtre),
+                requete -> requete.slice(PageRequest.of(0, 50, tri))).getContent();
+        long duree = (System.nanoTime() - debut) / 1_000_000;
+
+        String plan = planAnalyse(DerniereRequete.sql, DerniereRequete.parametres);
+        // The column list is of no interest, the access path starts at FROM
+        System.out.printf("%d document(s) en %d ms%n%s%n", documents.size(), duree, plan.substring(plan.indexOf("FROM")));
+
+        // Vérifications : un index composite sert la plage, jamais un parcours de la table
+        assertThat(plan).doesNotContainIgnoringCase("tableScan");
+        assertThat(plan).containsIgnoringCase("IDX_DOCUMENTS_");
+    }
+
+    private String planAnalyse(String sql, List<Object> parametres) throws Exception {
+        try (Connection connexion = dataSource.getConnection();
+             PreparedStatement explain = connexion.prepareStatement("EXPLAIN ANALYZE " + sql)) {
+            for (int i = 0; i < parametres.size(); i++) {
+                explain.setObject(i + 1, parametres.get(i));
+            }
+            try (ResultSet plan = explain.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        }
+    }
+
+    // Last query on documents with its parameters, as sent to the driver
+    static final class DerniereRequete implements QueryExecutionListener {
+
+        static volatile String sql;
+        static volatile List<Object> parametres = List.of();
+
+        static void effacer() {
+            sql = null;
+            parametres = List.of();
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            for (QueryInfo queryInfo : queryInfoList) {
+                if (!queryInfo.getQuery().startsWith("select") || !queryInfo.getQuery().contains("documents")) {
+                    continue;
+                }
+                List<Object> valeurs = new ArrayList<>();
+                if (!queryInfo.getParametersList().isEmpty()) {
+                    queryInfo.getParametersList().get(0).stream()
+                            .sorted(Comparator.comparingInt(operation -> (Integer) operation.getArgs()[0]))
+                            .map(ParameterSetOperation::getArgs)
+                            .forEach(args -> valeurs.add(args[1]));
+                }
+                sql = queryInfo.getQuery();
+                parametres = valeurs;
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class CaptureRequetes {
+
+        @Bean
+        static BeanPostProcessor captureRequetesPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(dataSource).listener(new DerniereRequete()).build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncQueryLogWriterTest {
+
+    @Test
+    void testFilePleineAbandonneLesEntrees() {
+        AsyncQueryLogWriter writer = new AsyncQueryLogWriter(2);
+        // Thread d'écriture arrêté : plus rien ne vide la file
+        writer.shutdown();
+
+        writer.submit("premiere");
+        writer.submit("deuxieme");
+        writer.submit("troisieme");
+        writer.submit("quatrieme");
+
+        // Vérifications : l'appelant n'est jamais bloqué, le surplus est compté
+        assertThat(writer.getDropped()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import org.example.gestiondesdocuments.dto.Admin.QueryStatsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryStatisticsTest {
+
+    @Test
+    void testNormaliserRemplaceLesLitteraux() {
+        String forme = QueryStatistics.normalize(
+                "select * from documents d\n  where d.numero_piece = 'FA-''12' and d.montant > 10.50 and d.id = 42");
+
+        // Vérifications : chaînes (apostrophes doublées comprises) et nombres deviennent '?', les blancs sont réduits
+        assertThat(forme).isEqualTo("select * from documents d where d.numero_piece = ? and d.montant > ? and d.id = ?");
+    }
+
+    @Test
+    void testNormaliserRegroupeLesListesIn() {
+        String trois = QueryStatistics.normalize("select * from documents where id in (1, 2, 3)");
+        String un = QueryStatistics.normalize("select * from documents where id IN (?)");
+
+        // Vérifications : la longueur de la liste ne crée pas de nouvelle forme
+        assertThat(trois).isEqualTo("select * from documents where id in (?...)");
+        assertThat(un).isEqualTo(trois);
+    }
+
+    @Test
+    void testNormaliserGardeLesIdentifiantsNumerotes() {
+        String forme = QueryStatistics.normalize("select d1_0.id from documents d1_0 where d1_0.id = 7");
+
+        // Vérifications : seuls les nombres isolés sont des littéraux
+        assertThat(forme).isEqualTo("select d1_0.id from documents d1_0 where d1_0.id = ?");
+    }
+
+    @Test
+    void testAgregationParForme() {
+        QueryStatistics statistics = new QueryStatistics(10);
+
+        statistics.record("select * from documents where id = 1", 5, false);
+        statistics.record("select * from documents where id = 2", 30, true);
+
+        // Vérifications
+        List<QueryStatsResponse> resultats = statistics.getStatistics(10);
+        assertThat(resultats).hasSize(1);
+        QueryStatsResponse forme = resultats.get(0);
+        assertThat(forme.requete()).isEqualTo("select * from documents where id = ?");
+        assertThat(forme.nombre()).isEqualTo(2);
+        assertThat(forme.tempsTotalMs()).isEqualTo(35);
+        assertThat(forme.tempsMaxMs()).isEqualTo(30);
+        assertThat(forme.tempsMoyenMs()).isEqualTo(17.5);
+        assertThat(forme.nombreLentes()).isEqualTo(1);
+    }
+
+    @Test
+    void testNombreDeFormesPlafonne() {
+        QueryStatistics statistics = new QueryStatistics(2);
+
+        statistics.record("select * from documents where id = 1", 1, false);
+        statistics.record("select * from societes where id = 1", 1, false);
+        // Au-delà du plafond, les nouvelles formes partagent une seule entrée
+        statistics.record("select * from utilisateurs where id = 1", 1, false);
+        statistics.record("select * from roles where id = 1", 1, false);
+        // Une forme déjà connue garde la sienne
+        statistics.record("select * from documents where id = 2", 1, false);
+
+        // Vérifications
+        List<QueryStatsResponse> resultats = statistics.getStatistics(10);
+        assertThat(resultats).extracting(QueryStatsResponse::requete).containsExactlyInAnyOrder(
+                "select * from documents where id = ?",
+                "select * from societes where id = ?",
+                QueryStatistics.OTHER_SHAPES);
+        assertThat(resultats).filteredOn(r -> r.requete().equals(QueryStatistics.OTHER_SHAPES))
+                .extracting(QueryStatsResponse::nombre).containsExactly(2L);
+        assertThat(resultats).filteredOn(r -> r.requete().startsWith("select * from documents"))
+                .extracting(QueryStatsResponse::nombre).containsExactly(2L);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.gestiondesdocuments.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryListenerTest {
+
+    @Test
+    void testRequeteLenteJournaliseeAvecParametresTronques() throws Exception {
+        EntreesCapturees writer = new EntreesCapturees();
+        QueryStatistics statistics = new QueryStatistics(10);
+        SlowQueryListener listener = new SlowQueryListener(statistics, writer, true, 100, 0);
+
+        QueryInfo requete = new QueryInfo("insert into documents (id, commentaire, fournisseur) values (?, ?, ?)");
+        List<ParameterSetOperation> parametres = new ArrayList<>();
+        // Ajoutés dans le désordre : le journal les trie par index
+        parametres.add(new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                new Object[]{2, "x".repeat(150)}));
+        parametres.add(new ParameterSetOperation(PreparedStatement.class.getMethod("setLong", int.class, long.class),
+                new Object[]{1, 7L}));
+        parametres.add(new ParameterSetOperation(PreparedStatement.class.getMethod("setNull", int.class, int.class),
+                new Object[]{3, Types.VARCHAR}));
+        requete.getParametersList().add(parametres);
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(250);
+        execution.setSuccess(true);
+
+        listener.afterQuery(execution, List.of(requete));
+
+        // Vérifications : 100 caractères au plus par paramètre
+        assertThat(writer.entrees).hasSize(1);
+        assertThat(writer.entrees.get(0))
+                .startsWith("LENTE 250ms")
+                .endsWith("parametres=(7, " + "x".repeat(100) + "..., null)");
+        assertThat(statistics.getStatistics(1).get(0).nombreLentes()).isEqualTo(1);
+    }
+
+    @Test
+    void testRequeteRapideNonJournalisee() {
+        EntreesCapturees writer = new EntreesCapturees();
+        QueryStatistics statistics = new QueryStatistics(10);
+        SlowQueryListener listener = new SlowQueryListener(statistics, writer, true, 100, 0);
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(5);
+
+        listener.afterQuery(execution, List.of(new QueryInfo("select 1")));
+
+        // Vérifications : comptée dans les agrégats, mais hors échantillon
+        assertThat(writer.entrees).isEmpty();
+        assertThat(statistics.getStatistics(1).get(0).nombre()).isEqualTo(1);
+    }
+
+    // Méthode utilitaire : capture les entrées au lieu de les écrire
+    private static final class EntreesCapturees extends AsyncQueryLogWriter {
+
+        private final List<String> entrees = new ArrayList<>();
+
+        EntreesCapturees() {
+            super(1);
+            shutdown();
+        }
+
+        @Override
+        public void submit(String entry) {
+            entrees.add(entry);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.CleChiffrement;
+import org.example.gestiondesdocuments.entite.Societe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+class CleChiffrementRepositoryTest {
+
+    @Autowired
+    private CleChiffrementRepository cleChiffrementRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Societe societe;
+
+    @BeforeEach
+    void setUp() {
+        // Créer une société de test
+        societe = entityManager.persistAndFlush(Societe.builder()
+                .raisonSociale("Test Company")
+                .ice("123456789012345")
+                .emailContact("test@company.com")
+                .actif(true)
+                .dateCreation(LocalDateTime.now())
+                .build());
+    }
+
+    @Test
+    void testFindCleCourante() {
+        // Deux versions de clé pour la même société
+        entityManager.persist(createCle(1));
+        entityManager.persist(createCle(2));
+        entityManager.flush();
+
+        // La clé courante est la version la plus récente
+        Optional<CleChiffrement> courante = cleChiffrementRepository.findFirstBySocieteIdOrderByVersionDesc(societe.getId());
+
+        // Vérifications
+        assertThat(courante).isPresent();
+        assertThat(courante.get().getVersion()).isEqualTo(2);
+        assertThat(cleChiffrementRepository.findBySocieteIdAndVersion(societe.getId(), 1)).isPresent();
+        assertThat(cleChiffrementRepository.findBySocieteIdAndVersion(societe.getId(), 3)).isEmpty();
+    }
+
+    @Test
+    void testVersionUniqueParSociete() {
+        cleChiffrementRepository.saveAndFlush(createCle(1));
+
+        // Une seconde clé de même version est refusée
+        assertThatThrownBy(() -> cleChiffrementRepository.saveAndFlush(createCle(1)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private CleChiffrement createCle(int version) {
+        return CleChiffrement.builder()
+                .societe(societe)
+                .version(version)
+                .cleChiffree(new byte[40])
+                .build();
+    }
+}
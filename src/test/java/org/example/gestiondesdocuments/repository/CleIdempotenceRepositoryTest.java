@@ -0,0 +1,77 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.CleIdempotence;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+class CleIdempotenceRepositoryTest {
+
+    @Autowired
+    private CleIdempotenceRepository cleRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testInsererPuisTerminer() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        int inseree = inserer("cle-1", maintenant.plusMinutes(2), maintenant);
+
+        // Une seconde insertion de la même clé est refusée par la clé primaire
+        assertThatThrownBy(() -> inserer("cle-1", maintenant.plusMinutes(2), maintenant))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        int terminee = cleRepository.terminer("cle-1", 201, "application/json", "{\"id\":1}");
+        int deuxieme = cleRepository.terminer("cle-1", 201, "application/json", "{\"id\":2}");
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(inseree).isEqualTo(1);
+        assertThat(terminee).isEqualTo(1);
+        assertThat(deuxieme).isZero();
+        CleIdempotence cle = cleRepository.findById("cle-1").orElseThrow();
+        assertThat(cle.getStatut()).isEqualTo(CleIdempotence.StatutCle.TERMINEE);
+        assertThat(cle.getStatutHttp()).isEqualTo(201);
+        assertThat(cle.getCorps()).isEqualTo("{\"id\":1}");
+        assertThat(cleRepository.abandonner("cle-1")).isZero();
+    }
+
+    @Test
+    void testReprendreApresBailExpire() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        inserer("cle-active", maintenant.plusMinutes(2), maintenant);
+        inserer("cle-perdue", maintenant.minusSeconds(1), maintenant.minusMinutes(3));
+
+        // Vérifications : seule une exécution dont le bail a expiré peut être reprise
+        assertThat(cleRepository.reprendre("cle-active", maintenant.plusMinutes(2), maintenant)).isZero();
+        assertThat(cleRepository.reprendre("cle-perdue", maintenant.plusMinutes(2), maintenant)).isEqualTo(1);
+    }
+
+    @Test
+    void testSupprimerExpireesEtPlusAnciennes() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        inserer("cle-ancienne", maintenant.plusMinutes(2), maintenant.minusDays(2));
+        inserer("cle-recente", maintenant.plusMinutes(2), maintenant);
+
+        // Vérifications
+        assertThat(cleRepository.findPlusAnciennes(PageRequest.of(0, 1))).containsExactly("cle-ancienne");
+        assertThat(cleRepository.supprimerExpirees(maintenant)).isEqualTo(1);
+        assertThat(cleRepository.count()).isEqualTo(1);
+    }
+
+    // Méthode utilitaire pour créer une clé en cours d'exécution, expirant un jour après sa création
+    private int inserer(String id, LocalDateTime jusqua, LocalDateTime creation) {
+        return cleRepository.inserer(id, "POST /api/documents/upload", CleIdempotence.StatutCle.EN_COURS, jusqua,
+                creation.plusDays(1), creation);
+    }
+}
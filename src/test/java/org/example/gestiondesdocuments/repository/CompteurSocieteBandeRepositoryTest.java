@@ -0,0 +1,116 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.CompteurSociete;
+import org.example.gestiondesdocuments.entite.CompteurSocieteBande;
+import org.example.gestiondesdocuments.entite.Societe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class CompteurSocieteBandeRepositoryTest {
+
+    @Autowired
+    private CompteurSocieteBandeRepository bandeRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Societe societe;
+
+    @BeforeEach
+    void setUp() {
+        societe = entityManager.persistAndFlush(Societe.builder()
+                .raisonSociale("Test Company")
+                .ice("123456789012345")
+                .emailContact("test@company.com")
+                .build());
+    }
+
+    @Test
+    void testAjouterDocumentDansLeQuota() {
+        // 300 octets au dernier recalcul, 300 de plus dans une autre bande
+        entityManager.persist(CompteurSociete.builder().societeId(societe.getId()).octets(300L).build());
+        entityManager.persist(bande(0, 0L));
+        entityManager.persist(bande(1, 300L));
+        entityManager.flush();
+
+        int premier = bandeRepository.ajouterDocument(societe.getId(), 0, 400L, 1000L);
+        // 1000 + 400 dépasse le quota de 1000 octets : la bande n'est pas modifiée
+        int refuse = bandeRepository.ajouterDocument(societe.getId(), 0, 400L, 1000L);
+        // Un quota nul ou négatif n'impose aucune limite
+        int sansQuota = bandeRepository.ajouterDocument(societe.getId(), 0, 400L, 0L);
+        // Un fichier partagé n'ajoute aucun octet : jamais refusé
+        int partage = bandeRepository.ajouterDocument(societe.getId(), 0, 0L, 1000L);
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(premier).isEqualTo(1);
+        assertThat(refuse).isZero();
+        assertThat(sansQuota).isEqualTo(1);
+        assertThat(partage).isEqualTo(1);
+        CompteurSocieteBande bande = bandeRepository.findBySocieteId(societe.getId()).stream()
+                .filter(b -> b.getBande() == 0).findFirst().orElseThrow();
+        assertThat(bande.getEnAttente()).isEqualTo(3L);
+        assertThat(bande.getOctets()).isEqualTo(800L);
+    }
+
+    @Test
+    void testQuotaDeLaSocieteRemplaceLeQuotaParDefaut() {
+        entityManager.persist(CompteurSociete.builder().societeId(societe.getId()).quotaOctets(100L).build());
+        entityManager.persistAndFlush(bande(0, 0L));
+
+        int refuse = bandeRepository.ajouterDocument(societe.getId(), 0, 600L, 1000L);
+
+        // Vérifications
+        assertThat(refuse).isZero();
+    }
+
+    @Test
+    void testAjouterTransition() {
+        entityManager.persist(CompteurSociete.builder().societeId(societe.getId()).build());
+        entityManager.persistAndFlush(bande(2, 0L));
+
+        int modifie = bandeRepository.ajouter(societe.getId(), 2, -1L, 1L, 0L, 0L);
+        int absent = bandeRepository.ajouter(societe.getId(), 3, -1L, 1L, 0L, 0L);
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(modifie).isEqualTo(1);
+        assertThat(absent).isZero();
+        CompteurSocieteBande bande = bandeRepository.findBySocieteId(societe.getId()).get(0);
+        assertThat(bande.getEnAttente()).isEqualTo(-1L);
+        assertThat(bande.getValides()).isEqualTo(1L);
+    }
+
+    @Test
+    void testRemettreAZero() {
+        entityManager.persist(CompteurSociete.builder().societeId(societe.getId()).build());
+        entityManager.persist(bande(0, 100L));
+        entityManager.persist(bande(1, 200L));
+        entityManager.flush();
+
+        int remis = bandeRepository.remettreAZero(societe.getId());
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(remis).isEqualTo(2);
+        List<CompteurSocieteBande> bandes = bandeRepository.findBySocieteId(societe.getId());
+        assertThat(bandes).extracting(CompteurSocieteBande::getOctets).containsOnly(0L);
+    }
+
+    // Méthode utilitaire pour créer une bande de compteurs de test
+    private CompteurSocieteBande bande(int numero, long octets) {
+        return CompteurSocieteBande.builder()
+                .societeId(societe.getId())
+                .bande(numero)
+                .octets(octets)
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.CompteurSociete;
+import org.example.gestiondesdocuments.entite.Document;
+import org.example.gestiondesdocuments.entite.Societe;
+import org.example.gestiondesdocuments.entite.Utilisateur;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class CompteurSocieteRepositoryTest {
+
+    @Autowired
+    private CompteurSocieteRepository compteurRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Societe societe;
+    private Utilisateur utilisateur;
+
+    @BeforeEach
+    void setUp() {
+        societe = entityManager.persistAndFlush(Societe.builder()
+                .raisonSociale("Test Company")
+                .ice("123456789012345")
+                .emailContact("test@company.com")
+                .build());
+        utilisateur = entityManager.persistAndFlush(Utilisateur.builder()
+                .email("user@test.com")
+                .motDePasse("password")
+                .nomComplet("Test User")
+                .societe(societe)
+                .build());
+    }
+
+    @Test
+    void testRecalculerDepuisLesDocuments() {
+        // Compteurs faux, à corriger
+        entityManager.persist(CompteurSociete.builder().societeId(societe.getId()).enAttente(7L).octets(5L).build());
+        entityManager.persist(createDocument("DOC-001", Document.StatutDocument.EN_ATTENTE, 100L));
+        entityManager.persist(createDocument("DOC-002", Document.StatutDocument.VALIDE, 200L));
+        entityManager.persist(createDocument("DOC-003", Document.StatutDocument.REJETE, 300L));
+        entityManager.flush();
+
+        int recalcule = compteurRepository.recalculer(societe.getId(), LocalDateTime.now());
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(recalcule).isEqualTo(1);
+        CompteurSociete compteur = compteurRepository.findById(societe.getId()).orElseThrow();
+        assertThat(compteur.getEnAttente()).isEqualTo(1L);
+        assertThat(compteur.getValides()).isEqualTo(1L);
+        assertThat(compteur.getRejetes()).isEqualTo(1L);
+        assertThat(compteur.getOctets()).isEqualTo(600L);
+        assertThat(compteur.getDateRecalcul()).isNotNull();
+    }
+
+    @Test
+    void testRecalculerCompteUneFoisUnFichierPartage() {
+        entityManager.persist(CompteurSociete.builder().societeId(societe.getId()).build());
+        Document source = createDocument("DOC-001", Document.StatutDocument.VALIDE, 100L);
+        // Upload par empreinte : même fichier que DOC-001
+        Document partage = createDocument("DOC-002", Document.StatutDocument.EN_ATTENTE, 100L);
+        partage.setCheminFichier(source.getCheminFichier());
+        entityManager.persist(source);
+        entityManager.persist(partage);
+        entityManager.persist(createDocument("DOC-003", Document.StatutDocument.EN_ATTENTE, 300L));
+        entityManager.flush();
+
+        compteurRepository.recalculer(societe.getId(), LocalDateTime.now());
+        entityManager.clear();
+
+        // Vérifications
+        CompteurSociete compteur = compteurRepository.findById(societe.getId()).orElseThrow();
+        assertThat(compteur.getEnAttente()).isEqualTo(2L);
+        assertThat(compteur.getOctets()).isEqualTo(400L);
+    }
+
+    // Méthode utilitaire pour créer un document de test
+    private Document createDocument(String numeroPiece, Document.StatutDocument statut, long taille) {
+        return Document.builder()
+                .numeroPiece(numeroPiece)
+                .type(Document.TypeDocument.FACTURE_ACHAT)
+                .datePiece(LocalDate.of(2024, 1, 15))
+                .montant(new BigDecimal("1000.00"))
+                .cheminFichier("/uploads/" + numeroPiece + ".pdf")
+                .nomFichierOriginal(numeroPiece + ".pdf")
+                .typeFichier("application/pdf")
+                .tailleFichier(taille)
+                .statut(statut)
+                .societe(societe)
+                .uploadePar(utilisateur)
+                .exerciceComptable("2024")
+                .build();
+    }
+}
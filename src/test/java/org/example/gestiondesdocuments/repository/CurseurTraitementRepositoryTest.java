@@ -0,0 +1,48 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.CurseurTraitement;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class CurseurTraitementRepositoryTest {
+
+    @Autowired
+    private CurseurTraitementRepository curseurTraitementRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testSaveCurseur() {
+        // Sauvegarder un curseur
+        CurseurTraitement curseur = curseurTraitementRepository.save(
+                CurseurTraitement.builder().nom("migration-stockage").dernierId(42L).build());
+        entityManager.flush();
+
+        // Vérifications
+        assertThat(curseur.getNom()).isEqualTo("migration-stockage");
+        assertThat(curseur.getDateModification()).isNotNull();
+    }
+
+    @Test
+    void testAvancerCurseur() {
+        // Créer un curseur puis le faire avancer par un save sur la même clé
+        entityManager.persistAndFlush(CurseurTraitement.builder().nom("migration-stockage").build());
+        curseurTraitementRepository.save(CurseurTraitement.builder().nom("migration-stockage").dernierId(200L).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Vérifications
+        Optional<CurseurTraitement> curseur = curseurTraitementRepository.findById("migration-stockage");
+        assertThat(curseur).isPresent();
+        assertThat(curseur.get().getDernierId()).isEqualTo(200L);
+        assertThat(curseurTraitementRepository.count()).isEqualTo(1);
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.gestiondesdocuments.repository;
 
+import org.example.gestiondesdocuments.dto.Documents.DocumentFiltreRequest;
 import org.example.gestiondesdocuments.entite.Document;
 import org.example.gestiondesdocuments.entite.Societe;
 import org.example.gestiondesdocuments.entite.Utilisateur;
@@ -8,6 +9,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -184,6 +188,333 @@ class DocumentRepositoryTest {
         assertThat(count).isGreaterThanOrEqualTo(2);
     }
 
+    @Test
+    void testReserverCompareAndSet() {
+        Document document = entityManager.persistAndFlush(createTestDocument("DOC-009", 2024));
+        LocalDateTime now = LocalDateTime.now();
+
+        // Première réservation acceptée, la seconde échoue tant que la réservation court
+        int premiere = documentRepository.reserver(document.getId(), utilisateur, now.plusMinutes(15),
+                Document.StatutDocument.EN_ATTENTE, now);
+        int seconde = documentRepository.reserver(document.getId(), utilisateur, now.plusMinutes(15),
+                Document.StatutDocument.EN_ATTENTE, now);
+
+        // Vérifications
+        assertThat(premiere).isEqualTo(1);
+        assertThat(seconde).isZero();
+        assertThat(documentRepository.findReservableIds(Document.StatutDocument.EN_ATTENTE, now, PageRequest.of(0, 10)))
+                .doesNotContain(document.getId());
+    }
+
+    @Test
+    void testLibererReservationsExpirees() {
+        Document document = entityManager.persistAndFlush(createTestDocument("DOC-010", 2024));
+        LocalDateTime now = LocalDateTime.now();
+        documentRepository.reserver(document.getId(), utilisateur, now.minusMinutes(1),
+                Document.StatutDocument.EN_ATTENTE, now.minusMinutes(16));
+
+        // Une réservation expirée redevient réservable puis est purgée
+        assertThat(documentRepository.findReservableIds(Document.StatutDocument.EN_ATTENTE, now, PageRequest.of(0, 10)))
+                .contains(document.getId());
+        int liberees = documentRepository.libererExpirees(now);
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(liberees).isEqualTo(1);
+        Document recharge = documentRepository.findById(document.getId()).orElseThrow();
+        assertThat(recharge.getReservePar()).isNull();
+        assertThat(recharge.getReserveJusqua()).isNull();
+    }
+
+    @Test
+    void testLockReservablesIgnoreDocumentsTraites() {
+        Document enAttente = entityManager.persist(createTestDocument("DOC-011", 2024));
+        Document valide = createTestDocument("DOC-012", 2024);
+        valide.setStatut(Document.StatutDocument.VALIDE);
+        entityManager.persist(valide);
+        entityManager.flush();
+
+        List<Document> documents = documentRepository.lockReservables(Document.StatutDocument.EN_ATTENTE,
+                LocalDateTime.now(), PageRequest.of(0, 10));
+
+        // Vérifications
+        assertThat(documents).extracting(Document::getId).contains(enAttente.getId()).doesNotContain(valide.getId());
+    }
+
+    @Test
+    void testFindCheminsParIdCroissant() {
+        Document doc1 = entityManager.persist(createTestDocument("DOC-013", 2024));
+        Document doc2 = entityManager.persist(createTestDocument("DOC-014", 2024));
+        entityManager.flush();
+
+        // Parcourir les chemins à partir du premier document
+        List<DocumentRepository.CheminFichier> chemins = documentRepository.findChemins(doc1.getId(), PageRequest.of(0, 10));
+
+        // Vérifications
+        assertThat(chemins).extracting(DocumentRepository.CheminFichier::getId).containsExactly(doc2.getId());
+        assertThat(chemins.get(0).getCheminFichier()).isEqualTo("/uploads/DOC-014.pdf");
+    }
+
+    @Test
+    void testDeplacerCheminSiInchange() {
+        Document document = entityManager.persistAndFlush(createTestDocument("DOC-015", 2024));
+
+        // Le chemin n'est réécrit que s'il correspond encore à l'ancien
+        int deplace = documentRepository.deplacerChemin("/uploads/DOC-015.pdf", "/uploads/ab/cd/DOC-015.pdf");
+        int perime = documentRepository.deplacerChemin("/uploads/DOC-015.pdf", "/uploads/ef/01/DOC-015.pdf");
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(deplace).isEqualTo(1);
+        assertThat(perime).isZero();
+        assertThat(documentRepository.findById(document.getId()).orElseThrow().getCheminFichier())
+                .isEqualTo("/uploads/ab/cd/DOC-015.pdf");
+    }
+
+    @Test
+    void testDeplacerCheminPartage() {
+        Document original = entityManager.persist(createTestDocument("DOC-030", 2024));
+        Document copie = createTestDocument("DOC-031", 2024);
+        copie.setCheminFichier(original.getCheminFichier());
+        entityManager.persist(copie);
+        entityManager.flush();
+
+        // Tous les documents qui partagent le fichier suivent le déplacement
+        int deplaces = documentRepository.deplacerChemin("/uploads/DOC-030.pdf", "/uploads/ab/cd/DOC-030.pdf");
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(deplaces).isEqualTo(2);
+        assertThat(documentRepository.countByCheminFichier("/uploads/DOC-030.pdf")).isZero();
+        assertThat(documentRepository.countByCheminFichier("/uploads/ab/cd/DOC-030.pdf")).isEqualTo(2);
+    }
+
+    @Test
+    void testFindEmpreintes() {
+        Document sansEmpreinte = entityManager.persist(createTestDocument("DOC-032", 2024));
+        Document avecEmpreinte = createTestDocument("DOC-033", 2024);
+        avecEmpreinte.setEmpreinte("a".repeat(64));
+        entityManager.persist(avecEmpreinte);
+        entityManager.flush();
+
+        // Seuls les documents dont l'empreinte est connue alimentent l'index
+        List<DocumentRepository.EmpreinteDocument> empreintes = documentRepository.findEmpreintes(0L, PageRequest.of(0, 10));
+
+        // Vérifications
+        assertThat(empreintes).extracting(DocumentRepository.EmpreinteDocument::getId)
+                .containsExactly(avecEmpreinte.getId())
+                .doesNotContain(sansEmpreinte.getId());
+        assertThat(empreintes.get(0).getSocieteId()).isEqualTo(societe.getId());
+        assertThat(empreintes.get(0).getEmpreinte()).isEqualTo("a".repeat(64));
+        assertThat(empreintes.get(0).getTailleFichier()).isEqualTo(avecEmpreinte.getTailleFichier());
+    }
+
+    @Test
+    void testFindDoublonsParValeur() {
+        Document original = createTestDocument("DOC-034", 2024);
+        original.setFournisseur(null);
+        entityManager.persist(original);
+        Document autreMontant = createTestDocument("DOC-034", 2024);
+        autreMontant.setFournisseur(null);
+        autreMontant.setMontant(new BigDecimal("999.00"));
+        entityManager.persist(autreMontant);
+        entityManager.flush();
+
+        // Un fournisseur absent se compare comme une chaîne vide, le montant par sa valeur
+        List<Long> doublons = documentRepository.findDoublons(societe.getId(), "DOC-034", "",
+                new BigDecimal("1000"), PageRequest.of(0, 10));
+
+        // Vérifications
+        assertThat(doublons).containsExactly(original.getId());
+        assertThat(documentRepository.findDoublons(societe.getId(), "DOC-034", "Fournisseur Test",
+                new BigDecimal("1000"), PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void testCountParSocieteEtClesDoublon() {
+        Document premier = entityManager.persist(createTestDocument("DOC-035", 2024));
+        Document second = entityManager.persist(createTestDocument("DOC-036", 2024));
+        entityManager.flush();
+
+        List<DocumentRepository.DocumentsParSociete> comptes = documentRepository.countParSociete();
+        List<DocumentRepository.CleDoublon> cles = documentRepository.findClesDoublon(societe.getId(), premier.getId(),
+                PageRequest.of(0, 10));
+
+        // Vérifications
+        assertThat(comptes).hasSize(1);
+        assertThat(comptes.get(0).getSocieteId()).isEqualTo(societe.getId());
+        assertThat(comptes.get(0).getNombre()).isEqualTo(2L);
+        assertThat(cles).extracting(DocumentRepository.CleDoublon::getId).containsExactly(second.getId());
+        assertThat(cles.get(0).getNumeroPiece()).isEqualTo("DOC-036");
+        assertThat(cles.get(0).getMontant()).isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    void testListesPagineesParIdCroissant() {
+        Document premier = entityManager.persist(createTestDocument("DOC-037", 2024));
+        Document second = entityManager.persist(createTestDocument("DOC-038", 2024));
+        Document autreExercice = entityManager.persist(createTestDocument("DOC-039", 2023));
+        Document valide = createTestDocument("DOC-040", 2024);
+        valide.setStatut(Document.StatutDocument.VALIDE);
+        entityManager.persist(valide);
+        entityManager.flush();
+        Sort tri = Sort.by("id");
+
+        // Les pages sont triées par id : deux pages successives ne se recouvrent pas
+        List<Document> page0 = documentRepository.findByExerciceComptable("2024", PageRequest.of(0, 2, tri));
+        List<Document> page1 = documentRepository.findByExerciceComptable("2024", PageRequest.of(1, 2, tri));
+
+        // Vérifications
+        assertThat(page0).extracting(Document::getId).containsExactly(premier.getId(), second.getId());
+        assertThat(page1).extracting(Document::getId).containsExactly(valide.getId());
+        assertThat(documentRepository.findByStatut(Document.StatutDocument.VALIDE, Pageable.unpaged(tri)))
+                .extracting(Document::getId).containsExactly(valide.getId());
+        assertThat(documentRepository.findBySocieteId(societe.getId(), PageRequest.of(0, 10, tri)))
+                .extracting(Document::getId)
+                .containsExactly(premier.getId(), second.getId(), autreExercice.getId(), valide.getId());
+        assertThat(documentRepository.findPage(PageRequest.of(1, 3, tri)))
+                .extracting(Document::getId).containsExactly(valide.getId());
+    }
+
+    @Test
+    void testFindAArchiverExercicesClos() {
+        Document ancien = entityManager.persist(createTestDocument("DOC-016", 2020));
+        Document archive = createTestDocument("DOC-017", 2020);
+        archive.setStockageFroid(true);
+        entityManager.persist(archive);
+        Document courant = entityManager.persist(createTestDocument("DOC-018", 2024));
+        entityManager.flush();
+
+        // Seuls les exercices clos encore sur le stockage chaud sont proposés
+        List<DocumentRepository.FichierStocke> fichiers = documentRepository.findAArchiver(0L, "2022", PageRequest.of(0, 10));
+
+        // Vérifications
+        assertThat(fichiers).extracting(DocumentRepository.FichierStocke::getId)
+                .contains(ancien.getId())
+                .doesNotContain(archive.getId(), courant.getId());
+        assertThat(fichiers.get(0).getTypeFichier()).isEqualTo("application/pdf");
+    }
+
+    @Test
+    void testArchiverMarqueStockageFroid() {
+        Document document = entityManager.persistAndFlush(createTestDocument("DOC-019", 2020));
+
+        int archive = documentRepository.archiver("/uploads/DOC-019.pdf", "/cold/ab/cd/DOC-019.pdf.zst", "2022");
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(archive).isEqualTo(1);
+        Document recharge = documentRepository.findById(document.getId()).orElseThrow();
+        assertThat(recharge.getStockageFroid()).isTrue();
+        assertThat(recharge.getCheminFichier()).isEqualTo("/cold/ab/cd/DOC-019.pdf.zst");
+    }
+
+    @Test
+    void testArchiverLaisseChaudsLesExercicesOuverts() {
+        Document clos = entityManager.persist(createTestDocument("DOC-032", 2020));
+        Document ouvert = createTestDocument("DOC-033", 2024);
+        ouvert.setCheminFichier(clos.getCheminFichier());
+        entityManager.persist(ouvert);
+        entityManager.flush();
+
+        // Le fichier partagé ne passe au froid que pour l'exercice clos
+        int archive = documentRepository.archiver("/uploads/DOC-032.pdf", "/cold/ab/cd/DOC-032.pdf.zst", "2022");
+        entityManager.clear();
+
+        // Vérifications : la copie chaude reste référencée
+        assertThat(archive).isEqualTo(1);
+        assertThat(documentRepository.findById(ouvert.getId()).orElseThrow().getStockageFroid()).isNotEqualTo(Boolean.TRUE);
+        assertThat(documentRepository.countByCheminFichier("/uploads/DOC-032.pdf")).isEqualTo(1);
+        assertThat(documentRepository.lockPourPartage(clos.getId()).orElseThrow().getCheminFichier())
+                .isEqualTo("/cold/ab/cd/DOC-032.pdf.zst");
+    }
+
+    @Test
+    void testEnregistrerVerificationAdopteSommeControle() {
+        Document sansSomme = entityManager.persist(createTestDocument("DOC-020", 2024));
+        Document avecSomme = createTestDocument("DOC-021", 2024);
+        avecSomme.setSommeControle(42L);
+        entityManager.persist(avecSomme);
+        entityManager.flush();
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        // La somme n'est adoptée que si elle manque ; un chemin périmé n'est pas mis à jour
+        documentRepository.enregistrerVerification(sansSomme.getId(), "/uploads/DOC-020.pdf",
+                Document.EtatIntegrite.INTACT, 7L, maintenant);
+        documentRepository.enregistrerVerification(avecSomme.getId(), "/uploads/DOC-021.pdf",
+                Document.EtatIntegrite.CORROMPU, 7L, maintenant);
+        int perime = documentRepository.enregistrerVerification(sansSomme.getId(), "/uploads/ab/cd/DOC-020.pdf",
+                Document.EtatIntegrite.MANQUANT, null, maintenant);
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(perime).isZero();
+        Document recharge = documentRepository.findById(sansSomme.getId()).orElseThrow();
+        assertThat(recharge.getSommeControle()).isEqualTo(7L);
+        assertThat(recharge.getIntegrite()).isEqualTo(Document.EtatIntegrite.INTACT);
+        assertThat(recharge.getDateVerification()).isNotNull();
+        assertThat(documentRepository.findById(avecSomme.getId()).orElseThrow().getSommeControle()).isEqualTo(42L);
+        assertThat(documentRepository.countByIntegrite(Document.EtatIntegrite.CORROMPU)).isEqualTo(1);
+        assertThat(documentRepository.findByIntegriteInOrderById(
+                List.of(Document.EtatIntegrite.CORROMPU, Document.EtatIntegrite.MANQUANT)))
+                .extracting(Document::getId).containsExactly(avecSomme.getId());
+    }
+
+    @Test
+    void testSommeTailles() {
+        entityManager.persist(createTestDocument("DOC-022", 2024));
+        entityManager.persist(createTestDocument("DOC-023", 2024));
+        entityManager.flush();
+
+        // Vérifications
+        assertThat(documentRepository.sommeTailles()).isEqualTo(20000L);
+        assertThat(documentRepository.findAVerifier(0L, PageRequest.of(0, 10))).hasSize(2);
+    }
+
+    @Test
+    void testFindCheminsExistants() {
+        entityManager.persistAndFlush(createTestDocument("DOC-024", 2024));
+
+        // Seuls les chemins référencés par un document sont renvoyés
+        List<String> chemins = documentRepository.findCheminsExistants(
+                List.of("/uploads/DOC-024.pdf", "/uploads/orphelin.pdf"));
+
+        // Vérifications
+        assertThat(chemins).containsExactly("/uploads/DOC-024.pdf");
+    }
+
+    @Test
+    void testRechercheParPlagesDeDatesEtMontants() {
+        Document borneBasse = createTestDocument("DOC-025", 2024);
+        borneBasse.setDatePiece(LocalDate.of(2024, 7, 1));
+        borneBasse.setMontant(new BigDecimal("500.00"));
+        Document borneHaute = createTestDocument("DOC-026", 2024);
+        borneHaute.setDatePiece(LocalDate.of(2024, 9, 30));
+        borneHaute.setMontant(new BigDecimal("2500.00"));
+        Document horsPeriode = createTestDocument("DOC-027", 2024);
+        horsPeriode.setDatePiece(LocalDate.of(2024, 10, 1));
+        Document tropPetit = createTestDocument("DOC-028", 2024);
+        tropPetit.setDatePiece(LocalDate.of(2024, 8, 1));
+        tropPetit.setMontant(new BigDecimal("499.99"));
+        Document autreType = createTestDocument("DOC-029", 2024);
+        autreType.setDatePiece(LocalDate.of(2024, 8, 1));
+        autreType.setType(Document.TypeDocument.FACTURE_VENTE);
+        List.of(borneBasse, borneHaute, horsPeriode, tropPetit, autreType).forEach(entityManager::persist);
+        entityManager.flush();
+
+        DocumentFiltreRequest filtre = new DocumentFiltreRequest(Document.TypeDocument.FACTURE_ACHAT, null, null,
+                societe.getId(), LocalDate.of(2024, 7, 1), LocalDate.of(2024, 9, 30),
+                new BigDecimal("500"), new BigDecimal("2500"), null, null, null, null);
+        List<Document> documents = documentRepository.findBy(DocumentSpecifications.filtre(filtre),
+                requete -> requete.slice(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "montant")))).getContent();
+
+        // Vérifications : bornes incluses, autre type et hors plages exclus, tri par montant décroissant
+        assertThat(documents).extracting(Document::getNumeroPiece).containsExactly("DOC-026", "DOC-025");
+        // Sans critère, tous les documents sont renvoyés
+        assertThat(documentRepository.findAll(DocumentSpecifications.filtre(new DocumentFiltreRequest(
+                null, null, null, null, null, null, null, null, null, null, null, null)))).hasSize(5);
+    }
+
     // Méthode utilitaire pour créer un document de test
     private Document createTestDocument(String numeroPiece, int exercice) {
         return Document.builder()
@@ -172,6 +172,21 @@ class RoleRepositoryTest {
         assertThat(exists).isFalse();
     }
 
+    @Test
+    void testFindByNom() {
+        // Créer et sauvegarder le rôle admin
+        Role role = createTestRole(Role.TypeRole.ROLE_ADMIN, "Administration");
+        entityManager.persistAndFlush(role);
+
+        // Rechercher par nom
+        Optional<Role> foundRole = roleRepository.findByNom(Role.TypeRole.ROLE_ADMIN);
+
+        // Vérifications
+        assertThat(foundRole).isPresent();
+        assertThat(foundRole.get().getDescription()).isEqualTo("Administration");
+        assertThat(roleRepository.findByNom(Role.TypeRole.ROLE_SOCIETE)).isEmpty();
+    }
+
     // Méthode utilitaire pour créer un rôle de test
     private Role createTestRole(Role.TypeRole typeRole, String description) {
         return Role.builder()
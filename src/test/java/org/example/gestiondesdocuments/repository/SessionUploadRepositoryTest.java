@@ -0,0 +1,75 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.SessionUpload;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class SessionUploadRepositoryTest {
+
+    @Autowired
+    private SessionUploadRepository sessionUploadRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testAvancerDepuisLeDecalageCourant() {
+        entityManager.persistAndFlush(createSession("s-1", LocalDateTime.now().plusHours(1)));
+        LocalDateTime expiration = LocalDateTime.now().plusHours(2);
+
+        int premier = sessionUploadRepository.avancer("s-1", 0L, 1000L, expiration);
+        // Un second morceau envoyé au même décalage est refusé
+        int concurrent = sessionUploadRepository.avancer("s-1", 0L, 500L, expiration);
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(premier).isEqualTo(1);
+        assertThat(concurrent).isZero();
+        SessionUpload session = sessionUploadRepository.findById("s-1").orElseThrow();
+        assertThat(session.getDecalage()).isEqualTo(1000L);
+        assertThat(session.getDateCreation()).isNotNull();
+    }
+
+    @Test
+    void testFindByExpirationBefore() {
+        entityManager.persist(createSession("expiree", LocalDateTime.now().minusMinutes(1)));
+        entityManager.persist(createSession("active", LocalDateTime.now().plusHours(1)));
+        entityManager.flush();
+
+        // Vérifications
+        assertThat(sessionUploadRepository.findByExpirationBefore(LocalDateTime.now()))
+                .extracting(SessionUpload::getId).containsExactly("expiree");
+    }
+
+    @Test
+    void testResteARecevoir() {
+        assertThat(sessionUploadRepository.resteARecevoir()).isZero();
+        entityManager.persist(createSession("s-1", LocalDateTime.now().plusHours(1)));
+        entityManager.persist(createSession("s-2", LocalDateTime.now().plusHours(1)));
+        entityManager.flush();
+        sessionUploadRepository.avancer("s-1", 0L, 3000L, LocalDateTime.now().plusHours(1));
+
+        // Vérifications : 2000 octets pour s-1, 5000 pour s-2
+        assertThat(sessionUploadRepository.resteARecevoir()).isEqualTo(7000L);
+    }
+
+    // Méthode utilitaire pour créer une session de test
+    private SessionUpload createSession(String id, LocalDateTime expiration) {
+        return SessionUpload.builder()
+                .id(id)
+                .utilisateurEmail("user1@example.com")
+                .metadonnees("{}")
+                .nomFichier("releve.pdf")
+                .typeFichier("application/pdf")
+                .taille(5000L)
+                .expiration(expiration)
+                .build();
+    }
+}
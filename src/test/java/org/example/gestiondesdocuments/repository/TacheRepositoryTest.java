@@ -0,0 +1,118 @@
+package org.example.gestiondesdocuments.repository;
+
+import org.example.gestiondesdocuments.entite.Tache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class TacheRepositoryTest {
+
+    @Autowired
+    private TacheRepository tacheRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testFindExecutableIdsParPriorite() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        Tache basse = entityManager.persist(createTache(Tache.TypeTache.COPIE_DISTANTE, maintenant.minusMinutes(5)));
+        Tache haute = entityManager.persist(createTache(Tache.TypeTache.CONTROLE_ECRITURE, maintenant.minusMinutes(1)));
+        entityManager.persist(createTache(Tache.TypeTache.CONTROLE_ECRITURE, maintenant.plusMinutes(10)));
+        entityManager.flush();
+
+        List<Long> ids = tacheRepository.findExecutableIds(maintenant, PageRequest.of(0, 10));
+
+        // Vérifications : la plus prioritaire d'abord, la tâche différée n'est pas encore due
+        assertThat(ids).containsExactly(haute.getId(), basse.getId());
+    }
+
+    @Test
+    void testReserverPuisTerminer() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        Tache tache = entityManager.persistAndFlush(createTache(Tache.TypeTache.CONTROLE_ECRITURE, maintenant.minusSeconds(1)));
+
+        int premiere = tacheRepository.reserver(tache.getId(), maintenant.plusMinutes(5), maintenant);
+        int seconde = tacheRepository.reserver(tache.getId(), maintenant.plusMinutes(5), maintenant);
+        // Une réservation périmée (tentative 0) ne peut pas terminer la tâche
+        int perimee = tacheRepository.terminer(tache.getId(), 0, "INTACT", maintenant);
+        int terminee = tacheRepository.terminer(tache.getId(), 1, "INTACT", maintenant);
+        entityManager.clear();
+
+        // Vérifications
+        assertThat(premiere).isEqualTo(1);
+        assertThat(seconde).isZero();
+        assertThat(perimee).isZero();
+        assertThat(terminee).isEqualTo(1);
+        Tache rechargee = tacheRepository.findById(tache.getId()).orElseThrow();
+        assertThat(rechargee.getStatut()).isEqualTo(Tache.StatutTache.TERMINEE);
+        assertThat(rechargee.getTentatives()).isEqualTo(1);
+        assertThat(rechargee.getResultat()).isEqualTo("INTACT");
+    }
+
+    @Test
+    void testLibererExpireesEtRelancer() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        Tache aRetenter = createTache(Tache.TypeTache.CONTROLE_ECRITURE, maintenant);
+        aRetenter.setStatut(Tache.StatutTache.EN_COURS);
+        aRetenter.setTentatives(1);
+        aRetenter.setReserveJusqua(maintenant.minusMinutes(1));
+        Tache epuisee = createTache(Tache.TypeTache.COPIE_DISTANTE, maintenant);
+        epuisee.setStatut(Tache.StatutTache.EN_COURS);
+        epuisee.setTentatives(3);
+        epuisee.setReserveJusqua(maintenant.minusMinutes(1));
+        entityManager.persist(aRetenter);
+        entityManager.persist(epuisee);
+        entityManager.flush();
+
+        int liberees = tacheRepository.libererExpirees(maintenant, 3);
+        entityManager.clear();
+
+        // Vérifications : au-delà du nombre maximal de tentatives, la tâche passe en échec
+        assertThat(liberees).isEqualTo(2);
+        assertThat(tacheRepository.findById(aRetenter.getId()).orElseThrow().getStatut())
+                .isEqualTo(Tache.StatutTache.EN_ATTENTE);
+        assertThat(tacheRepository.findByStatutOrderByIdDesc(Tache.StatutTache.ECHEC, PageRequest.of(0, 10)))
+                .extracting(Tache::getId).containsExactly(epuisee.getId());
+
+        assertThat(tacheRepository.relancer(epuisee.getId(), maintenant)).isEqualTo(1);
+        entityManager.clear();
+        Tache relancee = tacheRepository.findById(epuisee.getId()).orElseThrow();
+        assertThat(relancee.getStatut()).isEqualTo(Tache.StatutTache.EN_ATTENTE);
+        assertThat(relancee.getTentatives()).isZero();
+        assertThat(tacheRepository.countByStatut(Tache.StatutTache.ECHEC)).isZero();
+    }
+
+    @Test
+    void testSupprimerTerminees() {
+        Tache tache = createTache(Tache.TypeTache.CONTROLE_ECRITURE, LocalDateTime.now());
+        tache.setStatut(Tache.StatutTache.TERMINEE);
+        entityManager.persist(tache);
+        entityManager.persist(createTache(Tache.TypeTache.CONTROLE_ECRITURE, LocalDateTime.now()));
+        entityManager.flush();
+
+        int supprimees = tacheRepository.supprimerTerminees(LocalDateTime.now().plusSeconds(1));
+
+        // Vérifications
+        assertThat(supprimees).isEqualTo(1);
+        assertThat(tacheRepository.count()).isEqualTo(1);
+    }
+
+    // Méthode utilitaire pour créer une tâche de test
+    private Tache createTache(Tache.TypeTache type, LocalDateTime executerApres) {
+        return Tache.builder()
+                .type(type)
+                .documentId(1L)
+                .priorite(type.getPriorite())
+                .executerApres(executerApres)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.gestiondesdocuments.service.imp;
+
+import org.example.gestiondesdocuments.entite.Societe;
+import org.example.gestiondesdocuments.repository.CleChiffrementRepository;
+import org.example.gestiondesdocuments.repository.SocietyRepository;
+import org.example.gestiondesdocuments.service.CleChiffrementService.CleSociete;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Clés de société créées puis relues à travers la base ; les clés sont enregistrées dans leur propre
+ * transaction, d'où des tests hors transaction.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CleChiffrementServiceImplTest {
+
+    private static final String CLE_MAITRE = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Autowired
+    private CleChiffrementRepository cleChiffrementRepository;
+
+    @Autowired
+    private SocietyRepository societyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Societe societe;
+
+    @BeforeEach
+    void setUp() {
+        societe = societyRepository.save(Societe.builder()
+                .raisonSociale("Societe Chiffree")
+                .ice("999999999999999")
+                .emailContact("chiffre@company.com")
+                .actif(true)
+                .dateCreation(LocalDateTime.now())
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleChiffrementRepository.deleteAll();
+        societyRepository.delete(societe);
+    }
+
+    @Test
+    void testCleCreeePuisRelue() {
+        CleChiffrementServiceImpl service = service(CLE_MAITRE);
+
+        CleSociete courante = service.cleCourante(societe.getId());
+
+        // Vérifications : une seule clé en base, stockée chiffrée
+        assertThat(courante.version()).isEqualTo(1);
+        assertThat(service.cleCourante(societe.getId())).isSameAs(courante);
+        assertThat(cleChiffrementRepository.count()).isEqualTo(1);
+        byte[] stockee = cleChiffrementRepository.findBySocieteIdAndVersion(societe.getId(), 1).orElseThrow().getCleChiffree();
+        assertThat(stockee).isNotEqualTo(courante.cle().getEncoded());
+
+        // Après un redémarrage, la même clé est relue avec la même clé maître
+        CleChiffrementServiceImpl redemarre = service(CLE_MAITRE);
+        assertThat(redemarre.cle(societe.getId(), 1).getEncoded()).isEqualTo(courante.cle().getEncoded());
+        assertThat(redemarre.cleCourante(societe.getId()).cle().getEncoded()).isEqualTo(courante.cle().getEncoded());
+        assertThat(cleChiffrementRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testAutreCleMaitre() {
+        service(CLE_MAITRE).cleCourante(societe.getId());
+        byte[] autre = new byte[32];
+        autre[0] = 1;
+        CleChiffrementServiceImpl service = service(Base64.getEncoder().encodeToString(autre));
+
+        // Vérifications
+        assertThatThrownBy(() -> service.cle(societe.getId(), 1))
+                .hasMessageContaining("illisible");
+        assertThatThrownBy(() -> service.cle(societe.getId(), 2))
+                .hasMessageContaining("introuvable");
+    }
+
+    @Test
+    void testDemarrageSansCleMaitre() {
+        // Vérifications : le chiffrement actif exige une clé maître de 32 octets
+        assertThatThrownBy(() -> service(""))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("CHIFFREMENT_CLE_MAITRE");
+        assertThatThrownBy(() -> service(Base64.getEncoder().encodeToString(new byte[16])))
+                .isInstanceOf(IllegalStateException.class);
+        CleChiffrementServiceImpl inactif = new CleChiffrementServiceImpl(cleChiffrementRepository, societyRepository,
+                transactionManager, false, "");
+        assertThat(inactif.estActif()).isFalse();
+    }
+
+    // Méthode utilitaire pour créer le service
+    private CleChiffrementServiceImpl service(String cleMaitre) {
+        return new CleChiffrementServiceImpl(cleChiffrementRepository, societyRepository, transactionManager, true,
+                cleMaitre);
+    }
+}
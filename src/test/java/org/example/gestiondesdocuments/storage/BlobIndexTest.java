@@ -0,0 +1,69 @@
+package org.example.gestiondesdocuments.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlobIndexTest {
+
+    @TempDir
+    Path repertoire;
+
+    @Test
+    void testEmplacementSegmentEtPosition() {
+        long emplacement = BlobIndex.emplacement(0xABCDEF, (1L << 40) - 1);
+
+        // Vérifications : 24 bits de segment, 40 bits de position
+        assertThat(BlobIndex.segment(emplacement)).isEqualTo(0xABCDEF);
+        assertThat(BlobIndex.position(emplacement)).isEqualTo((1L << 40) - 1);
+    }
+
+    @Test
+    void testAllouerEcrireSupprimer() throws IOException {
+        Path fichier = repertoire.resolve("index.dat");
+        long id;
+        long autre;
+        try (BlobIndex index = new BlobIndex(fichier)) {
+            assertThat(index.reconstruit()).isTrue();
+            id = index.allouer();
+            autre = index.allouer();
+            index.ecrire(id, BlobIndex.emplacement(1, 24), 100);
+            index.ecrire(autre, BlobIndex.emplacement(2, 0), 50);
+            index.supprimer(autre);
+
+            // Vérifications : une suppression garde l'emplacement d'origine
+            assertThat(index.emplacement(id)).isEqualTo(BlobIndex.emplacement(1, 24));
+            assertThat(index.longueur(id)).isEqualTo(100);
+            assertThat(index.emplacement(autre)).isEqualTo(BlobIndex.emplacement(2, 0));
+            assertThat(index.longueur(autre)).isEqualTo(-1);
+            // Ids jamais alloués
+            assertThat(index.emplacement(0)).isZero();
+            assertThat(index.longueur(autre + 1)).isEqualTo(-1);
+        }
+
+        // Réouverture : l'index est repris tel quel
+        try (BlobIndex index = new BlobIndex(fichier)) {
+            assertThat(index.reconstruit()).isFalse();
+            assertThat(index.prochainId()).isEqualTo(autre + 1);
+            assertThat(index.longueur(id)).isEqualTo(100);
+            assertThat(index.longueur(autre)).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void testIndexIllisibleRepartVide() throws IOException {
+        Path fichier = repertoire.resolve("index.dat");
+        Files.write(fichier, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        try (BlobIndex index = new BlobIndex(fichier)) {
+            // Vérifications : le stockage doit alors relire tous les segments
+            assertThat(index.reconstruit()).isTrue();
+            assertThat(index.prochainId()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.gestiondesdocuments.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColdStorageTest {
+
+    private static final SecretKey CLE = new SecretKeySpec(new byte[32], "AES");
+
+    @TempDir
+    Path repertoire;
+
+    @Test
+    void testArchiverChiffreCompresseSousChiffrement() throws IOException {
+        ColdStorage coldStorage = nouveauColdStorage();
+        byte[] clair = "ligne de facture répétée, montant 1200.00 MAD\n".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        Path stocke = chiffrer(clair, "facture.pdf");
+        byte[] octetsStockes = Files.readAllBytes(stocke);
+
+        Path cible = coldStorage.archiverChiffre(contenu(stocke), "facture.pdf");
+
+        // Vérifications : compressé, toujours chiffré, et relu à l'octet près
+        assertThat(cible.getFileName().toString()).isEqualTo("facture.pdf" + ColdStorage.EXTENSION_ZSTD_CHIFFRE);
+        assertThat(ColdStorage.estCompresse(cible)).isTrue();
+        assertThat(Files.size(cible)).isLessThan(octetsStockes.length / 10);
+        assertThat(FichierChiffre.lireEnTete(new RegionFichier(cible, 0, Files.size(cible)))).isNotNull();
+        try (InputStream in = coldStorage.ouvrir(cible)) {
+            assertThat(in.readAllBytes()).isEqualTo(octetsStockes);
+        }
+        RegionFichier rappele = coldStorage.localiser(cible);
+        try (InputStream in = rappele.ouvrir()) {
+            assertThat(in.readAllBytes()).isEqualTo(octetsStockes);
+        }
+        // Le cache ne contient que du chiffré, lisible avec l'en-tête d'origine
+        ContenuDocument relu = new ContenuDocument(rappele, FichierChiffre.lireEnTete(rappele), CLE);
+        try (InputStream in = relu.ouvrir(0, relu.taille())) {
+            assertThat(in.readAllBytes()).isEqualTo(clair);
+        }
+    }
+
+    @Test
+    void testArchiverChiffreIncompressibleCopieTelQuel() throws IOException {
+        ColdStorage coldStorage = nouveauColdStorage();
+        byte[] clair = new byte[50_000];
+        new SecureRandom().nextBytes(clair);
+        Path stocke = chiffrer(clair, "scan.bin");
+
+        Path cible = coldStorage.archiverChiffre(contenu(stocke), "scan.bin");
+
+        // Vérifications
+        assertThat(ColdStorage.estCompresse(cible)).isFalse();
+        assertThat(Files.readAllBytes(cible)).isEqualTo(Files.readAllBytes(stocke));
+        assertThat(coldStorage.localiser(cible).fichier()).isEqualTo(cible);
+    }
+
+    // Méthodes utilitaires
+    private ColdStorage nouveauColdStorage() throws IOException {
+        return new ColdStorage(repertoire.resolve("froid"), repertoire.resolve("cache"), 3, 1024 * 1024,
+                (societeId, version) -> CLE);
+    }
+
+    private Path chiffrer(byte[] clair, String nom) throws IOException {
+        Path fichier = repertoire.resolve(nom);
+        try (InputStream chiffre = FichierChiffre.chiffrer(new ByteArrayInputStream(clair), CLE, 7, 1, 4096)) {
+            Files.copy(chiffre, fichier);
+        }
+        return fichier;
+    }
+
+    private static ContenuDocument contenu(Path fichier) throws IOException {
+        RegionFichier region = new RegionFichier(fichier, 0, Files.size(fichier));
+        return new ContenuDocument(region, FichierChiffre.lireEnTete(region), CLE);
+    }
+}
@@ -0,0 +1,188 @@
+package org.example.gestiondesdocuments.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FichierChiffreTest {
+
+    private static final int BLOC = 1024;
+    private static final SecretKey CLE = new SecretKeySpec(new byte[32], "AES");
+
+    @TempDir
+    Path repertoire;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, BLOC - 1, BLOC, BLOC + 1, 3 * BLOC, 3 * BLOC + 17})
+    void testAllerRetour(int taille) throws IOException {
+        byte[] clair = aleatoire(taille);
+
+        Path fichier = chiffrer(clair);
+        ContenuDocument contenu = contenu(fichier);
+
+        // Vérifications : tailles exactes, y compris en limite de bloc
+        assertThat(Files.size(fichier)).isEqualTo(FichierChiffre.tailleChiffree(taille, BLOC));
+        assertThat(contenu.taille()).isEqualTo(taille);
+        assertThat(contenu.enTete().societeId()).isEqualTo(7);
+        assertThat(contenu.enTete().versionCle()).isEqualTo(2);
+        assertThat(lire(contenu, 0, taille)).isEqualTo(clair);
+    }
+
+    @Test
+    void testFichierVide() throws IOException {
+        Path fichier = chiffrer(new byte[0]);
+        ContenuDocument contenu = contenu(fichier);
+
+        // Vérifications : un seul bloc vide, authentifié par son tag
+        assertThat(Files.size(fichier)).isEqualTo(FichierChiffre.TAILLE_EN_TETE + FichierChiffre.TAILLE_TAG);
+        assertThat(contenu.estChiffre()).isTrue();
+        assertThat(contenu.taille()).isZero();
+        assertThat(lire(contenu, 0, Long.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void testLecturePlage() throws IOException {
+        byte[] clair = aleatoire(3 * BLOC + 17);
+        ContenuDocument contenu = contenu(chiffrer(clair));
+
+        // Vérifications : plages à cheval sur les blocs, en fin de fichier et au-delà
+        assertThat(lire(contenu, BLOC - 10, 20)).isEqualTo(Arrays.copyOfRange(clair, BLOC - 10, BLOC + 10));
+        assertThat(lire(contenu, 2 * BLOC, BLOC)).isEqualTo(Arrays.copyOfRange(clair, 2 * BLOC, 3 * BLOC));
+        assertThat(lire(contenu, 3 * BLOC + 10, 100)).isEqualTo(Arrays.copyOfRange(clair, 3 * BLOC + 10, clair.length));
+        assertThat(lire(contenu, clair.length, 10)).isEmpty();
+    }
+
+    @Test
+    void testChiffrementEnEcriture() throws IOException {
+        for (int taille : new int[]{0, BLOC, 2 * BLOC + 5}) {
+            byte[] clair = aleatoire(taille);
+            Path fichier = repertoire.resolve("ecrit-" + taille);
+            try (OutputStream out = FichierChiffre.chiffrerVers(Files.newOutputStream(fichier), CLE, 7, 2, BLOC)) {
+                out.write(clair);
+            }
+
+            // Vérifications : même format que le chiffrement en lecture
+            assertThat(Files.size(fichier)).isEqualTo(FichierChiffre.tailleChiffree(taille, BLOC));
+            ContenuDocument contenu = contenu(fichier);
+            assertThat(lire(contenu, 0, taille)).isEqualTo(clair);
+        }
+    }
+
+    @Test
+    void testBlocAltere() throws IOException {
+        byte[] clair = aleatoire(3 * BLOC);
+        Path fichier = chiffrer(clair);
+        // One bit flipped in the second block
+        long position = FichierChiffre.TAILLE_EN_TETE + (BLOC + FichierChiffre.TAILLE_TAG) + 100;
+        byte[] octets = Files.readAllBytes(fichier);
+        octets[(int) position] ^= 1;
+        Files.write(fichier, octets);
+        ContenuDocument contenu = contenu(fichier);
+
+        // Vérifications : le tag GCM refuse le bloc, les autres restent lisibles
+        assertThatThrownBy(() -> lire(contenu, 0, clair.length))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Bloc 1")
+                .hasMessageContaining("altéré");
+        assertThat(lire(contenu, 0, BLOC)).isEqualTo(Arrays.copyOf(clair, BLOC));
+        assertThat(lire(contenu, 2 * BLOC, BLOC)).isEqualTo(Arrays.copyOfRange(clair, 2 * BLOC, 3 * BLOC));
+    }
+
+    @Test
+    void testMauvaiseCle() throws IOException {
+        Path fichier = chiffrer(aleatoire(100));
+        RegionFichier region = new RegionFichier(fichier, 0, Files.size(fichier));
+        SecretKey autre = new SecretKeySpec(aleatoire(32), "AES");
+        ContenuDocument contenu = new ContenuDocument(region, FichierChiffre.lireEnTete(region), autre);
+
+        // Vérifications
+        assertThatThrownBy(() -> lire(contenu, 0, 100)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testDernierBlocTronque() throws IOException {
+        byte[] clair = aleatoire(2 * BLOC + 500);
+        Path fichier = chiffrer(clair);
+        tronquer(fichier, 100);
+        ContenuDocument contenu = contenu(fichier);
+
+        // Vérifications : le bloc final raccourci ne s'authentifie plus
+        assertThatThrownBy(() -> lire(contenu, 0, Long.MAX_VALUE)).isInstanceOf(IOException.class);
+        assertThat(lire(contenu, 0, BLOC)).isEqualTo(Arrays.copyOf(clair, BLOC));
+    }
+
+    @Test
+    void testBlocFinalSupprime() throws IOException {
+        byte[] clair = aleatoire(3 * BLOC);
+        Path fichier = chiffrer(clair);
+        // Exactly one whole block and its tag removed: what is left still looks well-formed
+        tronquer(fichier, BLOC + FichierChiffre.TAILLE_TAG);
+        ContenuDocument contenu = contenu(fichier);
+
+        // Vérifications : le bloc devenu dernier n'a pas été chiffré comme tel
+        assertThat(contenu.taille()).isEqualTo(2 * BLOC);
+        assertThatThrownBy(() -> lire(contenu, BLOC, BLOC))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("altéré");
+    }
+
+    @Test
+    void testFichierEnClair() throws IOException {
+        Path fichier = repertoire.resolve("clair.txt");
+        Files.write(fichier, aleatoire(200));
+
+        // Vérifications : pas de magic, pas d'en-tête
+        assertThat(FichierChiffre.lireEnTete(new RegionFichier(fichier, 0, 200))).isNull();
+        assertThat(FichierChiffre.lireEnTete(new RegionFichier(fichier, 0, 20))).isNull();
+    }
+
+    // Méthodes utilitaires
+    private Path chiffrer(byte[] clair) throws IOException {
+        Path fichier = Files.createTempFile(repertoire, "chiffre", ".bin");
+        try (InputStream chiffre = FichierChiffre.chiffrer(new ByteArrayInputStream(clair), CLE, 7, 2, BLOC)) {
+            Files.copy(chiffre, fichier, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return fichier;
+    }
+
+    private static ContenuDocument contenu(Path fichier) throws IOException {
+        RegionFichier region = new RegionFichier(fichier, 0, Files.size(fichier));
+        return new ContenuDocument(region, FichierChiffre.lireEnTete(region), CLE);
+    }
+
+    private static byte[] lire(ContenuDocument contenu, long debut, long longueur) throws IOException {
+        try (InputStream in = contenu.ouvrir(debut, longueur)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] aleatoire(int taille) {
+        byte[] octets = new byte[taille];
+        new Random(taille).nextBytes(octets);
+        return octets;
+    }
+
+    private static void tronquer(Path fichier, long octetsRetires) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - octetsRetires);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.gestiondesdocuments.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PackedBlobStoreTest {
+
+    private static final long SEGMENT = 1024 * 1024;
+
+    @TempDir
+    Path repertoire;
+
+    @Test
+    void testAjouterLireSupprimer() throws IOException {
+        long premier;
+        long second;
+        try (PackedBlobStore store = new PackedBlobStore(repertoire, SEGMENT, false)) {
+            premier = ajouter(store, "premier contenu");
+            second = ajouter(store, "second contenu, un peu plus long");
+
+            // Vérifications
+            assertThat(premier).isNotEqualTo(second);
+            assertThat(lire(store, premier)).isEqualTo("premier contenu");
+            assertThat(lire(store, second)).isEqualTo("second contenu, un peu plus long");
+
+            assertThat(store.contient(premier)).isTrue();
+            store.supprimer(premier);
+            assertThat(store.contient(premier)).isFalse();
+            assertThat(store.contient(second + 1)).isFalse();
+            assertThatThrownBy(() -> store.localiser(premier)).isInstanceOf(RuntimeException.class);
+            // Une seconde suppression est sans effet
+            store.supprimer(premier);
+        }
+
+        // La suppression survit à la réouverture
+        try (PackedBlobStore store = new PackedBlobStore(repertoire, SEGMENT, false)) {
+            assertThatThrownBy(() -> store.localiser(premier)).isInstanceOf(RuntimeException.class);
+            assertThat(lire(store, second)).isEqualTo("second contenu, un peu plus long");
+        }
+    }
+
+    @Test
+    void testTailleAnnonceeIncorrecte() throws IOException {
+        try (PackedBlobStore store = new PackedBlobStore(repertoire, SEGMENT, false)) {
+            assertThatThrownBy(() -> store.ajouter(flux("abc"), 10)).isInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    void testCompactage() throws IOException {
+        // 64 octets par enregistrement (24 d'en-tête) : trois par segment de 200 octets
+        String a = "A".repeat(40);
+        String b = "B".repeat(40);
+        String c = "C".repeat(40);
+        String d = "D".repeat(40);
+        long idA;
+        long idB;
+        long idC;
+        long idD;
+        try (PackedBlobStore store = new PackedBlobStore(repertoire, 200, false)) {
+            idA = ajouter(store, a);
+            idB = ajouter(store, b);
+            idC = ajouter(store, c);
+            idD = ajouter(store, d);
+            store.supprimer(idA);
+            store.supprimer(idB);
+
+            // Le segment 1 n'a plus qu'un tiers de contenu vivant ; le segment actif n'est jamais proposé
+            assertThat(store.segmentsACompacter(0.5)).containsExactly(1);
+
+            store.compacter(1);
+            store.effacerSegment(1);
+
+            // Vérifications : C a été recopié hors du segment 1, qui n'existe plus
+            assertThat(Files.exists(repertoire.resolve("segment-00000001.dat"))).isFalse();
+            assertThat(store.localiser(idC).fichier().getFileName().toString()).isNotEqualTo("segment-00000001.dat");
+            assertThat(lire(store, idC)).isEqualTo(c);
+            assertThat(lire(store, idD)).isEqualTo(d);
+        }
+
+        // Avec l'index puis sans lui, A et B restent supprimés et C lisible
+        try (PackedBlobStore store = new PackedBlobStore(repertoire, 200, false)) {
+            assertThat(lire(store, idC)).isEqualTo(c);
+            assertThatThrownBy(() -> store.localiser(idA)).isInstanceOf(RuntimeException.class);
+        }
+        Files.delete(repertoire.resolve("index.dat"));
+        try (PackedBlobStore store = new PackedBlobStore(repertoire, 200, false)) {
+            assertThat(lire(store, idC)).isEqualTo(c);
+            assertThat(lire(store, idD)).isEqualTo(d);
+            assertThatThrownBy(() -> store.localiser(idA)).isInstanceOf(RuntimeException.class);
+            assertThatThrownBy(() -> store.localiser(idB)).isInstanceOf(RuntimeException.class);
+        }
+    }
+
+    @Test
+    void testRecuperationApresAjoutInterrompu() throws IOException {
+        long complet;
+        long interrompu;
+        try (PackedBlobStore store = new PackedBlobStore(repertoire, SEGMENT, false)) {
+            complet = ajouter(store, "enregistrement complet");
+            interrompu = ajouter(store, "enregistrement dont la fin n'a jamais atteint le disque");
+        }
+        // Arrêt brutal : l'index projeté a été écrit, la fin du segment est perdue au milieu du contenu
+        tronquer(repertoire.resolve("segment-00000001.dat"), 10);
+
+        try (PackedBlobStore store = new PackedBlobStore(repertoire, SEGMENT, false)) {
+            // Vérifications : l'id perdu ne se résout plus, même quand un autre blob prend sa position
+            assertThat(lire(store, complet)).isEqualTo("enregistrement complet");
+            assertThatThrownBy(() -> store.localiser(interrompu)).isInstanceOf(RuntimeException.class);
+
+            long suivant = ajouter(store, "ajouté après la reprise");
+            assertThat(suivant).isGreaterThan(interrompu);
+            assertThat(lire(store, suivant)).isEqualTo("ajouté après la reprise");
+            assertThatThrownBy(() -> store.localiser(interrompu)).isInstanceOf(RuntimeException.class);
+        }
+    }
+
+    @Test
+    void testReconstructionIndexApresAjoutInterrompu() throws IOException {
+        long complet;
+        long interrompu;
+        try (PackedBlobStore store = new PackedBlobStore(repertoire, SEGMENT, false)) {
+            complet = ajouter(store, "enregistrement complet");
+            interrompu = ajouter(store, "enregistrement tronqué");
+        }
+        Files.delete(repertoire.resolve("index.dat"));
+        tronquer(repertoire.resolve("segment-00000001.dat"), 5);
+
+        try (PackedBlobStore store = new PackedBlobStore(repertoire, SEGMENT, false)) {
+            // Vérifications : l'index est reconstruit depuis les enregistrements complets
+            assertThat(lire(store, complet)).isEqualTo("enregistrement complet");
+            assertThatThrownBy(() -> store.localiser(interrompu)).isInstanceOf(RuntimeException.class);
+            long suivant = ajouter(store, "nouveau");
+            assertThat(lire(store, suivant)).isEqualTo("nouveau");
+        }
+    }
+
+    // Méthodes utilitaires
+    private static long ajouter(PackedBlobStore store, String contenu) throws IOException {
+        byte[] octets = contenu.getBytes(StandardCharsets.UTF_8);
+        return store.ajouter(new ByteArrayInputStream(octets), octets.length);
+    }
+
+    private static InputStream flux(String contenu) {
+        return new ByteArrayInputStream(contenu.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String lire(PackedBlobStore store, long id) throws IOException {
+        try (InputStream in = store.localiser(id).ouvrir()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void tronquer(Path fichier, long octetsRetires) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - octetsRetires);
+        }
+    }
+}